@@ -39,5 +39,11 @@ public enum CursorStreamingMode {
     /** Advanced. Transfer data in batches sized in between small and large */
     MEDIUM,
     /** Advanced. Transfer data in batches large enough to be, in a high-concurrency environment, nearly as efficient as possible */
-    LARGE
+    LARGE,
+    /**
+     * The cursor starts with small batches and grows them while the client keeps consuming records, so that scans
+     * that stop after a few records and scans that read everything are both efficient. A scan with a row limit that
+     * fits in a single small batch reads exactly that many rows.
+     */
+    ADAPTIVE
 }
@@ -75,9 +75,13 @@ public class ExecuteProperties {
 
     private final CursorStreamingMode defaultCursorStreamingMode;
 
+    // whether cursors record a profile of their work from when they are created
+    private final boolean profiling;
+
     @SuppressWarnings("java:S107")
     private ExecuteProperties(int skip, int rowLimit, @Nonnull IsolationLevel isolationLevel, long timeLimit,
-                              @Nonnull ExecuteState state, boolean failOnScanLimitReached, @Nonnull CursorStreamingMode defaultCursorStreamingMode, boolean isDryRun) {
+                              @Nonnull ExecuteState state, boolean failOnScanLimitReached, @Nonnull CursorStreamingMode defaultCursorStreamingMode, boolean isDryRun,
+                              boolean profiling) {
         this.skip = skip;
         this.rowLimit = rowLimit;
         this.isolationLevel = isolationLevel;
@@ -86,6 +90,7 @@ public class ExecuteProperties {
         this.failOnScanLimitReached = failOnScanLimitReached;
         this.defaultCursorStreamingMode = defaultCursorStreamingMode;
         this.isDryRun = isDryRun;
+        this.profiling = profiling;
     }
 
     @Nonnull
@@ -102,7 +107,7 @@ public class ExecuteProperties {
         if (skip == this.skip) {
             return this;
         }
-        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     public boolean isDryRun() {
@@ -114,7 +119,7 @@ public class ExecuteProperties {
         if (isDryRun == this.isDryRun) {
             return this;
         }
-        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
 
@@ -137,7 +142,7 @@ public class ExecuteProperties {
         if (newLimit == this.rowLimit) {
             return this;
         }
-        return copy(skip, newLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, newLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -184,7 +189,7 @@ public class ExecuteProperties {
      */
     @Nonnull
     public ExecuteProperties setState(@Nonnull ExecuteState newState) {
-        return copy(skip, rowLimit, timeLimit, isolationLevel, newState, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, newState, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -193,7 +198,7 @@ public class ExecuteProperties {
      */
     @Nonnull
     public ExecuteProperties clearState() {
-        return copy(skip, rowLimit, timeLimit, isolationLevel, new ExecuteState(), failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, new ExecuteState(), failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -209,7 +214,7 @@ public class ExecuteProperties {
         if (failOnScanLimitReached == this.failOnScanLimitReached) {
             return this;
         }
-        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     @Nonnull
@@ -217,7 +222,7 @@ public class ExecuteProperties {
         if (getReturnedRowLimit() == ReadTransaction.ROW_LIMIT_UNLIMITED) {
             return this;
         }
-        return copy(skip, ReadTransaction.ROW_LIMIT_UNLIMITED, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, ReadTransaction.ROW_LIMIT_UNLIMITED, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -229,7 +234,7 @@ public class ExecuteProperties {
         if (getTimeLimit() == UNLIMITED_TIME && getReturnedRowLimit() == ReadTransaction.ROW_LIMIT_UNLIMITED) {
             return this;
         }
-        return copy(skip, ReadTransaction.ROW_LIMIT_UNLIMITED, UNLIMITED_TIME, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, ReadTransaction.ROW_LIMIT_UNLIMITED, UNLIMITED_TIME, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -241,7 +246,7 @@ public class ExecuteProperties {
         if (skip == 0 && rowLimit == ReadTransaction.ROW_LIMIT_UNLIMITED) {
             return this;
         }
-        return copy(0, ReadTransaction.ROW_LIMIT_UNLIMITED, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(0, ReadTransaction.ROW_LIMIT_UNLIMITED, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -254,7 +259,7 @@ public class ExecuteProperties {
             return this;
         }
         return copy(0, rowLimit == ReadTransaction.ROW_LIMIT_UNLIMITED ? ReadTransaction.ROW_LIMIT_UNLIMITED : rowLimit + skip,
-                timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+                timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -305,7 +310,35 @@ public class ExecuteProperties {
         if (defaultCursorStreamingMode == this.defaultCursorStreamingMode) {
             return this;
         }
-        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
+    }
+
+    /**
+     * Get whether the cursors that execute a plan with these properties record a {@link com.apple.foundationdb.record.cursors.CursorProfile}
+     * of their work. Unlike {@link com.apple.foundationdb.record.cursors.CursorProfiler#enable}, which only reaches the
+     * cursors that already exist, this also profiles cursors that are only created later, such as the inner cursors
+     * of a nested loop join.
+     * @return {@code true} if execution is profiled
+     * @see com.apple.foundationdb.record.cursors.CursorProfiler
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Set whether the cursors that execute a plan with these properties record a profile of their work.
+     * @param profiling whether execution is profiled
+     * @return a new <code>ExecuteProperties</code> with the given profiling setting
+     * @see #isProfiling()
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public ExecuteProperties setProfiling(boolean profiling) {
+        if (profiling == this.profiling) {
+            return this;
+        }
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -315,7 +348,7 @@ public class ExecuteProperties {
      */
     @Nonnull
     public ExecuteProperties resetState() {
-        return copy(skip, rowLimit, timeLimit, isolationLevel, state.reset(), failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+        return copy(skip, rowLimit, timeLimit, isolationLevel, state.reset(), failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     /**
@@ -328,13 +361,15 @@ public class ExecuteProperties {
      * @param failOnScanLimitReached fail on scan limit reached
      * @param defaultCursorStreamingMode default streaming mode
      * @param isDryRun whether it is dry run
+     * @param profiling whether execution is profiled
      * @return a new properties with the given fields changed and other fields copied from this properties
      */
     @SuppressWarnings("java:S107")
     @Nonnull
     protected ExecuteProperties copy(int skip, int rowLimit, long timeLimit, @Nonnull IsolationLevel isolationLevel,
-                                     @Nonnull ExecuteState state, boolean failOnScanLimitReached, CursorStreamingMode defaultCursorStreamingMode, boolean isDryRun) {
-        return new ExecuteProperties(skip, rowLimit, isolationLevel, timeLimit, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+                                     @Nonnull ExecuteState state, boolean failOnScanLimitReached, CursorStreamingMode defaultCursorStreamingMode, boolean isDryRun,
+                                     boolean profiling) {
+        return new ExecuteProperties(skip, rowLimit, isolationLevel, timeLimit, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
     }
 
     @Nonnull
@@ -388,6 +423,9 @@ public class ExecuteProperties {
         if (failOnScanLimitReached) {
             components.add("fail on scan limit");
         }
+        if (profiling) {
+            components.add("profiling");
+        }
         components.add(state.toString());
         return String.format("ExecuteProperties(%s)", String.join(", ", components));
     }
@@ -409,6 +447,7 @@ public class ExecuteProperties {
         private boolean failOnScanLimitReached = false;
         private boolean isDryRun = false;
         private CursorStreamingMode defaultCursorStreamingMode = CursorStreamingMode.ITERATOR;
+        private boolean profiling = false;
 
         private Builder() {
         }
@@ -422,6 +461,7 @@ public class ExecuteProperties {
             this.failOnScanLimitReached = executeProperties.failOnScanLimitReached;
             this.defaultCursorStreamingMode = executeProperties.defaultCursorStreamingMode;
             this.isDryRun = executeProperties.isDryRun;
+            this.profiling = executeProperties.profiling;
         }
 
         @Nonnull
@@ -593,6 +633,19 @@ public class ExecuteProperties {
             return this;
         }
 
+        /**
+         * Set whether the cursors that execute a plan record a profile of their work.
+         * @param profiling whether execution is profiled
+         * @return an updated builder
+         * @see ExecuteProperties#isProfiling()
+         */
+        @API(API.Status.EXPERIMENTAL)
+        @Nonnull
+        public Builder setProfiling(boolean profiling) {
+            this.profiling = profiling;
+            return this;
+        }
+
         @Nonnull
         public ExecuteProperties build() {
             final ExecuteState state;
@@ -607,7 +660,7 @@ public class ExecuteProperties {
             } else {
                 state = new ExecuteState(RecordScanLimiterFactory.enforce(scannedRecordsLimit), ByteScanLimiterFactory.enforce(scannedBytesLimit));
             }
-            return new ExecuteProperties(skip, rowLimit, isolationLevel, timeLimit, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun);
+            return new ExecuteProperties(skip, rowLimit, isolationLevel, timeLimit, state, failOnScanLimitReached, defaultCursorStreamingMode, isDryRun, profiling);
         }
     }
 }
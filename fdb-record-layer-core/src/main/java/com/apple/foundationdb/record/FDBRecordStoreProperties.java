@@ -63,6 +63,116 @@ public final class FDBRecordStoreProperties {
     public static final RecordLayerPropertyKey<Boolean> LOAD_RECORDS_VIA_GETS = RecordLayerPropertyKey.booleanPropertyKey(
             "com.apple.foundationdb.record.recordstore.load_records_via_gets", false);
 
+    /**
+     * The number of chunks of a split record to read with each of several concurrent range reads when
+     * {@linkplain com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore#loadRecord(Tuple) loading a record}.
+     * Records larger than the {@linkplain com.apple.foundationdb.record.provider.foundationdb.SplitHelper#SPLIT_RECORD_SIZE split size}
+     * are stored across several contiguous keys. By default, these are read with a single range read, which
+     * returns the chunks in a series of batches. If this is positive, the first chunk and the last key of the
+     * record are instead read alongside one another, and the remaining chunks are then read as concurrent range reads of
+     * this many chunks each, which can reduce the latency of loading very large records. A value of {@code 0}
+     * disables this. This only affects loading individual records from stores whose meta-data split long records.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.recordstore.load_split_records_parallel_read_chunks", 0);
+
+    /**
+     * The maximum number of deserialized records to keep in a cache for each
+     * {@link com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext}. Records that are
+     * {@linkplain com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore#loadRecord(Tuple) loaded} or
+     * {@linkplain com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore#saveRecord(Message) saved} are
+     * added to the cache, and a later load of the same record from the same record store within the transaction
+     * returns the cached record without reading or deserializing it again. Records are removed when they are deleted.
+     * A value of {@code 0} disables the cache.
+     *
+     * <p>
+     * When this is enabled, loading a record that was saved in the same transaction returns the message object that
+     * was saved, rather than the result of deserializing it, so its Java class may differ from that of records read
+     * from the database. Changes to records made other than through a record store in the same transaction,
+     * such as by clearing keys directly, are not seen by the cache.
+     * </p>
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> TRANSACTION_RECORD_CACHE_SIZE = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.recordstore.transaction_record_cache_size", 0);
+
+    /**
+     * The maximum number of children of a union query plan to read from at the same time. A value of {@code 0}, the
+     * default, reads from all of them. For an unordered union, children after this many are not opened until earlier
+     * ones are exhausted. For an ordered union, including an {@code IN} union, all children are opened, but only this
+     * many are advanced concurrently. Setting this keeps the number of concurrent range reads and buffered results
+     * of unions with many children, such as those for a long {@code IN} list, bounded.
+     *
+     * @see com.apple.foundationdb.record.provider.foundationdb.cursors.UnorderedUnionCursor#create(java.util.List, byte[], com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer, int)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> UNION_MAX_CONCURRENT_CHILDREN = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.query.union_max_concurrent_children", 0);
+
+    /**
+     * Whether {@link com.apple.foundationdb.record.query.plan.TextScan}s that check for all of several token prefixes
+     * should use Bloom filters that grow with the number of entries read. The filters then start out small, sized for
+     * at most {@link com.apple.foundationdb.record.provider.foundationdb.cursors.ProbableIntersectionCursor#DEFAULT_INITIAL_EXPECTED_RESULTS}
+     * records rather than the comparison's expected number, and the continuation only grows as needed, while the false
+     * positive rate stays bounded however many entries are read. Continuations already started with the other kind of
+     * filter keep using it, but continuations produced with this enabled cannot be read by versions before it was added.
+     *
+     * @see com.apple.foundationdb.record.provider.foundationdb.cursors.ProbableIntersectionCursor#createScalable
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Boolean> TEXT_SCAN_SCALABLE_BLOOM_FILTER = RecordLayerPropertyKey.booleanPropertyKey(
+            "com.apple.foundationdb.record.query.text_scan_scalable_bloom_filter", false);
+
+    /**
+     * The maximum total serialized size of the records that a sort with a row limit buffers before cutting them back
+     * to just those that might be returned. A value of {@code 0}, the default, only bounds the buffer by the number of
+     * records, which is twice the number that might be returned. Setting this lowers the memory used by sorts of large
+     * records, at the cost of sorting the buffer more often.
+     *
+     * @see com.apple.foundationdb.record.sorting.MemoryTopKSorter
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Long> SORT_TOP_K_MAX_BUFFERED_BYTES = RecordLayerPropertyKey.longPropertyKey(
+            "com.apple.foundationdb.record.query.sort_top_k_max_buffered_bytes", 0L);
+
+    /**
+     * The number of bytes of serialized records that a sort too large to keep in memory collects off-heap before
+     * sorting them and saving them to a file. A value of {@code 0}, the default, instead collects a fixed number of
+     * deserialized records on the heap. Setting this makes the memory used by such sorts predictable, whatever the
+     * size of the records, and lets each file hold many more records.
+     *
+     * @see com.apple.foundationdb.record.sorting.FileSortAdapter#getSortBufferBytes
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Long> FILE_SORT_BUFFER_BYTES = RecordLayerPropertyKey.longPropertyKey(
+            "com.apple.foundationdb.record.query.file_sort_buffer_bytes", 0L);
+
+    /**
+     * Whether sorts too large to keep in memory should sort and save each file in the background while the records
+     * for the next one are loaded, and read files through memory mappings when merging them where possible. This uses
+     * another thread from the executor and, while a file is being saved, memory for the records of two files.
+     *
+     * @see com.apple.foundationdb.record.sorting.FileSortAdapter#isParallelFileSort
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Boolean> FILE_SORT_PARALLEL = RecordLayerPropertyKey.booleanPropertyKey(
+            "com.apple.foundationdb.record.query.file_sort_parallel", false);
+
+    /**
+     * A local directory in which sorts too large to keep in memory should keep their files between transactions, so
+     * that the continuation of a sorted query resumes from the sorted file instead of sorting its input again. The
+     * files of a sort are deleted once all of its records have been returned. Those of queries that are not continued
+     * to the end need to be cleaned up by the application. An empty value, the default, deletes the files when the
+     * cursor is closed.
+     *
+     * @see com.apple.foundationdb.record.sorting.FileSortAdapter#getSessionDirectory
+     * @see com.apple.foundationdb.record.sorting.FileSortCursor#deleteExpiredSessions
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<String> FILE_SORT_SESSION_DIRECTORY = RecordLayerPropertyKey.stringPropertyKey(
+            "com.apple.foundationdb.record.query.file_sort_session_directory", "");
+
     private FDBRecordStoreProperties() {
         throw new RecordCoreException("should not instantiate class of static prop");
     }
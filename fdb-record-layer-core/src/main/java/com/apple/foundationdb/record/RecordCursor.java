@@ -247,6 +247,36 @@ public interface RecordCursor<T> extends AutoCloseable {
         }
     }
 
+    /**
+     * Asynchronously return a batch of results from this cursor. This is equivalent to calling {@link #onNext()}
+     * up to {@code maxResults} times, stopping after the first result that does not have a value, but cursors that
+     * implement it natively can produce a batch without creating a future for each result.
+     *
+     * <p>
+     * The returned list always contains at least one result. Every result except possibly the last one has a value.
+     * If the last result does not have a value, then the cursor has stopped, and the result has the same meaning as
+     * one returned by {@code onNext()}. Otherwise, the cursor may return fewer than {@code maxResults} results
+     * even if it has not stopped, for example when producing more would require waiting, and continuing to call
+     * {@code onNext()} or {@code onNextBatch()} returns the following results.
+     * </p>
+     *
+     * @param maxResults the maximum number of results to return
+     * @return a future for a non-empty list of results from this cursor
+     * @see #onNext()
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default CompletableFuture<List<RecordCursorResult<T>>> onNextBatch(int maxResults) {
+        if (maxResults < 1) {
+            throw new RecordCoreArgumentException("Invalid batch size: " + maxResults);
+        }
+        final List<RecordCursorResult<T>> batch = new ArrayList<>();
+        return AsyncUtil.whileTrue(() -> onNext().thenApply(result -> {
+            batch.add(result);
+            return result.hasNext() && batch.size() < maxResults;
+        }), getExecutor()).thenApply(vignore -> batch);
+    }
+
     /**
      * Return a view of this cursor as a {@link RecordCursorIterator}. This allows the cursor to be consumed by
      * methods that take {@link Iterator}s or {@link com.apple.foundationdb.async.AsyncIterator AsyncIterator}s.
@@ -566,6 +596,29 @@ public interface RecordCursor<T> extends AutoCloseable {
         return new MapPipelinedCursor<>(this, func, pipelineSize);
     }
 
+    /**
+     * Get a new cursor by applying the given function to the records in this cursor, running each application on
+     * the given executor.
+     *
+     * <p>
+     * This is intended for CPU-intensive functions, such as deserialization or filter evaluation, which would
+     * otherwise run on whichever thread completed the previous step, often the network thread. Up to
+     * {@code pipelineSize} records are mapped concurrently, so a pool such as a {@link ForkJoinPool} with several
+     * threads allows the mapping to use several cores. The results are still returned in the order of this cursor,
+     * with the same continuations as {@link #mapPipelined(Function, int)}.
+     * </p>
+     * @param func the function to apply to each record
+     * @param pipelineSize the number of applications of the mapping function to start ahead of time
+     * @param executor the executor on which to run the mapping function
+     * @param <V> the result type of the mapping function
+     * @return a new cursor that applies the given function to each record
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default <V> RecordCursor<V> mapPipelined(@Nonnull Function<T, V> func, int pipelineSize, @Nonnull Executor executor) {
+        return new MapPipelinedCursor<>(this, t -> CompletableFuture.supplyAsync(() -> func.apply(t), executor), pipelineSize);
+    }
+
     /**
      * Apply a given cursor generating function to each result from an outer cursor and chain the results together.
      * Users should typically supply a {@code checker} function for safety. For more details, see
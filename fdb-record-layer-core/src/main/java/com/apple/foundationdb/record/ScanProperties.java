@@ -51,6 +51,12 @@ public class ScanProperties {
     @Nonnull
     private final CursorStreamingMode cursorStreamingMode;
 
+    // maximum bytes to buffer reading ahead of the consumer, or zero to not read ahead
+    private final long readAheadBytes;
+
+    // fraction of each batch that must be consumed before the next one is requested
+    private final double readAheadFraction;
+
     /**
      * Creates scan properties.
      * @param executeProperties the execution properties (such as isolation level and row limit) associated with this scan
@@ -75,9 +81,16 @@ public class ScanProperties {
      * @param cursorStreamingMode streaming mode to use if opening an FDB cursor
      */
     public ScanProperties(@Nonnull ExecuteProperties executeProperties, boolean reverse, @Nonnull CursorStreamingMode cursorStreamingMode) {
+        this(executeProperties, reverse, cursorStreamingMode, 0L, 0.0);
+    }
+
+    private ScanProperties(@Nonnull ExecuteProperties executeProperties, boolean reverse, @Nonnull CursorStreamingMode cursorStreamingMode,
+                           long readAheadBytes, double readAheadFraction) {
         this.executeProperties = executeProperties;
         this.reverse = reverse;
         this.cursorStreamingMode = cursorStreamingMode;
+        this.readAheadBytes = readAheadBytes;
+        this.readAheadFraction = readAheadFraction;
     }
 
     /**
@@ -104,7 +117,7 @@ public class ScanProperties {
      */
     @Nonnull
     public ScanProperties with(@Nonnull Function<ExecuteProperties, ExecuteProperties> modifier) {
-        return new ScanProperties(modifier.apply(executeProperties), reverse, cursorStreamingMode);
+        return new ScanProperties(modifier.apply(executeProperties), reverse, cursorStreamingMode, readAheadBytes, readAheadFraction);
     }
 
     /**
@@ -117,7 +130,7 @@ public class ScanProperties {
         if (reverse == isReverse()) {
             return this;
         }
-        return new ScanProperties(executeProperties, reverse, cursorStreamingMode);
+        return new ScanProperties(executeProperties, reverse, cursorStreamingMode, readAheadBytes, readAheadFraction);
     }
 
     /**
@@ -139,11 +152,63 @@ public class ScanProperties {
         if (cursorStreamingMode == getCursorStreamingMode()) {
             return this;
         }
-        return new ScanProperties(executeProperties, reverse, cursorStreamingMode);
+        return new ScanProperties(executeProperties, reverse, cursorStreamingMode, readAheadBytes, readAheadFraction);
+    }
+
+    /**
+     * Get the maximum number of bytes that a range scan may buffer by reading ahead of its consumer.
+     * @return the read-ahead byte budget or zero if the scan does not read ahead
+     * @see #setReadAhead(long, double)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public long getReadAheadBytes() {
+        return readAheadBytes;
+    }
+
+    /**
+     * Get the fraction of each batch of a read-ahead range scan that must be consumed before the next batch is requested.
+     * @return the fraction of the current batch consumed before reading ahead
+     * @see #setReadAhead(long, double)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public double getReadAheadFraction() {
+        return readAheadFraction;
+    }
+
+    /**
+     * Set whether range scans read ahead of their consumer.
+     *
+     * <p>
+     * A read-ahead scan reads its range in explicit batches rather than relying on the streaming mode. Once
+     * {@code readAheadFraction} of the current batch has been consumed, the request for the following batch is issued,
+     * so that the network round trip overlaps with processing the rest of the current batch. Batch sizes are chosen
+     * from the sizes of the entries read so far so that the current and next batch together take roughly
+     * {@code readAheadBytes}. The streaming mode is ignored by such scans.
+     * </p>
+     * @param readAheadBytes the approximate maximum number of bytes to buffer or zero to not read ahead
+     * @param readAheadFraction the fraction of each batch to consume before requesting the next, between zero and one
+     * @return a new scan properties with the given read-ahead settings
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public ScanProperties setReadAhead(long readAheadBytes, double readAheadFraction) {
+        if (readAheadBytes < 0) {
+            throw new RecordCoreArgumentException("read-ahead bytes must not be negative")
+                    .addLogInfo("readAheadBytes", readAheadBytes);
+        }
+        if (!(readAheadFraction >= 0.0 && readAheadFraction <= 1.0)) {
+            throw new RecordCoreArgumentException("read-ahead fraction must be between zero and one")
+                    .addLogInfo("readAheadFraction", readAheadFraction);
+        }
+        return new ScanProperties(executeProperties, reverse, cursorStreamingMode, readAheadBytes, readAheadFraction);
     }
 
     @Override
     public String toString() {
+        if (readAheadBytes > 0) {
+            return String.format("ScanProperties(%s, direction: %s, streaming mode: %s, read ahead: %d bytes at %s)",
+                    executeProperties, reverse ? "reverse" : "forward", cursorStreamingMode, readAheadBytes, readAheadFraction);
+        }
         return String.format("ScanProperties(%s, direction: %s, streaming mode: %s)",
                 executeProperties, reverse ? "reverse" : "forward", cursorStreamingMode);
     }
@@ -68,12 +68,38 @@ import java.util.function.BiFunction;
  * exhausted, at most 10 records at a transaction.
  * </p>
  *
+ * <p>
+ * Some additional behavior can be enabled using a {@link Builder}:
+ * </p>
+ * <ul>
+ *     <li>
+ *         If {@linkplain Builder#setPrefetchNextContext(boolean) prefetching} is enabled, the context for the next
+ *         <i>underlying cursor</i> is opened and its read version requested while the current one is still being
+ *         read, so that switching between transactions does not have to wait for a new read version. The next context
+ *         is opened once the current <i>underlying cursor</i> has been read for most of the time that the previous one
+ *         took, so prefetching starts with the second transaction and works best when each transaction is stopped by
+ *         a time limit or by limits that take roughly the same time to reach.
+ *     </li>
+ *     <li>
+ *         If a {@linkplain Builder#setContinuationCheckpoint(ContinuationCheckpoint) checkpoint} is given, it is passed
+ *         the continuation each time the cursor moves to a new transaction and once the cursor is exhausted. Along with
+ *         an initial {@linkplain Builder#setContinuation(byte[]) continuation}, this allows a long-running scan to be
+ *         resumed, for example after the process is restarted.
+ *     </li>
+ * </ul>
+ *
  * @param <T> the type of elements returned by this cursor
  */
 @API(API.Status.EXPERIMENTAL)
 public class AutoContinuingCursor<T> implements RecordCursor<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AutoContinuingCursor.class);
 
+    /**
+     * The fraction of the time taken by the previous transaction after which the next context is opened when
+     * prefetching.
+     */
+    static final double PREFETCH_FRACTION = 0.8;
+
     @Nonnull
     private final FDBDatabaseRunner runner;
     @Nonnull
@@ -83,11 +109,23 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
     private RecordCursor<T> currentCursor;
     @Nullable
     private FDBRecordContext currentContext;
+    @Nullable
+    private FDBRecordContext nextContext;
 
     @Nullable
     private RecordCursorResult<T> lastResult;
 
     private final int maxRetriesOnRetriableException;
+    @Nullable
+    private final byte[] initialContinuation;
+    private final boolean prefetchNextContext;
+    @Nullable
+    private final ContinuationCheckpoint continuationCheckpoint;
+
+    // When the current underlying cursor was generated and how long the previous one was read for, or -1 if unknown.
+    private long currentCursorStartMillis;
+    private long previousCursorMillis = -1;
+    private boolean checkpointedEnd;
 
     /**
      * Creates a new {@link AutoContinuingCursor}.
@@ -110,22 +148,51 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
     public AutoContinuingCursor(@Nonnull FDBDatabaseRunner runner,
                                 @Nonnull BiFunction<FDBRecordContext, byte[], RecordCursor<T>> nextCursorGenerator,
                                 int maxRetriesOnRetriableException) {
+        this(runner, nextCursorGenerator, maxRetriesOnRetriableException, null, false, null);
+    }
+
+    private AutoContinuingCursor(@Nonnull FDBDatabaseRunner runner,
+                                 @Nonnull BiFunction<FDBRecordContext, byte[], RecordCursor<T>> nextCursorGenerator,
+                                 int maxRetriesOnRetriableException, @Nullable byte[] initialContinuation,
+                                 boolean prefetchNextContext, @Nullable ContinuationCheckpoint continuationCheckpoint) {
         this.runner = runner;
         this.nextCursorGenerator = nextCursorGenerator;
         this.maxRetriesOnRetriableException = maxRetriesOnRetriableException;
+        this.initialContinuation = initialContinuation;
+        this.prefetchNextContext = prefetchNextContext;
+        this.continuationCheckpoint = continuationCheckpoint;
+    }
+
+    /**
+     * Create a builder for an {@link AutoContinuingCursor}.
+     * @param runner the runner from which it can open new contexts
+     * @param nextCursorGenerator the method which can generate the underlying cursor given a record context and a continuation
+     * @param <T> the type of elements returned by the cursor
+     * @return a new builder
+     */
+    @Nonnull
+    public static <T> Builder<T> newBuilder(@Nonnull FDBDatabaseRunner runner,
+                                            @Nonnull BiFunction<FDBRecordContext, byte[], RecordCursor<T>> nextCursorGenerator) {
+        return new Builder<>(runner, nextCursorGenerator);
     }
 
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<T>> onNext() {
         return AsyncUtil.whileTrue(() ->
-                onNextWithRetry(0).thenApply(result -> {
+                onNextWithRetry(0).thenCompose(result -> {
                     if (result.hasStoppedBeforeEnd()) {
-                        openContextAndGenerateCursor(result.getContinuation().toBytes());
-                        return true;
+                        final byte[] continuation = result.getContinuation().toBytes();
+                        previousCursorMillis = System.currentTimeMillis() - currentCursorStartMillis;
+                        openContextAndGenerateCursor(continuation);
+                        return checkpoint(continuation).thenApply(vignore -> true);
                     } else {
                         lastResult = result;
-                        return false;
+                        if (!result.hasNext() && !checkpointedEnd) {
+                            checkpointedEnd = true;
+                            return checkpoint(result.getContinuation().toBytes()).thenApply(vignore -> false);
+                        }
+                        return AsyncUtil.READY_FALSE;
                     }
                 }), getExecutor())
                 .thenApply(ignore -> lastResult);
@@ -133,18 +200,39 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
 
     private CompletableFuture<RecordCursorResult<T>> onNextWithRetry(final int attempt) {
         if (currentCursor == null) {
-            openContextAndGenerateCursor(null);
+            openContextAndGenerateCursor(initialContinuation);
         }
+        maybePrefetchNextContext();
 
         return MoreAsyncUtil.handleOnException(() -> currentCursor.onNext(), exception -> {
             if (!FDBExceptions.isRetriable(exception) || attempt >= maxRetriesOnRetriableException) {
                 throw FDBExceptions.wrapException(exception);
             }
-            openContextAndGenerateCursor(lastResult == null ? null : lastResult.getContinuation().toBytes());
+            openContextAndGenerateCursor(lastResult == null ? initialContinuation : lastResult.getContinuation().toBytes());
             return onNextWithRetry(attempt + 1);
         });
     }
 
+    private void maybePrefetchNextContext() {
+        if (prefetchNextContext && nextContext == null && previousCursorMillis >= 0 &&
+                System.currentTimeMillis() - currentCursorStartMillis >= previousCursorMillis * PREFETCH_FRACTION) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Prefetch next context");
+            }
+            nextContext = runner.openContext();
+            // Only start getting the read version; the cursor for this context will wait for it when it is needed.
+            nextContext.getReadVersionAsync();
+        }
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> checkpoint(@Nullable byte[] continuation) {
+        if (continuationCheckpoint == null) {
+            return AsyncUtil.DONE;
+        }
+        return continuationCheckpoint.save(continuation);
+    }
+
     @Nonnull
     @Override
     public RecordCursorResult<T> getNext() {
@@ -158,7 +246,16 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
         if (currentContext != null) {
             currentContext.close();
         }
-        currentContext = runner.openContext();
+        if (nextContext != null) {
+            currentContext = nextContext;
+            nextContext = null;
+            if (runner.getTimer() != null) {
+                runner.getTimer().increment(FDBStoreTimer.Counts.AUTO_CONTINUE_PREFETCHED_CONTEXT);
+            }
+        } else {
+            currentContext = runner.openContext();
+        }
+        currentCursorStartMillis = System.currentTimeMillis();
         currentCursor = nextCursorGenerator.apply(currentContext, continuation);
     }
 
@@ -167,6 +264,10 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
         if (currentContext != null) {
             currentContext.close();
         }
+        if (nextContext != null) {
+            nextContext.close();
+            nextContext = null;
+        }
     }
 
     @Override
@@ -187,4 +288,96 @@ public class AutoContinuingCursor<T> implements RecordCursor<T> {
         }
         return visitor.visitLeave(this);
     }
+
+    /**
+     * A place to save the continuation of an {@link AutoContinuingCursor} so that a scan can be resumed from it later.
+     */
+    @FunctionalInterface
+    public interface ContinuationCheckpoint {
+        /**
+         * Save the continuation of the cursor. This is called when the cursor moves to a new transaction, at which
+         * point every element before the continuation has already been returned, and once when the cursor is exhausted.
+         * The cursor does not continue until the returned future completes.
+         * @param continuation the continuation from which to resume or {@code null} if the cursor is exhausted
+         * @return a future that completes when the continuation has been saved
+         */
+        @Nonnull
+        CompletableFuture<Void> save(@Nullable byte[] continuation);
+    }
+
+    /**
+     * A builder for {@link AutoContinuingCursor}.
+     * @param <T> the type of elements returned by the cursor
+     */
+    public static class Builder<T> {
+        @Nonnull
+        private final FDBDatabaseRunner runner;
+        @Nonnull
+        private final BiFunction<FDBRecordContext, byte[], RecordCursor<T>> nextCursorGenerator;
+        private int maxRetriesOnRetriableException;
+        @Nullable
+        private byte[] continuation;
+        private boolean prefetchNextContext;
+        @Nullable
+        private ContinuationCheckpoint continuationCheckpoint;
+
+        private Builder(@Nonnull FDBDatabaseRunner runner,
+                        @Nonnull BiFunction<FDBRecordContext, byte[], RecordCursor<T>> nextCursorGenerator) {
+            this.runner = runner;
+            this.nextCursorGenerator = nextCursorGenerator;
+        }
+
+        /**
+         * Set the maximum number of consecutive times retryable exceptions, such as
+         * {@link com.apple.foundationdb.FDBError#TRANSACTION_TOO_OLD}, will be caught and the cursor automatically
+         * continued.
+         * @param maxRetriesOnRetriableException the maximum number of retries
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> setMaxRetriesOnRetriableException(int maxRetriesOnRetriableException) {
+            this.maxRetriesOnRetriableException = maxRetriesOnRetriableException;
+            return this;
+        }
+
+        /**
+         * Set the continuation given to the first underlying cursor.
+         * @param continuation the continuation from which to start or {@code null} to start from the beginning
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> setContinuation(@Nullable byte[] continuation) {
+            this.continuation = continuation;
+            return this;
+        }
+
+        /**
+         * Set whether to open the next context and get its read version while the current underlying cursor is
+         * still being read.
+         * @param prefetchNextContext whether to prefetch the next context
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> setPrefetchNextContext(boolean prefetchNextContext) {
+            this.prefetchNextContext = prefetchNextContext;
+            return this;
+        }
+
+        /**
+         * Set a checkpoint to which the continuation is saved between transactions.
+         * @param continuationCheckpoint the checkpoint or {@code null} to not save continuations
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> setContinuationCheckpoint(@Nullable ContinuationCheckpoint continuationCheckpoint) {
+            this.continuationCheckpoint = continuationCheckpoint;
+            return this;
+        }
+
+        @Nonnull
+        public AutoContinuingCursor<T> build() {
+            return new AutoContinuingCursor<>(runner, nextCursorGenerator, maxRetriesOnRetriableException,
+                    continuation, prefetchNextContext, continuationCheckpoint);
+        }
+    }
 }
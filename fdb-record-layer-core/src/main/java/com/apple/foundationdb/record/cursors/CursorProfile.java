@@ -0,0 +1,165 @@
+/*
+ * CursorProfile.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Counters recorded by a single {@link ProfilableCursor} once profiling has been enabled for it.
+ *
+ * <p>
+ * The time of each call to {@link RecordCursor#onNext()} is measured from the call until the returned future completes,
+ * so it includes time spent waiting for the cursor's children. Time spent in functions supplied by the caller, such as
+ * the predicate of a {@link FilterCursor}, is recorded separately.
+ * </p>
+ *
+ * @see CursorProfiler
+ */
+@API(API.Status.EXPERIMENTAL)
+public class CursorProfile {
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final AtomicLong nextCalls = new AtomicLong();
+    @Nonnull
+    private final AtomicLong rowsOut = new AtomicLong();
+    @Nonnull
+    private final AtomicLong totalNanos = new AtomicLong();
+    @Nonnull
+    private final AtomicLong functionNanos = new AtomicLong();
+
+    public CursorProfile(@Nonnull String name) {
+        this.name = name;
+    }
+
+    @Nonnull
+    public static CursorProfile forCursor(@Nonnull RecordCursor<?> cursor) {
+        return new CursorProfile(cursor.getClass().getSimpleName());
+    }
+
+    /**
+     * Record a call to {@link RecordCursor#onNext()}.
+     * @param onNext the implementation of {@code onNext()} for the profiled cursor
+     * @param <T> the type of elements of the cursor
+     * @return the future returned by {@code onNext}, which updates this profile when it completes
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    public <T> CompletableFuture<RecordCursorResult<T>> profileNext(@Nonnull Supplier<CompletableFuture<RecordCursorResult<T>>> onNext) {
+        final long startTime = System.nanoTime();
+        nextCalls.incrementAndGet();
+        return onNext.get().whenComplete((result, err) -> {
+            totalNanos.addAndGet(System.nanoTime() - startTime);
+            if (result != null && result.hasNext()) {
+                rowsOut.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Record a call to {@link RecordCursor#onNextBatch(int)}.
+     * @param onNextBatch the implementation of {@code onNextBatch()} for the profiled cursor
+     * @param <T> the type of elements of the cursor
+     * @return the future returned by {@code onNextBatch}, which updates this profile when it completes
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    public <T> CompletableFuture<List<RecordCursorResult<T>>> profileNextBatch(@Nonnull Supplier<CompletableFuture<List<RecordCursorResult<T>>>> onNextBatch) {
+        final long startTime = System.nanoTime();
+        nextCalls.incrementAndGet();
+        return onNextBatch.get().whenComplete((batch, err) -> {
+            totalNanos.addAndGet(System.nanoTime() - startTime);
+            if (batch != null) {
+                for (RecordCursorResult<T> result : batch) {
+                    if (result.hasNext()) {
+                        rowsOut.incrementAndGet();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Record the time spent in a function supplied by the caller of the profiled cursor.
+     * @param startNanos the value of {@link System#nanoTime()} when the function was called
+     */
+    @API(API.Status.INTERNAL)
+    public void recordFunction(long startNanos) {
+        functionNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Add the counters of another profile to this one.
+     * @param other the profile to add
+     */
+    @API(API.Status.INTERNAL)
+    public void add(@Nonnull CursorProfile other) {
+        nextCalls.addAndGet(other.getNextCalls());
+        rowsOut.addAndGet(other.getRowsOut());
+        totalNanos.addAndGet(other.getTotalNanos());
+        functionNanos.addAndGet(other.getFunctionNanos());
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of calls to get the next result or batch of results.
+     * @return the number of calls
+     */
+    public long getNextCalls() {
+        return nextCalls.get();
+    }
+
+    /**
+     * Get the number of results with a value that the cursor returned.
+     * @return the number of rows returned
+     */
+    public long getRowsOut() {
+        return rowsOut.get();
+    }
+
+    /**
+     * Get the total time from each call to get the next result until that result was ready.
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Get the time spent in functions supplied by the caller.
+     * @return the time in functions in nanoseconds
+     */
+    public long getFunctionNanos() {
+        return functionNanos.get();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * CursorProfiler.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the execution of a tree of cursors, such as the one produced by executing a query plan.
+ *
+ * <p>
+ * {@link #enable} turns on profiling for every {@link ProfilableCursor} in the tree. After the cursor has been read,
+ * {@link #collect} gathers the {@link CursorProfile}s into a tree of {@link Node}s with the same shape as the profiled
+ * cursors, which generally follows the shape of the plan that was executed, since each plan operator produces its own
+ * cursor. Cursors that are not profilable, such as those that only apply limits, are left out, and their children are
+ * attached to the closest profiled ancestor.
+ * </p>
+ *
+ * <p>
+ * Cursors that a profiled cursor opens later, for example the inner cursors of a {@link FlatMapPipelinedCursor}, are
+ * profiled as they are opened and are kept so that they are collected as children of that cursor, one node for each
+ * inner cursor. Beyond {@link CursorProfiling#MAX_OPENED_CHILDREN} of them, the earlier ones are combined into a single
+ * node. Executing a plan with {@link com.apple.foundationdb.record.ExecuteProperties#setProfiling} enables
+ * profiling for the whole tree as it is built, rather than having to call {@link #enable} afterwards.
+ * </p>
+ *
+ * <p>
+ * For each node, the time waiting on children is the sum of the total times of its child nodes. When children are
+ * read concurrently, as with a union, that can be more than the total time of the node itself.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public final class CursorProfiler {
+    private CursorProfiler() {
+    }
+
+    /**
+     * Enable profiling for all of the profilable cursors in a cursor tree.
+     * @param cursor the root of the cursor tree
+     */
+    public static void enable(@Nonnull RecordCursor<?> cursor) {
+        cursor.accept(new EnableVisitor());
+    }
+
+    /**
+     * Collect the profiles of the cursors in a tree for which profiling has been enabled.
+     * @param cursor the root of the cursor tree
+     * @return the nodes for the outermost profiled cursors in the tree
+     */
+    @Nonnull
+    public static List<Node> collect(@Nonnull RecordCursor<?> cursor) {
+        final CollectVisitor visitor = new CollectVisitor();
+        cursor.accept(visitor);
+        return visitor.roots;
+    }
+
+    /**
+     * Describe the profiles of the cursors in a tree, one line per profiled cursor, indented to show the tree.
+     * @param cursor the root of the cursor tree
+     * @return a description of the profiled cursors
+     */
+    @Nonnull
+    public static String explain(@Nonnull RecordCursor<?> cursor) {
+        final StringBuilder str = new StringBuilder();
+        for (Node root : collect(cursor)) {
+            root.appendTo(str, 0);
+        }
+        return str.toString();
+    }
+
+    /**
+     * The profile of a single cursor, along with those of its profiled descendants.
+     */
+    public static final class Node {
+        @Nonnull
+        private final CursorProfile profile;
+        @Nonnull
+        private final List<Node> children = new ArrayList<>();
+
+        private Node(@Nonnull CursorProfile profile) {
+            this.profile = profile;
+        }
+
+        @Nonnull
+        public CursorProfile getProfile() {
+            return profile;
+        }
+
+        @Nonnull
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Get the number of results with a value that the profiled children of this cursor returned.
+         * @return the number of rows read
+         */
+        public long getRowsIn() {
+            long rowsIn = 0;
+            for (Node child : children) {
+                rowsIn += child.getProfile().getRowsOut();
+            }
+            return rowsIn;
+        }
+
+        /**
+         * Get the time spent waiting on the profiled children of this cursor.
+         * @return the time waiting on children in nanoseconds
+         */
+        public long getChildNanos() {
+            long childNanos = 0;
+            for (Node child : children) {
+                childNanos += child.getProfile().getTotalNanos();
+            }
+            return childNanos;
+        }
+
+        /**
+         * Get the time spent in this cursor itself, that is, the total time less the time waiting on children.
+         * @return the time in this cursor in nanoseconds
+         */
+        public long getSelfNanos() {
+            return Math.max(0L, profile.getTotalNanos() - getChildNanos());
+        }
+
+        private void appendTo(@Nonnull StringBuilder str, int depth) {
+            for (int i = 0; i < depth; i++) {
+                str.append("  ");
+            }
+            str.append(profile.getName())
+                    .append(" [next_calls=").append(profile.getNextCalls())
+                    .append(", rows_in=").append(getRowsIn())
+                    .append(", rows_out=").append(profile.getRowsOut())
+                    .append(", total_micros=").append(TimeUnit.NANOSECONDS.toMicros(profile.getTotalNanos()))
+                    .append(", child_micros=").append(TimeUnit.NANOSECONDS.toMicros(getChildNanos()))
+                    .append(", self_micros=").append(TimeUnit.NANOSECONDS.toMicros(getSelfNanos()))
+                    .append(", function_micros=").append(TimeUnit.NANOSECONDS.toMicros(profile.getFunctionNanos()))
+                    .append("]\n");
+            for (Node child : children) {
+                child.appendTo(str, depth + 1);
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder str = new StringBuilder();
+            appendTo(str, 0);
+            return str.toString();
+        }
+    }
+
+    private static class EnableVisitor implements RecordCursorVisitor {
+        @Override
+        public boolean visitEnter(RecordCursor<?> cursor) {
+            if (cursor instanceof ProfilableCursor) {
+                ((ProfilableCursor)cursor).enableProfiling();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visitLeave(RecordCursor<?> cursor) {
+            return true;
+        }
+    }
+
+    private static class CollectVisitor implements RecordCursorVisitor {
+        @Nonnull
+        private final List<Node> roots = new ArrayList<>();
+        @Nonnull
+        private final Deque<Node> ancestors = new ArrayDeque<>();
+        // Whether each cursor currently being visited added a node, so that visitLeave knows whether to pop it.
+        @Nonnull
+        private final Deque<Boolean> pushed = new ArrayDeque<>();
+        // Opened children that are still open may also be reached through their parent's accept.
+        @Nonnull
+        private final Set<RecordCursor<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        public boolean visitEnter(RecordCursor<?> cursor) {
+            visited.add(cursor);
+            final CursorProfile profile = cursor instanceof ProfilableCursor ? ((ProfilableCursor)cursor).getProfile() : null;
+            if (profile == null) {
+                pushed.push(false);
+            } else {
+                final Node node = new Node(profile);
+                if (ancestors.isEmpty()) {
+                    roots.add(node);
+                } else {
+                    ancestors.peek().children.add(node);
+                }
+                ancestors.push(node);
+                pushed.push(true);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visitLeave(RecordCursor<?> cursor) {
+            if (pushed.peek()) {
+                final CursorProfiling profiling = ((ProfilableCursor)cursor).getProfiling();
+                final CursorProfile combined = profiling.getCombinedChildrenProfile();
+                if (combined != null) {
+                    ancestors.peek().children.add(new Node(combined));
+                }
+                for (RecordCursor<?> child : profiling.getOpenedChildren()) {
+                    if (!visited.contains(child)) {
+                        child.accept(this);
+                    }
+                }
+            }
+            if (pushed.pop()) {
+                ancestors.pop();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * CursorProfiling.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * The profiling state of a {@link ProfilableCursor}. Until profiling is enabled, each method just calls the function it
+ * is given, so a cursor can route all of its work through this whether or not it is being profiled.
+ */
+@API(API.Status.INTERNAL)
+public final class CursorProfiling {
+    /**
+     * The maximum number of opened children kept for {@link #getOpenedChildren()}. Beyond this, the profiles of
+     * children are combined into {@link #getCombinedChildrenProfile()}.
+     */
+    public static final int MAX_OPENED_CHILDREN = 100;
+    /**
+     * The name of the profile that combines the profiles of children that are no longer kept.
+     */
+    public static final String COMBINED_CHILDREN_NAME = "CombinedChildren";
+
+    @Nonnull
+    private final RecordCursor<?> cursor;
+    @Nullable
+    private volatile CursorProfile profile;
+    // Children opened after profiling was enabled, which the cursor's visitor does not reach once they are done.
+    @Nonnull
+    private final Deque<RecordCursor<?>> openedChildren = new ArrayDeque<>();
+    @Nullable
+    private CursorProfile combinedChildrenProfile;
+
+    public CursorProfiling(@Nonnull RecordCursor<?> cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Start recording a profile. This has no effect if a profile is already being recorded.
+     */
+    public synchronized void enable() {
+        if (profile == null) {
+            profile = CursorProfile.forCursor(cursor);
+        }
+    }
+
+    public boolean isEnabled() {
+        return profile != null;
+    }
+
+    @Nullable
+    public CursorProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Get the next result, recording the call if profiling is enabled.
+     * @param onNext the implementation of {@link RecordCursor#onNext()} for the cursor
+     * @param <T> the type of elements of the cursor
+     * @return the future returned by {@code onNext}
+     */
+    @Nonnull
+    public <T> CompletableFuture<RecordCursorResult<T>> next(@Nonnull Supplier<CompletableFuture<RecordCursorResult<T>>> onNext) {
+        final CursorProfile currentProfile = profile;
+        return currentProfile == null ? onNext.get() : currentProfile.profileNext(onNext);
+    }
+
+    /**
+     * Get the next batch of results, recording the call if profiling is enabled.
+     * @param onNextBatch the implementation of {@link RecordCursor#onNextBatch(int)} for the cursor
+     * @param <T> the type of elements of the cursor
+     * @return the future returned by {@code onNextBatch}
+     */
+    @Nonnull
+    public <T> CompletableFuture<List<RecordCursorResult<T>>> nextBatch(@Nonnull Supplier<CompletableFuture<List<RecordCursorResult<T>>>> onNextBatch) {
+        final CursorProfile currentProfile = profile;
+        return currentProfile == null ? onNextBatch.get() : currentProfile.profileNextBatch(onNextBatch);
+    }
+
+    /**
+     * Call a function supplied by the caller of the cursor, recording the time spent in it if profiling is enabled.
+     * @param function the function to call
+     * @param <R> the type of the function's result
+     * @return the result of the function
+     */
+    public <R> R time(@Nonnull Supplier<R> function) {
+        final CursorProfile currentProfile = profile;
+        if (currentProfile == null) {
+            return function.get();
+        }
+        final long startTime = System.nanoTime();
+        try {
+            return function.get();
+        } finally {
+            currentProfile.recordFunction(startTime);
+        }
+    }
+
+    /**
+     * Enable profiling for a cursor created by the profiled cursor after profiling was enabled, such as a lazily
+     * opened child, if profiling is enabled for the profiled cursor. The child is then kept, so that
+     * {@link CursorProfiler#collect} can include its profile even after the cursor has moved on from it.
+     *
+     * <p>
+     * At most {@link #MAX_OPENED_CHILDREN} children are kept. When there would be more, those that have been closed,
+     * or failing that the oldest, are let go and the counters of their outermost profiled cursors are added to a
+     * single combined profile, so that a cursor that opens many children does not keep them all.
+     * </p>
+     * @param child the newly created cursor
+     * @param <C> the type of the child cursor
+     * @return the given cursor
+     */
+    @Nonnull
+    public <C extends RecordCursor<?>> C propagateTo(@Nonnull C child) {
+        if (profile != null) {
+            CursorProfiler.enable(child);
+            addOpenedChild(child);
+        }
+        return child;
+    }
+
+    private synchronized void addOpenedChild(@Nonnull RecordCursor<?> child) {
+        if (openedChildren.size() >= MAX_OPENED_CHILDREN) {
+            final Deque<RecordCursor<?>> stillOpen = new ArrayDeque<>(openedChildren.size());
+            for (RecordCursor<?> opened : openedChildren) {
+                if (opened.isClosed()) {
+                    combineChild(opened);
+                } else {
+                    stillOpen.add(opened);
+                }
+            }
+            openedChildren.clear();
+            openedChildren.addAll(stillOpen);
+            while (openedChildren.size() >= MAX_OPENED_CHILDREN) {
+                combineChild(openedChildren.removeFirst());
+            }
+        }
+        openedChildren.add(child);
+    }
+
+    private void combineChild(@Nonnull RecordCursor<?> child) {
+        if (combinedChildrenProfile == null) {
+            combinedChildrenProfile = new CursorProfile(COMBINED_CHILDREN_NAME);
+        }
+        for (CursorProfiler.Node node : CursorProfiler.collect(child)) {
+            combinedChildrenProfile.add(node.getProfile());
+        }
+    }
+
+    /**
+     * Get the children given to {@link #propagateTo} while profiling was enabled that are still kept, in the order
+     * they were opened.
+     * @return the opened children
+     */
+    @Nonnull
+    public synchronized List<RecordCursor<?>> getOpenedChildren() {
+        return new ArrayList<>(openedChildren);
+    }
+
+    /**
+     * Get the combined profile of the children given to {@link #propagateTo} that are no longer kept.
+     * @return the combined profile or {@code null} if all of the opened children are still kept
+     * @see #MAX_OPENED_CHILDREN
+     */
+    @Nullable
+    public synchronized CursorProfile getCombinedChildrenProfile() {
+        return combinedChildrenProfile;
+    }
+}
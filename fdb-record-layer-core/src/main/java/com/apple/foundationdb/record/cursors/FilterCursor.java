@@ -28,6 +28,9 @@ import com.apple.foundationdb.record.RecordCursorVisitor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
@@ -37,7 +40,7 @@ import java.util.function.Function;
  * @param <T> the type of elements of the cursor
  */
 @API(API.Status.MAINTAINED)
-public class FilterCursor<T> implements RecordCursor<T> {
+public class FilterCursor<T> implements RecordCursor<T>, ProfilableCursor {
     @Nonnull
     private final RecordCursor<T> inner;
     @Nonnull
@@ -45,6 +48,8 @@ public class FilterCursor<T> implements RecordCursor<T> {
     private boolean hasNext;
     @Nullable
     private RecordCursorResult<T> nextResult;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     public FilterCursor(@Nonnull RecordCursor<T> inner, @Nonnull Function<T, Boolean> pred) {
         this.inner = inner;
@@ -54,16 +59,50 @@ public class FilterCursor<T> implements RecordCursor<T> {
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<T>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<T>> computeNext() {
         if (nextResult != null && !nextResult.hasNext()) {
             return CompletableFuture.completedFuture(nextResult);
         }
         return AsyncUtil.whileTrue(() -> inner.onNext().thenApply(innerResult -> {
             nextResult = innerResult;
-            hasNext = innerResult.hasNext() && (Boolean.TRUE.equals(pred.apply(innerResult.get()))); // relies on short circuiting
+            hasNext = innerResult.hasNext() && test(innerResult.get()); // relies on short circuiting
             return innerResult.hasNext() && !hasNext; // keep looping only if we might find more records and we filtered a record out
         }), getExecutor()).thenApply(vignore -> nextResult);
     }
 
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<RecordCursorResult<T>>> onNextBatch(int maxResults) {
+        return profiling.nextBatch(() -> computeNextBatch(maxResults));
+    }
+
+    @Nonnull
+    private CompletableFuture<List<RecordCursorResult<T>>> computeNextBatch(int maxResults) {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(Collections.singletonList(nextResult));
+        }
+        final List<RecordCursorResult<T>> batch = new ArrayList<>();
+        return AsyncUtil.whileTrue(() -> inner.onNextBatch(maxResults - batch.size()).thenApply(innerBatch -> {
+            for (RecordCursorResult<T> innerResult : innerBatch) {
+                nextResult = innerResult;
+                if (!innerResult.hasNext() || test(innerResult.get())) {
+                    batch.add(innerResult);
+                }
+            }
+            // keep going only if nothing passed the filter and the inner cursor might have more
+            return batch.isEmpty();
+        }), getExecutor()).thenApply(vignore -> batch);
+    }
+
+    private boolean test(@Nullable T value) {
+        return profiling.time(() -> Boolean.TRUE.equals(pred.apply(value)));
+    }
+
     @Override
     public void close() {
         inner.close();
@@ -87,4 +126,10 @@ public class FilterCursor<T> implements RecordCursor<T> {
         }
         return visitor.visitLeave(this);
     }
+
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
 }
@@ -55,7 +55,7 @@ import java.util.function.Function;
  */
 @API(API.Status.MAINTAINED)
 @SuppressWarnings("PMD.CloseResource")
-public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V> {
+public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V>, ProfilableCursor {
     @Nonnull
     private final RecordCursor<T> outerCursor;
     @Nonnull
@@ -77,6 +77,8 @@ public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V> {
 
     @Nullable
     private RecordCursorResult<V> lastResult;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     @SpotBugsSuppressWarnings("EI_EXPOSE_REP2")
     public FlatMapPipelinedCursor(@Nonnull RecordCursor<T> outerCursor,
@@ -109,10 +111,10 @@ public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V> {
         if (lastResult != null && !lastResult.hasNext()) {
             return CompletableFuture.completedFuture(lastResult);
         }
-        return AsyncUtil.whileTrue(this::tryToFillPipeline, getExecutor()).thenApply(vignore -> {
+        return profiling.next(() -> AsyncUtil.whileTrue(this::tryToFillPipeline, getExecutor()).thenApply(vignore -> {
             lastResult = pipeline.peek().nextResult();
             return lastResult;
-        });
+        }));
     }
 
     @Override
@@ -146,6 +148,12 @@ public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V> {
         return outerCursor.getExecutor();
     }
 
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
+
     /**
      * Take items from inner cursor and put in pipeline until no more or a mapped cursor item is available.
      * @return a future that will complete with {@code false} if an item is available or none will ever be, or with {@code true} if this method should be called to try again
@@ -191,7 +199,8 @@ public class FlatMapPipelinedCursor<T, V> implements RecordCursor<V> {
                         initialInnerContinuation = null;
                     }
                 }
-                final RecordCursor<V> innerCursor = innerCursorFunction.apply(outerValue, innerContinuation);
+                final byte[] continuation = innerContinuation;
+                final RecordCursor<V> innerCursor = profiling.propagateTo(profiling.time(() -> innerCursorFunction.apply(outerValue, continuation)));
                 outerContinuation = outerResult.getContinuation();
                 pipeline.add(new PipelineQueueEntry(innerCursor, priorOuterContinuation, outerResult, outerCheckValue));
                 outerNextFuture = null; // done with this future, advance outer cursor next time
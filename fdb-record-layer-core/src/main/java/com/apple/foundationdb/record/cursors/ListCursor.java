@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.cursors;
 
 import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
@@ -31,6 +32,7 @@ import com.google.protobuf.ZeroCopyByteString;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -79,6 +81,24 @@ public class ListCursor<T> implements RecordCursor<T> {
         return nextResult;
     }
 
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<RecordCursorResult<T>>> onNextBatch(int maxResults) {
+        if (maxResults < 1) {
+            throw new RecordCoreArgumentException("Invalid batch size: " + maxResults);
+        }
+        final int count = Math.min(maxResults, list.size() - nextPosition);
+        final List<RecordCursorResult<T>> batch = new ArrayList<>(Math.max(count, 1));
+        for (int i = 0; i < count; i++) {
+            batch.add(getNext());
+        }
+        if (batch.isEmpty()) {
+            batch.add(getNext());
+        }
+        return CompletableFuture.completedFuture(batch);
+    }
+
     @Override
     public void close() {
         closed = true;
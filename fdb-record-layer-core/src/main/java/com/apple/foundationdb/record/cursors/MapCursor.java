@@ -27,6 +27,9 @@ import com.apple.foundationdb.record.RecordCursorVisitor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
@@ -66,6 +69,23 @@ public class MapCursor<T, V> implements RecordCursor<V> {
                 });
     }
 
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<RecordCursorResult<V>>> onNextBatch(int maxResults) {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(Collections.singletonList(nextResult));
+        }
+        return inner.onNextBatch(maxResults).thenApply(innerBatch -> {
+            final List<RecordCursorResult<V>> batch = new ArrayList<>(innerBatch.size());
+            for (RecordCursorResult<T> innerResult : innerBatch) {
+                batch.add(innerResult.map(func));
+            }
+            nextResult = batch.get(batch.size() - 1);
+            return batch;
+        });
+    }
+
     @Override
     public void close() {
         inner.close();
@@ -47,7 +47,7 @@ import java.util.function.Function;
  * @param <V> the type of elements of the cursor after applying the function and completing the future it returns
  */
 @API(API.Status.MAINTAINED)
-public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
+public class MapPipelinedCursor<T, V> implements RecordCursor<V>, ProfilableCursor {
     @Nonnull
     private final RecordCursor<T> inner;
     @Nonnull
@@ -61,6 +61,8 @@ public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
     private CompletableFuture<RecordCursorResult<T>> waitInnerFuture = null;
     @Nullable
     private RecordCursorResult<V> nextResult = null;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     public MapPipelinedCursor(@Nonnull RecordCursor<T> inner, @Nonnull Function<T, CompletableFuture<V>> func,
                               int pipelineSize) {
@@ -73,6 +75,11 @@ public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<V>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<V>> computeNext() {
         if (nextResult != null && !nextResult.hasNext()) {
             return CompletableFuture.completedFuture(nextResult);
         }
@@ -88,6 +95,12 @@ public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
                 });
     }
 
+    // Only the time to start the asynchronous work is attributed to the function.
+    @Nonnull
+    private CompletableFuture<V> apply(@Nullable T value) {
+        return profiling.time(() -> func.apply(value));
+    }
+
     @Override
     public void close() {
         while (!pipeline.isEmpty()) {
@@ -115,6 +128,12 @@ public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
         return visitor.visitLeave(this);
     }
 
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
+
     /**
      * Take items from inner cursor and put in pipeline until no more or a mapping result is available.
      * @return a future that will complete with {@code false} if an item is available or none will ever be, or with {@code true} if this method should be called to try again
@@ -138,7 +157,7 @@ public class MapPipelinedCursor<T, V> implements RecordCursor<V> {
             }
 
             final RecordCursorResult<T> innerResult = waitInnerFuture.join(); // future is ready, doesn't block
-            pipeline.add(innerResult.mapAsync(func));
+            pipeline.add(innerResult.mapAsync(this::apply));
 
             if (innerResult.hasNext()) { // just added something to the pipeline, so pipeline will contain an entry
                 waitInnerFuture = null; // done with this future, should advanced cursor next time
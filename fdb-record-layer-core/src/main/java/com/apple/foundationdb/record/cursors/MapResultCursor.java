@@ -27,6 +27,9 @@ import com.apple.foundationdb.record.RecordCursorVisitor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
@@ -37,7 +40,7 @@ import java.util.function.Function;
  * @param <V> the type of elements of the cursor after applying the function
  */
 @API(API.Status.MAINTAINED)
-public class MapResultCursor<T, V> implements RecordCursor<V> {
+public class MapResultCursor<T, V> implements RecordCursor<V>, ProfilableCursor {
     @Nonnull
     private final RecordCursor<T> inner;
     @Nonnull
@@ -45,6 +48,8 @@ public class MapResultCursor<T, V> implements RecordCursor<V> {
 
     @Nullable
     private RecordCursorResult<V> nextResult;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     /**
      * Internal constructor. Adopters of the library should call {@link RecordCursor#mapResult(Function) inner.mapResult()}
@@ -65,16 +70,48 @@ public class MapResultCursor<T, V> implements RecordCursor<V> {
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<V>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<V>> computeNext() {
         if (nextResult != null && !nextResult.hasNext()) {
             return CompletableFuture.completedFuture(nextResult);
         }
-        return inner.onNext().thenApply(func)
+        return inner.onNext().thenApply(this::apply)
                 .thenApply(result -> {
                     nextResult = result;
                     return result;
                 });
     }
 
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<RecordCursorResult<V>>> onNextBatch(int maxResults) {
+        return profiling.nextBatch(() -> computeNextBatch(maxResults));
+    }
+
+    @Nonnull
+    private CompletableFuture<List<RecordCursorResult<V>>> computeNextBatch(int maxResults) {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(Collections.singletonList(nextResult));
+        }
+        return inner.onNextBatch(maxResults).thenApply(innerBatch -> {
+            final List<RecordCursorResult<V>> batch = new ArrayList<>(innerBatch.size());
+            for (RecordCursorResult<T> innerResult : innerBatch) {
+                batch.add(apply(innerResult));
+            }
+            nextResult = batch.get(batch.size() - 1);
+            return batch;
+        });
+    }
+
+    @Nonnull
+    private RecordCursorResult<V> apply(@Nonnull RecordCursorResult<T> innerResult) {
+        return profiling.time(() -> func.apply(innerResult));
+    }
+
     @Override
     public void close() {
         inner.close();
@@ -98,4 +135,10 @@ public class MapResultCursor<T, V> implements RecordCursor<V> {
         }
         return visitor.visitLeave(this);
     }
+
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
 }
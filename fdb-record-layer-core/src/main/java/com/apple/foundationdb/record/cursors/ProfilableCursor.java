@@ -0,0 +1,63 @@
+/*
+ * ProfilableCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A cursor that can record a {@link CursorProfile} of its own work. Profiling is off until it is enabled, which is
+ * done for a whole tree of cursors with {@link CursorProfiler#enable}, or when a plan is executed with
+ * {@link com.apple.foundationdb.record.ExecuteProperties#isProfiling()} set. A cursor that creates children after
+ * profiling was enabled, such as the inner cursors of a {@link FlatMapPipelinedCursor}, enables it for them too.
+ *
+ * <p>
+ * Implementations keep a {@link CursorProfiling} and route their work through it.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public interface ProfilableCursor {
+    /**
+     * Get the profiling state of this cursor.
+     * @return the profiling state
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    CursorProfiling getProfiling();
+
+    /**
+     * Start recording a profile for this cursor. This has no effect if the cursor is already being profiled.
+     */
+    default void enableProfiling() {
+        getProfiling().enable();
+    }
+
+    /**
+     * Get the profile recorded by this cursor.
+     * @return the profile or {@code null} if profiling has not been enabled
+     */
+    @Nullable
+    default CursorProfile getProfile() {
+        return getProfiling().getProfile();
+    }
+}
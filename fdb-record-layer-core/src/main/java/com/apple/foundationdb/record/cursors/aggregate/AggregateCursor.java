@@ -27,6 +27,8 @@ import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
 import com.apple.foundationdb.record.RecordCursorStartContinuation;
 import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
+import com.apple.foundationdb.record.cursors.ProfilableCursor;
 import com.apple.foundationdb.record.query.plan.plans.QueryResult;
 import com.google.common.base.Verify;
 import com.google.protobuf.Message;
@@ -43,7 +45,7 @@ import java.util.concurrent.Executor;
  * @param <M> the record type that holds the actual data
  */
 @API(API.Status.EXPERIMENTAL)
-public class AggregateCursor<M extends Message> implements RecordCursor<QueryResult> {
+public class AggregateCursor<M extends Message> implements RecordCursor<QueryResult>, ProfilableCursor {
     // Inner cursor to provide record inflow
     @Nonnull
     private final RecordCursor<QueryResult> inner;
@@ -56,6 +58,8 @@ public class AggregateCursor<M extends Message> implements RecordCursor<QueryRes
     // Previous non-empty record processed by this cursor
     @Nullable
     private RecordCursorResult<QueryResult> previousValidResult;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     public AggregateCursor(@Nonnull RecordCursor<QueryResult> inner, @Nonnull final StreamGrouping<M> streamGrouping) {
         this.inner = inner;
@@ -65,6 +69,11 @@ public class AggregateCursor<M extends Message> implements RecordCursor<QueryRes
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<QueryResult>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<QueryResult>> computeNext() {
         if (previousResult != null && !previousResult.hasNext()) {
             // we are done
             return CompletableFuture.completedFuture(RecordCursorResult.exhausted());
@@ -79,7 +88,7 @@ public class AggregateCursor<M extends Message> implements RecordCursor<QueryRes
                 return false;
             } else {
                 final QueryResult queryResult = Objects.requireNonNull(innerResult.get());
-                boolean groupBreak = streamGrouping.apply(queryResult);
+                boolean groupBreak = applyGrouping(queryResult);
                 previousValidResult = innerResult;
                 return (!groupBreak);
             }
@@ -98,6 +107,10 @@ public class AggregateCursor<M extends Message> implements RecordCursor<QueryRes
         });
     }
     
+    private boolean applyGrouping(@Nonnull QueryResult queryResult) {
+        return profiling.time(() -> streamGrouping.apply(queryResult));
+    }
+
     private boolean isNoRecords() {
         return ((previousValidResult == null) && (!Verify.verifyNotNull(previousResult).hasNext()));
     }
@@ -125,4 +138,10 @@ public class AggregateCursor<M extends Message> implements RecordCursor<QueryRes
         }
         return visitor.visitLeave(this);
     }
+
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
 }
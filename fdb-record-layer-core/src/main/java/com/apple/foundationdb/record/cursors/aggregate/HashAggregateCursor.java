@@ -0,0 +1,304 @@
+/*
+ * HashAggregateCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.aggregate;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
+import com.apple.foundationdb.record.cursors.ProfilableCursor;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.sorting.FileSortAdapter;
+import com.apple.foundationdb.record.sorting.FileSortCursor;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A cursor that groups incoming records by hashing their grouping keys, so that, unlike an {@link AggregateCursor},
+ * the records do not need to arrive ordered by the grouping key.
+ *
+ * <p>
+ * Records are grouped in memory, with one {@link AccumulatorState} per {@link Aggregate}, such as a {@link LongState}
+ * or a {@link DoubleState}. When there are as many groups as {@link FileSortAdapter#getMaxRecordCountInMemory} allows,
+ * the partially aggregated groups are passed on to a {@link FileSortCursor}, which sorts them by grouping key, saving
+ * them to files as needed, and the next groups are started from scratch. Once all the records have been read, the
+ * partial groups come back in grouping key order and those for the same group are combined. The aggregates therefore
+ * need to be ones that can be combined, that is, {@link PrimitiveAccumulatorOperation#SUM}, {@link PrimitiveAccumulatorOperation#MIN}
+ * or {@link PrimitiveAccumulatorOperation#MAX}, with counts being sums of one.
+ * </p>
+ *
+ * <p>
+ * Each result is the grouping key followed by the values of the aggregates. Results are returned in grouping key order.
+ * If the input stops before it is exhausted, the groups in memory are passed on to the sort, so that the continuation
+ * holds everything needed to resume from where the input stopped.
+ * </p>
+ *
+ * <p>
+ * No query plan produces this cursor yet: the planner only aggregates with an {@link AggregateCursor} over input that
+ * is already ordered by the grouping key. To group unordered records, such as those from
+ * {@link com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase#scanRecords}, create this cursor
+ * directly over them, with the grouping key and aggregates given as functions of each record.
+ * </p>
+ *
+ * @param <V> the type of the records being grouped
+ * @see HashAggregateSpillAdapter
+ */
+@API(API.Status.EXPERIMENTAL)
+public class HashAggregateCursor<V> implements RecordCursor<Tuple>, ProfilableCursor {
+    @Nonnull
+    private final FileSortCursor<Tuple, Tuple> sorted;
+    @Nonnull
+    private final List<Aggregate<V>> aggregates;
+    // The group currently being combined from sorted partial groups.
+    @Nullable
+    private Tuple groupKey;
+    @Nullable
+    private List<AccumulatorState<?, ?>> groupStates;
+    @Nullable
+    private RecordCursorContinuation groupContinuation;
+    // The first partial group of the next group, read while looking for the end of the current one.
+    @Nullable
+    private RecordCursorResult<Tuple> pending;
+    @Nullable
+    private RecordCursorResult<Tuple> terminal;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
+
+    private HashAggregateCursor(@Nonnull FileSortCursor<Tuple, Tuple> sorted, @Nonnull List<Aggregate<V>> aggregates) {
+        this.sorted = sorted;
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Create a hash aggregation cursor.
+     * @param spillAdapter options for the sort of partial groups, including the maximum number of groups in memory
+     * @param inputFunction a function to create the input cursor from a continuation
+     * @param groupingKeyFunction a function to get the grouping key for an input record
+     * @param aggregates the aggregates to compute for each group
+     * @param timer store timer for the sort of partial groups
+     * @param continuation the continuation from a previous cursor or {@code null} to start at the beginning
+     * @param <V> the type of the records being grouped
+     * @return a new cursor returning one result per group
+     */
+    @Nonnull
+    public static <V> HashAggregateCursor<V> create(@Nonnull FileSortAdapter<Tuple, Tuple> spillAdapter,
+                                                    @Nonnull Function<byte[], RecordCursor<V>> inputFunction,
+                                                    @Nonnull Function<V, Tuple> groupingKeyFunction,
+                                                    @Nonnull List<Aggregate<V>> aggregates,
+                                                    @Nullable StoreTimer timer,
+                                                    @Nullable byte[] continuation) {
+        final int maxGroupsInMemory = spillAdapter.getMaxRecordCountInMemory();
+        if (maxGroupsInMemory <= 0) {
+            throw new RecordCoreArgumentException("hash aggregation needs room for at least one group in memory")
+                    .addLogInfo(LogMessageKeys.VALUE, maxGroupsInMemory);
+        }
+        final FileSortCursor<Tuple, Tuple> sorted = FileSortCursor.create(spillAdapter,
+                inputContinuation -> new PartialHashAggregateCursor<>(inputFunction.apply(inputContinuation),
+                        groupingKeyFunction, aggregates, maxGroupsInMemory),
+                timer, continuation, 0, Integer.MAX_VALUE);
+        return new HashAggregateCursor<>(sorted, aggregates);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<Tuple>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<Tuple>> computeNext() {
+        if (terminal != null) {
+            return CompletableFuture.completedFuture(terminal);
+        }
+        return AsyncUtil.whileTrue(() -> sorted.onNext().thenApply(this::addPartialGroup), getExecutor()).thenApply(vignore -> {
+            if (groupKey == null) {
+                return Objects.requireNonNull(terminal);
+            }
+            final RecordCursorResult<Tuple> result = RecordCursorResult.withNextValue(finishGroup(), Objects.requireNonNull(groupContinuation));
+            if (pending != null) {
+                addPartialGroup(pending);
+                pending = null;
+            }
+            return result;
+        });
+    }
+
+    // Returns whether the current group might have more partial groups.
+    private boolean addPartialGroup(@Nonnull RecordCursorResult<Tuple> result) {
+        if (!result.hasNext()) {
+            terminal = result;
+            return false;
+        }
+        final Tuple partialGroup = Objects.requireNonNull(result.get());
+        final Tuple key = PartialHashAggregateCursor.getGroupingKey(partialGroup);
+        if (groupKey == null) {
+            groupKey = key;
+            groupStates = newStates(aggregates);
+        } else if (!groupKey.equals(key)) {
+            pending = result;
+            return false;
+        }
+        final Tuple partialValues = PartialHashAggregateCursor.getPartialValues(partialGroup);
+        final List<AccumulatorState<?, ?>> states = Objects.requireNonNull(groupStates);
+        for (int i = 0; i < states.size(); i++) {
+            Aggregate.accumulate(states.get(i), partialValues.get(i));
+        }
+        groupContinuation = result.getContinuation();
+        return true;
+    }
+
+    @Nonnull
+    private Tuple finishGroup() {
+        final List<Object> values = finishStates(Objects.requireNonNull(groupStates));
+        final Tuple result = Objects.requireNonNull(groupKey).addAll(values);
+        groupKey = null;
+        groupStates = null;
+        return result;
+    }
+
+    @Nonnull
+    static <V> List<AccumulatorState<?, ?>> newStates(@Nonnull List<Aggregate<V>> aggregates) {
+        final List<AccumulatorState<?, ?>> states = new ArrayList<>(aggregates.size());
+        for (Aggregate<V> aggregate : aggregates) {
+            states.add(aggregate.newState());
+        }
+        return states;
+    }
+
+    @Nonnull
+    static List<Object> finishStates(@Nonnull List<AccumulatorState<?, ?>> states) {
+        final List<Object> values = new ArrayList<>(states.size());
+        for (AccumulatorState<?, ?> state : states) {
+            values.add(state.finish());
+        }
+        return values;
+    }
+
+    @Override
+    public void close() {
+        sorted.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return sorted.isClosed();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return sorted.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            sorted.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
+
+    /**
+     * An aggregate computed by a {@link HashAggregateCursor} for each group, such as the sum of some field of the
+     * grouped records.
+     * @param <V> the type of the records being grouped
+     */
+    public static final class Aggregate<V> {
+        @Nonnull
+        private final Function<V, ?> argument;
+        @Nonnull
+        private final Supplier<AccumulatorState<?, ?>> stateSupplier;
+
+        private Aggregate(@Nonnull Function<V, ?> argument, @Nonnull Supplier<AccumulatorState<?, ?>> stateSupplier) {
+            this.argument = argument;
+            this.stateSupplier = stateSupplier;
+        }
+
+        /**
+         * Get an aggregate of {@code long} values. Integer values should be widened by the argument function.
+         * @param operation the aggregation operation
+         * @param argument a function to get the value to aggregate from a record, returning {@code null} to skip the record
+         * @param <V> the type of the records being grouped
+         * @return a new aggregate
+         */
+        @Nonnull
+        public static <V> Aggregate<V> ofLong(@Nonnull PrimitiveAccumulatorOperation operation, @Nonnull Function<V, Long> argument) {
+            return new Aggregate<>(argument, () -> new LongState(operation));
+        }
+
+        /**
+         * Get an aggregate of {@code double} values. Float values should be widened by the argument function.
+         * @param operation the aggregation operation
+         * @param argument a function to get the value to aggregate from a record, returning {@code null} to skip the record
+         * @param <V> the type of the records being grouped
+         * @return a new aggregate
+         */
+        @Nonnull
+        public static <V> Aggregate<V> ofDouble(@Nonnull PrimitiveAccumulatorOperation operation, @Nonnull Function<V, Double> argument) {
+            return new Aggregate<>(argument, () -> new DoubleState(operation));
+        }
+
+        /**
+         * Get an aggregate that counts the records in each group.
+         * @param <V> the type of the records being grouped
+         * @return a new aggregate
+         */
+        @Nonnull
+        public static <V> Aggregate<V> count() {
+            return ofLong(PrimitiveAccumulatorOperation.SUM, record -> 1L);
+        }
+
+        @Nonnull
+        AccumulatorState<?, ?> newState() {
+            return stateSupplier.get();
+        }
+
+        void accumulateRecord(@Nonnull AccumulatorState<?, ?> state, @Nonnull V record) {
+            accumulate(state, argument.apply(record));
+        }
+
+        // The argument and the partial values read back from a Tuple always have the type that the state accumulates.
+        @SuppressWarnings("unchecked")
+        static void accumulate(@Nonnull AccumulatorState<?, ?> state, @Nullable Object value) {
+            ((AccumulatorState<Object, ?>)state).accumulate(value);
+        }
+    }
+}
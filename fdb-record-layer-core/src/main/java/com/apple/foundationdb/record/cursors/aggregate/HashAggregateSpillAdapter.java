@@ -0,0 +1,133 @@
+/*
+ * HashAggregateSpillAdapter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.aggregate;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.sorting.FileSortAdapter;
+import com.apple.foundationdb.record.sorting.FileSortAdapterBase;
+import com.apple.foundationdb.record.sorting.MemorySortAdapter;
+import com.apple.foundationdb.record.sorting.MemorySorter;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * A {@link FileSortAdapter} for the partially aggregated groups of a {@link HashAggregateCursor}.
+ * {@link #getMaxRecordCountInMemory} is also the number of groups that the cursor keeps in memory.
+ * Files are encrypted with a key generated by this adapter, so a cursor must be resumed from a continuation using the
+ * same adapter.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class HashAggregateSpillAdapter extends FileSortAdapterBase<Tuple, Tuple> {
+    public static final int DEFAULT_MAX_GROUP_COUNT_IN_MEMORY = 1000;
+
+    private final int maxGroupCountInMemory;
+
+    public HashAggregateSpillAdapter() {
+        this(DEFAULT_MAX_GROUP_COUNT_IN_MEMORY);
+    }
+
+    public HashAggregateSpillAdapter(int maxGroupCountInMemory) {
+        this.maxGroupCountInMemory = maxGroupCountInMemory;
+    }
+
+    @Override
+    public int compare(@Nonnull Tuple o1, @Nonnull Tuple o2) {
+        return o1.compareTo(o2);
+    }
+
+    @Nonnull
+    @Override
+    public Tuple generateKey(@Nonnull Tuple value) {
+        return PartialHashAggregateCursor.getSortKey(value);
+    }
+
+    @Nonnull
+    @Override
+    public byte[] serializeKey(final Tuple key) {
+        return key.pack();
+    }
+
+    @Override
+    public boolean isSerializedOrderReversed() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public Tuple deserializeKey(@Nonnull final byte[] key) {
+        return Tuple.fromBytes(key);
+    }
+
+    @Nonnull
+    @Override
+    public byte[] serializeValue(final Tuple value) {
+        return value.pack();
+    }
+
+    @Nonnull
+    @Override
+    public Tuple deserializeValue(@Nonnull final byte[] value) {
+        return Tuple.fromBytes(value);
+    }
+
+    @Override
+    public int getMaxRecordCountInMemory() {
+        return maxGroupCountInMemory;
+    }
+
+    @Nonnull
+    @Override
+    public MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode() {
+        return MemorySorter.RecordCountInMemoryLimitMode.STOP;
+    }
+
+    @Override
+    public int getMetaDataVersion() {
+        return 0;
+    }
+
+    @Override
+    public void writeValue(@Nonnull final Tuple value, @Nonnull final CodedOutputStream stream) throws IOException {
+        stream.writeByteArrayNoTag(value.pack());
+    }
+
+    @Nonnull
+    @Override
+    public Tuple readValue(@Nonnull final CodedInputStream stream) throws IOException {
+        return Tuple.fromBytes(stream.readByteArray());
+    }
+
+    @Override
+    public int getMinFileRecordCount() {
+        return maxGroupCountInMemory;
+    }
+
+    @Nonnull
+    @Override
+    public MemorySortComparator<Tuple> getComparator(@Nullable final Tuple minimumKey) {
+        return new MemorySortAdapter.OrderComparator<>(this, minimumKey);
+    }
+}
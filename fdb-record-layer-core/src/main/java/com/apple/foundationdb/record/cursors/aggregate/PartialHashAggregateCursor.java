@@ -0,0 +1,186 @@
+/*
+ * PartialHashAggregateCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.aggregate;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorStartContinuation;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * The input side of a {@link HashAggregateCursor}, which groups records in memory and returns the partially
+ * aggregated groups each time there are too many of them, as well as when the input stops.
+ *
+ * <p>
+ * Each partial group is a {@link Tuple} of the grouping key, the identifier of this cursor, the number of the batch
+ * in which the group was returned and the partial values of the aggregates. The first three elements make up the sort
+ * key, which is therefore unique even though the same group is returned in many batches, including batches from
+ * cursors resumed from a continuation.
+ * </p>
+ *
+ * <p>
+ * Only the continuation with which this cursor stops is meaningful, since resuming from that of any partial group
+ * would lose the other groups in its batch. This is enough for the sort that consumes this cursor, which only saves the
+ * continuation of its input when that stops.
+ * </p>
+ *
+ * @param <V> the type of the records being grouped
+ */
+@API(API.Status.INTERNAL)
+class PartialHashAggregateCursor<V> implements RecordCursor<Tuple> {
+    @Nonnull
+    private final RecordCursor<V> inner;
+    @Nonnull
+    private final Function<V, Tuple> groupingKeyFunction;
+    @Nonnull
+    private final List<HashAggregateCursor.Aggregate<V>> aggregates;
+    private final int maxGroupsInMemory;
+    private final long cursorId;
+    @Nonnull
+    private Map<Tuple, List<AccumulatorState<?, ?>>> groups;
+    @Nullable
+    private Iterator<Map.Entry<Tuple, List<AccumulatorState<?, ?>>>> batchIterator;
+    private long batchNumber;
+    @Nonnull
+    private RecordCursorContinuation lastContinuation;
+    @Nullable
+    private RecordCursorResult<Tuple> innerNoNext;
+
+    PartialHashAggregateCursor(@Nonnull RecordCursor<V> inner, @Nonnull Function<V, Tuple> groupingKeyFunction,
+                               @Nonnull List<HashAggregateCursor.Aggregate<V>> aggregates, int maxGroupsInMemory) {
+        this.inner = inner;
+        this.groupingKeyFunction = groupingKeyFunction;
+        this.aggregates = aggregates;
+        this.maxGroupsInMemory = maxGroupsInMemory;
+        this.cursorId = ThreadLocalRandom.current().nextLong();
+        this.groups = new HashMap<>();
+        this.lastContinuation = RecordCursorStartContinuation.START;
+    }
+
+    @Nonnull
+    static Tuple getGroupingKey(@Nonnull Tuple partialGroup) {
+        return partialGroup.getNestedTuple(0);
+    }
+
+    @Nonnull
+    static Tuple getSortKey(@Nonnull Tuple partialGroup) {
+        return partialGroup.popBack();
+    }
+
+    @Nonnull
+    static Tuple getPartialValues(@Nonnull Tuple partialGroup) {
+        return partialGroup.getNestedTuple(3);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<Tuple>> onNext() {
+        final RecordCursorResult<Tuple> batched = nextFromBatch();
+        if (batched != null) {
+            return CompletableFuture.completedFuture(batched);
+        }
+        if (innerNoNext != null) {
+            return CompletableFuture.completedFuture(innerNoNext);
+        }
+        return AsyncUtil.whileTrue(() -> inner.onNext().thenApply(innerResult -> {
+            if (!innerResult.hasNext()) {
+                innerNoNext = RecordCursorResult.withoutNextValue(innerResult.getContinuation(), innerResult.getNoNextReason());
+                return false;
+            }
+            lastContinuation = innerResult.getContinuation();
+            addRecord(Objects.requireNonNull(innerResult.get()));
+            return groups.size() < maxGroupsInMemory;
+        }), getExecutor()).thenApply(vignore -> {
+            startBatch();
+            final RecordCursorResult<Tuple> result = nextFromBatch();
+            return result != null ? result : Objects.requireNonNull(innerNoNext);
+        });
+    }
+
+    private void addRecord(@Nonnull V record) {
+        final Tuple groupingKey = groupingKeyFunction.apply(record);
+        final List<AccumulatorState<?, ?>> states = groups.computeIfAbsent(groupingKey, k -> HashAggregateCursor.newStates(aggregates));
+        for (int i = 0; i < states.size(); i++) {
+            aggregates.get(i).accumulateRecord(states.get(i), record);
+        }
+    }
+
+    private void startBatch() {
+        batchIterator = groups.entrySet().iterator();
+        groups = new HashMap<>();
+        batchNumber++;
+    }
+
+    @Nullable
+    private RecordCursorResult<Tuple> nextFromBatch() {
+        if (batchIterator == null) {
+            return null;
+        }
+        if (!batchIterator.hasNext()) {
+            batchIterator = null;
+            return null;
+        }
+        final Map.Entry<Tuple, List<AccumulatorState<?, ?>>> group = batchIterator.next();
+        final Tuple partialValues = Tuple.fromList(HashAggregateCursor.finishStates(group.getValue()));
+        final Tuple partialGroup = Tuple.from(group.getKey(), cursorId, batchNumber, partialValues);
+        return RecordCursorResult.withNextValue(partialGroup, lastContinuation);
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return inner.isClosed();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            inner.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+}
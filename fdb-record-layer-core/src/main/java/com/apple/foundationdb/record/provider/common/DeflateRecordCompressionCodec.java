@@ -0,0 +1,152 @@
+/*
+ * DeflateRecordCompressionCodec.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link RecordCompressionCodec} that uses the zlib format through {@link Deflater} and {@link Inflater}.
+ *
+ * <p>
+ * Small records often compress poorly because there is little repetition within a single record. To help with this,
+ * a preset dictionary can be given for each record type. This should contain byte sequences that are common across
+ * many records of that type, such as the serialized form of a typical record. The zlib format records the Adler-32
+ * checksum of the dictionary used, so when decompressing, the right dictionary is found from that checksum rather than
+ * from the record type. This means that a dictionary must continue to be given (for any record type) for as long as
+ * there are records that were written with it. Records written without a dictionary are identical to those written
+ * by earlier versions of {@link TransformedRecordSerializer}.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class DeflateRecordCompressionCodec implements RecordCompressionCodec {
+    /**
+     * The compression version written by this codec. This is also the only version written
+     * before pluggable codecs were introduced.
+     */
+    public static final int COMPRESSION_VERSION = 1;
+
+    private final int compressionLevel;
+    @Nonnull
+    private final Map<String, byte[]> dictionariesByRecordType;
+    @Nonnull
+    private final Map<Integer, byte[]> dictionariesById;
+
+    /**
+     * Create a new codec without any preset dictionaries.
+     * @param compressionLevel the {@link Deflater} compression level (0-9)
+     */
+    public DeflateRecordCompressionCodec(int compressionLevel) {
+        this(compressionLevel, ImmutableMap.of());
+    }
+
+    /**
+     * Create a new codec with preset dictionaries.
+     * @param compressionLevel the {@link Deflater} compression level (0-9)
+     * @param dictionariesByRecordType map from record type name to the dictionary to use when compressing records of that type
+     */
+    public DeflateRecordCompressionCodec(int compressionLevel, @Nonnull Map<String, byte[]> dictionariesByRecordType) {
+        this.compressionLevel = compressionLevel;
+        this.dictionariesByRecordType = ImmutableMap.copyOf(dictionariesByRecordType);
+        final Map<Integer, byte[]> byId = new HashMap<>();
+        for (byte[] dictionary : dictionariesByRecordType.values()) {
+            final int id = dictionaryId(dictionary);
+            final byte[] existing = byId.putIfAbsent(id, dictionary);
+            if (existing != null && !Arrays.equals(existing, dictionary)) {
+                throw new RecordCoreArgumentException("compression dictionaries have the same checksum")
+                        .addLogInfo("dictionaryId", id);
+            }
+        }
+        this.dictionariesById = ImmutableMap.copyOf(byId);
+    }
+
+    private static int dictionaryId(@Nonnull byte[] dictionary) {
+        final Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return (int)adler.getValue();
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @Override
+    public int getCompressionVersion() {
+        return COMPRESSION_VERSION;
+    }
+
+    @Override
+    public int compress(@Nullable RecordType recordType,
+                        @Nonnull byte[] input, int inputOffset, int inputLength,
+                        @Nonnull byte[] output, int outputOffset, int maxOutputLength) {
+        final byte[] dictionary = recordType == null ? null : dictionariesByRecordType.get(recordType.getName());
+        final Deflater compressor = new Deflater(compressionLevel);
+        try {
+            if (dictionary != null) {
+                compressor.setDictionary(dictionary);
+            }
+            compressor.setInput(input, inputOffset, inputLength);
+            compressor.finish(); // necessary to include checksum
+            final int compressedLength = compressor.deflate(output, outputOffset, maxOutputLength, Deflater.FULL_FLUSH);
+            // If we end up filling the buffer, then report that this did not help, as it's pointless
+            // to compress if we actually increase the amount of data.
+            return compressedLength == maxOutputLength ? -1 : compressedLength;
+        } finally {
+            compressor.end();
+        }
+    }
+
+    @Override
+    public int decompress(@Nonnull byte[] input, int inputOffset, int inputLength,
+                          @Nonnull byte[] output, int outputOffset, int outputLength) throws DataFormatException {
+        final Inflater decompressor = new Inflater();
+        try {
+            decompressor.setInput(input, inputOffset, inputLength);
+            int actualDecompressedSize = decompressor.inflate(output, outputOffset, outputLength);
+            if (actualDecompressedSize == 0 && decompressor.needsDictionary()) {
+                // Without the dictionary, nothing can be decompressed, which will be reported as too small.
+                final byte[] dictionary = dictionariesById.get(decompressor.getAdler());
+                if (dictionary != null) {
+                    decompressor.setDictionary(dictionary);
+                    actualDecompressedSize = decompressor.inflate(output, outputOffset, outputLength);
+                }
+            }
+            if (actualDecompressedSize == outputLength && decompressor.getRemaining() > 0) {
+                return -1;
+            }
+            return actualDecompressedSize;
+        } finally {
+            decompressor.end();
+        }
+    }
+}
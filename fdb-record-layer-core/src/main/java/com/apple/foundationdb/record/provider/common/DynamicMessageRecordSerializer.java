@@ -28,6 +28,7 @@ import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.RecordType;
 import com.apple.foundationdb.record.util.pair.Pair;
 import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -65,6 +66,12 @@ public class DynamicMessageRecordSerializer implements RecordSerializer<Message>
         return this;
     }
 
+    @Nonnull
+    @Override
+    public RecordSerializer<Message> withProjection(@Nonnull RecordProjection projection) {
+        return projection.isAll() ? this : new ProjectingRecordSerializer<>(this, projection);
+    }
+
     @Nonnull
     @Override
     public byte[] serialize(@Nonnull RecordMetaData metaData,
@@ -102,10 +109,25 @@ public class DynamicMessageRecordSerializer implements RecordSerializer<Message>
                                @Nonnull final Tuple primaryKey,
                                @Nonnull final byte[] serialized,
                                @Nullable StoreTimer timer) {
+        return deserialize(metaData, primaryKey, serialized, 0, serialized.length, timer);
+    }
+
+    @Nonnull
+    @Override
+    @SpotBugsSuppressWarnings("RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE")
+    public Message deserialize(@Nonnull final RecordMetaData metaData,
+                               @Nonnull final Tuple primaryKey,
+                               @Nonnull final byte[] serialized,
+                               final int offset,
+                               final int length,
+                               @Nullable StoreTimer timer) {
         final long startTime = System.nanoTime();
         try {
             final Descriptors.Descriptor unionDescriptor = metaData.getUnionDescriptor();
-            final DynamicMessage unionMessage = deserializeUnion(unionDescriptor, primaryKey, serialized, metaData.getVersion());
+            // Go through the overloads for a whole array when possible, since subclasses may override those.
+            final DynamicMessage unionMessage = offset == 0 && length == serialized.length
+                                                ? deserializeUnion(unionDescriptor, primaryKey, serialized, metaData.getVersion())
+                                                : deserializeUnion(unionDescriptor, primaryKey, serialized, offset, length, metaData.getVersion());
             return getUnionField(unionMessage, primaryKey).getValue();
         } finally {
             if (timer != null) {
@@ -120,6 +142,39 @@ public class DynamicMessageRecordSerializer implements RecordSerializer<Message>
                                               @Nonnull final byte[] serialized,
                                               int metaDataVersion) {
         final DynamicMessage unionMessage = deserializeFromBytes(unionDescriptor, serialized);
+        checkUnion(unionMessage, primaryKey, metaDataVersion);
+        return unionMessage;
+    }
+
+    /**
+     * Deserialize the union message from a slice of an array. This is only called for a slice that is not the whole
+     * array, such as the output of a {@link TransformedRecordSerializer} that uses pooled buffers. Otherwise,
+     * {@link #deserializeUnion(Descriptors.Descriptor, Tuple, byte[], int)} is called, so a subclass that needs to
+     * handle both should override both.
+     * @param unionDescriptor the descriptor of the union message
+     * @param primaryKey the primary key of the record
+     * @param serialized an array containing the serialized bytes
+     * @param offset the offset of the serialized bytes within {@code serialized}
+     * @param length the number of serialized bytes
+     * @param metaDataVersion the version of the meta-data
+     * @return the union message
+     */
+    @Nonnull
+    protected DynamicMessage deserializeUnion(@Nonnull final Descriptors.Descriptor unionDescriptor,
+                                              @Nonnull final Tuple primaryKey,
+                                              @Nonnull final byte[] serialized,
+                                              final int offset,
+                                              final int length,
+                                              int metaDataVersion) {
+        if (offset == 0 && length == serialized.length) {
+            return deserializeUnion(unionDescriptor, primaryKey, serialized, metaDataVersion);
+        }
+        final DynamicMessage unionMessage = deserializeFromBytes(unionDescriptor, serialized, offset, length);
+        checkUnion(unionMessage, primaryKey, metaDataVersion);
+        return unionMessage;
+    }
+
+    private void checkUnion(@Nonnull DynamicMessage unionMessage, @Nonnull Tuple primaryKey, int metaDataVersion) {
         final Map<Descriptors.FieldDescriptor, Object> allFields = unionMessage.getAllFields();
         final Map<Integer, UnknownFieldSet.Field> unknownFields = unionMessage.getUnknownFields().asMap();
         if (!(allFields.size() == 1 && unknownFields.isEmpty())) {
@@ -139,7 +194,6 @@ public class DynamicMessageRecordSerializer implements RecordSerializer<Message>
                     .addLogInfo("metaDataVersion", metaDataVersion);
             throw ex;
         }
-        return unionMessage;
     }
 
     @Nonnull
@@ -153,6 +207,33 @@ public class DynamicMessageRecordSerializer implements RecordSerializer<Message>
         }
     }
 
+    /**
+     * Parse a message from a slice of an array. For the whole array, this calls
+     * {@link #deserializeFromBytes(Descriptors.Descriptor, byte[])}.
+     * @param storedDescriptor the descriptor of the message
+     * @param serialized an array containing the serialized bytes
+     * @param offset the offset of the serialized bytes within {@code serialized}
+     * @param length the number of serialized bytes
+     * @return the parsed message, which does not retain {@code serialized}
+     */
+    @Nonnull
+    protected DynamicMessage deserializeFromBytes(@Nonnull Descriptors.Descriptor storedDescriptor,
+                                                  @Nonnull byte[] serialized, int offset, int length) {
+        if (offset == 0 && length == serialized.length) {
+            return deserializeFromBytes(storedDescriptor, serialized);
+        }
+        try {
+            // Aliasing is off by default, so the parsed message does not retain the array.
+            final CodedInputStream input = CodedInputStream.newInstance(serialized, offset, length);
+            final DynamicMessage message = DynamicMessage.parseFrom(storedDescriptor, input);
+            input.checkLastTagWas(0);
+            return message;
+        } catch (InvalidProtocolBufferException ex) {
+            throw new RecordSerializationException("Error reading from byte array", ex)
+                    .addLogInfo("recordType", storedDescriptor.getName());
+        }
+    }
+
     @Nonnull
     protected Map.Entry<Descriptors.FieldDescriptor, DynamicMessage> getUnionField(@Nonnull final DynamicMessage unionMessage,
                                                                                    @Nonnull final Tuple primaryKey) {
@@ -83,6 +83,15 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
                                           @Nonnull B unionBuilder,
                                           @Nonnull M rec);
 
+    @Nonnull
+    @Override
+    public M deserialize(@Nonnull RecordMetaData metaData,
+                         @Nonnull Tuple primaryKey,
+                         @Nonnull byte[] serialized,
+                         @Nullable StoreTimer timer) {
+        return deserialize(metaData, primaryKey, serialized, 0, serialized.length, timer);
+    }
+
     @Nonnull
     @Override
     @SuppressWarnings({"unchecked", "squid:S1193", "PMD.AvoidInstanceofChecksInCatchClause", // exception type checking is less clunky
@@ -90,6 +99,8 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
     public M deserialize(@Nonnull RecordMetaData metaData,
                          @Nonnull Tuple primaryKey,
                          @Nonnull byte[] serialized,
+                         int offset,
+                         int length,
                          @Nullable StoreTimer timer) {
         long startTime = System.nanoTime();
         try {
@@ -103,7 +114,7 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
             }
             U storedRecord;
             try {
-                storedRecord = (U) unionBuilder.mergeFrom(serialized).build();
+                storedRecord = (U) unionBuilder.mergeFrom(serialized, offset, length).build();
             } catch (InvalidProtocolBufferException | UninitializedMessageException ex) {
                 InvalidProtocolBufferException iex;
                 if (ex instanceof InvalidProtocolBufferException) {
@@ -127,6 +138,12 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
     protected abstract M getUnionField(@Nonnull Descriptors.Descriptor unionDescriptor,
                                        @Nonnull U storedRecord);
 
+    @Nonnull
+    @Override
+    public RecordSerializer<M> withProjection(@Nonnull RecordProjection projection) {
+        return projection.isAll() ? this : new ProjectingRecordSerializer<>(this, projection);
+    }
+
     @Nonnull
     @Override
     public RecordSerializer<Message> widen() {
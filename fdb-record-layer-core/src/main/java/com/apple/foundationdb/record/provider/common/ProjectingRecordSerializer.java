@@ -0,0 +1,189 @@
+/*
+ * ProjectingRecordSerializer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.google.protobuf.WireFormat;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A {@link RecordSerializer} that only materializes the fields of a {@link RecordProjection}. This wraps a serializer
+ * that stores records as a serialized union message, such as {@link DynamicMessageRecordSerializer}. Before the wrapped
+ * serializer parses a record, the serialized bytes of any top-level field that is not in the projection are dropped,
+ * which only requires reading each field's tag and length.
+ *
+ * <p>
+ * Records deserialized by this class are partial and so this class cannot be used to serialize records.
+ * Instances are usually obtained from {@link RecordSerializer#withProjection}.
+ * </p>
+ *
+ * @param <M> type of {@link Message} that underlying records will use
+ */
+@API(API.Status.EXPERIMENTAL)
+public class ProjectingRecordSerializer<M extends Message> implements RecordSerializer<M> {
+    @Nonnull
+    private final RecordSerializer<M> inner;
+    @Nonnull
+    private final RecordProjection projection;
+
+    public ProjectingRecordSerializer(@Nonnull RecordSerializer<M> inner, @Nonnull RecordProjection projection) {
+        this.inner = inner;
+        this.projection = projection;
+    }
+
+    @Nonnull
+    public RecordSerializer<M> getInner() {
+        return inner;
+    }
+
+    @Nonnull
+    @Override
+    public RecordProjection getProjection() {
+        return projection;
+    }
+
+    @Nonnull
+    @Override
+    public RecordSerializer<M> withProjection(@Nonnull RecordProjection newProjection) {
+        return inner.withProjection(newProjection);
+    }
+
+    @Nonnull
+    @Override
+    public byte[] serialize(@Nonnull RecordMetaData metaData, @Nonnull RecordType recordType,
+                            @Nonnull M rec, @Nullable StoreTimer timer) {
+        throw new RecordSerializationException("cannot serialize partial records")
+                .addLogInfo("recordType", recordType.getName());
+    }
+
+    @Nonnull
+    @Override
+    public M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
+                         @Nonnull byte[] serialized, @Nullable StoreTimer timer) {
+        return deserialize(metaData, primaryKey, serialized, 0, serialized.length, timer);
+    }
+
+    @Nonnull
+    @Override
+    public M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
+                         @Nonnull byte[] serialized, int offset, int length, @Nullable StoreTimer timer) {
+        final byte[] projected = projectUnion(metaData, serialized, offset, length);
+        if (projected == null) {
+            return inner.deserialize(metaData, primaryKey, serialized, offset, length, timer);
+        }
+        if (timer != null) {
+            timer.increment(Counts.RECORD_BYTES_SKIPPED_BY_PROJECTION, length - projected.length);
+        }
+        return inner.deserialize(metaData, primaryKey, projected, timer);
+    }
+
+    /**
+     * Remove the fields that are not in the projection from a serialized union message.
+     * @param metaData the meta-data with the union descriptor
+     * @param serialized array containing the serialized union message
+     * @param offset offset of the message within {@code serialized}
+     * @param length length of the message
+     * @return a new serialized union message or {@code null} if the original message should be parsed as is
+     */
+    @Nullable
+    protected byte[] projectUnion(@Nonnull RecordMetaData metaData, @Nonnull byte[] serialized, int offset, int length) {
+        if (projection.isAll()) {
+            return null;
+        }
+        try {
+            final CodedInputStream unionInput = CodedInputStream.newInstance(serialized, offset, length);
+            final int unionTag = unionInput.readTag();
+            if (WireFormat.getTagWireType(unionTag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                return null;
+            }
+            final int unionFieldNumber = WireFormat.getTagFieldNumber(unionTag);
+            final Descriptors.FieldDescriptor unionField = metaData.getUnionDescriptor().findFieldByNumber(unionFieldNumber);
+            if (unionField == null || unionField.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+                return null;
+            }
+            final Descriptors.Descriptor recordDescriptor = unionField.getMessageType();
+            final Set<Integer> fieldNumbers = projection.getFieldNumbers(recordDescriptor.getName());
+            if (fieldNumbers == null) {
+                return null;
+            }
+            final int recordLength = unionInput.readRawVarint32();
+            final int recordOffset = offset + unionInput.getTotalBytesRead();
+            if (recordLength < 0 || recordOffset + recordLength != offset + length) {
+                // Not a single union field; leave it to the inner serializer to report.
+                return null;
+            }
+
+            final byte[] kept = new byte[recordLength];
+            int keptLength = 0;
+            final CodedInputStream recordInput = CodedInputStream.newInstance(serialized, recordOffset, recordLength);
+            while (true) {
+                final int fieldStart = recordInput.getTotalBytesRead();
+                final int tag = recordInput.readTag();
+                if (tag == 0) {
+                    break;
+                }
+                if (!recordInput.skipField(tag)) {
+                    return null;
+                }
+                final int fieldNumber = WireFormat.getTagFieldNumber(tag);
+                if (fieldNumbers.contains(fieldNumber) || isRequired(recordDescriptor, fieldNumber)) {
+                    final int fieldLength = recordInput.getTotalBytesRead() - fieldStart;
+                    System.arraycopy(serialized, recordOffset + fieldStart, kept, keptLength, fieldLength);
+                    keptLength += fieldLength;
+                }
+            }
+
+            final byte[] projected = new byte[CodedOutputStream.computeTagSize(unionFieldNumber) +
+                                              CodedOutputStream.computeUInt32SizeNoTag(keptLength) + keptLength];
+            final CodedOutputStream output = CodedOutputStream.newInstance(projected);
+            output.writeTag(unionFieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(keptLength);
+            output.writeRawBytes(kept, 0, keptLength);
+            output.checkNoSpaceLeft();
+            return projected;
+        } catch (IOException ex) {
+            // Malformed data; let the inner serializer parse everything and report the error.
+            return null;
+        }
+    }
+
+    private static boolean isRequired(@Nonnull Descriptors.Descriptor recordDescriptor, int fieldNumber) {
+        final Descriptors.FieldDescriptor field = recordDescriptor.findFieldByNumber(fieldNumber);
+        return field != null && field.isRequired();
+    }
+
+    @Nonnull
+    @Override
+    public RecordSerializer<Message> widen() {
+        return new ProjectingRecordSerializer<>(inner.widen(), projection);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * RecordCompressionCodec.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.metadata.RecordType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.zip.DataFormatException;
+
+/**
+ * A compression algorithm used by a {@link TransformedRecordSerializer}.
+ *
+ * <p>
+ * Compressed records begin with a one-byte compression version followed by the uncompressed length, both of which
+ * are written by the serializer. The version identifies the codec that wrote the remaining bytes, so that a serializer
+ * configured with several codecs can read records written by any of them. A codec's version must therefore never
+ * change once data have been written with it, and two different codecs should never share a version.
+ * Version {@value DeflateRecordCompressionCodec#COMPRESSION_VERSION} is used by the {@link DeflateRecordCompressionCodec},
+ * which is the codec used by default.
+ * </p>
+ *
+ * <p>
+ * Implementations must be thread safe, as a single serializer may be used by many transactions at once.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public interface RecordCompressionCodec {
+    /**
+     * Get the version byte written at the start of data compressed with this codec.
+     * This must be between {@code 1} and {@code 127}.
+     * @return the compression version of this codec
+     */
+    int getCompressionVersion();
+
+    /**
+     * Compress serialized record data.
+     * @param recordType the type of the record being compressed, if known
+     * @param input array containing the data to compress
+     * @param inputOffset offset of the data within {@code input}
+     * @param inputLength length of the data
+     * @param output array into which to write the compressed data
+     * @param outputOffset offset within {@code output} at which to begin writing
+     * @param maxOutputLength the maximum number of bytes that may be written to {@code output}
+     * @return the number of bytes written or {@code -1} if the compressed data would not be smaller than {@code maxOutputLength}
+     */
+    int compress(@Nullable RecordType recordType,
+                 @Nonnull byte[] input, int inputOffset, int inputLength,
+                 @Nonnull byte[] output, int outputOffset, int maxOutputLength);
+
+    /**
+     * Decompress data previously written by {@link #compress}.
+     * @param input array containing the compressed data (not including the compression version and length)
+     * @param inputOffset offset of the compressed data within {@code input}
+     * @param inputLength length of the compressed data
+     * @param output array into which to write the decompressed data
+     * @param outputOffset offset within {@code output} at which to begin writing
+     * @param outputLength the expected length of the decompressed data
+     * @return the number of bytes written or {@code -1} if there was more decompressed data than {@code outputLength}
+     * @throws DataFormatException if the compressed data are not valid
+     */
+    int decompress(@Nonnull byte[] input, int inputOffset, int inputLength,
+                   @Nonnull byte[] output, int outputOffset, int outputLength) throws DataFormatException;
+}
@@ -0,0 +1,281 @@
+/*
+ * RecordProjection.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.FieldKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyWithValueExpression;
+import com.apple.foundationdb.record.metadata.expressions.ListKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.LiteralKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.NestingKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.RecordTypeKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.ThenKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.VersionKeyExpression;
+import com.apple.foundationdb.record.query.RecordQuery;
+import com.apple.foundationdb.record.query.expressions.BaseField;
+import com.apple.foundationdb.record.query.expressions.ComponentWithChildren;
+import com.apple.foundationdb.record.query.expressions.NotComponent;
+import com.apple.foundationdb.record.query.expressions.QueryComponent;
+import com.apple.foundationdb.record.query.expressions.QueryKeyExpressionWithComparison;
+import com.apple.foundationdb.record.query.expressions.QueryKeyExpressionWithOneOfComparison;
+import com.apple.foundationdb.record.query.expressions.RecordTypeKeyComparison;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.Descriptors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The subset of the top-level fields of each record type that should be materialized when a record is deserialized.
+ *
+ * <p>
+ * A {@link RecordSerializer} obtained from {@link RecordSerializer#withProjection} skips over the serialized form of any
+ * field that is not in the projection, so large or deeply nested fields that are not needed are never parsed. The
+ * resulting records are partial, in the same way as records returned by covering index scans, and so must not be
+ * saved back to the store. Record types that have no entry in the projection are materialized in full, as are
+ * {@code required} fields, which are always kept so that the partial message can still be built.
+ * </p>
+ *
+ * <p>
+ * {@link #forQuery(RecordMetaData, RecordQuery)} builds a projection from a query's {@linkplain RecordQuery#getRequiredResults() required results},
+ * filter and sort, which can then be used with {@link com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase#getProjectedRecordStore}.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RecordProjection {
+    /**
+     * A projection that materializes all fields of every record type.
+     */
+    public static final RecordProjection ALL = new RecordProjection(ImmutableMap.of());
+
+    @Nonnull
+    private final Map<String, Set<Integer>> fieldNumbersByRecordType;
+
+    private RecordProjection(@Nonnull Map<String, Set<Integer>> fieldNumbersByRecordType) {
+        this.fieldNumbersByRecordType = fieldNumbersByRecordType;
+    }
+
+    /**
+     * Create a projection from the numbers of the top-level fields to keep for each record type.
+     * @param fieldNumbersByRecordType map from record type name to the field numbers to materialize
+     * @return a new projection
+     */
+    @Nonnull
+    public static RecordProjection ofFieldNumbers(@Nonnull Map<String, ? extends Collection<Integer>> fieldNumbersByRecordType) {
+        final ImmutableMap.Builder<String, Set<Integer>> builder = ImmutableMap.builder();
+        for (Map.Entry<String, ? extends Collection<Integer>> entry : fieldNumbersByRecordType.entrySet()) {
+            builder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+        }
+        return new RecordProjection(builder.build());
+    }
+
+    /**
+     * Create a projection that keeps the fields used by the given key expressions for each of the given record types.
+     * The primary key fields of each record type are always kept. If an expression uses fields in a way that cannot
+     * be determined, such as through a function, then records of that type are materialized in full.
+     * @param metaData the meta-data containing the record types
+     * @param recordTypeNames the names of the record types to project
+     * @param expressions the key expressions that will be evaluated against the partial records
+     * @return a new projection
+     */
+    @Nonnull
+    public static RecordProjection fromKeyExpressions(@Nonnull RecordMetaData metaData,
+                                                      @Nonnull Collection<String> recordTypeNames,
+                                                      @Nonnull Collection<? extends KeyExpression> expressions) {
+        final Set<String> fieldNames = new HashSet<>();
+        for (KeyExpression expression : expressions) {
+            if (!addFieldNames(expression, fieldNames)) {
+                return ALL;
+            }
+        }
+        return forFieldNames(metaData, recordTypeNames, fieldNames);
+    }
+
+    /**
+     * Create a projection that keeps the fields needed to execute a query and return its
+     * {@linkplain RecordQuery#getRequiredResults() required results}. If the query does not specify required results,
+     * or if its filter uses fields in a way that cannot be determined, this returns {@link #ALL}.
+     * @param metaData the meta-data against which the query will be run
+     * @param query the query to be executed
+     * @return a projection for records returned by the query
+     */
+    @Nonnull
+    public static RecordProjection forQuery(@Nonnull RecordMetaData metaData, @Nonnull RecordQuery query) {
+        final List<KeyExpression> requiredResults = query.getRequiredResults();
+        if (requiredResults == null) {
+            return ALL;
+        }
+        final Set<String> fieldNames = new HashSet<>();
+        final List<KeyExpression> expressions = new ArrayList<>(requiredResults);
+        if (query.getSort() != null) {
+            expressions.add(query.getSort());
+        }
+        for (KeyExpression expression : expressions) {
+            if (!addFieldNames(expression, fieldNames)) {
+                return ALL;
+            }
+        }
+        if (query.getFilter() != null && !addFieldNames(query.getFilter(), fieldNames)) {
+            return ALL;
+        }
+        final Collection<String> recordTypeNames = query.getRecordTypes().isEmpty() ? metaData.getRecordTypes().keySet() : query.getRecordTypes();
+        return forFieldNames(metaData, recordTypeNames, fieldNames);
+    }
+
+    @Nonnull
+    private static RecordProjection forFieldNames(@Nonnull RecordMetaData metaData,
+                                                  @Nonnull Collection<String> recordTypeNames,
+                                                  @Nonnull Set<String> fieldNames) {
+        final Map<String, Set<Integer>> fieldNumbersByRecordType = new HashMap<>();
+        for (String recordTypeName : recordTypeNames) {
+            final RecordType recordType = metaData.getRecordType(recordTypeName);
+            final Set<String> recordFieldNames = new HashSet<>(fieldNames);
+            if (!addFieldNames(recordType.getPrimaryKey(), recordFieldNames)) {
+                continue;
+            }
+            final Descriptors.Descriptor descriptor = recordType.getDescriptor();
+            final Set<Integer> fieldNumbers = new HashSet<>();
+            for (String fieldName : recordFieldNames) {
+                final Descriptors.FieldDescriptor field = descriptor.findFieldByName(fieldName);
+                if (field != null) {
+                    fieldNumbers.add(field.getNumber());
+                }
+            }
+            fieldNumbersByRecordType.put(recordTypeName, fieldNumbers);
+        }
+        return ofFieldNumbers(fieldNumbersByRecordType);
+    }
+
+    private static boolean addFieldNames(@Nonnull KeyExpression expression, @Nonnull Set<String> fieldNames) {
+        if (expression instanceof FieldKeyExpression) {
+            fieldNames.add(((FieldKeyExpression)expression).getFieldName());
+            return true;
+        } else if (expression instanceof NestingKeyExpression) {
+            fieldNames.add(((NestingKeyExpression)expression).getParent().getFieldName());
+            return true;
+        } else if (expression instanceof ThenKeyExpression) {
+            return addAllFieldNames(((ThenKeyExpression)expression).getChildren(), fieldNames);
+        } else if (expression instanceof ListKeyExpression) {
+            return addAllFieldNames(((ListKeyExpression)expression).getChildren(), fieldNames);
+        } else if (expression instanceof GroupingKeyExpression) {
+            return addFieldNames(((GroupingKeyExpression)expression).getWholeKey(), fieldNames);
+        } else if (expression instanceof KeyWithValueExpression) {
+            return addFieldNames(((KeyWithValueExpression)expression).getInnerKey(), fieldNames);
+        } else {
+            // These do not read any fields; anything else (such as a function) might read any field.
+            return expression instanceof EmptyKeyExpression || expression instanceof RecordTypeKeyExpression ||
+                   expression instanceof VersionKeyExpression || expression instanceof LiteralKeyExpression;
+        }
+    }
+
+    private static boolean addAllFieldNames(@Nonnull List<KeyExpression> expressions, @Nonnull Set<String> fieldNames) {
+        for (KeyExpression child : expressions) {
+            if (!addFieldNames(child, fieldNames)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean addFieldNames(@Nonnull QueryComponent component, @Nonnull Set<String> fieldNames) {
+        if (component instanceof BaseField) {
+            fieldNames.add(((BaseField)component).getFieldName());
+            return true;
+        } else if (component instanceof ComponentWithChildren) {
+            for (QueryComponent child : ((ComponentWithChildren)component).getChildren()) {
+                if (!addFieldNames(child, fieldNames)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (component instanceof NotComponent) {
+            return addFieldNames(((NotComponent)component).getChild(), fieldNames);
+        } else if (component instanceof QueryKeyExpressionWithComparison) {
+            return addFieldNames(((QueryKeyExpressionWithComparison)component).getKeyExpression(), fieldNames);
+        } else if (component instanceof QueryKeyExpressionWithOneOfComparison) {
+            return addFieldNames(((QueryKeyExpressionWithOneOfComparison)component).getKeyExpression(), fieldNames);
+        } else {
+            return component instanceof RecordTypeKeyComparison;
+        }
+    }
+
+    /**
+     * Get whether records of the given type are projected.
+     * @param recordTypeName the name of the record type
+     * @return {@code true} if only some fields of records of the given type are materialized
+     */
+    public boolean isProjected(@Nonnull String recordTypeName) {
+        return fieldNumbersByRecordType.containsKey(recordTypeName);
+    }
+
+    /**
+     * Get the numbers of the top-level fields that are materialized for records of the given type.
+     * @param recordTypeName the name of the record type
+     * @return the field numbers to keep or {@code null} if all fields are kept
+     */
+    @Nullable
+    public Set<Integer> getFieldNumbers(@Nonnull String recordTypeName) {
+        return fieldNumbersByRecordType.get(recordTypeName);
+    }
+
+    /**
+     * Get whether this projection materializes all fields of every record type.
+     * @return {@code true} if no record type is projected
+     */
+    public boolean isAll() {
+        return fieldNumbersByRecordType.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return fieldNumbersByRecordType.equals(((RecordProjection)o).fieldNumbersByRecordType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fieldNumbersByRecordType);
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "ALL" : fieldNumbersByRecordType.toString();
+    }
+}
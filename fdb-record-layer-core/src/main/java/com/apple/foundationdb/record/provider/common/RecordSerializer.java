@@ -30,6 +30,7 @@ import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -79,6 +80,30 @@ public interface RecordSerializer<M extends Message> {
     M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
                   @Nonnull byte[] serialized, @Nullable StoreTimer timer);
 
+    /**
+     * Convert a slice of a byte array to a Protobuf record. This is equivalent to
+     * {@link #deserialize(RecordMetaData, Tuple, byte[], StoreTimer) deserialize()} on a copy of the slice,
+     * which is what the default implementation does. Serializers that can parse directly from a slice should
+     * override this to avoid the copy. The array may be reused by the caller once this method returns, so the
+     * returned record must not retain any reference to it.
+     *
+     * @param metaData the store's meta-data
+     * @param primaryKey the primary key of the record
+     * @param serialized an array containing the serialized bytes
+     * @param offset the offset of the serialized bytes within {@code serialized}
+     * @param length the number of serialized bytes
+     * @param timer a timer used to instrument deserialization
+     * @return the deserialized record
+     */
+    @Nonnull
+    default M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
+                          @Nonnull byte[] serialized, int offset, int length, @Nullable StoreTimer timer) {
+        if (offset == 0 && length == serialized.length) {
+            return deserialize(metaData, primaryKey, serialized, timer);
+        }
+        return deserialize(metaData, primaryKey, Arrays.copyOfRange(serialized, offset, offset + length), timer);
+    }
+
     /**
      * Convert this typed record serializer to an untyped one.
      *
@@ -99,6 +124,38 @@ public interface RecordSerializer<M extends Message> {
     @Nonnull
     RecordSerializer<Message> widen();
 
+    /**
+     * Get a serializer that only materializes the fields in the given projection when deserializing.
+     *
+     * <ul>
+     * <li>If this serializer wraps another serializer, for example, because it does compressions, then
+     * project that serializer and return the result wrapped equivalently.</li>
+     * <li>If this serializer parses records from a serialized union message, return a {@link ProjectingRecordSerializer}.</li>
+     * <li>Otherwise, return this serializer, which will continue to materialize all fields.</li>
+     * </ul>
+     *
+     * <p>
+     * The returned serializer produces partial records, so it must not be used to save records.
+     * </p>
+     * @param projection the fields to materialize
+     * @return a serializer that materializes at most the projected fields, other than required fields
+     * @see RecordProjection
+     */
+    @Nonnull
+    default RecordSerializer<M> withProjection(@Nonnull RecordProjection projection) {
+        return this;
+    }
+
+    /**
+     * Get the projection used by this serializer when deserializing, if any.
+     * @return the projection applied to deserialized records or {@code null} if records are materialized in full
+     * @see #withProjection(RecordProjection)
+     */
+    @Nullable
+    default RecordProjection getProjection() {
+        return null;
+    }
+
     /**
      * Validation method that will attempt to deserialize a record and validate it matches the original format. This
      * can be used during serializer development to ensure that the record can deserialize all of the data that
@@ -182,6 +239,8 @@ public interface RecordSerializer<M extends Message> {
         RECORD_BYTES_BEFORE_COMPRESSION("record bytes before compression"),
         /** Total record bytes after compression was attempted. */
         RECORD_BYTES_AFTER_COMPRESSION("record bytes after compression"),
+        /** Total serialized record bytes that were skipped because their fields were not in a {@link RecordProjection}. */
+        RECORD_BYTES_SKIPPED_BY_PROJECTION("record bytes skipped by projection"),
         ;
 
         private final String title;
@@ -37,10 +37,12 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.Inflater;
 
 /**
  * A {@link RecordSerializer} implementation that transforms the bytes produced
@@ -60,6 +62,20 @@ import java.util.zip.Inflater;
  * </p>
  *
  * <p>
+ * Compression is performed by a {@link RecordCompressionCodec}, which is a {@link DeflateRecordCompressionCodec}
+ * unless another is specified with {@link Builder#setCompressionCodec}. Each compressed record
+ * records the version of the codec that wrote it, so additional codecs can be registered for reading
+ * with {@link Builder#addDecompressionCodec} while data are migrated from one codec to another.
+ * </p>
+ *
+ * <p>
+ * By default, each transformation allocates a new array for its output. If {@link Builder#setUsePooledBuffers}
+ * is set, intermediate results are instead written into buffers that are kept by each thread and reused
+ * across calls, so that deserializing a compressed and encrypted record only allocates the final message.
+ * Buffers larger than {@value MAX_POOLED_BUFFER_SIZE} bytes are never kept.
+ * </p>
+ *
+ * <p>
  * This base class does not itself support encryption: an exception will be thrown
  * when trying to construct a serializer with encryption enabled or when encountering
  * a serialized record that requires decryption. Subclasses, such as {@link TransformedRecordSerializerJCE},
@@ -89,7 +105,8 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     protected static final int ENCODING_PROTO_TYPE_MASK = 0x07;
     protected static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
     protected static final int MIN_COMPRESSION_VERSION = 1;
-    protected static final int MAX_COMPRESSION_VERSION = 1;
+    protected static final int MAX_COMPRESSION_VERSION = 127;
+    protected static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
 
     @Nonnull
     protected final RecordSerializer<M> inner;
@@ -97,17 +114,49 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     protected final int compressionLevel;
     protected final boolean encryptWhenSerializing;
     protected final double writeValidationRatio;
+    @Nonnull
+    protected final RecordCompressionCodec compressionCodec;
+    @Nonnull
+    protected final Map<Integer, RecordCompressionCodec> decompressionCodecs;
+    protected final boolean usePooledBuffers;
 
     protected TransformedRecordSerializer(@Nonnull RecordSerializer<M> inner,
                                           boolean compressWhenSerializing,
                                           int compressionLevel,
                                           boolean encryptWhenSerializing,
                                           double writeValidationRatio) {
+        this(inner, compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio,
+                new DeflateRecordCompressionCodec(compressionLevel), Collections.emptyMap(), false);
+    }
+
+    protected TransformedRecordSerializer(@Nonnull RecordSerializer<M> inner,
+                                          boolean compressWhenSerializing,
+                                          int compressionLevel,
+                                          boolean encryptWhenSerializing,
+                                          double writeValidationRatio,
+                                          @Nonnull RecordCompressionCodec compressionCodec,
+                                          @Nonnull Map<Integer, RecordCompressionCodec> decompressionCodecs,
+                                          boolean usePooledBuffers) {
         this.inner = inner;
         this.compressWhenSerializing = compressWhenSerializing;
         this.compressionLevel = compressionLevel;
         this.encryptWhenSerializing = encryptWhenSerializing;
         this.writeValidationRatio = writeValidationRatio;
+        this.compressionCodec = compressionCodec;
+        this.decompressionCodecs = combineDecompressionCodecs(compressionLevel, compressionCodec, decompressionCodecs);
+        this.usePooledBuffers = usePooledBuffers;
+    }
+
+    @Nonnull
+    private static Map<Integer, RecordCompressionCodec> combineDecompressionCodecs(int compressionLevel,
+                                                                                   @Nonnull RecordCompressionCodec compressionCodec,
+                                                                                   @Nonnull Map<Integer, RecordCompressionCodec> decompressionCodecs) {
+        final Map<Integer, RecordCompressionCodec> combined = new HashMap<>();
+        // Records written before codecs were pluggable can always be read, unless the Deflate version is explicitly overridden.
+        combined.put(DeflateRecordCompressionCodec.COMPRESSION_VERSION, new DeflateRecordCompressionCodec(compressionLevel));
+        combined.putAll(decompressionCodecs);
+        combined.put(compressionCodec.getCompressionVersion(), compressionCodec);
+        return Collections.unmodifiableMap(combined);
     }
 
     @SpotBugsSuppressWarnings("EI_EXPOSE_REP")
@@ -119,6 +168,9 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         public int offset;
         public int length;
 
+        @Nullable
+        private PooledBuffers pooledBuffers;
+
         public TransformState(@Nonnull byte[] data) {
             this(data, 0, data.length);
         }
@@ -154,33 +206,87 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
             this.offset = offset;
             this.length = length;
         }
+
+        /**
+         * Get an array into which to write the output of a transformation. If pooled buffers are in use,
+         * this may be longer than requested and is only valid until the serializer returns, so it must not
+         * be exposed to callers. It is never the same as the array currently holding this state's data.
+         * @param minLength the number of bytes needed
+         * @return an array of at least {@code minLength} bytes
+         */
+        @Nonnull
+        public byte[] newDataArray(int minLength) {
+            if (pooledBuffers == null || minLength > MAX_POOLED_BUFFER_SIZE) {
+                return new byte[minLength];
+            }
+            return pooledBuffers.borrow(minLength, data);
+        }
+    }
+
+    /**
+     * A pair of buffers kept by each thread. Transformations alternate between them, reading from one and writing
+     * into the other. If a serializer is reentered on the same thread, such as when one transformed serializer wraps
+     * another, the inner call finds them in use and falls back to allocating.
+     */
+    private static final class PooledBuffers {
+        private static final ThreadLocal<PooledBuffers> POOLED_BUFFERS = ThreadLocal.withInitial(PooledBuffers::new);
+
+        @Nonnull
+        private final byte[][] buffers = new byte[2][];
+        private boolean inUse;
+
+        @Nullable
+        static PooledBuffers acquire() {
+            final PooledBuffers pooledBuffers = POOLED_BUFFERS.get();
+            if (pooledBuffers.inUse) {
+                return null;
+            }
+            pooledBuffers.inUse = true;
+            return pooledBuffers;
+        }
+
+        void release() {
+            inUse = false;
+        }
+
+        @Nonnull
+        @SuppressWarnings("PMD.CompareObjectsWithEquals")
+        byte[] borrow(int minLength, @Nonnull byte[] current) {
+            final int index = buffers[0] == current ? 1 : 0;
+            byte[] buffer = buffers[index];
+            if (buffer == null || buffer.length < minLength) {
+                // Grow geometrically so that a few large records do not cause repeated reallocation.
+                final int newLength = buffer == null ? minLength : Math.min(MAX_POOLED_BUFFER_SIZE, Math.max(minLength, buffer.length * 2));
+                buffer = new byte[newLength];
+                buffers[index] = buffer;
+            }
+            return buffer;
+        }
     }
 
     protected void compress(@Nonnull TransformState state, @Nullable StoreTimer timer) {
+        compress(state, null, timer);
+    }
+
+    protected void compress(@Nonnull TransformState state, @Nullable RecordType recordType, @Nullable StoreTimer timer) {
         long startTime = System.nanoTime();
 
         increment(timer, Counts.RECORD_BYTES_BEFORE_COMPRESSION, state.length);
 
-        byte[] compressed = new byte[state.length];
+        byte[] compressed = state.newDataArray(state.length);
 
         // Write compression version number and uncompressed size as these
         // meta-data are needed when decompressing.
-        compressed[0] = (byte) MAX_COMPRESSION_VERSION;
+        compressed[0] = (byte) compressionCodec.getCompressionVersion();
         ByteBuffer.wrap(compressed, 1, 4).order(ByteOrder.BIG_ENDIAN).putInt(state.length);
 
-        // Actually compress. If we end up filling the buffer, then just
-        // return the uncompressed value because it's pointless to compress
-        // if we actually increase the amount of data.
-        Deflater compressor = new Deflater(compressionLevel);
-        int compressedLength;
-        try {
-            compressor.setInput(state.data, state.offset, state.length);
-            compressor.finish(); // necessary to include checksum
-            compressedLength = compressor.deflate(compressed, 5, compressed.length - 5, Deflater.FULL_FLUSH);
-        } finally {
-            compressor.end();
-        }
-        if (compressedLength == compressed.length - 5) {
+        // Actually compress. If the codec reports that it could not make the
+        // data smaller, then just return the uncompressed value because it's
+        // pointless to compress if we actually increase the amount of data.
+        int compressedLength = state.length > 5
+                               ? compressionCodec.compress(recordType, state.data, state.offset, state.length, compressed, 5, state.length - 5)
+                               : -1;
+        if (compressedLength < 0) {
             increment(timer, Counts.RECORD_BYTES_AFTER_COMPRESSION, state.length);
             state.compressed = false;
         } else {
@@ -220,38 +326,43 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         byte[] innerSerialized = inner.serialize(metaData, recordType, rec, timer);
 
         TransformState state = new TransformState(innerSerialized);
-
-        if (compressWhenSerializing) {
-            compress(state, timer);
-        }
-
-        if (encryptWhenSerializing) {
-            try {
-                encrypt(state, timer);
-            } catch (GeneralSecurityException ex) {
-                throw new RecordSerializationException("encryption error", ex)
-                        .addLogInfo("recordType", recordType.getName())
-                        .addLogInfo(LogMessageKeys.META_DATA_VERSION, metaData.getVersion());
+        byte[] serialized;
+        state.pooledBuffers = acquirePooledBuffers();
+        try {
+            if (compressWhenSerializing) {
+                compress(state, recordType, timer);
             }
-        }
 
-        int code;
-        if (state.compressed || state.encrypted) {
-            code = 0;
-            if (state.compressed) {
-                code = code | ENCODING_COMPRESSED;
+            if (encryptWhenSerializing) {
+                try {
+                    encrypt(state, timer);
+                } catch (GeneralSecurityException ex) {
+                    throw new RecordSerializationException("encryption error", ex)
+                            .addLogInfo("recordType", recordType.getName())
+                            .addLogInfo(LogMessageKeys.META_DATA_VERSION, metaData.getVersion());
+                }
             }
-            if (state.encrypted) {
-                code = code | ENCODING_ENCRYPTED;
+
+            int code;
+            if (state.compressed || state.encrypted) {
+                code = 0;
+                if (state.compressed) {
+                    code = code | ENCODING_COMPRESSED;
+                }
+                if (state.encrypted) {
+                    code = code | ENCODING_ENCRYPTED;
+                }
+            } else {
+                code = ENCODING_CLEAR;
             }
-        } else {
-            code = ENCODING_CLEAR;
-        }
 
-        int size = state.length + 1;
-        byte[] serialized = new byte[size];
-        serialized[0] = (byte) code;
-        System.arraycopy(state.data, state.offset, serialized, 1, state.length);
+            int size = state.length + 1;
+            serialized = new byte[size];
+            serialized[0] = (byte) code;
+            System.arraycopy(state.data, state.offset, serialized, 1, state.length);
+        } finally {
+            releasePooledBuffers(state);
+        }
 
         if (shouldValidateSerialization()) {
             validateSerialization(metaData, recordType, rec, serialized, timer);
@@ -263,36 +374,30 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     protected void decompress(@Nonnull TransformState state, @Nullable StoreTimer timer) throws DataFormatException {
         long startTime = System.nanoTime();
 
-        // At the moment, there is only one compression version, so
-        // we after we've verified it is in the right range, we
-        // can just move on. If we ever introduce a new format version,
-        // we will need to make this code more complicated.
+        // The compression version identifies the codec that wrote the data.
         int compressionVersion = state.data[state.offset];
-        if (compressionVersion < MIN_COMPRESSION_VERSION || compressionVersion > MAX_COMPRESSION_VERSION) {
+        final RecordCompressionCodec codec = compressionVersion < MIN_COMPRESSION_VERSION || compressionVersion > MAX_COMPRESSION_VERSION
+                                             ? null
+                                             : decompressionCodecs.get(compressionVersion);
+        if (codec == null) {
             throw new RecordSerializationException("unknown compression version")
                     .addLogInfo("compressionVersion", compressionVersion);
         }
 
         int decompressedLength = ByteBuffer.wrap(state.data, state.offset + 1, 4).order(ByteOrder.BIG_ENDIAN).getInt();
-        byte[] decompressed = new byte[decompressedLength];
-
-        Inflater decompressor = new Inflater();
-        try {
-            decompressor.setInput(state.data, state.offset + 5, state.length - 5);
-            int actualDecompressedSize = decompressor.inflate(decompressed);
-            if (actualDecompressedSize < decompressedLength) {
-                throw new RecordSerializationException("decompressed record too small")
-                        .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength)
-                        .addLogInfo(LogMessageKeys.ACTUAL, actualDecompressedSize);
-            } else if (decompressor.getRemaining() > 0) {
-                throw new RecordSerializationException("decompressed record too large")
-                        .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength);
-            }
-        } finally {
-            decompressor.end();
+        byte[] decompressed = state.newDataArray(decompressedLength);
+
+        int actualDecompressedSize = codec.decompress(state.data, state.offset + 5, state.length - 5, decompressed, 0, decompressedLength);
+        if (actualDecompressedSize < 0) {
+            throw new RecordSerializationException("decompressed record too large")
+                    .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength);
+        } else if (actualDecompressedSize < decompressedLength) {
+            throw new RecordSerializationException("decompressed record too small")
+                    .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength)
+                    .addLogInfo(LogMessageKeys.ACTUAL, actualDecompressedSize);
         }
 
-        state.setDataArray(decompressed);
+        state.setDataArray(decompressed, 0, decompressedLength);
 
         if (timer != null) {
             timer.recordSinceNanoTime(Events.DECOMPRESS_SERIALIZED_RECORD, startTime);
@@ -303,19 +408,34 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         throw new RecordSerializationException("this serializer cannot decrypt");
     }
 
+    @Nonnull
+    @Override
+    public M deserialize(@Nonnull RecordMetaData metaData,
+                         @Nonnull Tuple primaryKey,
+                         @Nonnull byte[] serialized,
+                         @Nullable StoreTimer timer) {
+        return deserialize(metaData, primaryKey, serialized, 0, serialized.length, timer);
+    }
+
     @Nonnull
     @Override
     @SuppressWarnings("PMD.PreserveStackTrace")
     public M deserialize(@Nonnull RecordMetaData metaData,
                          @Nonnull Tuple primaryKey,
                          @Nonnull byte[] serialized,
+                         int offset,
+                         int length,
                          @Nullable StoreTimer timer) {
-        int encoding = serialized[0];
+        int encoding = serialized[offset];
         if (encoding != ENCODING_CLEAR && (encoding & ENCODING_PROTO_TYPE_MASK) == ENCODING_PROTO_MESSAGE_FIELD) {
             // TODO: Can remove this after transition to write everything with _CLEAR.
-            return inner.deserialize(metaData, primaryKey, serialized, timer);
-        } else {
-            TransformState state = new TransformState(serialized, 1, serialized.length - 1);
+            return offset == 0 && length == serialized.length
+                   ? inner.deserialize(metaData, primaryKey, serialized, timer)
+                   : inner.deserialize(metaData, primaryKey, serialized, offset, length, timer);
+        }
+        TransformState state = new TransformState(serialized, offset + 1, length - 1);
+        state.pooledBuffers = acquirePooledBuffers();
+        try {
             if (encoding != ENCODING_CLEAR) {
                 if ((encoding & ENCODING_COMPRESSED) == ENCODING_COMPRESSED) {
                     state.compressed = true;
@@ -354,14 +474,60 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
                             .addLogInfo(LogMessageKeys.PRIMARY_KEY, primaryKey);
                 }
             }
-            return inner.deserialize(metaData, primaryKey, state.getDataArray(), timer);
+            if (state.pooledBuffers == null) {
+                // Without pooling, hand over a whole array, as before, so that serializers that only override
+                // the methods for whole arrays still see every record.
+                return inner.deserialize(metaData, primaryKey, state.getDataArray(), timer);
+            }
+            // Intermediate buffers may be reused after this returns, so the inner serializer must copy what it keeps.
+            return inner.deserialize(metaData, primaryKey, state.data, state.offset, state.length, timer);
+        } finally {
+            releasePooledBuffers(state);
+        }
+    }
+
+    @Nullable
+    private PooledBuffers acquirePooledBuffers() {
+        return usePooledBuffers ? PooledBuffers.acquire() : null;
+    }
+
+    private static void releasePooledBuffers(@Nonnull TransformState state) {
+        if (state.pooledBuffers != null) {
+            state.pooledBuffers.release();
+            state.pooledBuffers = null;
         }
     }
 
     @Nonnull
     @Override
     public RecordSerializer<Message> widen() {
-        return new TransformedRecordSerializer<>(inner.widen(), compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio);
+        return new TransformedRecordSerializer<>(inner.widen(), compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio,
+                compressionCodec, decompressionCodecs, usePooledBuffers);
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    public RecordSerializer<M> withProjection(@Nonnull RecordProjection projection) {
+        final RecordSerializer<M> projectedInner = inner.withProjection(projection);
+        return projectedInner == inner ? this : withInner(projectedInner);
+    }
+
+    @Nullable
+    @Override
+    public RecordProjection getProjection() {
+        return inner.getProjection();
+    }
+
+    /**
+     * Create a serializer that applies the same transformations as this one around a different inner serializer.
+     * @param newInner the serializer to use before/after applying transformations
+     * @return a new serializer with the same transformations
+     */
+    @Nonnull
+    protected TransformedRecordSerializer<M> withInner(@Nonnull RecordSerializer<M> newInner) {
+        return new TransformedRecordSerializer<>(newInner, compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio,
+                compressionCodec, decompressionCodecs, usePooledBuffers);
     }
 
     @Nonnull
@@ -412,6 +578,11 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         protected int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
         protected boolean encryptWhenSerializing;
         protected double writeValidationRatio;
+        @Nullable
+        protected RecordCompressionCodec compressionCodec;
+        @Nonnull
+        protected final Map<Integer, RecordCompressionCodec> decompressionCodecs = new HashMap<>();
+        protected boolean usePooledBuffers;
 
         protected Builder(@Nonnull RecordSerializer<M> inner) {
             this.inner = inner;
@@ -451,6 +622,66 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
             return this;
         }
 
+        /**
+         * Compression codec to use if compressing. If this is not set, a {@link DeflateRecordCompressionCodec}
+         * using the level given by {@link #setCompressionLevel(int)} is used. The codec is also used for
+         * reading any records written with its {@linkplain RecordCompressionCodec#getCompressionVersion() version}.
+         * Setting this does <i>not</i> automatically enable compression when serializing.
+         * @param compressionCodec the codec used to compress records or {@code null} to use the default
+         * @return this <code>Builder</code>
+         */
+        @Nonnull
+        public Builder<M> setCompressionCodec(@Nullable RecordCompressionCodec compressionCodec) {
+            this.compressionCodec = compressionCodec;
+            return this;
+        }
+
+        /**
+         * Add a compression codec used only for reading records. This allows records written by a codec
+         * that is no longer used for compressing to still be read. Records written by the default
+         * {@link DeflateRecordCompressionCodec} can always be read unless a codec with the same version is added.
+         * @param decompressionCodec a codec used to decompress records written with its version
+         * @return this <code>Builder</code>
+         */
+        @Nonnull
+        public Builder<M> addDecompressionCodec(@Nonnull RecordCompressionCodec decompressionCodec) {
+            final int version = decompressionCodec.getCompressionVersion();
+            if (version < MIN_COMPRESSION_VERSION || version > MAX_COMPRESSION_VERSION) {
+                throw new RecordCoreArgumentException("compression version out of range")
+                        .addLogInfo("compressionVersion", version);
+            }
+            this.decompressionCodecs.put(version, decompressionCodec);
+            return this;
+        }
+
+        @Nonnull
+        protected RecordCompressionCodec getCompressionCodec() {
+            if (compressionCodec == null) {
+                return new DeflateRecordCompressionCodec(compressionLevel);
+            }
+            final int version = compressionCodec.getCompressionVersion();
+            if (version < MIN_COMPRESSION_VERSION || version > MAX_COMPRESSION_VERSION) {
+                throw new RecordCoreArgumentException("compression version out of range")
+                        .addLogInfo("compressionVersion", version);
+            }
+            return compressionCodec;
+        }
+
+        /**
+         * Whether to write the intermediate results of compression and encryption into buffers that are
+         * kept by each thread, rather than allocating new arrays for each record. This reduces garbage when
+         * serializing or deserializing many transformed records, at the cost of each thread keeping up to
+         * two buffers as large as the largest record it has seen (up to {@value MAX_POOLED_BUFFER_SIZE} bytes each).
+         * By default, buffers are not pooled.
+         * @param usePooledBuffers <code>true</code> if intermediate buffers should be reused and <code>false</code> otherwise
+         * @return this <code>Builder</code>
+         */
+        @Nonnull
+        public Builder<M> setUsePooledBuffers(boolean usePooledBuffers) {
+            this.usePooledBuffers = usePooledBuffers;
+            return this;
+        }
+
         /**
          * Whether to encrypt records after serializing. Should
          * compression and encryption both be set, then data
@@ -503,7 +734,10 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
                     compressWhenSerializing,
                     compressionLevel,
                     encryptWhenSerializing,
-                    writeValidationRatio
+                    writeValidationRatio,
+                    getCompressionCodec(),
+                    decompressionCodecs,
+                    usePooledBuffers
             );
         }
     }
@@ -31,6 +31,7 @@ import javax.crypto.spec.IvParameterSpec;
 import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.SecureRandom;
+import java.util.Map;
 
 /**
  * An extension of {@link TransformedRecordSerializer} to use JCE to encrypt and decrypt records.
@@ -60,6 +61,31 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
         this.secureRandom = secureRandom;
     }
 
+    protected TransformedRecordSerializerJCE(@Nonnull RecordSerializer<M> inner,
+                                             boolean compressWhenSerializing,
+                                             int compressionLevel,
+                                             boolean encryptWhenSerializing,
+                                             double writeValidationRatio,
+                                             @Nonnull RecordCompressionCodec compressionCodec,
+                                             @Nonnull Map<Integer, RecordCompressionCodec> decompressionCodecs,
+                                             boolean usePooledBuffers,
+                                             @Nullable String cipherName,
+                                             @Nullable Key encryptionKey,
+                                             @Nullable SecureRandom secureRandom) {
+        super(inner, compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio,
+                compressionCodec, decompressionCodecs, usePooledBuffers);
+        this.cipherName = cipherName;
+        this.encryptionKey = encryptionKey;
+        this.secureRandom = secureRandom;
+    }
+
+    @Nonnull
+    @Override
+    protected TransformedRecordSerializerJCE<M> withInner(@Nonnull RecordSerializer<M> newInner) {
+        return new TransformedRecordSerializerJCE<>(newInner, compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio,
+                compressionCodec, decompressionCodecs, usePooledBuffers, cipherName, encryptionKey, secureRandom);
+    }
+
     @Override
     protected void encrypt(@Nonnull TransformState state, @Nullable StoreTimer timer) throws GeneralSecurityException {
         if (cipherName == null || encryptionKey == null || secureRandom == null) {
@@ -74,15 +100,11 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
         try {
             cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, iv);
 
-            byte[] plainText = state.getDataArray();
-            byte[] cipherText = cipher.doFinal(plainText);
-
-            int totalSize = CipherPool.IV_SIZE + cipherText.length;
-            byte[] serialized = new byte[totalSize];
-            System.arraycopy(iv.getIV(), 0, serialized, 0, CipherPool.IV_SIZE);
-            System.arraycopy(cipherText, 0, serialized, CipherPool.IV_SIZE, cipherText.length);
+            byte[] serialized = state.newDataArray(CipherPool.IV_SIZE + cipher.getOutputSize(state.length));
+            System.arraycopy(ivData, 0, serialized, 0, CipherPool.IV_SIZE);
+            int cipherTextLength = cipher.doFinal(state.data, state.offset, state.length, serialized, CipherPool.IV_SIZE);
             state.encrypted = true;
-            state.setDataArray(serialized);
+            state.setDataArray(serialized, 0, CipherPool.IV_SIZE + cipherTextLength);
         } finally {
             CipherPool.returnCipher(cipher);
             if (timer != null) {
@@ -98,18 +120,16 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
         }
         long startTime = System.nanoTime();
 
-        byte[] ivData = new byte[CipherPool.IV_SIZE];
-        System.arraycopy(state.data, state.offset, ivData, 0, CipherPool.IV_SIZE);
-        IvParameterSpec iv = new IvParameterSpec(ivData);
+        IvParameterSpec iv = new IvParameterSpec(state.data, state.offset, CipherPool.IV_SIZE);
 
-        byte[] cipherText = new byte[state.length - CipherPool.IV_SIZE];
-        System.arraycopy(state.data, state.offset + CipherPool.IV_SIZE, cipherText, 0, cipherText.length);
+        int cipherTextLength = state.length - CipherPool.IV_SIZE;
         Cipher cipher = CipherPool.borrowCipher(cipherName);
         try {
             cipher.init(Cipher.DECRYPT_MODE, encryptionKey, iv);
 
-            byte[] plainText = cipher.doFinal(cipherText);
-            state.setDataArray(plainText);
+            byte[] plainText = state.newDataArray(cipher.getOutputSize(cipherTextLength));
+            int plainTextLength = cipher.doFinal(state.data, state.offset + CipherPool.IV_SIZE, cipherTextLength, plainText, 0);
+            state.setDataArray(plainText, 0, plainTextLength);
         } finally {
             CipherPool.returnCipher(cipher);
             if (timer != null) {
@@ -180,6 +200,27 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
             return this;
         }
 
+        @Override
+        @Nonnull
+        public Builder<M> setCompressionCodec(@Nullable RecordCompressionCodec compressionCodec) {
+            super.setCompressionCodec(compressionCodec);
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public Builder<M> addDecompressionCodec(@Nonnull RecordCompressionCodec decompressionCodec) {
+            super.addDecompressionCodec(decompressionCodec);
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public Builder<M> setUsePooledBuffers(boolean usePooledBuffers) {
+            super.setUsePooledBuffers(usePooledBuffers);
+            return this;
+        }
+
         /**
          * Whether to encrypt records after serializing. Should
          * compression and encryption both be set, then data
@@ -301,6 +342,9 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
                     compressionLevel,
                     encryptWhenSerializing,
                     writeValidationRatio,
+                    getCompressionCodec(),
+                    decompressionCodecs,
+                    usePooledBuffers,
                     cipherName,
                     encryptionKey,
                     secureRandom
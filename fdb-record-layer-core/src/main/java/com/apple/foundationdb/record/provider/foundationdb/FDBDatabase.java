@@ -50,6 +50,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -86,6 +89,8 @@ import java.util.function.Supplier;
 public class FDBDatabase {
     @Nonnull
     private static final Logger LOGGER = LoggerFactory.getLogger(FDBDatabase.class);
+    @Nullable
+    private static final MethodHandle IS_VIRTUAL_THREAD = findIsVirtualThread();
 
     /**
      * Text of message that is logged or exception that is thrown when a blocking API call
@@ -134,6 +139,8 @@ public class FDBDatabase {
     private final long reverseDirectoryMaxMillisPerTransaction;
     @Nonnull
     private FDBRecordStoreStateCache storeStateCache = PassThroughRecordStoreStateCache.instance();
+    @Nullable
+    private volatile FDBVersionedRecordCache versionedRecordCache;
     private final Supplier<Boolean> transactionIsTracedSupplier;
     private final long warnAndCloseOpenContextsAfterSeconds;
     // The number of cache entries to maintain in memory
@@ -184,6 +191,7 @@ public class FDBDatabase {
                 .recordStats()
                 .build();
         this.resolverStateCache = new AsyncLoadingCache<>(factory.getStateRefreshTimeMillis());
+        setVersionedRecordCacheSize(factory.getVersionedRecordCacheSize());
         this.latencyInjector = factory.getLatencyInjector();
         this.datacenterId = factory.getDatacenterId();
         this.localityProvider = factory.getLocalityProvider();
@@ -711,6 +719,32 @@ public class FDBDatabase {
         this.storeStateCache = storeStateCache;
     }
 
+    /**
+     * Get the cache of records shared by all transactions on this database, if one has been configured.
+     *
+     * @return the versioned record cache for this database or {@code null} if records are not cached
+     * @see #setVersionedRecordCacheSize(int)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nullable
+    public FDBVersionedRecordCache getVersionedRecordCache() {
+        return versionedRecordCache;
+    }
+
+    /**
+     * Set the maximum number of records to keep in this database's {@link FDBVersionedRecordCache}. Records loaded by
+     * stores that {@linkplain com.apple.foundationdb.record.RecordMetaData#isStoreRecordVersions() store record versions}
+     * are kept in the cache, and later loads of the same record only need to read its version to confirm that the
+     * cached copy is still current. Any existing entries are discarded. A size of zero, the default, disables the cache.
+     *
+     * @param size the maximum number of records to cache
+     * @see FDBDatabaseFactory#setVersionedRecordCacheSize(int)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public synchronized void setVersionedRecordCacheSize(int size) {
+        versionedRecordCache = (size > 0) ? new FDBVersionedRecordCache(size) : null;
+    }
+
     @VisibleForTesting
     @API(API.Status.INTERNAL)
     public void clearCaches() {
@@ -718,6 +752,10 @@ public class FDBDatabase {
         clearForwardDirectoryCache();
         clearReverseDirectoryCache();
         storeStateCache.clear();
+        final FDBVersionedRecordCache recordCache = versionedRecordCache;
+        if (recordCache != null) {
+            recordCache.invalidateAll();
+        }
     }
 
     public synchronized void close() {
@@ -1239,6 +1277,10 @@ public class FDBDatabase {
         if (behavior == BlockingInAsyncDetection.DISABLED) {
             return;
         }
+        if (isVirtualThread(Thread.currentThread())) {
+            // Blocking a virtual thread only unmounts it, so it cannot tie up the network thread or an executor thread.
+            return;
+        }
 
         final boolean isComplete = future.isDone();
         if (isComplete && behavior.ignoreComplete()) {
@@ -1277,6 +1319,35 @@ public class FDBDatabase {
         }
     }
 
+    /**
+     * Determine whether a thread is a virtual thread. Virtual threads were added in Java 21, so this is always
+     * {@code false} when running on an earlier version.
+     * @param thread the thread to check
+     * @return {@code true} if the thread is a virtual thread
+     */
+    @API(API.Status.INTERNAL)
+    public static boolean isVirtualThread(@Nonnull Thread thread) {
+        if (IS_VIRTUAL_THREAD == null) {
+            return false;
+        }
+        try {
+            return (boolean)IS_VIRTUAL_THREAD.invokeExact(thread);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new RecordCoreException("unable to check for virtual thread", ex);
+        }
+    }
+
+    @Nullable
+    private static MethodHandle findIsVirtualThread() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        }
+    }
+
     private void logOrThrowBlockingInAsync(@Nonnull BlockingInAsyncDetection behavior,
                                            boolean isComplete,
                                            @Nonnull StackTraceElement stackElement,
@@ -80,6 +80,7 @@ public abstract class FDBDatabaseFactory {
     @Nonnull
     private Executor executor = ForkJoinPool.commonPool();
     private int directoryCacheSize = DEFAULT_DIRECTORY_CACHE_SIZE;
+    private int versionedRecordCacheSize = 0;
     private boolean trackLastSeenVersion;
     private String datacenterId;
     private int maxAttempts = 10;
@@ -193,6 +194,26 @@ public abstract class FDBDatabaseFactory {
         }
     }
 
+    public synchronized int getVersionedRecordCacheSize() {
+        return versionedRecordCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of records that will be cached for each database that is produced by the factory.
+     * Changing this value after databases have been created will result in each database having its existing entries
+     * discarded and the cache size adjusted to the provided value. The default of zero means that records are not cached.
+     *
+     * @param versionedRecordCacheSize the new versioned record cache size
+     * @see FDBDatabase#setVersionedRecordCacheSize(int)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public synchronized void setVersionedRecordCacheSize(int versionedRecordCacheSize) {
+        this.versionedRecordCacheSize = versionedRecordCacheSize;
+        for (FDBDatabase database : databases.values()) {
+            database.setVersionedRecordCacheSize(versionedRecordCacheSize);
+        }
+    }
+
     public synchronized void setTrackLastSeenVersion(boolean trackLastSeenVersion) {
         this.trackLastSeenVersion = trackLastSeenVersion;
         for (FDBDatabase database : databases.values()) {
@@ -316,6 +316,45 @@ public interface FDBDatabaseRunner extends AutoCloseable {
     <T> T run(@Nonnull Function<? super FDBRecordContext, ? extends T> retriable,
               @Nullable List<Object> additionalLogMessageKeyValues);
 
+    /**
+     * Runs a blocking transactional function with retry logic on a thread from the given executor.
+     *
+     * <p>
+     * This is intended for an executor that creates a virtual thread per task, such as
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}, so that the function can be written as straight-line
+     * blocking code using the synchronous record store and cursor APIs. Blocking calls made on a virtual thread are
+     * not reported by {@link BlockingInAsyncDetection}. Unlike running {@link #run(Function)} from
+     * {@link CompletableFuture#supplyAsync(java.util.function.Supplier, Executor)}, the function is not called from
+     * within a {@link CompletableFuture}, so blocking calls are not reported with a platform thread executor either.
+     * </p>
+     *
+     * @param <T> return type of function to run
+     * @param executor the executor on which to run the function
+     * @param retriable the database operation to run transactionally
+     * @return future that will contain the result of {@code retriable} after successful run and commit
+     * @see #run(Function)
+     * @see RecordCursorBlockingIterator
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default <T> CompletableFuture<T> runOnExecutor(@Nonnull Executor executor,
+                                                   @Nonnull Function<? super FDBRecordContext, ? extends T> retriable) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // Catch everything, including checked exceptions thrown sneakily, so that the future always completes.
+                try {
+                    result.complete(run(retriable));
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
     /**
      * Runs a transactional function asynchronously with retry logic.
      * This is also a non-blocking call. See the appropriate overload of {@link #run}
@@ -30,6 +30,7 @@ import com.apple.foundationdb.annotation.API;
 import com.apple.foundationdb.annotation.SpotBugsSuppressWarnings;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.MoreAsyncUtil;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.IsolationLevel;
 import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
@@ -164,6 +165,8 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
     private final Map<Object, Object> session = new LinkedHashMap<>();
     @Nullable
     private List<Range> notCommittedConflictingKeys = null;
+    @Nullable
+    private final FDBTransactionRecordCache transactionRecordCache;
 
     @SuppressWarnings("PMD.CloseResource")
     protected FDBRecordContext(@Nonnull FDBDatabase fdb,
@@ -201,6 +204,9 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
 
         this.config = config;
 
+        final Integer recordCacheSize = config.getPropertyStorage().getPropertyValue(FDBRecordStoreProperties.TRANSACTION_RECORD_CACHE_SIZE);
+        this.transactionRecordCache = recordCacheSize != null && recordCacheSize > 0 ? new FDBTransactionRecordCache(recordCacheSize) : null;
+
         // If a causal read risky is requested, we set the corresponding transaction option
         if (config.getWeakReadSemantics() != null && config.getWeakReadSemantics().isCausalReadRisky()) {
             tr.options().setCausalReadRisky();
@@ -1425,6 +1431,15 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
         return config.getPropertyStorage();
     }
 
+    /**
+     * Get the cache of deserialized records loaded or saved in this transaction, if enabled.
+     * @return the record cache or {@code null} if {@link FDBRecordStoreProperties#TRANSACTION_RECORD_CACHE_SIZE} is not set
+     */
+    @Nullable
+    FDBTransactionRecordCache getTransactionRecordCache() {
+        return transactionRecordCache;
+    }
+
     /**
      * Get key ranges that encountered conflicts when trying to {@link #commit} failed due to {@code NOT_COMMITTED}.
      * @return list of conflict ranges
@@ -34,6 +34,7 @@ import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.CloseableAsyncIterator;
 import com.apple.foundationdb.async.MoreAsyncUtil;
 import com.apple.foundationdb.record.AggregateFunctionNotSupportedException;
+import com.apple.foundationdb.record.ByteArrayContinuation;
 import com.apple.foundationdb.record.ByteScanLimiter;
 import com.apple.foundationdb.record.CursorStreamingMode;
 import com.apple.foundationdb.record.EndpointType;
@@ -54,6 +55,9 @@ import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCoreStorageException;
 import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorEndContinuation;
+import com.apple.foundationdb.record.RecordCursorProto;
 import com.apple.foundationdb.record.RecordIndexUniquenessViolation;
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.RecordMetaDataProto;
@@ -62,6 +66,7 @@ import com.apple.foundationdb.record.RecordStoreState;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.cursors.CursorLimitManager;
+import com.apple.foundationdb.record.cursors.LazyCursor;
 import com.apple.foundationdb.record.cursors.ListCursor;
 import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
@@ -82,6 +87,8 @@ import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.record.provider.common.DynamicMessageRecordSerializer;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.record.provider.foundationdb.cursors.UnionCursor;
+import com.apple.foundationdb.record.provider.foundationdb.cursors.UnorderedUnionCursor;
 import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingRangeSet;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpacePath;
 import com.apple.foundationdb.record.provider.foundationdb.storestate.FDBRecordStoreStateCache;
@@ -100,6 +107,7 @@ import com.apple.foundationdb.record.query.plan.serialization.DefaultPlanSeriali
 import com.apple.foundationdb.record.query.plan.serialization.PlanSerializationRegistry;
 import com.apple.foundationdb.record.query.plan.synthetic.SyntheticRecordFromStoredRecordPlan;
 import com.apple.foundationdb.record.query.plan.synthetic.SyntheticRecordPlanner;
+import com.apple.foundationdb.record.util.pair.Pair;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
@@ -124,6 +132,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -299,6 +308,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     @Nonnull
     private final PlanSerializationRegistry planSerializationRegistry;
 
+    @Nonnull
+    private final Map<String, Integer> splitChunkSizes;
+
     @SuppressWarnings("squid:S00107")
     protected FDBRecordStore(@Nonnull FDBRecordContext context,
                              @Nonnull SubspaceProvider subspaceProvider,
@@ -312,6 +324,24 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                              @Nonnull StateCacheabilityOnOpen stateCacheabilityOnOpen,
                              @Nullable FDBRecordStoreBase.UserVersionChecker userVersionChecker,
                              @Nonnull PlanSerializationRegistry planSerializationRegistry) {
+        this(context, subspaceProvider, formatVersion, metaDataProvider, serializer, indexMaintainerRegistry, indexMaintenanceFilter,
+                pipelineSizer, storeStateCache, stateCacheabilityOnOpen, userVersionChecker, planSerializationRegistry, ImmutableMap.of());
+    }
+
+    @SuppressWarnings("squid:S00107")
+    protected FDBRecordStore(@Nonnull FDBRecordContext context,
+                             @Nonnull SubspaceProvider subspaceProvider,
+                             int formatVersion,
+                             @Nonnull RecordMetaDataProvider metaDataProvider,
+                             @Nonnull RecordSerializer<Message> serializer,
+                             @Nonnull IndexMaintainerRegistry indexMaintainerRegistry,
+                             @Nonnull IndexMaintenanceFilter indexMaintenanceFilter,
+                             @Nonnull PipelineSizer pipelineSizer,
+                             @Nullable FDBRecordStoreStateCache storeStateCache,
+                             @Nonnull StateCacheabilityOnOpen stateCacheabilityOnOpen,
+                             @Nullable FDBRecordStoreBase.UserVersionChecker userVersionChecker,
+                             @Nonnull PlanSerializationRegistry planSerializationRegistry,
+                             @Nonnull Map<String, Integer> splitChunkSizes) {
         super(context, subspaceProvider);
         this.formatVersion = formatVersion;
         this.metaDataProvider = metaDataProvider;
@@ -325,6 +355,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         this.omitUnsplitRecordSuffix = formatVersion < SAVE_UNSPLIT_WITH_SUFFIX_FORMAT_VERSION;
         this.preloadCache = new FDBPreloadRecordCache(PRELOAD_CACHE_SIZE);
         this.planSerializationRegistry = planSerializationRegistry;
+        this.splitChunkSizes = splitChunkSizes;
     }
 
     @Override
@@ -482,7 +513,114 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                                                                                         @Nullable FDBRecordVersion version,
                                                                                         @Nonnull VersionstampSaveBehavior behavior,
                                                                                         boolean isDryRun) {
+        checkNotProjected(typedSerializer);
+        final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
+        final FDBStoredRecordBuilder<M> recordBuilder = newRecordBuilderForSave(metaData, rec, version, behavior);
+        final Tuple primaryKey = recordBuilder.getPrimaryKey();
+
+        final CompletableFuture<FDBStoredRecord<M>> result = loadExistingRecord(typedSerializer, primaryKey).thenCompose(oldRecord -> {
+            checkExistenceForSave(existenceCheck, recordBuilder, oldRecord);
+            if (isDryRun) {
+                final FDBStoredRecord<M> newRecord = dryRunSetSizeInfo(typedSerializer, recordBuilder, metaData);
+                return CompletableFuture.completedFuture(newRecord);
+            } else {
+                final FDBStoredRecord<M> newRecord = saveRecordAndCount(typedSerializer, recordBuilder, metaData, oldRecord);
+                return updateSecondaryIndexes(oldRecord, newRecord).thenApply(v -> newRecord);
+            }
+        });
+        return context.instrument(FDBStoreTimer.Events.SAVE_RECORD, result);
+    }
+
+    /**
+     * Save a record that is known not to exist, without first loading any existing record with the same primary key.
+     * This saves a read for each record, but if a record does exist, its index entries are not removed and any
+     * additional split chunks it had are left behind, so this must only be used for records in an empty
+     * or otherwise known-disjoint range of primary keys.
+     * @param typedSerializer serializer to use for the new record
+     * @param rec the record to save
+     * @param <M> type of record message
+     * @return a future that completes with the stored record form of the saved record
+     * @see FDBRecordStoreBulkLoader
+     */
+    @Nonnull
+    @API(API.Status.INTERNAL)
+    protected <M extends Message> CompletableFuture<FDBStoredRecord<M>> insertTypedRecordWithoutLoad(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                                     @Nonnull M rec) {
+        checkNotProjected(typedSerializer);
+        final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
+        final FDBStoredRecordBuilder<M> recordBuilder = newRecordBuilderForSave(metaData, rec, null, VersionstampSaveBehavior.DEFAULT);
+        final FDBStoredRecord<M> newRecord = saveRecordAndCount(typedSerializer, recordBuilder, metaData, null);
+        final CompletableFuture<FDBStoredRecord<M>> result = updateSecondaryIndexes(null, newRecord).thenApply(vignore -> newRecord);
+        return context.instrument(FDBStoreTimer.Events.SAVE_RECORD, result);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<List<FDBStoredRecord<Message>>> saveRecordsAsync(@Nonnull final List<? extends Message> records,
+                                                                              @Nonnull RecordExistenceCheck existenceCheck) {
+        return saveTypedRecords(serializer, records, existenceCheck);
+    }
+
+    /**
+     * Save a batch of records. All of the existing records are loaded in parallel before any of the new records
+     * are written, and secondary index maintenance for the batch is then run through a pipeline sized by
+     * {@link PipelineOperation#UPDATE}. The versions of the saved records (if any) are assigned in list order.
+     * @param typedSerializer serializer to use for the new and any existing records
+     * @param records the records to save
+     * @param existenceCheck when to throw an exception if a record with the same primary key does or does not already exist
+     * @param <M> type of record message
+     * @return a future that completes with the stored record forms of the saved records in the same order as {@code records}
+     */
+    @Nonnull
+    @API(API.Status.INTERNAL)
+    protected <M extends Message> CompletableFuture<List<FDBStoredRecord<M>>> saveTypedRecords(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                               @Nonnull List<? extends M> records,
+                                                                                               @Nonnull RecordExistenceCheck existenceCheck) {
+        checkNotProjected(typedSerializer);
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
+        final List<FDBStoredRecordBuilder<M>> recordBuilders = new ArrayList<>(records.size());
+        final Set<Tuple> primaryKeys = new HashSet<>();
+        for (M rec : records) {
+            final FDBStoredRecordBuilder<M> recordBuilder = newRecordBuilderForSave(metaData, rec, null, VersionstampSaveBehavior.DEFAULT);
+            if (!primaryKeys.add(recordBuilder.getPrimaryKey())) {
+                throw new RecordCoreArgumentException("batch contains more than one record with the same primary key",
+                        LogMessageKeys.PRIMARY_KEY, recordBuilder.getPrimaryKey());
+            }
+            recordBuilders.add(recordBuilder);
+        }
+
+        // Start all of the old record loads before waiting on any of them so that they are in flight together.
+        final List<CompletableFuture<FDBStoredRecord<M>>> oldRecordFutures = new ArrayList<>(recordBuilders.size());
+        for (FDBStoredRecordBuilder<M> recordBuilder : recordBuilders) {
+            oldRecordFutures.add(loadExistingRecord(typedSerializer, recordBuilder.getPrimaryKey()));
+        }
+        final CompletableFuture<List<FDBStoredRecord<M>>> result = AsyncUtil.getAll(oldRecordFutures).thenCompose(oldRecords -> {
+            // Check everything before writing anything, so that a failed check does not leave a partial batch behind.
+            for (int i = 0; i < recordBuilders.size(); i++) {
+                checkExistenceForSave(existenceCheck, recordBuilders.get(i), oldRecords.get(i));
+            }
+            final List<FDBStoredRecord<M>> newRecords = new ArrayList<>(recordBuilders.size());
+            final List<Pair<FDBStoredRecord<M>, FDBStoredRecord<M>>> updates = new ArrayList<>(recordBuilders.size());
+            for (int i = 0; i < recordBuilders.size(); i++) {
+                final FDBStoredRecord<M> oldRecord = oldRecords.get(i);
+                final FDBStoredRecord<M> newRecord = saveRecordAndCount(typedSerializer, recordBuilders.get(i), metaData, oldRecord);
+                newRecords.add(newRecord);
+                updates.add(Pair.of(oldRecord, newRecord));
+            }
+            return RecordCursor.fromList(getExecutor(), updates)
+                    .forEachAsync(update -> updateSecondaryIndexes(update.getLeft(), update.getRight()), getPipelineSize(PipelineOperation.UPDATE))
+                    .thenApply(vignore -> newRecords);
+        });
+        return context.instrument(FDBStoreTimer.Events.SAVE_RECORDS, result);
+    }
+
+    @Nonnull
+    private <M extends Message> FDBStoredRecordBuilder<M> newRecordBuilderForSave(@Nonnull RecordMetaData metaData, @Nonnull M rec,
+                                                                                  @Nullable FDBRecordVersion version,
+                                                                                  @Nonnull VersionstampSaveBehavior behavior) {
         final Descriptors.Descriptor recordDescriptor = rec.getDescriptorForType();
         final RecordType recordType = metaData.getRecordTypeForDescriptor(recordDescriptor);
         final KeyExpression primaryKeyExpression = recordType.getPrimaryKey();
@@ -492,41 +630,46 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         recordBuilder.setVersion(recordVersion);
         final Tuple primaryKey = primaryKeyExpression.evaluateSingleton(recordBuilder).toTuple();
         recordBuilder.setPrimaryKey(primaryKey);
+        return recordBuilder;
+    }
 
-        final CompletableFuture<FDBStoredRecord<M>> result = loadExistingRecord(typedSerializer, primaryKey).thenCompose(oldRecord -> {
-            if (oldRecord == null) {
-                if (existenceCheck.errorIfNotExists()) {
-                    throw new RecordDoesNotExistException("record does not exist",
-                            LogMessageKeys.PRIMARY_KEY, primaryKey);
-                }
-            } else {
-                if (existenceCheck.errorIfExists()) {
-                    throw new RecordAlreadyExistsException("record already exists",
-                            LogMessageKeys.PRIMARY_KEY, primaryKey);
-                }
-                if (existenceCheck.errorIfTypeChanged() && oldRecord.getRecordType() != recordType) {
-                    throw new RecordTypeChangedException("record type changed",
-                            LogMessageKeys.PRIMARY_KEY, primaryKey,
-                            LogMessageKeys.ACTUAL_TYPE, oldRecord.getRecordType().getName(),
-                            LogMessageKeys.EXPECTED_TYPE, recordType.getName());
-                }
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    private static <M extends Message> void checkExistenceForSave(@Nonnull RecordExistenceCheck existenceCheck,
+                                                                  @Nonnull FDBStoredRecordBuilder<M> recordBuilder,
+                                                                  @Nullable FDBStoredRecord<M> oldRecord) {
+        final Tuple primaryKey = recordBuilder.getPrimaryKey();
+        final RecordType recordType = recordBuilder.getRecordType();
+        if (oldRecord == null) {
+            if (existenceCheck.errorIfNotExists()) {
+                throw new RecordDoesNotExistException("record does not exist",
+                        LogMessageKeys.PRIMARY_KEY, primaryKey);
             }
-            if (isDryRun) {
-                final FDBStoredRecord<M> newRecord = dryRunSetSizeInfo(typedSerializer, recordBuilder, metaData);
-                return CompletableFuture.completedFuture(newRecord);
-            } else {
-                final FDBStoredRecord<M> newRecord = serializeAndSaveRecord(typedSerializer, recordBuilder, metaData, oldRecord);
-                if (oldRecord == null) {
-                    addRecordCount(metaData, newRecord, LITTLE_ENDIAN_INT64_ONE);
-                } else {
-                    if (getTimer() != null) {
-                        getTimer().increment(FDBStoreTimer.Counts.REPLACE_RECORD_VALUE_BYTES, oldRecord.getValueSize());
-                    }
-                }
-                return updateSecondaryIndexes(oldRecord, newRecord).thenApply(v -> newRecord);
+        } else {
+            if (existenceCheck.errorIfExists()) {
+                throw new RecordAlreadyExistsException("record already exists",
+                        LogMessageKeys.PRIMARY_KEY, primaryKey);
             }
-        });
-        return context.instrument(FDBStoreTimer.Events.SAVE_RECORD, result);
+            if (existenceCheck.errorIfTypeChanged() && oldRecord.getRecordType() != recordType) {
+                throw new RecordTypeChangedException("record type changed",
+                        LogMessageKeys.PRIMARY_KEY, primaryKey,
+                        LogMessageKeys.ACTUAL_TYPE, oldRecord.getRecordType().getName(),
+                        LogMessageKeys.EXPECTED_TYPE, recordType.getName());
+            }
+        }
+    }
+
+    @Nonnull
+    private <M extends Message> FDBStoredRecord<M> saveRecordAndCount(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull final FDBStoredRecordBuilder<M> recordBuilder,
+                                                                      @Nonnull final RecordMetaData metaData, @Nullable FDBStoredRecord<M> oldRecord) {
+        final FDBStoredRecord<M> newRecord = serializeAndSaveRecord(typedSerializer, recordBuilder, metaData, oldRecord);
+        if (oldRecord == null) {
+            addRecordCount(metaData, newRecord, LITTLE_ENDIAN_INT64_ONE);
+        } else {
+            if (getTimer() != null) {
+                getTimer().increment(FDBStoreTimer.Counts.REPLACE_RECORD_VALUE_BYTES, oldRecord.getValueSize());
+            }
+        }
+        return newRecord;
     }
 
     @SuppressWarnings("PMD.CloseResource")
@@ -571,7 +714,8 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         final byte[] serialized = typedSerializer.serialize(metaData, recordBuilder.getRecordType(), recordBuilder.getRecord(), getTimer());
         final FDBRecordVersion splitVersion = useOldVersionFormat() ? null : version;
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
-        SplitHelper.dryRunSaveWithSplitOnlySetSizeInfo(recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, sizeInfo);
+        SplitHelper.dryRunSaveWithSplitOnlySetSizeInfo(recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix,
+                getSplitChunkSize(recordBuilder.getRecordType()), sizeInfo);
         recordBuilder.setSize(sizeInfo);
         return recordBuilder.build();
     }
@@ -585,14 +729,36 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         final FDBRecordVersion splitVersion = useOldVersionFormat() ? null : version;
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
         preloadCache.invalidate(primaryKey); // clear out cache of older value if present
-        SplitHelper.saveWithSplit(context, recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldSizeInfo, sizeInfo);
+        final FDBTransactionRecordCache recordCache = context.getTransactionRecordCache();
+        if (recordCache != null) {
+            // Any cached copy is replaced once the new record has been built below.
+            recordCache.invalidate(recordsSubspace().getKey(), primaryKey);
+        }
+        SplitHelper.saveWithSplit(context, recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldSizeInfo,
+                getSplitChunkSize(recordBuilder.getRecordType()), sizeInfo);
         countKeysAndValues(FDBStoreTimer.Counts.SAVE_RECORD_KEY, FDBStoreTimer.Counts.SAVE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.SAVE_RECORD_VALUE_BYTES, sizeInfo);
         recordBuilder.setSize(sizeInfo);
 
         if (version != null && useOldVersionFormat()) {
             saveVersionWithOldFormat(primaryKey, version);
         }
-        return recordBuilder.build();
+        final FDBStoredRecord<M> storedRecord = recordBuilder.build();
+        if (recordCache != null) {
+            recordCache.put(recordsSubspace().getKey(), typedSerializer, metaData, storedRecord);
+        }
+        return storedRecord;
+    }
+
+    /**
+     * Get the maximum size of each key-value pair used to store a split record of the given type.
+     * This is only used if the meta-data {@linkplain RecordMetaData#isSplitLongRecords() splits long records}.
+     * @param recordType the type of record being saved
+     * @return the split chunk size for records of the given type
+     * @see Builder#setSplitChunkSizes(Map)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public int getSplitChunkSize(@Nonnull RecordType recordType) {
+        return splitChunkSizes.getOrDefault(recordType.getName(), SplitHelper.SPLIT_RECORD_SIZE);
     }
 
     private void saveVersionWithOldFormat(@Nonnull Tuple primaryKey, @Nonnull FDBRecordVersion version) {
@@ -944,6 +1110,44 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                                                                                         final boolean snapshot) {
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
 
+        final FDBTransactionRecordCache recordCache = context.getTransactionRecordCache();
+        final FDBTransactionRecordCache.Entry pendingCacheEntry;
+        if (recordCache != null) {
+            final FDBTransactionRecordCache.Entry cached = recordCache.get(recordsSubspace().getKey(), primaryKey, typedSerializer, metaData);
+            if (cached != null) {
+                return loadCachedRecord(cached, primaryKey, executeState, snapshot);
+            }
+            increment(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_MISS);
+            pendingCacheEntry = recordCache.beginLoad(recordsSubspace().getKey(), primaryKey);
+        } else {
+            pendingCacheEntry = null;
+        }
+
+        final FDBVersionedRecordCache versionedRecordCache = metaData.isStoreRecordVersions() ? context.getDatabase().getVersionedRecordCache() : null;
+        CompletableFuture<FDBStoredRecord<M>> result;
+        if (versionedRecordCache != null) {
+            result = loadVersionedCachedRecord(versionedRecordCache, typedSerializer, primaryKey, metaData, executeState, snapshot);
+        } else {
+            result = loadAndDeserializeRecord(typedSerializer, primaryKey, metaData, executeState, snapshot);
+        }
+        if (pendingCacheEntry != null) {
+            result = result.whenComplete((storedRecord, err) -> {
+                if (err == null) {
+                    recordCache.completeLoad(recordsSubspace().getKey(), primaryKey, pendingCacheEntry, typedSerializer, metaData, storedRecord, snapshot);
+                } else {
+                    recordCache.cancelLoad(recordsSubspace().getKey(), primaryKey, pendingCacheEntry);
+                }
+            });
+        }
+        return context.instrument(FDBStoreTimer.Events.LOAD_RECORD, result);
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadAndDeserializeRecord(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                               @Nonnull Tuple primaryKey,
+                                                                                               @Nonnull RecordMetaData metaData,
+                                                                                               @Nonnull ExecuteState executeState,
+                                                                                               final boolean snapshot) {
         final Optional<CompletableFuture<FDBRecordVersion>> versionFutureOptional;
         if (useOldVersionFormat()) {
             versionFutureOptional = loadRecordVersionAsync(primaryKey);
@@ -952,7 +1156,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
 
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
-        CompletableFuture<FDBStoredRecord<M>> result = loadRawRecordAsync(primaryKey, sizeInfo, snapshot)
+        return loadRawRecordAsync(primaryKey, sizeInfo, snapshot)
                 .thenCompose(rawRecord -> {
                     final ByteScanLimiter byteScanLimiter = executeState.getByteScanLimiter();
                     if (byteScanLimiter != null) {
@@ -961,7 +1165,188 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                     return rawRecord == null ? CompletableFuture.completedFuture(null) :
                             deserializeRecord(typedSerializer, rawRecord, metaData, versionFutureOptional);
                 });
-        return context.instrument(FDBStoreTimer.Events.LOAD_RECORD, result);
+    }
+
+    /**
+     * Load a record through the database's {@link FDBVersionedRecordCache}. If there is an entry for the record, only
+     * the record's version is read, and the cached record is returned if that version has not changed.
+     */
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadVersionedCachedRecord(@Nonnull FDBVersionedRecordCache versionedRecordCache,
+                                                                                                @Nonnull RecordSerializer<M> typedSerializer,
+                                                                                                @Nonnull Tuple primaryKey,
+                                                                                                @Nonnull RecordMetaData metaData,
+                                                                                                @Nonnull ExecuteState executeState,
+                                                                                                final boolean snapshot) {
+        final byte[] recordsSubspaceKey = recordsSubspace().getKey();
+        final FDBVersionedRecordCache.Entry cached = versionedRecordCache.get(recordsSubspaceKey, primaryKey, typedSerializer, metaData);
+        if (cached == null) {
+            increment(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_MISS);
+            return loadAndCacheVersionedRecord(versionedRecordCache, typedSerializer, primaryKey, metaData, executeState, snapshot);
+        }
+        // Versions are stored, so there is always a version future.
+        final CompletableFuture<FDBRecordVersion> versionFuture = loadRecordVersionAsync(primaryKey, snapshot)
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+        return versionFuture.thenCompose(version -> {
+            if (!cached.getVersion().equals(version)) {
+                increment(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_STALE);
+                return loadAndCacheVersionedRecord(versionedRecordCache, typedSerializer, primaryKey, metaData, executeState, snapshot);
+            }
+            final FDBStoredRecord<M> storedRecord = cached.getRecord();
+            if (!snapshot) {
+                // Conflict on the whole record, just as loading it would.
+                addRecordReadConflict(primaryKey);
+            }
+            final ByteScanLimiter byteScanLimiter = executeState.getByteScanLimiter();
+            if (byteScanLimiter != null) {
+                byteScanLimiter.registerScannedBytes(storedRecord.getKeySize() + storedRecord.getValueSize());
+            }
+            increment(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_HIT);
+            return CompletableFuture.completedFuture(storedRecord);
+        });
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadAndCacheVersionedRecord(@Nonnull FDBVersionedRecordCache versionedRecordCache,
+                                                                                                  @Nonnull RecordSerializer<M> typedSerializer,
+                                                                                                  @Nonnull Tuple primaryKey,
+                                                                                                  @Nonnull RecordMetaData metaData,
+                                                                                                  @Nonnull ExecuteState executeState,
+                                                                                                  final boolean snapshot) {
+        return loadAndDeserializeRecord(typedSerializer, primaryKey, metaData, executeState, snapshot).thenApply(storedRecord -> {
+            if (storedRecord == null) {
+                versionedRecordCache.invalidate(recordsSubspace().getKey(), primaryKey);
+            } else {
+                versionedRecordCache.put(recordsSubspace().getKey(), typedSerializer, metaData, storedRecord);
+            }
+            return storedRecord;
+        });
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadCachedRecord(@Nonnull FDBTransactionRecordCache.Entry cached,
+                                                                                       @Nonnull Tuple primaryKey,
+                                                                                       @Nonnull ExecuteState executeState,
+                                                                                       final boolean snapshot) {
+        final FDBStoredRecord<M> storedRecord = cached.getRecord();
+        if (!snapshot && cached.markReadConflict()) {
+            // The record was first loaded at snapshot isolation, so add the conflict the read would have added.
+            addRecordReadConflict(primaryKey);
+        }
+        final ByteScanLimiter byteScanLimiter = executeState.getByteScanLimiter();
+        if (byteScanLimiter != null) {
+            byteScanLimiter.registerScannedBytes(storedRecord.getKeySize() + storedRecord.getValueSize());
+        }
+        increment(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_HIT);
+        return CompletableFuture.completedFuture(storedRecord);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<List<FDBStoredRecord<Message>>> loadRecordsAsync(@Nonnull final Collection<Tuple> primaryKeys, final boolean snapshot) {
+        return loadTypedRecords(serializer, primaryKeys, snapshot);
+    }
+
+    /**
+     * Load a batch of records. The primary keys are sorted and any runs of keys that are adjacent integers (sharing
+     * all but the last tuple element) are read with a single range scan. Those range scans and the point reads for
+     * the remaining keys are then issued concurrently, with the number in flight at once limited by the pipeline size
+     * for {@link PipelineOperation#KEY_TO_RECORD}.
+     * @param typedSerializer serializer to use to deserialize the records
+     * @param primaryKeys the primary keys of the records to load
+     * @param snapshot whether to load at snapshot isolation
+     * @param <M> type of record message
+     * @return a future that completes with the loaded records, in the iteration order of {@code primaryKeys},
+     * with {@code null} for any key that did not have a record
+     */
+    @Nonnull
+    @API(API.Status.INTERNAL)
+    protected <M extends Message> CompletableFuture<List<FDBStoredRecord<M>>> loadTypedRecords(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                               @Nonnull final Collection<Tuple> primaryKeys,
+                                                                                               final boolean snapshot) {
+        if (primaryKeys.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        final Map<Tuple, FDBStoredRecord<M>> loaded = new ConcurrentHashMap<>();
+        final CompletableFuture<List<FDBStoredRecord<M>>> result = RecordCursor.fromList(getExecutor(), coalescePrimaryKeys(primaryKeys))
+                .forEachAsync(run -> loadRecordRun(typedSerializer, run, snapshot, loaded), getPipelineSize(PipelineOperation.KEY_TO_RECORD))
+                .thenApply(vignore -> {
+                    final List<FDBStoredRecord<M>> records = new ArrayList<>(primaryKeys.size());
+                    for (Tuple primaryKey : primaryKeys) {
+                        records.add(loaded.get(primaryKey));
+                    }
+                    return records;
+                });
+        return context.instrument(FDBStoreTimer.Events.LOAD_RECORDS, result);
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> loadRecordRun(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                      @Nonnull List<Tuple> run, final boolean snapshot,
+                                                                      @Nonnull Map<Tuple, FDBStoredRecord<M>> loaded) {
+        if (run.size() == 1) {
+            return loadTypedRecord(typedSerializer, run.get(0), snapshot).thenAccept(rec -> {
+                if (rec != null) {
+                    loaded.put(rec.getPrimaryKey(), rec);
+                }
+            });
+        }
+        final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder()
+                .setIsolationLevel(snapshot ? IsolationLevel.SNAPSHOT : IsolationLevel.SERIALIZABLE)
+                .setDefaultCursorStreamingMode(CursorStreamingMode.WANT_ALL)
+                .build());
+        return scanTypedRecords(typedSerializer, run.get(0), run.get(run.size() - 1), EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_INCLUSIVE,
+                null, scanProperties)
+                .forEach(rec -> loaded.put(rec.getPrimaryKey(), rec));
+    }
+
+    /**
+     * Sort and de-duplicate the given primary keys and group them into runs that can each be read with a single
+     * range scan. Two keys are placed in the same run if they are the same length, agree on everything but their last
+     * element, and their last elements are consecutive integers, so that there cannot be any other record between them.
+     * Keys that already have a completed entry in the preload cache are always left in a run by themselves so that
+     * they are served from the cache.
+     * @param primaryKeys the primary keys to group
+     * @return a list of runs, each of which is a sorted list of primary keys
+     */
+    @Nonnull
+    private List<List<Tuple>> coalescePrimaryKeys(@Nonnull Collection<Tuple> primaryKeys) {
+        final List<Tuple> sorted = primaryKeys.stream().distinct().sorted().collect(Collectors.toList());
+        final List<List<Tuple>> runs = new ArrayList<>();
+        List<Tuple> currentRun = null;
+        Tuple previous = null;
+        for (Tuple primaryKey : sorted) {
+            final boolean preloaded = preloadCache.get(primaryKey) != null;
+            if (currentRun == null || preloaded || !isNextPrimaryKey(previous, primaryKey)) {
+                currentRun = new ArrayList<>();
+                runs.add(currentRun);
+            }
+            currentRun.add(primaryKey);
+            if (preloaded) {
+                currentRun = null;
+            }
+            previous = primaryKey;
+        }
+        return runs;
+    }
+
+    private static boolean isNextPrimaryKey(@Nullable Tuple previous, @Nonnull Tuple primaryKey) {
+        if (previous == null || previous.isEmpty() || previous.size() != primaryKey.size()) {
+            return false;
+        }
+        final int last = primaryKey.size() - 1;
+        final Object previousLast = previous.get(last);
+        final Object currentLast = primaryKey.get(last);
+        if (!(previousLast instanceof Long) || !(currentLast instanceof Long) || (Long)previousLast == Long.MAX_VALUE ||
+                (Long)currentLast != (Long)previousLast + 1) {
+            return false;
+        }
+        for (int i = 0; i < last; i++) {
+            if (!Objects.equals(previous.get(i), primaryKey.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -1544,18 +1929,27 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return deleteTypedRecord(serializer, primaryKey, false);
     }
 
+    // Old records loaded with a projection are partial, so index maintenance with them would leave stale entries.
+    private static void checkNotProjected(@Nonnull RecordSerializer<?> typedSerializer) {
+        if (typedSerializer.getProjection() != null) {
+            throw new RecordCoreException("cannot modify records using a projected serializer");
+        }
+    }
+
     @Nonnull
     protected <M extends Message> CompletableFuture<Boolean> deleteTypedRecord(@Nonnull RecordSerializer<M> typedSerializer,
                                                                                @Nonnull Tuple primaryKey, boolean isDryRun) {
         if (isDryRun) {
             return loadTypedRecord(typedSerializer, primaryKey, false).thenCompose(oldRecord -> oldRecord == null ? AsyncUtil.READY_FALSE : AsyncUtil.READY_TRUE);
         }
+        checkNotProjected(typedSerializer);
         preloadCache.invalidate(primaryKey);
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
         CompletableFuture<Boolean> result = loadTypedRecord(typedSerializer, primaryKey, false).thenCompose(oldRecord -> {
             if (oldRecord == null) {
                 return AsyncUtil.READY_FALSE;
             }
+            invalidateTransactionRecordCache(primaryKey);
             SplitHelper.deleteSplit(getRecordContext(), recordsSubspace(), primaryKey, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldRecord);
             countKeysAndValues(FDBStoreTimer.Counts.DELETE_RECORD_KEY, FDBStoreTimer.Counts.DELETE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.DELETE_RECORD_VALUE_BYTES,
                     oldRecord);
@@ -1622,12 +2016,33 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         context.setDirtyStoreState(true);
         final Transaction transaction = context.ensureActive();
         transaction.clear(subspace.range());
+        final FDBTransactionRecordCache recordCache = context.getTransactionRecordCache();
+        if (recordCache != null) {
+            recordCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Remove records of this store from the transaction's record cache.
+     * @param primaryKey the primary key of the record to remove or {@code null} to remove all records
+     */
+    private void invalidateTransactionRecordCache(@Nullable Tuple primaryKey) {
+        final FDBTransactionRecordCache recordCache = context.getTransactionRecordCache();
+        if (recordCache != null) {
+            if (primaryKey == null) {
+                // The cache is per transaction, so clearing other stores' records too is simple and rarely costly.
+                recordCache.invalidateAll();
+            } else {
+                recordCache.invalidate(recordsSubspace().getKey(), primaryKey);
+            }
+        }
     }
 
     @Override
     @SuppressWarnings("PMD.CloseResource")
     public void deleteAllRecords() {
         preloadCache.invalidateAll();
+        invalidateTransactionRecordCache(null);
         Transaction tr = ensureContextActive();
 
         // Clear out all data except for the store header key and the index state space.
@@ -1645,6 +2060,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
 
         preloadCache.invalidateAll();
+        invalidateTransactionRecordCache(null);
         recordStoreStateRef.get().beginRead();
         boolean async = false;
         try {
@@ -4808,6 +5224,127 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return getPrimaryKeyBoundaries(range.begin, range.end);
     }
 
+    /**
+     * Scan the records in a range of primary keys by splitting the range into partitions and scanning them concurrently.
+     * The partitions are chosen from the {@linkplain #getPrimaryKeyBoundaries(TupleRange) primary key boundaries} of the
+     * range, so that each partition is read from different storage servers where possible. If {@code ordered} is
+     * {@code true}, records are returned in primary key order (descending if the scan is reversed). Otherwise, they are
+     * returned from whichever partition produces them first, which is faster for large scans that do not need any order.
+     *
+     * <p>
+     * The continuation records the partition boundaries as well as the position within each partition, so a scan
+     * resumed from a continuation uses the same partitions as when it began. Any skip and row limit in the
+     * {@code scanProperties} apply to the whole scan, while scan and byte limits are shared by all of the partitions.
+     * </p>
+     *
+     * <p>
+     * When starting from the beginning of the range, the partition boundaries are found asynchronously, before the
+     * first record is returned.
+     * </p>
+     *
+     * @param range the range of primary keys to scan or {@code null} to scan all records
+     * @param continuation any continuation from a previous scan
+     * @param scanProperties skip, limit and other scan properties
+     * @param maxPartitions the maximum number of partitions to scan concurrently
+     * @param ordered whether to return records in primary key order
+     * @return a cursor that returns records in the range
+     * @see #getPrimaryKeyBoundaries(TupleRange)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public RecordCursor<FDBStoredRecord<Message>> scanRecordsParallel(@Nullable TupleRange range, @Nullable byte[] continuation,
+                                                                      @Nonnull ScanProperties scanProperties,
+                                                                      int maxPartitions, boolean ordered) {
+        if (maxPartitions < 1) {
+            throw new RecordCoreArgumentException("maximum number of partitions must be positive")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, maxPartitions);
+        }
+        final TupleRange scanRange = range == null ? TupleRange.ALL : range;
+        if (continuation == null) {
+            if (maxPartitions == 1) {
+                return scanPartitions(scanRange, Collections.emptyList(), null, scanProperties, ordered);
+            }
+            return new LazyCursor<>(choosePartitionBoundaries(scanRange, maxPartitions)
+                    .thenApply(boundaries -> scanPartitions(scanRange, boundaries, null, scanProperties, ordered)),
+                    getExecutor());
+        }
+        final RecordCursorProto.ParallelScanContinuation parsed;
+        try {
+            parsed = RecordCursorProto.ParallelScanContinuation.parseFrom(continuation);
+        } catch (InvalidProtocolBufferException ex) {
+            throw new RecordCoreException("invalid continuation", ex)
+                    .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+        }
+        final List<Tuple> boundaries = new ArrayList<>(parsed.getBoundariesCount());
+        for (ByteString boundary : parsed.getBoundariesList()) {
+            boundaries.add(Tuple.fromBytes(boundary.toByteArray()));
+        }
+        final byte[] childContinuation = parsed.hasChildContinuation() ? parsed.getChildContinuation().toByteArray() : null;
+        return scanPartitions(scanRange, boundaries, childContinuation, scanProperties, ordered);
+    }
+
+    @Nonnull
+    private RecordCursor<FDBStoredRecord<Message>> scanPartitions(@Nonnull TupleRange scanRange, @Nonnull List<Tuple> boundaries,
+                                                                  @Nullable byte[] childContinuation,
+                                                                  @Nonnull ScanProperties scanProperties, boolean ordered) {
+        final ScanProperties partitionScanProperties = scanProperties.with(ExecuteProperties::clearSkipAndLimit);
+        final List<Function<byte[], RecordCursor<FDBStoredRecord<Message>>>> partitionScans = new ArrayList<>(boundaries.size() + 1);
+        for (int i = 0; i <= boundaries.size(); i++) {
+            final TupleRange partitionRange = new TupleRange(
+                    i == 0 ? scanRange.getLow() : boundaries.get(i - 1),
+                    i == boundaries.size() ? scanRange.getHigh() : boundaries.get(i),
+                    i == 0 ? scanRange.getLowEndpoint() : EndpointType.RANGE_INCLUSIVE,
+                    i == boundaries.size() ? scanRange.getHighEndpoint() : EndpointType.RANGE_EXCLUSIVE);
+            partitionScans.add(partitionContinuation -> scanRecords(partitionRange, partitionContinuation, partitionScanProperties));
+        }
+
+        final RecordCursor<FDBStoredRecord<Message>> union;
+        if (partitionScans.size() == 1) {
+            union = partitionScans.get(0).apply(childContinuation);
+        } else if (ordered) {
+            union = UnionCursor.create(rec -> rec.getPrimaryKey().getItems(), scanProperties.isReverse(), partitionScans, childContinuation, getTimer());
+        } else {
+            union = UnorderedUnionCursor.create(partitionScans, childContinuation, getTimer());
+        }
+        final RecordCursorProto.ParallelScanContinuation.Builder continuationBuilder = RecordCursorProto.ParallelScanContinuation.newBuilder();
+        for (Tuple boundary : boundaries) {
+            continuationBuilder.addBoundaries(ByteString.copyFrom(boundary.pack()));
+        }
+        final RecordCursorProto.ParallelScanContinuation boundariesOnly = continuationBuilder.build();
+        return union
+                .mapResult(result -> result.withContinuation(wrapParallelScanContinuation(boundariesOnly, result.getContinuation())))
+                .skipThenLimit(scanProperties.getExecuteProperties().getSkip(), scanProperties.getExecuteProperties().getReturnedRowLimit());
+    }
+
+    @Nonnull
+    private CompletableFuture<List<Tuple>> choosePartitionBoundaries(@Nonnull TupleRange range, int maxPartitions) {
+        return getPrimaryKeyBoundaries(range).asList().thenApply(allBoundaries -> {
+            if (allBoundaries.size() < maxPartitions) {
+                return allBoundaries;
+            }
+            // Spread the partitions evenly over the shards.
+            final List<Tuple> boundaries = new ArrayList<>(maxPartitions - 1);
+            for (int i = 1; i < maxPartitions; i++) {
+                boundaries.add(allBoundaries.get(i * allBoundaries.size() / maxPartitions));
+            }
+            return boundaries;
+        });
+    }
+
+    @Nonnull
+    private static RecordCursorContinuation wrapParallelScanContinuation(@Nonnull RecordCursorProto.ParallelScanContinuation boundariesOnly,
+                                                                         @Nonnull RecordCursorContinuation childContinuation) {
+        if (childContinuation.isEnd()) {
+            return RecordCursorEndContinuation.END;
+        }
+        final byte[] childBytes = childContinuation.toBytes();
+        final RecordCursorProto.ParallelScanContinuation.Builder builder = boundariesOnly.toBuilder();
+        if (childBytes != null) {
+            builder.setChildContinuation(ByteString.copyFrom(childBytes));
+        }
+        return ByteArrayContinuation.fromNullable(builder.build().toByteArray());
+    }
+
     @SuppressWarnings("PMD.CloseResource")
     private RecordCursor<Tuple> getPrimaryKeyBoundaries(byte[] rangeStart, byte[] rangeEnd) {
         final Transaction transaction = ensureContextActive();
@@ -5067,6 +5604,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         @Nonnull
         private PlanSerializationRegistry planSerializationRegistry = DefaultPlanSerializationRegistry.INSTANCE;
 
+        @Nonnull
+        private Map<String, Integer> splitChunkSizes = ImmutableMap.of();
+
         protected Builder() {
         }
 
@@ -5096,6 +5636,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             this.storeStateCache = other.storeStateCache;
             this.stateCacheabilityOnOpen = other.stateCacheabilityOnOpen;
             this.planSerializationRegistry = other.planSerializationRegistry;
+            this.splitChunkSizes = other.splitChunkSizes;
         }
 
         /**
@@ -5115,6 +5656,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             this.storeStateCache = store.storeStateCache;
             this.stateCacheabilityOnOpen = store.stateCacheabilityOnOpen;
             this.planSerializationRegistry = store.planSerializationRegistry;
+            this.splitChunkSizes = store.splitChunkSizes;
         }
 
         @Override
@@ -5302,6 +5844,30 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             this.planSerializationRegistry = planSerializationRegistry;
         }
 
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public Map<String, Integer> getSplitChunkSizes() {
+            return splitChunkSizes;
+        }
+
+        /**
+         * Set the maximum size of each key-value pair used to store split records, by record type name.
+         * Records of types not in the map use {@link SplitHelper#SPLIT_RECORD_SIZE}, which is also the largest allowed size.
+         * Smaller chunks allow a large record to be loaded with more concurrent reads (see
+         * {@link com.apple.foundationdb.record.FDBRecordStoreProperties#LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS}).
+         * Records are read back the same way whatever chunk size they were written with, so this can be changed at any time.
+         * This has no effect unless the meta-data {@linkplain RecordMetaData#isSplitLongRecords() splits long records}.
+         * @param splitChunkSizes map from record type name to chunk size in bytes
+         * @return this builder
+         */
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public Builder setSplitChunkSizes(@Nonnull Map<String, Integer> splitChunkSizes) {
+            splitChunkSizes.values().forEach(SplitHelper::validateSplitChunkSize);
+            this.splitChunkSizes = ImmutableMap.copyOf(splitChunkSizes);
+            return this;
+        }
+
         @Override
         @Nonnull
         public Builder copyBuilder() {
@@ -5324,7 +5890,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             }
             return new FDBRecordStore(context, subspaceProvider, formatVersion, getMetaDataProviderForBuild(),
                     serializer, indexMaintainerRegistry, indexMaintenanceFilter, pipelineSizer, storeStateCache, stateCacheabilityOnOpen,
-                    userVersionChecker, planSerializationRegistry);
+                    userVersionChecker, planSerializationRegistry, splitChunkSizes);
         }
 
         @Override
@@ -56,6 +56,7 @@ import com.apple.foundationdb.record.metadata.RecordType;
 import com.apple.foundationdb.record.metadata.StoreRecordFunction;
 import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.common.RecordProjection;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpacePath;
 import com.apple.foundationdb.record.provider.foundationdb.storestate.FDBRecordStoreStateCache;
@@ -146,6 +147,19 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         return new FDBTypedRecordStore<>(getUntypedRecordStore(), serializer);
     }
 
+    /**
+     * Get a record store that only materializes the given fields of the records that it loads, scans or queries.
+     * This avoids parsing the rest of each record, which can be much cheaper for records with many or large fields.
+     * The returned records are partial, so the returned store cannot be used to save or delete records.
+     * @param projection the fields to materialize
+     * @return a new typed record store that deserializes with a projection of this store's serializer
+     * @see RecordProjection#forQuery
+     */
+    @API(API.Status.EXPERIMENTAL)
+    default FDBTypedRecordStore<M> getProjectedRecordStore(@Nonnull RecordProjection projection) {
+        return getTypedRecordStore(getSerializer().withProjection(projection));
+    }
+
     /**
      * Get the record context (transaction) to use for the record store.
      * @return context the record context / transaction to use
@@ -617,6 +631,52 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_SAVE_RECORD, saveRecordAsync(rec, existenceCheck, version, behavior));
     }
 
+    /**
+     * Async version of {@link #saveRecords(List)}.
+     * @param records the records to save
+     * @return a future that completes with the stored record forms of the saved records
+     */
+    @Nonnull
+    default CompletableFuture<List<FDBStoredRecord<M>>> saveRecordsAsync(@Nonnull final List<? extends M> records) {
+        return saveRecordsAsync(records, RecordExistenceCheck.NONE);
+    }
+
+    /**
+     * Async version of {@link #saveRecords(List, RecordExistenceCheck)}.
+     * @param records the records to save
+     * @param existenceCheck when to throw an exception if a record with the same primary key does or does not already exist
+     * @return a future that completes with the stored record forms of the saved records
+     */
+    @Nonnull
+    CompletableFuture<List<FDBStoredRecord<M>>> saveRecordsAsync(@Nonnull List<? extends M> records, @Nonnull RecordExistenceCheck existenceCheck);
+
+    /**
+     * Save a batch of records.
+     * This is equivalent to calling {@link #saveRecord(Message)} on each record in turn, except that the
+     * reads of any existing records with the same primary keys are all issued concurrently before anything is written.
+     * The records in the batch must all have distinct primary keys.
+     * @param records the records to be saved
+     * @return wrapping objects containing the saved records and metadata, in the same order as {@code records}
+     */
+    @Nonnull
+    default List<FDBStoredRecord<M>> saveRecords(@Nonnull final List<? extends M> records) {
+        return saveRecords(records, RecordExistenceCheck.NONE);
+    }
+
+    /**
+     * Save a batch of records.
+     * The existence check is applied to every record in the batch and, if it fails for any of them, none of the
+     * records are saved.
+     * @param records the records to be saved
+     * @param existenceCheck when to throw an exception if a record with the same primary key does or does not already exist
+     * @return wrapping objects containing the saved records and metadata, in the same order as {@code records}
+     * @see #saveRecords(List)
+     */
+    @Nonnull
+    default List<FDBStoredRecord<M>> saveRecords(@Nonnull final List<? extends M> records, @Nonnull RecordExistenceCheck existenceCheck) {
+        return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_SAVE_RECORD, saveRecordsAsync(records, existenceCheck));
+    }
+
     /**
      * Save the given record and throw an exception if a record already exists with the same primary key.
      * @param rec the record to be saved
@@ -699,6 +759,41 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         return loadRecordInternal(primaryKey, ExecuteState.NO_LIMITS, snapshot);
     }
 
+    /**
+     * Load the records with the given primary keys.
+     * @param primaryKeys the primary keys for the records
+     * @return a list of {@link FDBStoredRecord}s in the same order as {@code primaryKeys}, with <code>null</code>
+     * for any key that does not have a record
+     */
+    @Nonnull
+    default List<FDBStoredRecord<M>> loadRecords(@Nonnull final Collection<Tuple> primaryKeys) {
+        return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_LOAD_RECORD, loadRecordsAsync(primaryKeys));
+    }
+
+    /**
+     * Asynchronously load a batch of records.
+     * @param primaryKeys the primary keys for the records to be loaded
+     * @return a future that will return the records in the same order as {@code primaryKeys},
+     * with <code>null</code> for any key that does not have a record
+     */
+    @Nonnull
+    default CompletableFuture<List<FDBStoredRecord<M>>> loadRecordsAsync(@Nonnull final Collection<Tuple> primaryKeys) {
+        return loadRecordsAsync(primaryKeys, false);
+    }
+
+    /**
+     * Asynchronously load a batch of records.
+     * Rather than reading each record separately, adjacent primary keys may be combined into a single range read,
+     * and the remaining reads are issued concurrently up to the {@linkplain #getPipelineSize(PipelineOperation) pipeline size}
+     * for {@link PipelineOperation#KEY_TO_RECORD}.
+     * @param primaryKeys the primary keys for the records to be loaded
+     * @param snapshot whether to load at snapshot isolation
+     * @return a future that will return the records in the same order as {@code primaryKeys},
+     * with <code>null</code> for any key that does not have a record
+     */
+    @Nonnull
+    CompletableFuture<List<FDBStoredRecord<M>>> loadRecordsAsync(@Nonnull Collection<Tuple> primaryKeys, boolean snapshot);
+
     @Nonnull
     @API(API.Status.INTERNAL)
     CompletableFuture<FDBStoredRecord<M>> loadRecordInternal(@Nonnull Tuple primaryKey, @Nonnull ExecuteState executeState, boolean snapshot);
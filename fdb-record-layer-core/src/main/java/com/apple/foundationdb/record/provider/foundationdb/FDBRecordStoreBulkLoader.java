@@ -0,0 +1,368 @@
+/*
+ * FDBRecordStoreBulkLoader.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load a large number of new records into a record store across as many transactions as needed.
+ *
+ * <p>
+ * Unlike {@link FDBRecordStore#saveRecordAsync}, records are written without first loading any existing record with
+ * the same primary key, so loading does not need any reads of the records range or take any read conflicts on it.
+ * This is only correct if none of the records already exist, such as when populating a new store or a range of primary
+ * keys that is known to be unused. Each transaction is committed once its approximate size reaches
+ * {@link Builder#setMaxTransactionBytes(long)}, and is retried by replaying the same records if it fails. Since the
+ * records did not exist before, the first record of a transaction being retried tells whether an earlier attempt was
+ * in fact committed, such as after a {@code commit_unknown_result} error, in which case the records are not saved again,
+ * which would count them twice in any record count or aggregate index.
+ * </p>
+ *
+ * <p>
+ * By default, indexes are maintained as each record is saved. With {@link Builder#setDeferIndexBuilds(boolean)},
+ * indexes that have no entries yet, such as new indexes or all of the indexes of a new store, are instead disabled
+ * before loading and then built with an {@link OnlineIndexer} afterwards, which is cheaper than maintaining them one
+ * record at a time.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class FDBRecordStoreBulkLoader implements AutoCloseable {
+    /**
+     * The default approximate size of each transaction.
+     */
+    public static final long DEFAULT_MAX_TRANSACTION_BYTES = 1_000_000L;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final FDBRecordStore.Builder recordStoreBuilder;
+    private final long maxTransactionBytes;
+    private final boolean deferIndexBuilds;
+
+    protected FDBRecordStoreBulkLoader(@Nonnull FDBDatabaseRunner runner, @Nonnull FDBRecordStore.Builder recordStoreBuilder,
+                                       long maxTransactionBytes, boolean deferIndexBuilds) {
+        this.runner = runner;
+        this.recordStoreBuilder = recordStoreBuilder;
+        this.maxTransactionBytes = maxTransactionBytes;
+        this.deferIndexBuilds = deferIndexBuilds;
+    }
+
+    @Nonnull
+    public FDBDatabaseRunner getRunner() {
+        return runner;
+    }
+
+    public long getMaxTransactionBytes() {
+        return maxTransactionBytes;
+    }
+
+    public boolean isDeferIndexBuilds() {
+        return deferIndexBuilds;
+    }
+
+    /**
+     * Load records into the store. The iterator is only advanced from one thread at a time, but not necessarily
+     * always from the same thread.
+     * @param records the records to save, none of which should already exist in the store
+     * @return a future that completes with the number of records loaded once they are saved and any indexes are built
+     */
+    @Nonnull
+    public CompletableFuture<Long> loadRecordsAsync(@Nonnull Iterator<? extends Message> records) {
+        final CompletableFuture<List<Index>> disabledIndexes = deferIndexBuilds ? disableEmptyIndexes() : CompletableFuture.completedFuture(List.of());
+        final AtomicLong loaded = new AtomicLong();
+        // Records taken from the iterator for the current transaction, which are replayed if it needs to be retried.
+        final List<Message> pending = new ArrayList<>();
+        // The primary key of the first pending record, once it has been saved by some attempt.
+        final AtomicReference<Tuple> firstPrimaryKey = new AtomicReference<>();
+        return disabledIndexes.thenCompose(indexes -> AsyncUtil.whileTrue(() ->
+                runner.runAsync(context -> loadTransaction(context, records, pending, firstPrimaryKey)).thenApply(more -> {
+                    loaded.addAndGet(pending.size());
+                    increment(FDBStoreTimer.Counts.BULK_LOAD_RECORDS, pending.size());
+                    increment(FDBStoreTimer.Counts.BULK_LOAD_TRANSACTIONS, 1);
+                    pending.clear();
+                    firstPrimaryKey.set(null);
+                    return more;
+                }), runner.getExecutor())
+                .thenCompose(vignore -> buildIndexes(indexes)))
+                .thenApply(vignore -> loaded.get());
+    }
+
+    /**
+     * Load records into the store.
+     * Synchronous version of {@link #loadRecordsAsync}.
+     * @param records the records to save, none of which should already exist in the store
+     * @return the number of records loaded
+     */
+    public long loadRecords(@Nonnull Iterator<? extends Message> records) {
+        return runner.asyncToSync(FDBStoreTimer.Waits.WAIT_BULK_LOAD_RECORDS, loadRecordsAsync(records));
+    }
+
+    @Nonnull
+    private CompletableFuture<FDBRecordStore> openRecordStore(@Nonnull FDBRecordContext context) {
+        return recordStoreBuilder.copyBuilder().setContext(context).createOrOpenAsync();
+    }
+
+    // Disable the enabled indexes that do not have any entries, so that disabling them does not lose anything.
+    @Nonnull
+    private CompletableFuture<List<Index>> disableEmptyIndexes() {
+        return runner.runAsync(context -> openRecordStore(context).thenCompose(store -> {
+            final List<Index> candidates = new ArrayList<>();
+            final List<CompletableFuture<Boolean>> emptyFutures = new ArrayList<>();
+            for (Index index : store.getRecordMetaData().getAllIndexes()) {
+                if (!store.isIndexDisabled(index)) {
+                    candidates.add(index);
+                    emptyFutures.add(context.ensureActive().getRange(store.indexSubspace(index).range(), 1).asList()
+                            .thenApply(List::isEmpty));
+                }
+            }
+            return AsyncUtil.getAll(emptyFutures).thenCompose(empty -> {
+                final List<Index> indexes = new ArrayList<>();
+                final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+                for (int i = 0; i < candidates.size(); i++) {
+                    if (empty.get(i)) {
+                        indexes.add(candidates.get(i));
+                        futures.add(store.markIndexDisabled(candidates.get(i)));
+                    }
+                }
+                return AsyncUtil.whenAll(futures).thenApply(vignore -> indexes);
+            });
+        }));
+    }
+
+    @Nonnull
+    private CompletableFuture<Boolean> loadTransaction(@Nonnull FDBRecordContext context,
+                                                       @Nonnull Iterator<? extends Message> records,
+                                                       @Nonnull List<Message> pending,
+                                                       @Nonnull AtomicReference<Tuple> firstPrimaryKey) {
+        return openRecordStore(context).thenCompose(store -> {
+            final Tuple replayedPrimaryKey = firstPrimaryKey.get();
+            if (replayedPrimaryKey == null) {
+                return saveRecords(context, store, records, pending, firstPrimaryKey);
+            }
+            // A previous attempt saved the pending records, and its commit may have succeeded even though it failed.
+            return store.recordExistsAsync(replayedPrimaryKey).thenCompose(committed -> {
+                if (committed) {
+                    increment(FDBStoreTimer.Counts.BULK_LOAD_ALREADY_COMMITTED, 1);
+                    return AsyncUtil.DONE;
+                }
+                return saveRecords(context, store, records, pending, firstPrimaryKey);
+            });
+        }).thenApply(vignore -> records.hasNext());
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> saveRecords(@Nonnull FDBRecordContext context,
+                                                @Nonnull FDBRecordStore store,
+                                                @Nonnull Iterator<? extends Message> records,
+                                                @Nonnull List<Message> pending,
+                                                @Nonnull AtomicReference<Tuple> firstPrimaryKey) {
+        final Iterator<Message> replay = new ArrayList<>(pending).iterator();
+        return AsyncUtil.whileTrue(() -> {
+            final Message rec;
+            if (replay.hasNext()) {
+                rec = replay.next();
+            } else if (records.hasNext()) {
+                rec = records.next();
+                pending.add(rec);
+            } else {
+                return AsyncUtil.READY_FALSE;
+            }
+            return store.insertTypedRecordWithoutLoad(store.getSerializer(), rec)
+                    .thenCompose(storedRecord -> {
+                        firstPrimaryKey.compareAndSet(null, storedRecord.getPrimaryKey());
+                        return context.getApproximateTransactionSize();
+                    })
+                    .thenApply(size -> replay.hasNext() || size < maxTransactionBytes);
+        }, context.getExecutor());
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> buildIndexes(@Nonnull List<Index> indexes) {
+        if (indexes.isEmpty()) {
+            return AsyncUtil.DONE;
+        }
+        final OnlineIndexer indexer = OnlineIndexer.newBuilder()
+                .setDatabase(runner.getDatabase())
+                .setRecordStoreBuilder(recordStoreBuilder)
+                .setTargetIndexes(indexes)
+                .setTimer(runner.getTimer())
+                .build();
+        return indexer.buildIndexAsync().whenComplete((vignore, err) -> indexer.close());
+    }
+
+    private void increment(@Nonnull FDBStoreTimer.Count count, int amount) {
+        final FDBStoreTimer timer = runner.getTimer();
+        if (timer != null) {
+            timer.increment(count, amount);
+        }
+    }
+
+    @Override
+    public void close() {
+        runner.close();
+    }
+
+    /**
+     * Create a builder for a bulk loader.
+     * @return a new builder
+     */
+    @Nonnull
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link FDBRecordStoreBulkLoader}.
+     */
+    public static class Builder {
+        @Nullable
+        private FDBDatabaseRunner runner;
+        @Nullable
+        private FDBRecordStore.Builder recordStoreBuilder;
+        private long maxTransactionBytes = DEFAULT_MAX_TRANSACTION_BYTES;
+        private boolean deferIndexBuilds = false;
+
+        protected Builder() {
+        }
+
+        /**
+         * Set the database in which to load records.
+         *
+         * Normally the database is gotten from {@link #setRecordStore} or {@link #setRecordStoreBuilder}.
+         * @param database the target database
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setDatabase(@Nonnull FDBDatabase database) {
+            this.runner = database.newRunner();
+            return this;
+        }
+
+        /**
+         * Set the record store builder that will be used to open record store instances for loading.
+         * @param recordStoreBuilder the record store builder
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRecordStoreBuilder(@Nonnull FDBRecordStore.Builder recordStoreBuilder) {
+            this.recordStoreBuilder = recordStoreBuilder.copyBuilder().setContext(null);
+            if (runner == null && recordStoreBuilder.getContext() != null) {
+                runner = recordStoreBuilder.getContext().newRunner();
+            }
+            return this;
+        }
+
+        /**
+         * Set the record store that will be used as a template to open record store instances for loading.
+         * @param recordStore the target record store
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRecordStore(@Nonnull FDBRecordStore recordStore) {
+            recordStoreBuilder = recordStore.asBuilder().setContext(null);
+            if (runner == null) {
+                runner = recordStore.getRecordContext().newRunner();
+            }
+            return this;
+        }
+
+        /**
+         * Set the timer used while loading.
+         * @param timer timer to use
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setTimer(@Nullable FDBStoreTimer timer) {
+            if (runner == null) {
+                throw new MetaDataException("timer can only be set after runner has been set");
+            }
+            runner.setTimer(timer);
+            return this;
+        }
+
+        /**
+         * Set the approximate size in bytes at which each transaction is committed. This counts all of the writes
+         * made by the transaction, including any index entries. The default is {@link #DEFAULT_MAX_TRANSACTION_BYTES}.
+         * @param maxTransactionBytes the approximate maximum transaction size
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setMaxTransactionBytes(long maxTransactionBytes) {
+            if (maxTransactionBytes <= 0) {
+                throw new RecordCoreArgumentException("max transaction bytes must be positive")
+                        .addLogInfo("maxTransactionBytes", maxTransactionBytes);
+            }
+            this.maxTransactionBytes = maxTransactionBytes;
+            return this;
+        }
+
+        /**
+         * Set whether to disable the store's empty indexes while loading and build them afterwards. The default is
+         * {@code false}, in which case indexes are maintained as each record is saved.
+         *
+         * <p>
+         * Only enabled indexes that do not have any entries when loading starts are deferred, so that this is
+         * cheaper when loading into a new store or adding a new index with its records. Disabling an index clears
+         * it, and deferred indexes cannot be used by queries until they have been built again after all the records
+         * are loaded. If loading fails, they are left disabled and need to be built with an {@link OnlineIndexer}.
+         * Indexes that already have entries are always maintained as each record is saved, since disabling them
+         * would discard their data.
+         * </p>
+         * @param deferIndexBuilds whether to build empty indexes after loading
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setDeferIndexBuilds(boolean deferIndexBuilds) {
+            this.deferIndexBuilds = deferIndexBuilds;
+            return this;
+        }
+
+        /**
+         * Build the bulk loader.
+         * @return a new bulk loader
+         */
+        @Nonnull
+        public FDBRecordStoreBulkLoader build() {
+            if (runner == null) {
+                throw new MetaDataException("a runner or database must be set");
+            }
+            if (recordStoreBuilder == null) {
+                throw new MetaDataException("a record store or record store builder must be set");
+            }
+            return new FDBRecordStoreBulkLoader(runner, recordStoreBuilder, maxTransactionBytes, deferIndexBuilds);
+        }
+    }
+}
@@ -114,11 +114,21 @@ public class FDBStoreTimer extends StoreTimer {
          * for later committing.
          */
         SAVE_RECORD("save record"),
+        /**
+         * The amount of time taken saving a batch of records with {@link FDBRecordStoreBase#saveRecordsAsync(java.util.List)}.
+         * This time includes loading any existing records as well as everything covered by {@link #SAVE_RECORD}.
+         */
+        SAVE_RECORDS("save records"),
         /**
          * The amount of time taken loading records.
          * This time includes fetching from the database and deserialization.
          */
         LOAD_RECORD("load record"),
+        /**
+         * The amount of time taken loading a batch of records with {@link FDBRecordStoreBase#loadRecordsAsync(java.util.Collection)}.
+         * This time includes fetching from the database and deserialization.
+         */
+        LOAD_RECORDS("load records"),
         /** The amount of time taken scanning records directly without any index. */
         SCAN_RECORDS("scan records"),
         /**
@@ -288,6 +298,8 @@ public class FDBStoreTimer extends StoreTimer {
         GET_RECORD_RAW_VALUE("get record raw value"),
         /** The amount of time spent until the first part of a split record is available. */
         GET_RECORD_RANGE_RAW_FIRST_CHUNK("get record range raw first chunk"),
+        /** The amount of time spent reading the remaining parts of a split record with concurrent range reads. */
+        GET_RECORD_RANGE_RAW_PARALLEL_CHUNKS("get record range raw parallel chunks"),
         /** The amount of time spent until the first part of a range scan (such as an index) is available. */
         GET_SCAN_RANGE_RAW_FIRST_CHUNK("get scan range raw first chunk"),
         /** The amount of time spent initializing a {@link com.apple.foundationdb.async.RankedSet} skip list. */
@@ -381,6 +393,8 @@ public class FDBStoreTimer extends StoreTimer {
         WAIT_CHECK_VERSION("wait for check version"),
         /** Wait for {@link OnlineIndexer} to complete building an index. */
         WAIT_ONLINE_BUILD_INDEX("wait for online build index"),
+        /** Wait for {@link FDBRecordStoreBulkLoader} to complete loading records. */
+        WAIT_BULK_LOAD_RECORDS("wait for bulk load records"),
         /** Wait for {@link OnlineIndexer} to stop ongoing online index builds. */
         WAIT_STOP_ONLINE_INDEX_BUILD("wait for stopping ongoing online index builds"),
         /** Wait for {@link OnlineIndexer} to checking ongoing online index builds. */
@@ -504,6 +518,16 @@ public class FDBStoreTimer extends StoreTimer {
         STORE_STATE_CACHE_HIT("store info cache hit", false),
         /** The number of times the store state cache was unable to return a cached result. */
         STORE_STATE_CACHE_MISS("store info cache miss", false),
+        /** The number of record loads returned from the record context's cache of deserialized records. */
+        TRANSACTION_RECORD_CACHE_HIT("transaction record cache hit", false),
+        /** The number of record loads that could not be returned from the record context's cache of deserialized records. */
+        TRANSACTION_RECORD_CACHE_MISS("transaction record cache miss", false),
+        /** The number of record loads returned from the database's versioned record cache after checking the record's version. */
+        VERSIONED_RECORD_CACHE_HIT("versioned record cache hit", false),
+        /** The number of record loads for which the database's versioned record cache had no entry. */
+        VERSIONED_RECORD_CACHE_MISS("versioned record cache miss", false),
+        /** The number of record loads for which the database's versioned record cache had an entry with an old version. */
+        VERSIONED_RECORD_CACHE_STALE("versioned record cache stale", false),
         /** The number of record key-value pairs saved. */
         SAVE_RECORD_KEY("number of record keys saved", false, null, true),
         /** The size of keys for record key-value pairs saved. */
@@ -514,6 +538,16 @@ public class FDBStoreTimer extends StoreTimer {
         LOAD_SCAN_ENTRY("number of entries loaded by some scan", false),
         /** The number of key-value pairs loaded by a range scan. */
         LOAD_KEY_VALUE("number of keys loaded", false),
+        /** The number of batches requested by range scans that read ahead of their consumer. */
+        READ_AHEAD_BATCH("number of read-ahead range batches", false),
+        /** The number of {@link com.apple.foundationdb.record.CursorStreamingMode#ADAPTIVE} scans that read exactly their row limit in one batch. */
+        ADAPTIVE_STREAMING_EXACT("number of adaptive streaming scans read in one exact batch", false),
+        /** The number of {@link com.apple.foundationdb.record.CursorStreamingMode#ADAPTIVE} scans that read in growing batches. */
+        ADAPTIVE_STREAMING_BATCHED("number of adaptive streaming scans read in batches", false),
+        /** The number of times an adaptive streaming scan increased its batch size because its consumer was waiting. */
+        ADAPTIVE_STREAMING_GROW("number of adaptive streaming batch size increases", false),
+        /** The number of times an adaptive streaming scan decreased its batch size because its consumer was not keeping up. */
+        ADAPTIVE_STREAMING_SHRINK("number of adaptive streaming batch size decreases", false),
         /** The number of entries loaded when scanning a text index. */
         LOAD_TEXT_ENTRY("number of text entries loaded", false),
         /** The number of record key-value pairs loaded. */
@@ -522,6 +556,8 @@ public class FDBStoreTimer extends StoreTimer {
         LOAD_RECORD_KEY_BYTES("number of record key bytes loaded", true),
         /** The size of values for record key-value pairs loaded. */
         LOAD_RECORD_VALUE_BYTES("number of record value bytes loaded", true),
+        /** The number of concurrent range reads issued to load the chunks of split records. */
+        SPLIT_RECORD_PARALLEL_RANGE_READS("number of parallel split record range reads", false),
         /** The number of index key-value pairs saved. */
         SAVE_INDEX_KEY("number of index keys saved", false, null, true),
         /** The size of keys for index key-value pairs saved. */
@@ -633,10 +669,14 @@ public class FDBStoreTimer extends StoreTimer {
         QUERY_INTERSECTION_PLAN_MATCHES("number of matching records found by RecordQueryIntersectionPlan", false),
         /** The number of non-matching records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryIntersectionPlan}. */
         QUERY_INTERSECTION_PLAN_NONMATCHES("number of non-matching records found by RecordQueryIntersectionPlan", false),
+        /** The number of times a child of an intersection cursor was repositioned at a later key with a new scan. */
+        QUERY_INTERSECTION_SEEK("number of intersection child seeks", false),
         /** The number of duplicate records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
         QUERY_UNION_PLAN_DUPLICATES("number of duplicates found by RecordQueryUnorderedDistinctPlan", false),
         /** The number of unique records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
         QUERY_UNION_PLAN_UNIQUES("number of unique records found by RecordQueryUnorderedDistinctPlan", false),
+        /** The number of times a child of a union cursor waited to be read because the maximum number of children were already being read. */
+        UNION_CHILD_DEFERRED("number of times a union child waited to be read", false),
         /** The number of records filtered out as not matching or duplicate. */
         QUERY_DISCARDED("number of records loaded but filtered out", false),
         /** The number of aggregate groups created by {@link RecordQueryStreamingAggregationPlan}. */
@@ -663,6 +703,14 @@ public class FDBStoreTimer extends StoreTimer {
         ONLINE_INDEX_BUILDER_RANGES_BY_COUNT("number of indexer iterations terminated by scan limit", false),
         /** The number of {@link OnlineIndexer} range scans terminated after hitting the size limit. */
         ONLINE_INDEX_BUILDER_RANGES_BY_SIZE("number of indexer iterations terminated by write limit", false),
+        /** The number of records saved by {@link FDBRecordStoreBulkLoader}. */
+        BULK_LOAD_RECORDS("number of records bulk loaded", false),
+        /** The number of transactions committed by {@link FDBRecordStoreBulkLoader}. */
+        BULK_LOAD_TRANSACTIONS("number of bulk load transactions", false),
+        /** The number of retried {@link FDBRecordStoreBulkLoader} transactions found to have been committed already. */
+        BULK_LOAD_ALREADY_COMMITTED("number of bulk load transactions already committed when retried", false),
+        /** The number of prefetched contexts used by {@link com.apple.foundationdb.record.cursors.AutoContinuingCursor}. */
+        AUTO_CONTINUE_PREFETCHED_CONTEXT("number of prefetched contexts used to continue a cursor", false),
         /** The number of missing index entries detected by the online scrubber. */
         ONLINE_INDEX_BUILDER_RANGES_BY_TIME("number of indexer iterations terminated by time limit", false),
         /** The number of {@link OnlineIndexer} range scans terminated after hitting the time limit. */
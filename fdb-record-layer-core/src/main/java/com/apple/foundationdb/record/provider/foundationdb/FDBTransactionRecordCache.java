@@ -0,0 +1,223 @@
+/*
+ * FDBTransactionRecordCache.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of deserialized records that have been loaded or saved within a single {@link FDBRecordContext}.
+ * Entries are keyed by the records subspace of the store and the record's primary key, so different record store
+ * objects opened on the same store within a transaction share entries. An entry is only returned to a load that
+ * uses the same {@link RecordSerializer} and {@link RecordMetaData} as were used to create it.
+ *
+ * <p>
+ * As with {@link FDBPreloadRecordCache}, a load reserves an entry before it reads the record, and the result is
+ * only made visible if that reservation has not been replaced or invalidated in the meantime, so that a record saved or
+ * deleted while a load is outstanding is never replaced by the stale result of that load.
+ * </p>
+ *
+ * @see com.apple.foundationdb.record.FDBRecordStoreProperties#TRANSACTION_RECORD_CACHE_SIZE
+ */
+@API(API.Status.INTERNAL)
+class FDBTransactionRecordCache {
+    @Nonnull
+    private final ConcurrentMap<Key, Entry> entries;
+
+    public FDBTransactionRecordCache(int maximumSize) {
+        entries = CacheBuilder.newBuilder().maximumSize(maximumSize).<Key, Entry>build().asMap();
+    }
+
+    /**
+     * Get a completed entry from the cache.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     * @param serializer the serializer that the record would be loaded with
+     * @param metaData the meta-data that the record would be loaded with
+     * @return the cached entry or {@code null} if there is no usable entry
+     */
+    @Nullable
+    public Entry get(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey,
+                     @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData) {
+        final Entry entry = entries.get(new Key(recordsSubspaceKey, primaryKey));
+        if (entry != null && entry.record != null && entry.serializer == serializer && entry.metaData == metaData) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Reserve an entry before loading a record.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     * @return a pending entry to be passed to {@link #completeLoad} or {@link #cancelLoad}
+     */
+    @Nonnull
+    public Entry beginLoad(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey) {
+        final Entry pending = new Entry(null, null, null, false);
+        entries.put(new Key(recordsSubspaceKey, primaryKey), pending);
+        return pending;
+    }
+
+    /**
+     * Make the result of a load visible, unless the entry reserved by {@link #beginLoad} is no longer current.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     * @param pending the entry returned by {@link #beginLoad}
+     * @param serializer the serializer used to load the record
+     * @param metaData the meta-data used to load the record
+     * @param storedRecord the record loaded or {@code null} if there was no record
+     * @param snapshot whether the record was loaded at snapshot isolation
+     */
+    public void completeLoad(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey, @Nonnull Entry pending,
+                             @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData,
+                             @Nullable FDBStoredRecord<?> storedRecord, boolean snapshot) {
+        final Key key = new Key(recordsSubspaceKey, primaryKey);
+        if (storedRecord == null) {
+            entries.remove(key, pending);
+        } else {
+            entries.replace(key, pending, new Entry(storedRecord, serializer, metaData, !snapshot));
+        }
+    }
+
+    /**
+     * Abandon a load begun with {@link #beginLoad}.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     * @param pending the entry returned by {@link #beginLoad}
+     */
+    public void cancelLoad(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey, @Nonnull Entry pending) {
+        entries.remove(new Key(recordsSubspaceKey, primaryKey), pending);
+    }
+
+    /**
+     * Add a record that was just saved, replacing any existing entry.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param serializer the serializer used to save the record
+     * @param metaData the meta-data used to save the record
+     * @param storedRecord the record that was saved
+     */
+    public void put(@Nonnull byte[] recordsSubspaceKey,
+                    @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData,
+                    @Nonnull FDBStoredRecord<?> storedRecord) {
+        // Reading back a key written in this transaction does not need a read conflict.
+        entries.put(new Key(recordsSubspaceKey, storedRecord.getPrimaryKey()), new Entry(storedRecord, serializer, metaData, true));
+    }
+
+    /**
+     * Remove any entry for a record.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     */
+    public void invalidate(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey) {
+        entries.remove(new Key(recordsSubspaceKey, primaryKey));
+    }
+
+    /**
+     * Remove all entries. Any outstanding loads will not be made visible.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * An entry in the cache.
+     */
+    static final class Entry {
+        @Nullable
+        private final FDBStoredRecord<?> record;
+        @Nullable
+        private final RecordSerializer<?> serializer;
+        @Nullable
+        private final RecordMetaData metaData;
+        private volatile boolean readConflictAdded;
+
+        private Entry(@Nullable FDBStoredRecord<?> record, @Nullable RecordSerializer<?> serializer,
+                      @Nullable RecordMetaData metaData, boolean readConflictAdded) {
+            this.record = record;
+            this.serializer = serializer;
+            this.metaData = metaData;
+            this.readConflictAdded = readConflictAdded;
+        }
+
+        /**
+         * Get the cached record. This must only be called on an entry returned by {@link #get} with a serializer
+         * of the given type.
+         * @param <M> type used to represent stored records
+         * @return the cached record
+         */
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public <M extends Message> FDBStoredRecord<M> getRecord() {
+            return (FDBStoredRecord<M>)record;
+        }
+
+        /**
+         * Note that a load at serializable isolation is about to be satisfied from this entry.
+         * @return {@code true} if the caller needs to add a read conflict for the record
+         */
+        public boolean markReadConflict() {
+            if (readConflictAdded) {
+                return false;
+            }
+            readConflictAdded = true;
+            return true;
+        }
+    }
+
+    private static final class Key {
+        @Nonnull
+        private final byte[] recordsSubspaceKey;
+        @Nonnull
+        private final Tuple primaryKey;
+
+        private Key(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey) {
+            this.recordsSubspaceKey = recordsSubspaceKey;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key)o;
+            return Arrays.equals(recordsSubspaceKey, key.recordsSubspaceKey) && primaryKey.equals(key.primaryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(recordsSubspaceKey) + primaryKey.hashCode();
+        }
+    }
+}
@@ -58,6 +58,7 @@ import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
@@ -137,6 +138,12 @@ public class FDBTypedRecordStore<M extends Message> implements FDBRecordStoreBas
         return untypedStore.saveTypedRecord(typedSerializer, rec, existenceCheck, version, behavior);
     }
 
+    @Nonnull
+    @Override
+    public CompletableFuture<List<FDBStoredRecord<M>>> saveRecordsAsync(@Nonnull List<? extends M> records, @Nonnull RecordExistenceCheck existenceCheck) {
+        return untypedStore.saveTypedRecords(typedSerializer, records, existenceCheck);
+    }
+
     @Nonnull
     @Override
     public CompletableFuture<FDBStoredRecord<M>> dryRunSaveRecordAsync(@Nonnull M rec, @Nonnull RecordExistenceCheck existenceCheck, @Nullable FDBRecordVersion version, @Nonnull VersionstampSaveBehavior behavior) {
@@ -149,6 +156,12 @@ public class FDBTypedRecordStore<M extends Message> implements FDBRecordStoreBas
         return untypedStore.loadTypedRecord(typedSerializer, primaryKey, snapshot);
     }
 
+    @Nonnull
+    @Override
+    public CompletableFuture<List<FDBStoredRecord<M>>> loadRecordsAsync(@Nonnull Collection<Tuple> primaryKeys, boolean snapshot) {
+        return untypedStore.loadTypedRecords(typedSerializer, primaryKeys, snapshot);
+    }
+
     @Nonnull
     @Override
     public CompletableFuture<Void> preloadRecordAsync(@Nonnull Tuple primaryKey) {
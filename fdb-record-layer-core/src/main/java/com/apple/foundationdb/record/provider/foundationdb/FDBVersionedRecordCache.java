@@ -0,0 +1,207 @@
+/*
+ * FDBVersionedRecordCache.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A cache of deserialized records that is shared by all transactions on an {@link FDBDatabase}.
+ *
+ * <p>
+ * Each entry remembers the {@link FDBRecordVersion} of the record when it was loaded. When a record store whose
+ * meta-data {@linkplain RecordMetaData#isStoreRecordVersions() stores record versions} loads a record that has an
+ * entry, it reads only the record's version and returns the cached record if that version is unchanged, which avoids
+ * reading and deserializing the rest of the record. Otherwise the record is loaded as usual and the entry replaced.
+ * As every save of a record writes a new version and every delete clears it, a cached record is never returned once
+ * it has changed. The exception is a record saved with an explicitly specified version that is the same as its
+ * previous version, which should be avoided for records that are read through this cache.
+ * </p>
+ *
+ * <p>
+ * Entries are keyed by the records subspace of the store and the record's primary key, and an entry is only returned
+ * to a store that uses the same {@link RecordSerializer} and meta-data with the same version and union descriptor.
+ * Only records with {@linkplain FDBRecordVersion#isComplete() complete} versions, that is, records that were not
+ * saved by the loading transaction, are cached.
+ * </p>
+ *
+ * @see FDBDatabase#setVersionedRecordCacheSize(int)
+ */
+@API(API.Status.EXPERIMENTAL)
+public class FDBVersionedRecordCache {
+    @Nonnull
+    private final Cache<Key, Entry> entries;
+
+    public FDBVersionedRecordCache(int maximumSize) {
+        entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get an entry from the cache. The entry's version must still be checked against the stored version of the record.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     * @param serializer the serializer that the record would be loaded with
+     * @param metaData the meta-data that the record would be loaded with
+     * @return the cached entry or {@code null} if there is no usable entry
+     */
+    @Nullable
+    Entry get(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey,
+              @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData) {
+        final Entry entry = entries.getIfPresent(new Key(recordsSubspaceKey, primaryKey));
+        if (entry != null && entry.serializer == serializer && entry.metaDataVersion == metaData.getVersion() &&
+                entry.unionDescriptor == metaData.getUnionDescriptor()) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Add a record that was just loaded, replacing any existing entry. Records without a complete version are ignored.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param serializer the serializer used to load the record
+     * @param metaData the meta-data used to load the record
+     * @param storedRecord the record that was loaded
+     */
+    void put(@Nonnull byte[] recordsSubspaceKey,
+             @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData,
+             @Nonnull FDBStoredRecord<?> storedRecord) {
+        final Key key = new Key(recordsSubspaceKey, storedRecord.getPrimaryKey());
+        final FDBRecordVersion version = storedRecord.getVersion();
+        if (version == null || !version.isComplete()) {
+            entries.invalidate(key);
+        } else {
+            entries.put(key, new Entry(storedRecord, version, serializer, metaData));
+        }
+    }
+
+    /**
+     * Remove any entry for a record.
+     * @param recordsSubspaceKey the key of the records subspace of the record store
+     * @param primaryKey the primary key of the record
+     */
+    public void invalidate(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey) {
+        entries.invalidate(new Key(recordsSubspaceKey, primaryKey));
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     * @return the approximate number of entries
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return entries.stats();
+    }
+
+    /**
+     * An entry in the cache.
+     */
+    static final class Entry {
+        @Nonnull
+        private final FDBStoredRecord<?> record;
+        @Nonnull
+        private final FDBRecordVersion version;
+        @Nonnull
+        private final RecordSerializer<?> serializer;
+        private final int metaDataVersion;
+        @Nonnull
+        private final Descriptors.Descriptor unionDescriptor;
+
+        private Entry(@Nonnull FDBStoredRecord<?> record, @Nonnull FDBRecordVersion version,
+                      @Nonnull RecordSerializer<?> serializer, @Nonnull RecordMetaData metaData) {
+            this.record = record;
+            this.version = version;
+            this.serializer = serializer;
+            this.metaDataVersion = metaData.getVersion();
+            this.unionDescriptor = metaData.getUnionDescriptor();
+        }
+
+        /**
+         * Get the cached record. This must only be called on an entry returned by {@link #get} with a serializer
+         * of the given type.
+         * @param <M> type used to represent stored records
+         * @return the cached record
+         */
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public <M extends Message> FDBStoredRecord<M> getRecord() {
+            return (FDBStoredRecord<M>)record;
+        }
+
+        @Nonnull
+        public FDBRecordVersion getVersion() {
+            return version;
+        }
+    }
+
+    private static final class Key {
+        @Nonnull
+        private final byte[] recordsSubspaceKey;
+        @Nonnull
+        private final Tuple primaryKey;
+
+        private Key(@Nonnull byte[] recordsSubspaceKey, @Nonnull Tuple primaryKey) {
+            this.recordsSubspaceKey = recordsSubspaceKey;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key)o;
+            return Arrays.equals(recordsSubspaceKey, key.recordsSubspaceKey) && primaryKey.equals(key.primaryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(recordsSubspaceKey) + primaryKey.hashCode();
+        }
+    }
+}
@@ -74,10 +74,19 @@ public class KeyValueCursor extends KeyValueCursorBase<KeyValue> {
 
         public KeyValueCursor build() {
             prepare();
-            final AsyncIterator<KeyValue> iterator = getTransaction()
-                    .getRange(getBegin(), getEnd(), getLimit(), isReverse(), getStreamingMode())
-                    .iterator();
-            return new KeyValueCursor(getContext(), iterator, getPrefixLength(), getLimitManager(), getValuesLimit());
+            final AsyncIterator<KeyValue> iterator;
+            if (getReadAheadBytes() > 0 || isAdaptiveStreaming()) {
+                // Without a read-ahead budget, an adaptive scan requests each batch as soon as the previous one is
+                // handed over, so that whether it is ready in time says whether the consumer is keeping up.
+                iterator = new ReadAheadKeyValueIterator(getContext(), getTransaction(), getBegin(), getEnd(), getLimit(),
+                        isReverse(), getReadAheadBytes(), getReadAheadBytes() > 0 ? getReadAheadFraction() : 0.0,
+                        isAdaptiveStreaming());
+            } else {
+                iterator = getTransaction()
+                        .getRange(getBegin(), getEnd(), getLimit(), isReverse(), getStreamingMode())
+                        .iterator();
+            }
+            return profileIfRequested(new KeyValueCursor(getContext(), iterator, getPrefixLength(), getLimitManager(), getValuesLimit()));
         }
 
         @Override
@@ -31,6 +31,7 @@ import com.apple.foundationdb.async.AsyncIterator;
 import com.apple.foundationdb.record.CursorStreamingMode;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.KeyRange;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
@@ -39,6 +40,8 @@ import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.cursors.AsyncIteratorCursor;
 import com.apple.foundationdb.record.cursors.BaseCursor;
 import com.apple.foundationdb.record.cursors.CursorLimitManager;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
+import com.apple.foundationdb.record.cursors.ProfilableCursor;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.ByteString;
@@ -46,7 +49,9 @@ import com.google.protobuf.ZeroCopyByteString;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -55,7 +60,7 @@ import java.util.concurrent.CompletableFuture;
  * @param <K> the type of the KeyValue that this cursor iterates over
  */
 @API(API.Status.MAINTAINED)
-public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIteratorCursor<K> implements BaseCursor<K> {
+public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIteratorCursor<K> implements BaseCursor<K>, ProfilableCursor {
     @Nonnull
     private final FDBRecordContext context;
     private final int prefixLength;
@@ -65,6 +70,10 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
     // the pointer may be mutated, but the actual array must never be mutated or continuations will break
     @Nullable
     private byte[] lastKey;
+    // Whether the limit manager has allowed a scan that has not been made yet.
+    private boolean scanAllowed;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     protected KeyValueCursorBase(@Nonnull final FDBRecordContext context,
                                  @Nonnull final AsyncIterator<K> iterator,
@@ -84,43 +93,94 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<K>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<K>> computeNext() {
         if (nextResult != null && !nextResult.hasNext()) {
             // This guard is needed to guarantee that if onNext is called multiple times after the cursor has
             // returned a result without a value, then the same NoNextReason is returned each time. Without this guard,
             // one might return SCAN_LIMIT_REACHED (for example) after returning a result with SOURCE_EXHAUSTED because
             // of the tryRecordScan check.
             return CompletableFuture.completedFuture(nextResult);
-        } else if (limitManager.tryRecordScan()) {
-            return iterator.onHasNext().thenApply(hasNext -> {
-                if (hasNext) {
-                    K kv = iterator.next();
-                    if (context != null) {
-                        context.increment(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY);
-                        context.increment(FDBStoreTimer.Counts.LOAD_KEY_VALUE);
-                    }
-                    limitManager.reportScannedBytes((long)kv.getKey().length + (long)kv.getValue().length);
-                    // Note that this mutates the pointer and NOT the array.
-                    // If the value of lastKey is mutated, the Continuation class will break.
-                    lastKey = kv.getKey();
-                    valuesSeen++;
-                    nextResult = RecordCursorResult.withNextValue(kv, continuationHelper());
-                } else if (valuesSeen >= valuesLimit) {
-                    // Source iterator hit limit that we passed down.
-                    nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), NoNextReason.RETURN_LIMIT_REACHED);
-                } else {
-                    // Source iterator is exhausted.
-                    nextResult = RecordCursorResult.exhausted();
-                }
-                return nextResult;
-            });
+        } else if (scanAllowed || limitManager.tryRecordScan()) {
+            scanAllowed = false;
+            return iterator.onHasNext().thenApply(this::computeNextKeyValueResult);
         } else { // a limit must have been exceeded
-            final Optional<NoNextReason> stoppedReason = limitManager.getStoppedReason();
-            if (!stoppedReason.isPresent()) {
-                throw new RecordCoreException("limit manager stopped KeyValueCursor but did not report a reason");
+            return CompletableFuture.completedFuture(computeLimitReachedResult());
+        }
+    }
+
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<RecordCursorResult<K>>> onNextBatch(int maxResults) {
+        if (maxResults < 1) {
+            throw new RecordCoreArgumentException("Invalid batch size: " + maxResults);
+        }
+        return profiling.nextBatch(() -> computeNextBatch(maxResults));
+    }
+
+    @Nonnull
+    private CompletableFuture<List<RecordCursorResult<K>>> computeNextBatch(int maxResults) {
+        return computeNext().thenApply(first -> {
+            final List<RecordCursorResult<K>> batch = new ArrayList<>();
+            batch.add(first);
+            RecordCursorResult<K> last = first;
+            while (last.hasNext() && batch.size() < maxResults) {
+                // Check the limits before asking the iterator for more, which may start another read.
+                if (!limitManager.tryRecordScan()) {
+                    last = computeLimitReachedResult();
+                    batch.add(last);
+                    break;
+                }
+                // Only continue with entries that the iterator already has, without waiting.
+                final CompletableFuture<Boolean> hasNextFuture = iterator.onHasNext();
+                if (!hasNextFuture.isDone() || hasNextFuture.isCompletedExceptionally()) {
+                    // Keep the scan that was just allowed for the next call, rather than counting it twice.
+                    scanAllowed = true;
+                    break;
+                }
+                last = computeNextKeyValueResult(hasNextFuture.join());
+                batch.add(last);
             }
-            nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), stoppedReason.get());
-            return CompletableFuture.completedFuture(nextResult);
+            return batch;
+        });
+    }
+
+    @Nonnull
+    private RecordCursorResult<K> computeNextKeyValueResult(boolean hasNext) {
+        if (hasNext) {
+            K kv = iterator.next();
+            if (context != null) {
+                context.increment(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY);
+                context.increment(FDBStoreTimer.Counts.LOAD_KEY_VALUE);
+            }
+            limitManager.reportScannedBytes((long)kv.getKey().length + (long)kv.getValue().length);
+            // Note that this mutates the pointer and NOT the array.
+            // If the value of lastKey is mutated, the Continuation class will break.
+            lastKey = kv.getKey();
+            valuesSeen++;
+            nextResult = RecordCursorResult.withNextValue(kv, continuationHelper());
+        } else if (valuesSeen >= valuesLimit) {
+            // Source iterator hit limit that we passed down.
+            nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), NoNextReason.RETURN_LIMIT_REACHED);
+        } else {
+            // Source iterator is exhausted.
+            nextResult = RecordCursorResult.exhausted();
+        }
+        return nextResult;
+    }
+
+    @Nonnull
+    private RecordCursorResult<K> computeLimitReachedResult() {
+        final Optional<NoNextReason> stoppedReason = limitManager.getStoppedReason();
+        if (!stoppedReason.isPresent()) {
+            throw new RecordCoreException("limit manager stopped KeyValueCursor but did not report a reason");
         }
+        nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), stoppedReason.get());
+        return nextResult;
     }
 
     @Override
@@ -129,6 +189,12 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
         return context.asyncToSync(FDBStoreTimer.Waits.WAIT_ADVANCE_CURSOR, onNext());
     }
 
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
+
     @Nonnull
     private RecordCursorContinuation continuationHelper() {
         return new Continuation(lastKey, prefixLength);
@@ -206,6 +272,10 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
         private int limit;
         private boolean reverse;
         private StreamingMode streamingMode;
+        private boolean adaptiveStreaming;
+        private long readAheadBytes;
+        private double readAheadFraction;
+        private boolean profiling;
         private KeySelector begin;
         private KeySelector end;
 
@@ -276,10 +346,17 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
 
             limit = scanProperties.getExecuteProperties().getReturnedRowLimit();
             streamingMode = calcStreamingMode(scanProperties.getCursorStreamingMode(), limit);
+            adaptiveStreaming = scanProperties.getCursorStreamingMode() == CursorStreamingMode.ADAPTIVE && streamingMode != StreamingMode.EXACT;
+            if (scanProperties.getCursorStreamingMode() == CursorStreamingMode.ADAPTIVE) {
+                context.increment(adaptiveStreaming ? FDBStoreTimer.Counts.ADAPTIVE_STREAMING_BATCHED : FDBStoreTimer.Counts.ADAPTIVE_STREAMING_EXACT);
+            }
+            readAheadBytes = scanProperties.getReadAheadBytes();
+            readAheadFraction = scanProperties.getReadAheadFraction();
 
             transaction = context.readTransaction(scanProperties.getExecuteProperties().getIsolationLevel().isSnapshot());
             limitManager = new CursorLimitManager(context, scanProperties);
             valuesLimit = scanProperties.getExecuteProperties().getReturnedRowLimitOrMax();
+            profiling = scanProperties.getExecuteProperties().isProfiling();
         }
 
         public T setContext(FDBRecordContext context) {
@@ -381,6 +458,55 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
             return streamingMode;
         }
 
+        /**
+         * Get whether the cursor should choose its batch sizes adaptively.
+         * This is {@code true} for {@link CursorStreamingMode#ADAPTIVE} unless the row limit fits in a single small batch,
+         * in which case {@link #getStreamingMode()} is {@link StreamingMode#EXACT}. Subclasses that do not support adaptive
+         * batches can use {@link #getStreamingMode()}, which is then {@link StreamingMode#ITERATOR}.
+         * @return {@code true} if the cursor should grow its batches as they are consumed
+         */
+        public boolean isAdaptiveStreaming() {
+            return adaptiveStreaming;
+        }
+
+        /**
+         * Get the approximate number of bytes that the cursor may buffer by reading ahead.
+         * Subclasses that support it should read ahead when this is positive.
+         * @return the read-ahead byte budget or zero if the cursor should not read ahead
+         * @see ScanProperties#setReadAhead(long, double)
+         */
+        public long getReadAheadBytes() {
+            return readAheadBytes;
+        }
+
+        public double getReadAheadFraction() {
+            return readAheadFraction;
+        }
+
+        /**
+         * Get whether the cursor should record a profile of its work from the start.
+         * Subclasses should pass the cursor they build to {@link #profileIfRequested}.
+         * @return {@code true} if the cursor should be profiled
+         * @see com.apple.foundationdb.record.ExecuteProperties#isProfiling()
+         */
+        public boolean isProfiling() {
+            return profiling;
+        }
+
+        /**
+         * Enable profiling for a newly built cursor if {@link #isProfiling()}.
+         * @param cursor the cursor built from this builder
+         * @param <C> the type of the cursor
+         * @return the given cursor
+         */
+        @Nonnull
+        protected <C extends KeyValueCursorBase<?>> C profileIfRequested(@Nonnull C cursor) {
+            if (profiling) {
+                cursor.enableProfiling();
+            }
+            return cursor;
+        }
+
         public KeySelector getBegin() {
             return begin;
         }
@@ -398,6 +524,12 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
                 return StreamingMode.MEDIUM;
             } else if (propertiesStreamingMode == CursorStreamingMode.SMALL) {
                 return StreamingMode.SMALL;
+            } else if (propertiesStreamingMode == CursorStreamingMode.ADAPTIVE) {
+                if (limit != ReadTransaction.ROW_LIMIT_UNLIMITED && limit <= ReadAheadKeyValueIterator.ADAPTIVE_INITIAL_BATCH_ROWS) {
+                    return StreamingMode.EXACT;
+                } else {
+                    return StreamingMode.ITERATOR;
+                }
             } else if (limit == ReadTransaction.ROW_LIMIT_UNLIMITED) {
                 return StreamingMode.WANT_ALL;
             } else {
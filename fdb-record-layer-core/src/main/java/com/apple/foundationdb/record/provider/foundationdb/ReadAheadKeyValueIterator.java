@@ -0,0 +1,246 @@
+/*
+ * ReadAheadKeyValueIterator.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.KeySelector;
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.StreamingMode;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncIterator;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An iterator over a range of keys that reads the range in explicit batches and requests each batch before the
+ * previous one has been consumed.
+ *
+ * <p>
+ * Once the given fraction of the current batch has been returned by {@link #next()}, the range read for the following
+ * keys is issued, so that its latency overlaps with the consumer's processing of the rest of the batch. At most two
+ * batches are held at once. The number of rows in each batch is chosen from the average size of the entries read so
+ * far so that two batches together take roughly the given number of bytes.
+ * </p>
+ *
+ * <p>
+ * In adaptive mode, the first batch is small and the batch size then doubles each time the consumer has to wait for a
+ * batch, up to the byte budget. If a batch was already available when the consumer reached it, the size is instead
+ * halved, down to the initial size, since smaller batches are keeping up and waste less if the consumer stops early.
+ * This is only meaningful if the next batch is requested before the consumer reaches the end of the current one, so
+ * adaptive scans without a byte budget use a read-ahead fraction of zero.
+ * </p>
+ *
+ * @see com.apple.foundationdb.record.ScanProperties#setReadAhead(long, double)
+ * @see com.apple.foundationdb.record.CursorStreamingMode#ADAPTIVE
+ */
+@API(API.Status.INTERNAL)
+class ReadAheadKeyValueIterator implements AsyncIterator<KeyValue> {
+    /**
+     * The number of rows in the first batch, before any entry sizes are known.
+     */
+    static final int INITIAL_BATCH_ROWS = 100;
+    /**
+     * The number of rows in the first batch in adaptive mode.
+     */
+    static final int ADAPTIVE_INITIAL_BATCH_ROWS = 10;
+    /**
+     * The approximate maximum size of a batch in adaptive mode without a read-ahead byte budget.
+     */
+    static final long ADAPTIVE_MAX_BATCH_BYTES = 1_000_000L;
+
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final ReadTransaction transaction;
+    private final boolean reverse;
+    private final long maxBufferBytes;
+    private final double readAheadFraction;
+    private final boolean adaptive;
+
+    // The remaining range, which is narrowed as each batch is requested.
+    @Nonnull
+    private KeySelector begin;
+    @Nonnull
+    private KeySelector end;
+    // The remaining row limit or ReadTransaction.ROW_LIMIT_UNLIMITED.
+    private int remainingLimit;
+    // Whether the range may have more rows beyond those requested so far.
+    private boolean more = true;
+
+    private long bytesRead;
+    private long rowsRead;
+    private int adaptiveBatchRows = ADAPTIVE_INITIAL_BATCH_ROWS;
+
+    @Nonnull
+    private List<KeyValue> batch = Collections.emptyList();
+    private int position;
+    private int readAheadPosition;
+    @Nullable
+    private CompletableFuture<List<KeyValue>> nextBatch;
+    @Nullable
+    private CompletableFuture<Boolean> hasNextFuture;
+    private boolean cancelled;
+
+    ReadAheadKeyValueIterator(@Nonnull FDBRecordContext context, @Nonnull ReadTransaction transaction,
+                              @Nonnull KeySelector begin, @Nonnull KeySelector end, int limit, boolean reverse,
+                              long maxBufferBytes, double readAheadFraction, boolean adaptive) {
+        this.context = context;
+        this.transaction = transaction;
+        this.begin = begin;
+        this.end = end;
+        this.remainingLimit = limit;
+        this.reverse = reverse;
+        this.maxBufferBytes = maxBufferBytes;
+        this.readAheadFraction = readAheadFraction;
+        this.adaptive = adaptive;
+        requestNextBatch();
+    }
+
+    private int nextBatchRows() {
+        int rows;
+        if (rowsRead == 0) {
+            rows = adaptive ? ADAPTIVE_INITIAL_BATCH_ROWS : INITIAL_BATCH_ROWS;
+        } else {
+            final long averageBytes = Math.max(1L, bytesRead / rowsRead);
+            final long maxBatchBytes = maxBufferBytes > 0 ? maxBufferBytes / 2 : ADAPTIVE_MAX_BATCH_BYTES;
+            rows = (int)Math.max(1L, Math.min(Integer.MAX_VALUE, maxBatchBytes / averageBytes));
+            if (adaptive) {
+                rows = Math.min(rows, adaptiveBatchRows);
+            }
+        }
+        if (remainingLimit != ReadTransaction.ROW_LIMIT_UNLIMITED && remainingLimit < rows) {
+            rows = remainingLimit;
+        }
+        return rows;
+    }
+
+    private void requestNextBatch() {
+        final int rows = nextBatchRows();
+        context.increment(FDBStoreTimer.Counts.READ_AHEAD_BATCH);
+        nextBatch = transaction.getRange(begin, end, rows, reverse, StreamingMode.EXACT).asList().thenApply(keyValues -> {
+            if (keyValues.size() < rows) {
+                more = false;
+            } else {
+                if (remainingLimit != ReadTransaction.ROW_LIMIT_UNLIMITED) {
+                    remainingLimit -= rows;
+                    if (remainingLimit == 0) {
+                        more = false;
+                    }
+                }
+                // Continue from just past the last key in the batch.
+                final byte[] lastKey = keyValues.get(keyValues.size() - 1).getKey();
+                if (reverse) {
+                    end = KeySelector.firstGreaterOrEqual(lastKey);
+                } else {
+                    begin = KeySelector.firstGreaterThan(lastKey);
+                }
+            }
+            for (KeyValue kv : keyValues) {
+                bytesRead += (long)kv.getKey().length + (long)kv.getValue().length;
+            }
+            rowsRead += keyValues.size();
+            return keyValues;
+        });
+    }
+
+    private void maybeReadAhead() {
+        if (nextBatch == null && more && !cancelled && position >= readAheadPosition) {
+            requestNextBatch();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> onHasNext() {
+        if (hasNextFuture == null) {
+            if (position < batch.size()) {
+                hasNextFuture = AsyncUtil.READY_TRUE;
+            } else if (nextBatch == null) {
+                hasNextFuture = AsyncUtil.READY_FALSE;
+            } else {
+                if (adaptive) {
+                    adjustAdaptiveBatchRows(!nextBatch.isDone());
+                }
+                hasNextFuture = nextBatch.thenApply(keyValues -> {
+                    batch = keyValues;
+                    position = 0;
+                    readAheadPosition = Math.min(keyValues.size(), (int)Math.ceil(keyValues.size() * readAheadFraction));
+                    nextBatch = null;
+                    maybeReadAhead();
+                    return !keyValues.isEmpty();
+                });
+            }
+        }
+        return hasNextFuture;
+    }
+
+    /**
+     * Adjust the number of rows in later adaptive batches.
+     * @param consumerWaited whether the consumer reached the next batch before it had been read
+     */
+    @VisibleForTesting
+    void adjustAdaptiveBatchRows(boolean consumerWaited) {
+        if (consumerWaited) {
+            if (adaptiveBatchRows < Integer.MAX_VALUE / 2) {
+                adaptiveBatchRows *= 2;
+                context.increment(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_GROW);
+            }
+        } else if (adaptiveBatchRows > ADAPTIVE_INITIAL_BATCH_ROWS) {
+            adaptiveBatchRows = Math.max(ADAPTIVE_INITIAL_BATCH_ROWS, adaptiveBatchRows / 2);
+            context.increment(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_SHRINK);
+        }
+    }
+
+    @VisibleForTesting
+    int getAdaptiveBatchRows() {
+        return adaptiveBatchRows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return onHasNext().join();
+    }
+
+    @Override
+    public KeyValue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNextFuture = null;
+        final KeyValue kv = batch.get(position++);
+        maybeReadAhead();
+        return kv;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        if (nextBatch != null) {
+            nextBatch.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * RecordCursorBlockingIterator.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A blocking {@link Iterator} over a {@link RecordCursor}, for use from code that is written synchronously, such as
+ * code running on a virtual thread.
+ *
+ * <p>
+ * Unlike {@link com.apple.foundationdb.record.RecordCursorIterator}, each wait goes through
+ * {@link FDBRecordContext#asyncToSync}, so that it is recorded by the context's timer, is subject to the database's
+ * {@linkplain FDBDatabase#setAsyncToSyncTimeout timeout} and exception mapping, and is checked by
+ * {@link BlockingInAsyncDetection}. Whether there is a next element is only determined by {@link #hasNext()} or
+ * {@link #next()}, so continuations are always available between elements.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ * @see FDBDatabaseRunner#runOnExecutor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RecordCursorBlockingIterator<T> implements Iterator<T>, AutoCloseable {
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final RecordCursor<T> cursor;
+    @Nullable
+    private RecordCursorResult<T> nextResult;
+    @Nullable
+    private RecordCursorResult<T> lastResult;
+
+    public RecordCursorBlockingIterator(@Nonnull FDBRecordContext context, @Nonnull RecordCursor<T> cursor) {
+        this.context = context;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextResult == null) {
+            nextResult = context.asyncToSync(FDBStoreTimer.Waits.WAIT_ADVANCE_CURSOR, cursor.onNext());
+        }
+        return nextResult.hasNext();
+    }
+
+    @Override
+    @Nullable
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lastResult = nextResult;
+        nextResult = null;
+        return lastResult.get();
+    }
+
+    /**
+     * Get the continuation after the last element returned by {@link #next()}, or after the end once
+     * {@link #hasNext()} has returned {@code false}.
+     * @return the continuation or {@code null} if the cursor is exhausted
+     */
+    @Nullable
+    public byte[] getContinuation() {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return nextResult.getContinuation().toBytes();
+        }
+        if (lastResult == null) {
+            throw new IllegalStateException("no element has been returned");
+        }
+        return lastResult.getContinuation().toBytes();
+    }
+
+    /**
+     * Get the reason that the cursor stopped. This may only be called after {@link #hasNext()} has returned
+     * {@code false}.
+     * @return the reason that the cursor has no more elements
+     */
+    @Nonnull
+    public RecordCursor.NoNextReason getNoNextReason() {
+        if (nextResult == null || nextResult.hasNext()) {
+            throw new IllegalStateException("cursor has not stopped");
+        }
+        return nextResult.getNoNextReason();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb;
 
+import com.apple.foundationdb.KeySelector;
 import com.apple.foundationdb.KeyValue;
 import com.apple.foundationdb.MutationType;
 import com.apple.foundationdb.Range;
@@ -53,12 +54,14 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -90,9 +93,27 @@ public class SplitHelper {
      */
     public static final long START_SPLIT_RECORD = 1L;
 
+    /**
+     * Maximum number of concurrent range reads used to load the chunks of a single split record.
+     * @see FDBRecordStoreProperties#LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS
+     */
+    private static final int MAX_PARALLEL_SPLIT_READS = 32;
+
     private SplitHelper() {
     }
 
+    /**
+     * Check that a chunk size can be used to split records.
+     * @param splitChunkSize the maximum size of each key's value for split records
+     * @throws RecordCoreArgumentException if the chunk size is not positive or is greater than {@link #SPLIT_RECORD_SIZE}
+     */
+    public static void validateSplitChunkSize(int splitChunkSize) {
+        if (splitChunkSize <= 0 || splitChunkSize > SPLIT_RECORD_SIZE) {
+            throw new RecordCoreArgumentException("split chunk size must be positive and at most " + SPLIT_RECORD_SIZE)
+                    .addLogInfo(LogMessageKeys.VALUE_SIZE, splitChunkSize);
+        }
+    }
+
     /**
      * Save serialized representation using multiple keys if necessary.
      * @param context write transaction
@@ -119,12 +140,38 @@ public class SplitHelper {
      * @param previousSizeInfo if <code>clearBasedOnPreviousSizeInfo</code>, the {@link FDBStoredSizes} for any old record, or <code>null</code> if there was no old record
      * @param sizeInfo optional size information to populate
      */
-    @SuppressWarnings("PMD.CloseResource")
     public static void saveWithSplit(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
                                      @Nonnull final Tuple key, @Nonnull final byte[] serialized, @Nullable final FDBRecordVersion version,
                                      final boolean splitLongRecords, final boolean omitUnsplitSuffix,
                                      final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
                                      @Nullable SizeInfo sizeInfo) {
+        saveWithSplit(context, subspace, key, serialized, version, splitLongRecords, omitUnsplitSuffix,
+                clearBasedOnPreviousSizeInfo, previousSizeInfo, SPLIT_RECORD_SIZE, sizeInfo);
+    }
+
+    /**
+     * Save serialized representation using multiple keys of at most the given size if necessary, clearing only as much as needed.
+     * Split records are read back the same way regardless of the chunk size used to write them, so the chunk size can
+     * be changed at any time.
+     * @param context write transaction
+     * @param subspace subspace to save in
+     * @param key key within subspace
+     * @param serialized serialized representation
+     * @param version the version to store inline with this record
+     * @param splitLongRecords <code>true</code> if multiple keys should be used; if <code>false</code>, <code>serialized</code> must fit in a single key
+     * @param omitUnsplitSuffix if <code>splitLongRecords</code> is <code>false</code>, then this will omit a suffix added to the end of the key if <code>true</code> for backwards-compatibility reasons
+     * @param clearBasedOnPreviousSizeInfo if <code>splitLongRecords</code>, whether to use <code>previousSizeInfo</code> to determine how much to clear
+     * @param previousSizeInfo if <code>clearBasedOnPreviousSizeInfo</code>, the {@link FDBStoredSizes} for any old record, or <code>null</code> if there was no old record
+     * @param splitChunkSize if <code>splitLongRecords</code>, the maximum size of each key's value, which must be at most {@link #SPLIT_RECORD_SIZE}
+     * @param sizeInfo optional size information to populate
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public static void saveWithSplit(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
+                                     @Nonnull final Tuple key, @Nonnull final byte[] serialized, @Nullable final FDBRecordVersion version,
+                                     final boolean splitLongRecords, final boolean omitUnsplitSuffix,
+                                     final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
+                                     final int splitChunkSize, @Nullable SizeInfo sizeInfo) {
+        validateSplitChunkSize(splitChunkSize);
         if (omitUnsplitSuffix && version != null) {
             throw new RecordCoreArgumentException("Cannot include version in-line using old unsplit record format")
                     .addLogInfo(LogMessageKeys.KEY_TUPLE, key)
@@ -132,14 +179,14 @@ public class SplitHelper {
                     .addLogInfo(LogMessageKeys.VERSION, version);
         }
         final Transaction tr = context.ensureActive();
-        if (serialized.length > SplitHelper.SPLIT_RECORD_SIZE) {
+        if (serialized.length > (splitLongRecords ? splitChunkSize : SplitHelper.SPLIT_RECORD_SIZE)) {
             if (!splitLongRecords) {
                 throw new RecordCoreException("Record is too long to be stored in a single value; consider split_long_records")
                         .addLogInfo(LogMessageKeys.KEY_TUPLE, key)
                         .addLogInfo(LogMessageKeys.SUBSPACE, ByteArrayUtil2.loggable(subspace.pack()))
                         .addLogInfo(LogMessageKeys.VALUE_SIZE, serialized.length);
             }
-            writeSplitRecord(context, subspace, key, serialized, clearBasedOnPreviousSizeInfo, previousSizeInfo, sizeInfo);
+            writeSplitRecord(context, subspace, key, serialized, clearBasedOnPreviousSizeInfo, previousSizeInfo, splitChunkSize, sizeInfo);
         } else {
             if (splitLongRecords || previousSizeInfo == null || previousSizeInfo.isVersionedInline()) {
                 clearPreviousSplitRecord(context, subspace, key, clearBasedOnPreviousSizeInfo, previousSizeInfo);
@@ -164,14 +211,14 @@ public class SplitHelper {
     private static void writeSplitRecord(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
                                          @Nonnull final Tuple key, @Nonnull final byte[] serialized,
                                          final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
-                                         @Nullable SizeInfo sizeInfo) {
+                                         final int splitChunkSize, @Nullable SizeInfo sizeInfo) {
         final Transaction tr = context.ensureActive();
         final Subspace keySplitSubspace = subspace.subspace(key);
         clearPreviousSplitRecord(context, subspace, key, clearBasedOnPreviousSizeInfo, previousSizeInfo);
         long index = SplitHelper.START_SPLIT_RECORD;
         int offset = 0;
         while (offset < serialized.length) {
-            int nextOffset = offset + SplitHelper.SPLIT_RECORD_SIZE;
+            int nextOffset = offset + splitChunkSize;
             if (nextOffset > serialized.length) {
                 nextOffset = serialized.length;
             }
@@ -225,8 +272,16 @@ public class SplitHelper {
                                                           @Nonnull final Tuple key, @Nonnull final byte[] serialized, @Nullable final FDBRecordVersion version,
                                                           final boolean splitLongRecords, final boolean omitUnsplitSuffix,
                                                           @Nullable SizeInfo sizeInfo) {
-        if (serialized.length > SplitHelper.SPLIT_RECORD_SIZE) {
-            dryRunWriteSplitRecordOnlySetSizeInfo(subspace, key, serialized, sizeInfo);
+        dryRunSaveWithSplitOnlySetSizeInfo(subspace, key, serialized, version, splitLongRecords, omitUnsplitSuffix, SPLIT_RECORD_SIZE, sizeInfo);
+    }
+
+    public static void dryRunSaveWithSplitOnlySetSizeInfo(@Nonnull final Subspace subspace,
+                                                          @Nonnull final Tuple key, @Nonnull final byte[] serialized, @Nullable final FDBRecordVersion version,
+                                                          final boolean splitLongRecords, final boolean omitUnsplitSuffix,
+                                                          final int splitChunkSize, @Nullable SizeInfo sizeInfo) {
+        validateSplitChunkSize(splitChunkSize);
+        if (serialized.length > (splitLongRecords ? splitChunkSize : SplitHelper.SPLIT_RECORD_SIZE)) {
+            dryRunWriteSplitRecordOnlySetSizeInfo(subspace, key, serialized, splitLongRecords ? splitChunkSize : SPLIT_RECORD_SIZE, sizeInfo);
         } else {
             final Tuple recordKey;
             if (splitLongRecords || !omitUnsplitSuffix) {
@@ -245,12 +300,12 @@ public class SplitHelper {
 
     private static void dryRunWriteSplitRecordOnlySetSizeInfo(@Nonnull final Subspace subspace,
                                                               @Nonnull final Tuple key, @Nonnull final byte[] serialized,
-                                                              @Nullable SizeInfo sizeInfo) {
+                                                              final int splitChunkSize, @Nullable SizeInfo sizeInfo) {
         final Subspace keySplitSubspace = subspace.subspace(key);
         long index = SplitHelper.START_SPLIT_RECORD;
         int offset = 0;
         while (offset < serialized.length) {
-            int nextOffset = offset + SplitHelper.SPLIT_RECORD_SIZE;
+            int nextOffset = offset + splitChunkSize;
             if (nextOffset > serialized.length) {
                 nextOffset = serialized.length;
             }
@@ -362,8 +417,12 @@ public class SplitHelper {
         if (!splitLongRecords && missingUnsplitRecordSuffix) {
             return loadUnsplitLegacy(tr, context, subspace, key, sizeInfo);
         }
+        final Integer parallelReadChunks = context.getPropertyStorage().getPropertyValue(FDBRecordStoreProperties.LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS);
+        if (splitLongRecords && parallelReadChunks != null && parallelReadChunks > 0) {
+            return loadSplitViaGets(tr, context, subspace, key, parallelReadChunks, sizeInfo);
+        }
         if (Boolean.TRUE.equals(context.getPropertyStorage().getPropertyValue(FDBRecordStoreProperties.LOAD_RECORDS_VIA_GETS))) {
-            return loadSplitViaGets(tr, context, subspace, key, sizeInfo);
+            return loadSplitViaGets(tr, context, subspace, key, 0, sizeInfo);
         }
 
         // Even if long records are not split, then unless we are using the old format, it might be the case
@@ -380,10 +439,17 @@ public class SplitHelper {
         return new SingleKeyUnsplitter(context, key, recordSubspace, rangeIter, sizeInfo).run(context.getExecutor());
     }
 
+    /**
+     * Load a record using single-key gets for the version and first value. If {@code parallelReadChunks} is positive
+     * and the record is split, the last key of the record is then found, which gives the number of chunks, and the remaining
+     * chunks are then read concurrently as several range reads of at least {@code parallelReadChunks} chunks each. Otherwise,
+     * the remaining chunks are read with a single range read.
+     */
     private static CompletableFuture<FDBRawRecord> loadSplitViaGets(@Nonnull final ReadTransaction tr,
                                                                     @Nonnull final FDBRecordContext context,
                                                                     @Nonnull final Subspace subspace,
                                                                     @Nonnull final Tuple key,
+                                                                    final int parallelReadChunks,
                                                                     @Nullable SizeInfo sizeInfo) {
         final SizeInfo storedSizes = sizeInfo == null ? new SizeInfo() : sizeInfo;
         storedSizes.reset();
@@ -426,15 +492,14 @@ public class SplitHelper {
                 storedSizes.add(unsplitKey, unsplitValue);
                 return CompletableFuture.completedFuture(new FDBRawRecord(key, unsplitValue, version, storedSizes));
             } else {
-                // Record is split. Do a scan for the rest of the keys
+                // Record is split. Read the rest of the keys
                 storedSizes.setSplit(true);
                 storedSizes.add(startSplitKey, startSplitValue);
-                final AsyncIterable<KeyValue> iterable = scanSingleRecord(tr, recordSubspace.pack(START_SPLIT_RECORD + 1L), recordRange.end);
                 List<byte[]> values = new ArrayList<>();
                 values.add(startSplitValue);
 
                 AtomicLong lastSplit = new AtomicLong(START_SPLIT_RECORD);
-                return AsyncUtil.forEach(iterable, keyValue -> {
+                final Consumer<KeyValue> appendSplit = keyValue -> {
                     long splitPoint = recordSubspace.unpack(keyValue.getKey()).getLong(0);
                     long expectedSplit = lastSplit.incrementAndGet();
                     if (splitPoint != expectedSplit) {
@@ -446,7 +511,20 @@ public class SplitHelper {
                     }
                     storedSizes.add(keyValue);
                     values.add(keyValue.getValue());
-                }, context.getExecutor()).thenApply(vignore -> {
+                };
+                final CompletableFuture<Void> restFuture;
+                if (parallelReadChunks <= 0) {
+                    final AsyncIterable<KeyValue> iterable = scanSingleRecord(tr, recordSubspace.pack(START_SPLIT_RECORD + 1L), recordRange.end);
+                    restFuture = AsyncUtil.forEach(iterable, appendSplit, context.getExecutor());
+                } else {
+                    // Only split records need the last key, which gives the number of chunks. The selector can resolve
+                    // to a key before the record, so it is read at snapshot isolation, leaving the conflict range
+                    // added above, which covers just this record.
+                    restFuture = tr.snapshot().getKey(KeySelector.lastLessThan(recordRange.end))
+                            .thenCompose(lastKey -> readSplitsInParallel(tr, context, recordSubspace, lastKey, parallelReadChunks))
+                            .thenAccept(keyValues -> keyValues.forEach(appendSplit));
+                }
+                return restFuture.thenApply(vignore -> {
                     byte[] rawRecord = ByteArrayUtil.join(values.toArray(new byte[0][0]));
                     return new FDBRawRecord(key, rawRecord, version, storedSizes);
                 });
@@ -454,6 +532,52 @@ public class SplitHelper {
         })).thenCompose(Function.identity());
     }
 
+    @Nonnull
+    private static CompletableFuture<List<KeyValue>> readSplitsInParallel(@Nonnull final ReadTransaction tr,
+                                                                          @Nonnull final FDBRecordContext context,
+                                                                          @Nonnull final Subspace recordSubspace,
+                                                                          @Nonnull final byte[] lastKey,
+                                                                          final int parallelReadChunks) {
+        final Range recordRange = recordSubspace.range();
+        final byte[] restBegin = recordSubspace.pack(START_SPLIT_RECORD + 1L);
+        if (ByteArrayUtil.compareUnsigned(lastKey, restBegin) < 0) {
+            // Only the first chunk is present.
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        long lastSplit;
+        try {
+            lastSplit = recordSubspace.unpack(lastKey).getLong(0);
+        } catch (RuntimeException ex) {
+            // Not a well-formed split key. Read everything in one range and let the caller report any problem.
+            lastSplit = START_SPLIT_RECORD + 1L;
+        }
+        // Bound the number of concurrent reads if there are very many small chunks.
+        final long chunksPerRange = Math.max(parallelReadChunks, (lastSplit - START_SPLIT_RECORD) / MAX_PARALLEL_SPLIT_READS + 1);
+        final long startTime = System.nanoTime();
+        final List<CompletableFuture<List<KeyValue>>> rangeFutures = new ArrayList<>();
+        long split = START_SPLIT_RECORD + 1L;
+        byte[] rangeBegin = restBegin;
+        while (true) {
+            split += chunksPerRange;
+            // The last range extends to the end of the record so that nothing after the last chunk is missed.
+            final byte[] rangeEnd = split > lastSplit ? recordRange.end : recordSubspace.pack(split);
+            rangeFutures.add(scanSingleRecord(tr, rangeBegin, rangeEnd).asList());
+            if (split > lastSplit) {
+                break;
+            }
+            rangeBegin = rangeEnd;
+        }
+        if (context.getTimer() != null) {
+            context.getTimer().increment(FDBStoreTimer.Counts.SPLIT_RECORD_PARALLEL_RANGE_READS, rangeFutures.size());
+        }
+        return context.instrument(FDBStoreTimer.DetailEvents.GET_RECORD_RANGE_RAW_PARALLEL_CHUNKS, AsyncUtil.getAll(rangeFutures), startTime)
+                .thenApply(rangeKeyValues -> {
+                    final List<KeyValue> keyValues = new ArrayList<>();
+                    rangeKeyValues.forEach(keyValues::addAll);
+                    return keyValues;
+                });
+    }
+
     private static AsyncIterable<KeyValue> scanSingleRecord(final ReadTransaction tr, byte[] start, byte[] end) {
         // Scan with WANT_ALL and no row limit because, for a single record, we need to load all of the keys to
         // reconstitute the record
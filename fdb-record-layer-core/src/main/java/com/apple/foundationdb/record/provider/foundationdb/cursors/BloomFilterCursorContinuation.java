@@ -34,6 +34,8 @@ class BloomFilterCursorContinuation implements RecordCursorContinuation {
     @Nullable
     private final ByteString bloomBytes;
     @Nullable
+    private final ProbableIntersectionContinuation.ScalableBloomFilter scalableBloomFilter;
+    @Nullable
     private ProbableIntersectionContinuation.CursorState cachedProto;
     @Nullable
     private byte[] cachedBytes;
@@ -41,8 +43,14 @@ class BloomFilterCursorContinuation implements RecordCursorContinuation {
     private ByteString cachedByteString;
 
     BloomFilterCursorContinuation(@Nonnull RecordCursorContinuation childContinuation, @Nullable ByteString bloomBytes) {
+        this(childContinuation, bloomBytes, null);
+    }
+
+    BloomFilterCursorContinuation(@Nonnull RecordCursorContinuation childContinuation, @Nullable ByteString bloomBytes,
+                                  @Nullable ProbableIntersectionContinuation.ScalableBloomFilter scalableBloomFilter) {
         this.childContinuation = childContinuation;
         this.bloomBytes = bloomBytes;
+        this.scalableBloomFilter = scalableBloomFilter;
     }
 
     @Nonnull
@@ -60,6 +68,9 @@ class BloomFilterCursorContinuation implements RecordCursorContinuation {
             if (bloomBytes != null) {
                 builder.setBloomFilter(bloomBytes);
             }
+            if (scalableBloomFilter != null) {
+                builder.setScalableBloomFilter(scalableBloomFilter);
+            }
             cachedProto = builder.build();
         }
         return cachedProto;
@@ -93,6 +104,11 @@ class BloomFilterCursorContinuation implements RecordCursorContinuation {
         return bloomBytes;
     }
 
+    @Nullable
+    ProbableIntersectionContinuation.ScalableBloomFilter getScalableBloomFilter() {
+        return scalableBloomFilter;
+    }
+
     // Bloom continuations can never themselves be end continuations, though their children might be.
     @Override
     public boolean isEnd() {
@@ -0,0 +1,321 @@
+/*
+ * ChildCursorLimiter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
+import com.apple.foundationdb.record.cursors.ProfilableCursor;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Limits how many of the children of a merge cursor are being read at the same time.
+ *
+ * <p>
+ * Each child cursor is wrapped so that it needs a permit from this limiter to be read, and a child that has not yet
+ * been given a permit is not opened at all, so its reads are not started. In {@linkplain #holdUntilExhausted() hold}
+ * mode, a child keeps its permit from its first read until it has no more results, which bounds the number of children
+ * that are open at once. This suits cursors like {@link UnorderedUnionCursor} that can finish one child before starting
+ * another. Otherwise, a child only holds a permit while one of its reads is outstanding, which bounds the number of
+ * concurrent reads for cursors like {@link UnionCursor} that need a result from every child before they can return
+ * anything.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+class ChildCursorLimiter {
+    private final int maxConcurrentChildren;
+    private final boolean holdUntilExhausted;
+    @Nullable
+    private final FDBStoreTimer timer;
+    @Nonnull
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private int permitsInUse;
+    // The executor of the first child that was opened, used by children that have not been opened yet.
+    @Nullable
+    private Executor executor;
+
+    ChildCursorLimiter(int maxConcurrentChildren, boolean holdUntilExhausted, @Nullable FDBStoreTimer timer) {
+        if (maxConcurrentChildren < 1) {
+            throw new RecordCoreArgumentException("max concurrent children must be positive")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, maxConcurrentChildren);
+        }
+        this.maxConcurrentChildren = maxConcurrentChildren;
+        this.holdUntilExhausted = holdUntilExhausted;
+        this.timer = timer;
+    }
+
+    public int getMaxConcurrentChildren() {
+        return maxConcurrentChildren;
+    }
+
+    public boolean holdUntilExhausted() {
+        return holdUntilExhausted;
+    }
+
+    /**
+     * Wrap the functions that create each child cursor so that the children are only read when they have a permit.
+     * @param cursorFunctions the functions to produce each child cursor from a continuation
+     * @param <T> the type of elements of the child cursors
+     * @return functions that produce limited child cursors
+     */
+    @Nonnull
+    <T> List<Function<byte[], RecordCursor<T>>> limit(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions) {
+        final List<Function<byte[], RecordCursor<T>>> limited = new ArrayList<>(cursorFunctions.size());
+        for (Function<byte[], RecordCursor<T>> cursorFunction : cursorFunctions) {
+            limited.add(continuation -> new LimitedCursor<>(this, cursorFunction, continuation));
+        }
+        return limited;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (permitsInUse < maxConcurrentChildren) {
+            permitsInUse++;
+            return true;
+        }
+        return false;
+    }
+
+    @Nonnull
+    CompletableFuture<Void> acquire() {
+        final CompletableFuture<Void> waiter;
+        synchronized (this) {
+            if (permitsInUse < maxConcurrentChildren) {
+                permitsInUse++;
+                return AsyncUtil.DONE;
+            }
+            waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+        }
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.UNION_CHILD_DEFERRED);
+        }
+        return waiter;
+    }
+
+    void release() {
+        final CompletableFuture<Void> next;
+        final Executor nextExecutor;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                permitsInUse--;
+                return;
+            }
+            nextExecutor = executor;
+        }
+        // Hand the permit directly to the next waiter. Its child's read is started on the executor rather than
+        // within this call, which may itself be completing a read, so that long chains of children do not recurse.
+        if (nextExecutor == null) {
+            next.complete(null);
+        } else {
+            next.completeAsync(() -> null, nextExecutor);
+        }
+    }
+
+    /**
+     * Stop waiting for a permit.
+     * @param waiter a future returned by {@link #acquire()}
+     * @return {@code true} if the waiter was still waiting or {@code false} if it has already been given a permit,
+     * which must then be released
+     */
+    synchronized boolean cancel(@Nonnull CompletableFuture<Void> waiter) {
+        return waiting.remove(waiter);
+    }
+
+    @Nullable
+    synchronized Executor getExecutor() {
+        return executor;
+    }
+
+    synchronized void opened(@Nonnull RecordCursor<?> cursor) {
+        if (executor == null) {
+            executor = cursor.getExecutor();
+        }
+    }
+
+    /**
+     * A child cursor that is opened when it is first given a permit.
+     * @param <T> the type of elements of the cursor
+     */
+    private static class LimitedCursor<T> implements RecordCursor<T>, ProfilableCursor {
+        @Nonnull
+        private final ChildCursorLimiter limiter;
+        @Nonnull
+        private final Function<byte[], RecordCursor<T>> cursorFunction;
+        @Nullable
+        private final byte[] continuation;
+        @Nullable
+        private RecordCursor<T> inner;
+        @Nullable
+        private CompletableFuture<Void> permitFuture;
+        private boolean holdingPermit;
+        private boolean closed;
+        @Nonnull
+        private final CursorProfiling profiling = new CursorProfiling(this);
+
+        @SuppressWarnings("PMD.CloseResource")
+        LimitedCursor(@Nonnull ChildCursorLimiter limiter, @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
+                      @Nullable byte[] continuation) {
+            this.limiter = limiter;
+            this.cursorFunction = cursorFunction;
+            this.continuation = continuation;
+            // Open the children that would get a permit right away now, so that there is always an executor to
+            // give to the children that are still waiting.
+            if (limiter.holdUntilExhausted()) {
+                if (limiter.tryAcquire()) {
+                    holdingPermit = true;
+                    open();
+                }
+            } else if (limiter.getExecutor() == null) {
+                open();
+            }
+        }
+
+        private void open() {
+            // The child may only be opened once profiling of the tree has been enabled, so hand that on to it.
+            inner = profiling.propagateTo(cursorFunction.apply(continuation));
+            limiter.opened(inner);
+        }
+
+        // The permit state is guarded by the limiter, so that a permit being handed over and the cursor being
+        // closed agree on who releases it.
+        @Nonnull
+        private CompletableFuture<Void> acquirePermit() {
+            final CompletableFuture<Void> waiter;
+            synchronized (limiter) {
+                if (holdingPermit) {
+                    return AsyncUtil.DONE;
+                }
+                waiter = limiter.acquire();
+                permitFuture = waiter;
+            }
+            return waiter.thenRun(() -> {
+                synchronized (limiter) {
+                    if (closed) {
+                        // Closing found that the permit had been handed over and released it.
+                        throw new CancellationException("child cursor closed while waiting for permit");
+                    }
+                    permitFuture = null;
+                    holdingPermit = true;
+                    if (inner == null) {
+                        open();
+                    }
+                }
+            });
+        }
+
+        private void releasePermit() {
+            synchronized (limiter) {
+                if (!holdingPermit) {
+                    return;
+                }
+                holdingPermit = false;
+            }
+            limiter.release();
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("PMD.CloseResource")
+        public CompletableFuture<RecordCursorResult<T>> onNext() {
+            return profiling.next(() -> acquirePermit().thenCompose(vignore -> inner.onNext()).whenComplete((result, err) -> {
+                if (!limiter.holdUntilExhausted() || err != null || !result.hasNext()) {
+                    releasePermit();
+                }
+            }));
+        }
+
+        @Override
+        public void close() {
+            final CompletableFuture<Void> waiter;
+            final boolean release;
+            synchronized (limiter) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                waiter = permitFuture;
+                permitFuture = null;
+                if (waiter != null) {
+                    release = !limiter.cancel(waiter);
+                } else {
+                    release = holdingPermit;
+                }
+                holdingPermit = false;
+            }
+            if (waiter != null) {
+                waiter.cancel(false);
+            }
+            if (release) {
+                limiter.release();
+            }
+            if (inner != null) {
+                inner.close();
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            synchronized (limiter) {
+                return closed;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public Executor getExecutor() {
+            if (inner != null) {
+                return inner.getExecutor();
+            }
+            return limiter.getExecutor();
+        }
+
+        @Nonnull
+        @Override
+        public CursorProfiling getProfiling() {
+            return profiling;
+        }
+
+        @Override
+        public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+            if (visitor.visitEnter(this) && inner != null) {
+                inner.accept(visitor);
+            }
+            return visitor.visitLeave(this);
+        }
+    }
+}
@@ -181,4 +181,45 @@ public class IntersectionCursor<T> extends IntersectionCursorBase<T, T> {
             @Nullable FDBStoreTimer timer) {
         return new IntersectionCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, continuation, comparisonKeyFunction), timer);
     }
+
+    /**
+     * Create an intersection cursor from two or more compatibly-ordered cursors, some of which can seek ahead to
+     * a given comparison key. This behaves like {@link #create(Function, boolean, List, byte[], FDBStoreTimer)},
+     * except that a child that keeps returning elements that are behind those of the other children is replaced
+     * by the cursor returned by its seek function for the current maximum comparison key (the minimum for a reverse
+     * intersection), rather than reading every element in between. This "leapfrogging" lets an intersection of a
+     * selective index scan with a much less selective one avoid reading the whole of the less selective scan.
+     *
+     * <p>
+     * A seek function takes a comparison key and returns a cursor over the same elements as the child, but starting
+     * at the first element whose comparison key is greater than or equal to the given key (less than or equal to
+     * for a reverse intersection). Continuations from that cursor must be valid for the child's cursor function, since
+     * they are included in this cursor's continuation. For example, for a child that scans a value index for
+     * {@code TupleRange.allOf(prefix)} and whose comparison key is the primary key, the seek function can scan the same
+     * index from {@code prefix} followed by the given key, inclusive, to the end of {@code prefix}, with the same scan
+     * properties. The continuations of a {@link com.apple.foundationdb.record.provider.foundationdb.KeyValueCursor}
+     * only depend on the common prefix of the scan's endpoints, which is the same for both scans.
+     * </p>
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param seekFunctions a list with a function for each child to produce a {@link RecordCursor} starting from
+     * a comparison key, or {@code null} for a child that cannot seek
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing all records in all child cursors
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public static <T> IntersectionCursor<T> create(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nonnull List<Function<List<Object>, RecordCursor<T>>> seekFunctions,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new IntersectionCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, seekFunctions, continuation, comparisonKeyFunction), timer);
+    }
 }
@@ -47,6 +47,14 @@ import java.util.function.Function;
  * @param <U> the type of elements returned by this cursor
  */
 abstract class IntersectionCursorBase<T, U> extends MergeCursor<T, U, KeyedMergeCursorState<T>> {
+    /**
+     * The number of consecutive elements that a child with a seek function skips one at a time before it is instead
+     * repositioned at the current maximum comparison key. Skipping a few elements that have already been read is
+     * cheaper than the new range read needed to seek, but a child that keeps falling behind is probably much less
+     * selective than the others.
+     */
+    static final int SEEK_THRESHOLD = 4;
+
     @Nonnull
     private final Function<? super T, ? extends List<Object>> comparisonKeyFunction;
     private final boolean reverse;
@@ -124,11 +132,18 @@ abstract class IntersectionCursorBase<T, U> extends MergeCursor<T, U, KeyedMerge
             List<KeyedMergeCursorState<T>> nonMaxCursors = new ArrayList<>(cursorStates.size());
             findMaxStates(maxCursors, nonMaxCursors);
             logDuplicates(maxCursors, nonMaxCursors, startTime);
+            maxCursors.forEach(KeyedMergeCursorState::matched);
             if (!nonMaxCursors.isEmpty()) {
                 // Any non-maximal cursor is definitely not in the intersection,
                 // so we can consume those records (which updates their continuations).
+                // A cursor that keeps falling behind jumps straight to the maximum key if it can.
                 // Then we loop again to see if we pick any up the next go around.
-                nonMaxCursors.forEach(KeyedMergeCursorState::consume);
+                final List<Object> maxKey = maxCursors.get(0).getComparisonKey();
+                for (KeyedMergeCursorState<T> nonMaxCursor : nonMaxCursors) {
+                    if (nonMaxCursor.skipTo(maxKey, SEEK_THRESHOLD) && getTimer() != null) {
+                        getTimer().increment(FDBStoreTimer.Counts.QUERY_INTERSECTION_SEEK);
+                    }
+                }
             }
             return !nonMaxCursors.isEmpty();
         }), getExecutor()).thenApply(vignore -> {
@@ -215,4 +230,27 @@ abstract class IntersectionCursorBase<T, U> extends MergeCursor<T, U, KeyedMerge
         }
         return cursorStates;
     }
+
+    @Nonnull
+    protected static <T> List<KeyedMergeCursorState<T>> createCursorStates(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+                                                                           @Nonnull List<Function<List<Object>, RecordCursor<T>>> seekFunctions,
+                                                                           @Nullable byte[] byteContinuation,
+                                                                           @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction) {
+        if (cursorFunctions.size() < 2) {
+            throw new RecordCoreArgumentException("not enough child cursors provided to IntersectionCursor")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, cursorFunctions.size());
+        }
+        if (seekFunctions.size() != cursorFunctions.size()) {
+            throw new RecordCoreArgumentException("seek functions do not match child cursors in IntersectionCursor")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, cursorFunctions.size())
+                    .addLogInfo(LogMessageKeys.EXPECTED_CHILD_COUNT, seekFunctions.size());
+        }
+        final List<KeyedMergeCursorState<T>> cursorStates = new ArrayList<>(cursorFunctions.size());
+        final IntersectionCursorContinuation continuation = IntersectionCursorContinuation.from(byteContinuation, cursorFunctions.size());
+        for (int i = 0; i < cursorFunctions.size(); i++) {
+            cursorStates.add(KeyedMergeCursorState.from(cursorFunctions.get(i), seekFunctions.get(i),
+                    continuation.getContinuations().get(i), comparisonKeyFunction));
+        }
+        return cursorStates;
+    }
 }
@@ -38,12 +38,23 @@ class KeyedMergeCursorState<T> extends MergeCursorState<T> {
     @Nonnull
     private final Function<? super T, ? extends List<Object>> comparisonKeyFunction;
     @Nullable
+    private final Function<List<Object>, RecordCursor<T>> seekFunction;
+    @Nullable
     private List<Object> comparisonKey;
+    // The number of elements skipped since this cursor last matched or was repositioned.
+    private int skipped;
 
     KeyedMergeCursorState(@Nonnull RecordCursor<T> cursor, @Nonnull RecordCursorContinuation continuation,
                           @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction) {
+        this(cursor, continuation, comparisonKeyFunction, null);
+    }
+
+    KeyedMergeCursorState(@Nonnull RecordCursor<T> cursor, @Nonnull RecordCursorContinuation continuation,
+                          @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+                          @Nullable Function<List<Object>, RecordCursor<T>> seekFunction) {
         super(cursor, continuation);
         this.comparisonKeyFunction = comparisonKeyFunction;
+        this.seekFunction = seekFunction;
     }
 
     @Override
@@ -65,6 +76,31 @@ class KeyedMergeCursorState<T> extends MergeCursorState<T> {
         this.comparisonKey = null;
     }
 
+    /**
+     * Skip the current element, which is known to come before the given comparison key. Once this has happened
+     * {@code seekThreshold} times in a row, if this state has a seek function, the cursor is replaced by one that
+     * starts at the given key instead of continuing one element at a time.
+     * @param key the comparison key that the next element needs to reach
+     * @param seekThreshold the number of elements to skip before seeking
+     * @return {@code true} if the cursor was repositioned
+     */
+    boolean skipTo(@Nonnull List<Object> key, int seekThreshold) {
+        consume();
+        if (seekFunction != null && ++skipped >= seekThreshold) {
+            skipped = 0;
+            replaceCursor(seekFunction.apply(key));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Note that the current element has not been skipped.
+     */
+    void matched() {
+        skipped = 0;
+    }
+
     @Nonnull
     public static <T> KeyedMergeCursorState<T> from(
             @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
@@ -76,4 +112,17 @@ class KeyedMergeCursorState<T> extends MergeCursorState<T> {
             return new KeyedMergeCursorState<>(cursorFunction.apply(continuation.toBytes()), continuation, comparisonKeyFunction);
         }
     }
+
+    @Nonnull
+    public static <T> KeyedMergeCursorState<T> from(
+            @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
+            @Nullable Function<List<Object>, RecordCursor<T>> seekFunction,
+            @Nonnull RecordCursorContinuation continuation,
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction) {
+        if (continuation.isEnd()) {
+            return new KeyedMergeCursorState<>(RecordCursor.empty(), RecordCursorEndContinuation.END, comparisonKeyFunction);
+        } else {
+            return new KeyedMergeCursorState<>(cursorFunction.apply(continuation.toBytes()), continuation, comparisonKeyFunction, seekFunction);
+        }
+    }
 }
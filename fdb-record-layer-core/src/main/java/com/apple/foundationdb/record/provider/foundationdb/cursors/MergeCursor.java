@@ -28,7 +28,9 @@ import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
 import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
 import com.apple.foundationdb.record.cursors.EmptyCursor;
+import com.apple.foundationdb.record.cursors.ProfilableCursor;
 import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
@@ -58,7 +60,7 @@ import java.util.stream.Collectors;
  * @param <S> type of merge state
  */
 @API(API.Status.INTERNAL)
-public abstract class MergeCursor<T, U, S extends MergeCursorState<T>> implements RecordCursor<U> {
+public abstract class MergeCursor<T, U, S extends MergeCursorState<T>> implements RecordCursor<U>, ProfilableCursor {
     // Maximum amount of time to wait before bailing on getting the next state.
     // Added to investigate: https://github.com/FoundationDB/fdb-record-layer/issues/546
     // This is not particularly pretty, but it is meant for some rough debugging.
@@ -73,6 +75,8 @@ public abstract class MergeCursor<T, U, S extends MergeCursorState<T>> implement
     private final Executor executor;
     @Nullable
     private RecordCursorResult<U> nextResult;
+    @Nonnull
+    private final CursorProfiling profiling = new CursorProfiling(this);
 
     @SuppressWarnings("PMD.CloseResource")
     protected MergeCursor(@Nonnull List<S> cursorStates, @Nullable FDBStoreTimer timer) {
@@ -288,6 +292,11 @@ public abstract class MergeCursor<T, U, S extends MergeCursorState<T>> implement
     @Override
     @Nonnull
     public CompletableFuture<RecordCursorResult<U>> onNext() {
+        return profiling.next(this::computeNext);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<U>> computeNext() {
         if (nextResult != null && !nextResult.hasNext()) {
             return CompletableFuture.completedFuture(nextResult);
         }
@@ -347,4 +356,10 @@ public abstract class MergeCursor<T, U, S extends MergeCursorState<T>> implement
         }
         return visitor.visitLeave(this);
     }
+
+    @Nonnull
+    @Override
+    public CursorProfiling getProfiling() {
+        return profiling;
+    }
 }
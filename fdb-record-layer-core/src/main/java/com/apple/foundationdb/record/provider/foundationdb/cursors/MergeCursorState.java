@@ -42,7 +42,7 @@ import java.util.function.Function;
 @API(API.Status.INTERNAL)
 public class MergeCursorState<T> implements AutoCloseable {
     @Nonnull
-    private final RecordCursor<T> cursor;
+    private RecordCursor<T> cursor;
     @Nullable
     private CompletableFuture<RecordCursorResult<T>> onNextFuture;
     @Nonnull
@@ -80,6 +80,19 @@ public class MergeCursorState<T> implements AutoCloseable {
         continuation = result.getContinuation();
     }
 
+    /**
+     * Replace the underlying cursor with one positioned further along in the same child. The current result must
+     * already have been {@linkplain #consume() consumed}, and continuations from the new cursor must be valid for
+     * the child, since they are used once its results are consumed.
+     * @param newCursor the cursor to read the rest of the child from
+     */
+    protected void replaceCursor(@Nonnull RecordCursor<T> newCursor) {
+        cursor.close();
+        cursor = newCursor;
+        onNextFuture = null;
+        result = null;
+    }
+
     /**
      * Return whether this cursor may return a result in the future. In particular, this will return {@code true}
      * if this cursor has either not returned its first result or if the most recent result had a next element.
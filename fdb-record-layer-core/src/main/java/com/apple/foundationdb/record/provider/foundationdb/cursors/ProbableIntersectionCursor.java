@@ -87,6 +87,11 @@ public class ProbableIntersectionCursor<T> extends MergeCursor<T, T, ProbableInt
      * The default acceptable false positive percentage when evaluating whether an element is contained with a given cursor's result set.
      */
     public static final double DEFAULT_FALSE_POSITIVE_PERCENTAGE = 0.01;
+    /**
+     * The default number of results that the first filter of each child is sized for when using scalable Bloom filters.
+     * This is kept small so that the filters, and therefore the continuation, only grow with the results actually read.
+     */
+    public static final long DEFAULT_INITIAL_EXPECTED_RESULTS = 64L;
 
     @Nonnull
     private static final Set<StoreTimer.Event> duringEvents = Collections.singleton(FDBStoreTimer.Events.QUERY_INTERSECTION);
@@ -191,13 +196,14 @@ public class ProbableIntersectionCursor<T> extends MergeCursor<T, T, ProbableInt
     static <T> List<ProbableIntersectionCursorState<T>> createCursorStates(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
                                                                            @Nullable byte[] byteContinuation,
                                                                            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
-                                                                           long expectedInsertions, double falsePositiveRate) {
+                                                                           long expectedInsertions, double falsePositiveRate,
+                                                                           boolean scalable) {
         final List<ProbableIntersectionCursorState<T>> cursorStates = new ArrayList<>(cursorFunctions.size());
         final ProbableIntersectionCursorContinuation continuation = ProbableIntersectionCursorContinuation.from(byteContinuation, cursorFunctions.size());
         int i = 0;
         for (Function<byte[], RecordCursor<T>> cursorFunction : cursorFunctions) {
             cursorStates.add(ProbableIntersectionCursorState.from(cursorFunction, continuation.getContinuations().get(i),
-                    comparisonKeyFunction, expectedInsertions, falsePositiveRate));
+                    comparisonKeyFunction, expectedInsertions, falsePositiveRate, scalable));
             i++;
         }
         return cursorStates;
@@ -257,6 +263,40 @@ public class ProbableIntersectionCursor<T> extends MergeCursor<T, T, ProbableInt
             double falsePositivePercentage,
             @Nullable byte[] continuation,
             @Nullable FDBStoreTimer timer) {
-        return new ProbableIntersectionCursor<>(createCursorStates(cursorFunctions, continuation, comparisonKeyFunction, expectedResults, falsePositivePercentage), timer);
+        return new ProbableIntersectionCursor<>(createCursorStates(cursorFunctions, continuation, comparisonKeyFunction, expectedResults, falsePositivePercentage, false), timer);
+    }
+
+    /**
+     * Create a cursor merging the results of two or more cursors using Bloom filters that grow with the number of
+     * results read. This returns the same results as {@link #create(Function, List, long, double, byte[], FDBStoreTimer)},
+     * but instead of a single Bloom filter sized for {@code expectedResults}, each child uses a scalable Bloom filter
+     * that starts out sized for {@code initialExpectedResults} and adds larger filters as needed. The false positive rate therefore stays below {@code falsePositivePercentage}
+     * even if a child returns many more results than expected, and the continuation only grows as results are read
+     * instead of always including filters sized for the largest expected child.
+     *
+     * <p>
+     * Continuations from this cursor cannot be read by versions that predate this method. As with the other
+     * factory methods, the parameters only matter if the continuation is <code>null</code>. A non-null continuation
+     * determines both the kind of filter and its parameters.
+     * </p>
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param initialExpectedResults the number of results from each child cursor that the first filter is sized for
+     * @param falsePositivePercentage an acceptable false positive percentage for each cursor
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing any records from any child cursor
+     */
+    @Nonnull
+    public static <T> ProbableIntersectionCursor<T> createScalable(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            long initialExpectedResults,
+            double falsePositivePercentage,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new ProbableIntersectionCursor<>(createCursorStates(cursorFunctions, continuation, comparisonKeyFunction, initialExpectedResults, falsePositivePercentage, true), timer);
     }
 }
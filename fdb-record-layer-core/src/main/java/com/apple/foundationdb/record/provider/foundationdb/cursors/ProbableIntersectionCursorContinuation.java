@@ -28,6 +28,7 @@ import com.apple.foundationdb.record.RecordCursorStartContinuation;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 
@@ -109,12 +110,14 @@ class ProbableIntersectionCursorContinuation extends MergeCursorContinuation<Pro
     static ProbableIntersectionCursorContinuation from(@Nonnull ProbableIntersectionContinuation parsed, int numberOfChildren) {
         ImmutableList.Builder<BloomFilterCursorContinuation> builder = ImmutableList.builder();
         for (ProbableIntersectionContinuation.CursorState state : parsed.getChildStateList()) {
+            final ProbableIntersectionContinuation.ScalableBloomFilter scalableBloomFilter = state.hasScalableBloomFilter() ? state.getScalableBloomFilter() : null;
+            final ByteString bloomBytes = scalableBloomFilter == null ? state.getBloomFilter() : null;
             if (state.getExhausted()) {
-                builder.add(new BloomFilterCursorContinuation(RecordCursorEndContinuation.END, state.getBloomFilter()));
+                builder.add(new BloomFilterCursorContinuation(RecordCursorEndContinuation.END, bloomBytes, scalableBloomFilter));
             } else if (state.hasContinuation()) {
-                builder.add(new BloomFilterCursorContinuation(ByteArrayContinuation.fromNullable(state.getContinuation().toByteArray()), state.getBloomFilter()));
+                builder.add(new BloomFilterCursorContinuation(ByteArrayContinuation.fromNullable(state.getContinuation().toByteArray()), bloomBytes, scalableBloomFilter));
             } else {
-                builder.add(new BloomFilterCursorContinuation(RecordCursorStartContinuation.START, state.getBloomFilter()));
+                builder.add(new BloomFilterCursorContinuation(RecordCursorStartContinuation.START, bloomBytes, scalableBloomFilter));
             }
         }
         ImmutableList<BloomFilterCursorContinuation> children = builder.build();
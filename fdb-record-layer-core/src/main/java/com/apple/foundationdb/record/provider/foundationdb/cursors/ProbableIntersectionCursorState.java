@@ -32,6 +32,7 @@ import com.google.common.hash.PrimitiveSink;
 import com.google.protobuf.ByteString;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
@@ -55,21 +56,32 @@ import java.util.function.Function;
  * upgrades.
  * </p>
  *
+ * <p>
+ * Instead of a single Bloom filter sized up front, the state can use a {@link ScalableBloomFilter}, which is a sequence
+ * of Guava Bloom filters that grows with the number of results. This is serialized into a separate field of the
+ * continuation, so which kind of filter is used when resuming is determined by the continuation.
+ * </p>
+ *
  * @param <T> the type of elements returned by the wrapping cursor
  */
 class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
-    @Nonnull
+    // Exactly one of these is set.
+    @Nullable
     private final BloomFilter<List<Object>> bloomFilter;
+    @Nullable
+    private final ScalableBloomFilter<List<Object>> scalableBloomFilter;
     @Nonnull
     private final Set<List<Object>> seenSet;
     private final boolean firstIteration;
 
     private ProbableIntersectionCursorState(@Nonnull RecordCursor<T> cursor, @Nonnull BloomFilterCursorContinuation continuation,
                                     @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
-                                    @Nonnull BloomFilter<List<Object>> bloomFilter,
+                                    @Nullable BloomFilter<List<Object>> bloomFilter,
+                                    @Nullable ScalableBloomFilter<List<Object>> scalableBloomFilter,
                                     @Nonnull Set<List<Object>> seenSet, boolean firstIteration) {
         super(cursor, continuation.getChild(), comparisonKeyFunction);
         this.bloomFilter = bloomFilter;
+        this.scalableBloomFilter = scalableBloomFilter;
         this.seenSet = seenSet;
         this.firstIteration = firstIteration;
     }
@@ -77,7 +89,11 @@ class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
     @Override
     public void consume() {
         // When consuming, insert the key of the most recent thing returned by this cursor.
-        bloomFilter.put(getComparisonKey());
+        if (scalableBloomFilter != null) {
+            scalableBloomFilter.put(getComparisonKey());
+        } else {
+            Verify.verifyNotNull(bloomFilter).put(getComparisonKey());
+        }
         seenSet.add(getComparisonKey());
         super.consume();
     }
@@ -85,8 +101,11 @@ class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
     @Override
     @Nonnull
     public BloomFilterCursorContinuation getContinuation() {
+        if (scalableBloomFilter != null) {
+            return new BloomFilterCursorContinuation(super.getContinuation(), null, scalableBloomFilter.toProto());
+        }
         try (ByteString.Output bloomOutput = ByteString.newOutput()) {
-            bloomFilter.writeTo(bloomOutput);
+            Verify.verifyNotNull(bloomFilter).writeTo(bloomOutput);
             return new BloomFilterCursorContinuation(super.getContinuation(), bloomOutput.toByteString());
         } catch (IOException e) {
             throw new RecordCoreException("unable to serialize bloom filter", e);
@@ -94,10 +113,25 @@ class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
     }
 
     @VisibleForTesting
+    @Nullable
     BloomFilter<List<Object>> getBloomFilter() {
         return bloomFilter;
     }
 
+    @VisibleForTesting
+    @Nullable
+    ScalableBloomFilter<List<Object>> getScalableBloomFilter() {
+        return scalableBloomFilter;
+    }
+
+    private boolean filterMightContain(@Nonnull List<Object> comparisonKey) {
+        if (scalableBloomFilter != null) {
+            return scalableBloomFilter.mightContain(comparisonKey);
+        } else {
+            return Verify.verifyNotNull(bloomFilter).mightContain(comparisonKey);
+        }
+    }
+
     /**
      * Return whether this cursor state might have seen the given comparison key. If the
      * key has been seen before, this will return {@code true}. If the key has <em>not</em>
@@ -112,7 +146,7 @@ class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
         // it is definitely contained. If this is the first iteration (i.e., this
         // cursor has not been resumed after a continuation), then it might be
         // necessary to consult the bloom filter.
-        return seenSet.contains(otherComparisonKey) || (!firstIteration && bloomFilter.mightContain(otherComparisonKey));
+        return seenSet.contains(otherComparisonKey) || (!firstIteration && filterMightContain(otherComparisonKey));
     }
 
     boolean isDefiniteDuplicate() {
@@ -161,21 +195,27 @@ class ProbableIntersectionCursorState<T> extends KeyedMergeCursorState<T> {
             @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
             @Nonnull BloomFilterCursorContinuation continuation,
             @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
-            long expectedInsertions, double falsePositiveRate) {
-        BloomFilter<List<Object>> bloomFilter;
-        if (continuation.getBloomBytes() == null) {
-            bloomFilter = BloomFilter.create(KeyFunnel.VERSION_0, expectedInsertions, falsePositiveRate);
-        } else {
+            long expectedInsertions, double falsePositiveRate, boolean scalable) {
+        BloomFilter<List<Object>> bloomFilter = null;
+        ScalableBloomFilter<List<Object>> scalableBloomFilter = null;
+        final boolean hasFilter = continuation.getBloomBytes() != null || continuation.getScalableBloomFilter() != null;
+        if (continuation.getScalableBloomFilter() != null) {
+            scalableBloomFilter = ScalableBloomFilter.fromProto(KeyFunnel.VERSION_0, continuation.getScalableBloomFilter());
+        } else if (continuation.getBloomBytes() != null) {
             try {
                 bloomFilter = BloomFilter.readFrom(continuation.getBloomBytes().newInput(), KeyFunnel.VERSION_0);
             } catch (IOException e) {
                 throw new RecordCoreException("unable to deserialize bloom filter", e);
             }
+        } else if (scalable) {
+            scalableBloomFilter = ScalableBloomFilter.create(KeyFunnel.VERSION_0, expectedInsertions, falsePositiveRate);
+        } else {
+            bloomFilter = BloomFilter.create(KeyFunnel.VERSION_0, expectedInsertions, falsePositiveRate);
         }
         if (continuation.isChildEnd()) {
-            return new ProbableIntersectionCursorState<>(RecordCursor.empty(), continuation, comparisonKeyFunction, bloomFilter, Collections.emptySet(), false);
+            return new ProbableIntersectionCursorState<>(RecordCursor.empty(), continuation, comparisonKeyFunction, bloomFilter, scalableBloomFilter, Collections.emptySet(), false);
         } else {
-            return new ProbableIntersectionCursorState<>(cursorFunction.apply(continuation.getChild().toBytes()), continuation, comparisonKeyFunction, bloomFilter, new HashSet<>(), continuation.getBloomBytes() == null);
+            return new ProbableIntersectionCursorState<>(cursorFunction.apply(continuation.getChild().toBytes()), continuation, comparisonKeyFunction, bloomFilter, scalableBloomFilter, new HashSet<>(), !hasFilter);
         }
     }
 }
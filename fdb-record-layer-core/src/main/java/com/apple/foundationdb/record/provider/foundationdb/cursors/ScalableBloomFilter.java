@@ -0,0 +1,188 @@
+/*
+ * ScalableBloomFilter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.protobuf.ByteString;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.apple.foundationdb.record.RecordCursorProto.ProbableIntersectionContinuation;
+
+/**
+ * A Bloom filter that grows as elements are added to it, so that its size follows the number of elements actually
+ * added rather than an estimate given up front, while its false positive rate stays bounded.
+ *
+ * <p>
+ * This is a sequence of Guava {@link BloomFilter}s. Once the last filter has had as many distinct elements added as it
+ * was sized for, a new filter is added that can hold twice as many elements with a false positive rate that is
+ * {@value #TIGHTENING_RATIO} times that of the one before it. The rates of all of the filters therefore add up to less
+ * than the requested rate however many filters there are. Only the last filter is ever changed, so the serialized
+ * form of the others is kept instead of being computed each time this is serialized.
+ * </p>
+ *
+ * @param <K> the type of elements added to the filter
+ */
+@API(API.Status.INTERNAL)
+class ScalableBloomFilter<K> {
+    /**
+     * The ratio between the false positive rates of each filter and the one before it.
+     */
+    static final double TIGHTENING_RATIO = 0.5;
+    // Filters stop growing after this many doublings so that the capacity cannot overflow.
+    private static final int MAX_GROWTH_SHIFT = 32;
+
+    @Nonnull
+    private final Funnel<? super K> funnel;
+    private final long initialCapacity;
+    private final double falsePositiveRate;
+    @Nonnull
+    private final List<BloomFilter<K>> filters;
+    @Nonnull
+    private final List<ByteString> fullFilterBytes;
+    private long lastFilterInsertions;
+
+    private ScalableBloomFilter(@Nonnull Funnel<? super K> funnel, long initialCapacity, double falsePositiveRate,
+                                @Nonnull List<BloomFilter<K>> filters, @Nonnull List<ByteString> fullFilterBytes,
+                                long lastFilterInsertions) {
+        this.funnel = funnel;
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = filters;
+        this.fullFilterBytes = fullFilterBytes;
+        this.lastFilterInsertions = lastFilterInsertions;
+    }
+
+    private long getCapacity(int index) {
+        return initialCapacity << Math.min(index, MAX_GROWTH_SHIFT);
+    }
+
+    private double getFalsePositiveRate(int index) {
+        return falsePositiveRate * (1.0 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, index);
+    }
+
+    private void addFilter() {
+        final int index = filters.size();
+        filters.add(BloomFilter.create(funnel, getCapacity(index), getFalsePositiveRate(index)));
+        lastFilterInsertions = 0;
+    }
+
+    /**
+     * Return whether the given element might have been added to this filter. This is {@code true} if it has
+     * been added and probably {@code false} if it has not.
+     * @param element the element to check
+     * @return whether the element might have been added
+     */
+    boolean mightContain(@Nonnull K element) {
+        for (BloomFilter<K> filter : filters) {
+            if (filter.mightContain(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add an element to this filter.
+     * @param element the element to add
+     */
+    void put(@Nonnull K element) {
+        // Elements that might already be present are not added again, so that repeated elements do not make the
+        // filter grow. Such an element will still be reported as present.
+        if (mightContain(element)) {
+            return;
+        }
+        if (lastFilterInsertions >= getCapacity(filters.size() - 1)) {
+            fullFilterBytes.add(serialize(filters.get(filters.size() - 1)));
+            addFilter();
+        }
+        filters.get(filters.size() - 1).put(element);
+        lastFilterInsertions++;
+    }
+
+    int getFilterCount() {
+        return filters.size();
+    }
+
+    @Nonnull
+    ProbableIntersectionContinuation.ScalableBloomFilter toProto() {
+        return ProbableIntersectionContinuation.ScalableBloomFilter.newBuilder()
+                .setInitialCapacity(initialCapacity)
+                .setFalsePositiveRate(falsePositiveRate)
+                .setLastFilterInsertions(lastFilterInsertions)
+                .addAllFilter(fullFilterBytes)
+                .addFilter(serialize(filters.get(filters.size() - 1)))
+                .build();
+    }
+
+    @Nonnull
+    private static ByteString serialize(@Nonnull BloomFilter<?> filter) {
+        try (ByteString.Output bloomOutput = ByteString.newOutput()) {
+            filter.writeTo(bloomOutput);
+            return bloomOutput.toByteString();
+        } catch (IOException e) {
+            throw new RecordCoreException("unable to serialize bloom filter", e);
+        }
+    }
+
+    @Nonnull
+    static <K> ScalableBloomFilter<K> create(@Nonnull Funnel<? super K> funnel, long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) {
+            throw new RecordCoreArgumentException("initial capacity must be positive")
+                    .addLogInfo(LogMessageKeys.VALUE, initialCapacity);
+        }
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new RecordCoreArgumentException("false positive rate must be between 0 and 1")
+                    .addLogInfo(LogMessageKeys.VALUE, falsePositiveRate);
+        }
+        final ScalableBloomFilter<K> scalableBloomFilter = new ScalableBloomFilter<>(funnel, initialCapacity, falsePositiveRate,
+                new ArrayList<>(), new ArrayList<>(), 0L);
+        scalableBloomFilter.addFilter();
+        return scalableBloomFilter;
+    }
+
+    @Nonnull
+    static <K> ScalableBloomFilter<K> fromProto(@Nonnull Funnel<? super K> funnel,
+                                                @Nonnull ProbableIntersectionContinuation.ScalableBloomFilter proto) {
+        if (proto.getFilterCount() == 0 || proto.getInitialCapacity() <= 0) {
+            throw new RecordCoreException("invalid continuation (scalable bloom filter has no filters)");
+        }
+        final List<BloomFilter<K>> filters = new ArrayList<>(proto.getFilterCount());
+        for (ByteString filterBytes : proto.getFilterList()) {
+            try {
+                filters.add(BloomFilter.readFrom(filterBytes.newInput(), funnel));
+            } catch (IOException e) {
+                throw new RecordCoreException("unable to deserialize bloom filter", e);
+            }
+        }
+        final List<ByteString> fullFilterBytes = new ArrayList<>(proto.getFilterList().subList(0, proto.getFilterCount() - 1));
+        return new ScalableBloomFilter<>(funnel, proto.getInitialCapacity(), proto.getFalsePositiveRate(),
+                filters, fullFilterBytes, proto.getLastFilterInsertions());
+    }
+}
@@ -300,4 +300,37 @@ public class UnionCursor<T> extends UnionCursorBase<T, KeyedMergeCursorState<T>>
         final List<KeyedMergeCursorState<T>> cursorStates = createCursorStates(cursorFunctions, byteContinuation, comparisonKeyFunction);
         return new UnionCursor<>(reverse, cursorStates, timer);
     }
+
+    /**
+     * Create a union cursor from two or more compatibly-ordered cursors, reading from at most the given number of them
+     * at once. This behaves like {@link #create(Function, boolean, List, byte[], FDBStoreTimer)}, except that
+     * a child cursor waits to be opened or advanced while the given number of other children are already being
+     * advanced. Since the union needs the next element from every child before it can return anything, all the
+     * children are still open once the first element is returned, but this bounds the number of range reads that a union
+     * with many children issues at the same time.
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param byteContinuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param maxConcurrentChildren the maximum number of children to advance at once or {@code 0} for no limit
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing any records in any child cursors
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public static <T> UnionCursor<T> create(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nullable byte[] byteContinuation,
+            @Nullable FDBStoreTimer timer,
+            int maxConcurrentChildren) {
+        if (maxConcurrentChildren == 0 || maxConcurrentChildren >= cursorFunctions.size()) {
+            return create(comparisonKeyFunction, reverse, cursorFunctions, byteContinuation, timer);
+        }
+        final ChildCursorLimiter limiter = new ChildCursorLimiter(maxConcurrentChildren, false, timer);
+        return create(comparisonKeyFunction, reverse, limiter.limit(cursorFunctions), byteContinuation, timer);
+    }
 }
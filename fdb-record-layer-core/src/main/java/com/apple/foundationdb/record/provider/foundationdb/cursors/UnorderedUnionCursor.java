@@ -135,4 +135,33 @@ public class UnorderedUnionCursor<T> extends UnionCursorBase<T, MergeCursorState
             @Nullable FDBStoreTimer timer) {
         return new UnorderedUnionCursor<>(createCursorStates(cursorFunctions, continuation), timer);
     }
+
+    /**
+     * Create a union cursor from two or more cursors, reading from at most the given number of them at once.
+     * This behaves like {@link #create(List, byte[], FDBStoreTimer)}, except that each child after the first
+     * {@code maxConcurrentChildren} is not opened until one of the children being read from has returned its last
+     * result. This bounds the number of concurrent range reads and buffered results of a union with many children, at
+     * the cost of not starting the remaining children early. Children that are not reached before the union stops are
+     * resumed from their beginning by the union's continuation.
+     *
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param maxConcurrentChildren the maximum number of children to read from at once or {@code 0} for no limit
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing any records from any child cursor
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public static <T> UnorderedUnionCursor<T> create(
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer,
+            int maxConcurrentChildren) {
+        if (maxConcurrentChildren == 0 || maxConcurrentChildren >= cursorFunctions.size()) {
+            return create(cursorFunctions, continuation, timer);
+        }
+        final ChildCursorLimiter limiter = new ChildCursorLimiter(maxConcurrentChildren, true, timer);
+        return new UnorderedUnionCursor<>(createCursorStates(limiter.limit(cursorFunctions), continuation), timer);
+    }
 }
@@ -23,6 +23,7 @@ package com.apple.foundationdb.record.query.plan;
 import com.apple.foundationdb.annotation.API;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.ObjectPlanHash;
@@ -209,11 +210,22 @@ public class TextScan implements PlanHashable {
             List<Function<byte[], RecordCursor<IndexEntry>>> intersectionChildren = tokenList.stream()
                     .map(token -> scanTokenPrefix(store, token, prefix, suffix, index, childScanProperties))
                     .collect(Collectors.toList());
-            return ProbableIntersectionCursor.create(suffixComparisonKeyFunction(prefixEntries), intersectionChildren,
+            final RecordCursor<IndexEntry> intersectionCursor;
+            if (Boolean.TRUE.equals(store.getContext().getPropertyStorage().getPropertyValue(FDBRecordStoreProperties.TEXT_SCAN_SCALABLE_BLOOM_FILTER))) {
+                // Start small and let the filters grow, rather than sizing the first one for all the expected records.
+                intersectionCursor = ProbableIntersectionCursor.createScalable(suffixComparisonKeyFunction(prefixEntries), intersectionChildren,
+                        Math.max(1L, Math.min(allPrefixesComparison.getExpectedRecords(), ProbableIntersectionCursor.DEFAULT_INITIAL_EXPECTED_RESULTS)),
+                        allPrefixesComparison.getFalsePositivePercentage(),
+                        continuation, store.getTimer()
+                );
+            } else {
+                intersectionCursor = ProbableIntersectionCursor.create(suffixComparisonKeyFunction(prefixEntries), intersectionChildren,
                         allPrefixesComparison.getExpectedRecords(),
                         allPrefixesComparison.getFalsePositivePercentage(),
                         continuation, store.getTimer()
-                    )
+                );
+            }
+            return intersectionCursor
                     .skip(scanProperties.getExecuteProperties().getSkip())
                     .limitRowsTo(scanProperties.getExecuteProperties().getReturnedRowLimit());
         } else if (comparisonType.equals(Comparisons.Type.TEXT_CONTAINS_ANY)) {
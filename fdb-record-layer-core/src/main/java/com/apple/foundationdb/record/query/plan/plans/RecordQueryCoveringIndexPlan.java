@@ -33,6 +33,7 @@ import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.RecordQueryPlanProto;
 import com.apple.foundationdb.record.RecordQueryPlanProto.PRecordQueryCoveringIndexPlan;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
@@ -52,6 +53,7 @@ import com.apple.foundationdb.record.query.plan.cascades.explain.PlannerGraph;
 import com.apple.foundationdb.record.query.plan.cascades.expressions.RelationalExpression;
 import com.apple.foundationdb.record.query.plan.cascades.values.IndexedValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.tuple.Tuple;
 import com.google.auto.service.AutoService;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -113,6 +115,35 @@ public class RecordQueryCoveringIndexPlan implements RecordQueryPlanWithNoChildr
                 .map(QueryResult::fromQueriedRecord);
     }
 
+    /**
+     * Get a function that executes this plan from a given primary key onward.
+     * @param store record store from which to fetch items
+     * @param context evaluation context containing parameter bindings
+     * @param executeProperties limits on execution
+     * @param primaryKey the primary key expression whose values are given to the returned function
+     * @param <M> type used to represent stored records
+     * @return a function from a primary key to a cursor over the results of this plan from that key,
+     * or {@code null} if this plan cannot be repositioned that way
+     * @see RecordQueryIndexPlan#seekEntriesFunction
+     */
+    @Nullable
+    public <M extends Message> Function<Tuple, RecordCursor<QueryResult>> seekFunction(@Nonnull FDBRecordStoreBase<M> store,
+                                                                                       @Nonnull EvaluationContext context,
+                                                                                       @Nonnull ExecuteProperties executeProperties,
+                                                                                       @Nonnull KeyExpression primaryKey) {
+        if (!(indexPlan instanceof RecordQueryIndexPlan)) {
+            return null;
+        }
+        final Function<Tuple, RecordCursor<IndexEntry>> seekEntries = ((RecordQueryIndexPlan)indexPlan)
+                .seekEntriesFunction(store, context, executeProperties, primaryKey);
+        if (seekEntries == null) {
+            return null;
+        }
+        return key -> seekEntries.apply(key)
+                .map(indexEntryToQueriedRecord(store))
+                .map(QueryResult::fromQueriedRecord);
+    }
+
     @Nonnull
     @API(API.Status.INTERNAL)
     public <M extends Message> Function<IndexEntry, FDBQueriedRecord<M>> indexEntryToQueriedRecord(final @Nonnull FDBRecordStoreBase<M> store) {
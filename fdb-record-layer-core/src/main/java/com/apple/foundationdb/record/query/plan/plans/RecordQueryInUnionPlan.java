@@ -166,7 +166,8 @@ public abstract class RecordQueryInUnionPlan implements RecordQueryPlanWithChild
         final List<Function<byte[], RecordCursor<QueryResult>>> childCursorFunctions = getValuesContexts(context).stream()
                 .map(childContext -> (Function<byte[], RecordCursor<QueryResult>>)childContinuation -> childPlan.executePlan(store, childContext, childContinuation, childExecuteProperties))
                 .collect(Collectors.toList());
-        return UnionCursor.create(comparisonKeyFunction.apply(store, context), reverse, childCursorFunctions, continuation, store.getTimer())
+        return UnionCursor.create(comparisonKeyFunction.apply(store, context), reverse, childCursorFunctions, continuation, store.getTimer(),
+                        RecordQueryUnionPlanBase.getMaxConcurrentChildren(store))
                 .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
     }
 
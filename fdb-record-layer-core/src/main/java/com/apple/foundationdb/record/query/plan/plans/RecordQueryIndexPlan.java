@@ -47,6 +47,7 @@ import com.apple.foundationdb.record.cursors.FallbackCursor;
 import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexTypes;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.APIVersion;
@@ -82,6 +83,7 @@ import com.apple.foundationdb.record.query.plan.cascades.values.Value;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartialRecordPlan.FetchIndexRecords;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.apple.foundationdb.tuple.Tuple;
 import com.google.auto.service.AutoService;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
@@ -102,6 +104,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -324,6 +327,80 @@ public class RecordQueryIndexPlan implements RecordQueryPlanWithNoChildren,
         return executeEntriesWithOverScan(tupleScanRange, widenedScanRange, store, index, continuation, executeProperties);
     }
 
+    /**
+     * Get a function that scans the entries of this plan from a given primary key onward, so that an intersection
+     * can reposition this child when it falls behind the others. This is only possible for a value index scan where
+     * every column of the index is fixed by an equality comparison, so that the entries are ordered by primary key.
+     * The continuations of that scan only depend on the fixed columns, so they are also valid for {@link #executeEntries}.
+     * @param store record store from which to fetch items
+     * @param context evaluation context containing parameter bindings
+     * @param executeProperties limits on execution
+     * @param primaryKey the primary key expression whose values are given to the returned function
+     * @param <M> type used to represent stored records
+     * @return a function from a primary key to a cursor over the entries of this plan from that key,
+     * or {@code null} if this plan cannot be repositioned that way
+     */
+    @Nullable
+    public <M extends Message> Function<Tuple, RecordCursor<IndexEntry>> seekEntriesFunction(@Nonnull FDBRecordStoreBase<M> store,
+                                                                                             @Nonnull EvaluationContext context,
+                                                                                             @Nonnull ExecuteProperties executeProperties,
+                                                                                             @Nonnull KeyExpression primaryKey) {
+        if (!IndexScanType.BY_VALUE.equals(getScanType())) {
+            return null;
+        }
+        final RecordMetaData metaData = store.getRecordMetaData();
+        final Index index = metaData.getIndex(indexName);
+        if (!IndexTypes.VALUE.equals(index.getType()) || index.getPrimaryKeyComponentPositions() != null ||
+                !primaryKey.equals(RecordMetaData.commonPrimaryKey(metaData.recordTypesForIndex(index)))) {
+            return null;
+        }
+        final IndexScanBounds scanBounds = scanParameters.bind(store, index, context);
+        if (!(scanBounds instanceof IndexScanRange)) {
+            return null;
+        }
+        final TupleRange scanRange = ((IndexScanRange)scanBounds).getScanRange();
+        final Tuple prefix = scanRange.getLow();
+        if (prefix == null || prefix.size() != index.getColumnSize() || !prefix.equals(scanRange.getHigh()) ||
+                scanRange.getLowEndpoint() != EndpointType.RANGE_INCLUSIVE || scanRange.getHighEndpoint() != EndpointType.RANGE_INCLUSIVE) {
+            return null;
+        }
+        final ScanProperties scanProperties = executeProperties.asScanProperties(reverse);
+        return key -> {
+            final Tuple seekKey = prefix.addAll(key);
+            final TupleRange seekRange = reverse
+                                         ? new TupleRange(prefix, seekKey, EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_INCLUSIVE)
+                                         : new TupleRange(seekKey, prefix, EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_INCLUSIVE);
+            return store.scanIndex(index, new IndexScanRange(IndexScanType.BY_VALUE, seekRange), null, scanProperties);
+        };
+    }
+
+    /**
+     * Get a function that executes this plan from a given primary key onward.
+     * @param store record store from which to fetch items
+     * @param context evaluation context containing parameter bindings
+     * @param executeProperties limits on execution
+     * @param primaryKey the primary key expression whose values are given to the returned function
+     * @param <M> type used to represent stored records
+     * @return a function from a primary key to a cursor over the results of this plan from that key,
+     * or {@code null} if this plan cannot be repositioned that way
+     * @see #seekEntriesFunction
+     */
+    @Nullable
+    public <M extends Message> Function<Tuple, RecordCursor<QueryResult>> seekFunction(@Nonnull FDBRecordStoreBase<M> store,
+                                                                                       @Nonnull EvaluationContext context,
+                                                                                       @Nonnull ExecuteProperties executeProperties,
+                                                                                       @Nonnull KeyExpression primaryKey) {
+        if (indexFetchMethod != IndexFetchMethod.SCAN_AND_FETCH) {
+            return null;
+        }
+        final Function<Tuple, RecordCursor<IndexEntry>> seekEntries = seekEntriesFunction(store, context, executeProperties, primaryKey);
+        if (seekEntries == null) {
+            return null;
+        }
+        return key -> fetchIndexRecords(store, context, ignore -> seekEntries.apply(key), null, executeProperties)
+                .map(QueryResult::fromQueriedRecord);
+    }
+
     private <M extends Message> RecordCursor<IndexEntry> executeEntriesWithOverScan(@Nonnull TupleRange tupleScanRange, @Nonnull TupleRange widenedScanRange,
                                                                                     @Nonnull FDBRecordStoreBase<M> store, @Nonnull Index index,
                                                                                     @Nullable byte[] continuation, @Nonnull ExecuteProperties executeProperties) {
@@ -47,6 +47,7 @@ import com.apple.foundationdb.record.query.plan.cascades.explain.NodeInfo;
 import com.apple.foundationdb.record.query.plan.cascades.explain.PlannerGraph;
 import com.apple.foundationdb.record.query.plan.cascades.expressions.RelationalExpression;
 import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.tuple.Tuple;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -134,11 +135,41 @@ public abstract class RecordQueryIntersectionPlan implements RecordQueryPlanWith
                                         ((byte[] childContinuation) -> childPlan
                                                 .executePlan(store, context, childContinuation, childExecuteProperties)))
                                 .collect(Collectors.toList()),
+                        quantifiers.stream()
+                                .map(Quantifier.Physical::getRangesOverPlan)
+                                .map(childPlan -> seekFunction(childPlan, store, context, childExecuteProperties))
+                                .collect(Collectors.toList()),
                         continuation,
                         store.getTimer())
                 .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
     }
 
+    /**
+     * Get a function that executes a child plan from a given comparison key onward, so that the intersection
+     * cursor can reposition a child that falls behind the others instead of reading every entry in between.
+     * This is only possible when the comparison key is the primary key and the child is an index scan whose
+     * entries are ordered by it.
+     */
+    @Nullable
+    private <M extends Message> Function<List<Object>, RecordCursor<QueryResult>> seekFunction(@Nonnull RecordQueryPlan childPlan,
+                                                                                               @Nonnull FDBRecordStoreBase<M> store,
+                                                                                               @Nonnull EvaluationContext context,
+                                                                                               @Nonnull ExecuteProperties childExecuteProperties) {
+        if (!(comparisonKeyFunction instanceof ComparisonKeyFunction.OnKeyExpression)) {
+            return null;
+        }
+        final KeyExpression comparisonKey = ((ComparisonKeyFunction.OnKeyExpression)comparisonKeyFunction).getComparisonKey();
+        final Function<Tuple, RecordCursor<QueryResult>> seekFunction;
+        if (childPlan instanceof RecordQueryIndexPlan) {
+            seekFunction = ((RecordQueryIndexPlan)childPlan).seekFunction(store, context, childExecuteProperties, comparisonKey);
+        } else if (childPlan instanceof RecordQueryCoveringIndexPlan) {
+            seekFunction = ((RecordQueryCoveringIndexPlan)childPlan).seekFunction(store, context, childExecuteProperties, comparisonKey);
+        } else {
+            seekFunction = null;
+        }
+        return seekFunction == null ? null : key -> seekFunction.apply(Tuple.fromList(key));
+    }
+
     @Override
     public boolean isReverse() {
         return reverse;
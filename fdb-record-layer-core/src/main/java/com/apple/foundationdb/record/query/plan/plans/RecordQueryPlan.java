@@ -29,6 +29,7 @@ import com.apple.foundationdb.record.PlanSerializationContext;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordQueryPlanProto;
+import com.apple.foundationdb.record.cursors.CursorProfiler;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
@@ -72,14 +73,19 @@ public interface RecordQueryPlan extends QueryPlan<FDBQueriedRecord<Message>>, P
      * @param executeProperties limits on execution
      * @param <M> type used to represent stored records
      * @return a cursor of records that match the query criteria
+     * @see ExecuteProperties#isProfiling()
      */
     @Nonnull
     default <M extends Message> RecordCursor<FDBQueriedRecord<M>> execute(@Nonnull FDBRecordStoreBase<M> store,
                                                                   @Nonnull EvaluationContext context,
                                                                   @Nullable byte[] continuation,
                                                                   @Nonnull ExecuteProperties executeProperties) {
-        return executePlan(store, context, continuation, executeProperties)
+        final RecordCursor<FDBQueriedRecord<M>> cursor = executePlan(store, context, continuation, executeProperties)
                 .map(QueryResult::getQueriedRecord);
+        if (executeProperties.isProfiling()) {
+            CursorProfiler.enable(cursor);
+        }
+        return cursor;
     }
 
     @Nonnull
@@ -102,7 +102,8 @@ public abstract class RecordQueryUnionPlan extends RecordQueryUnionPlanBase {
                 isReverse(),
                 childCursorFunctions,
                 continuation,
-                store.getTimer());
+                store.getTimer(),
+                getMaxConcurrentChildren(store));
     }
 
     @Nonnull
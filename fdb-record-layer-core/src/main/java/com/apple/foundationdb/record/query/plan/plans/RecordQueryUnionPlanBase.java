@@ -23,6 +23,7 @@ package com.apple.foundationdb.record.query.plan.plans;
 import com.apple.foundationdb.annotation.API;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.ObjectPlanHash;
 import com.apple.foundationdb.record.PlanHashable;
 import com.apple.foundationdb.record.PlanSerializationContext;
@@ -98,6 +99,16 @@ public abstract class RecordQueryUnionPlanBase implements RecordQueryPlanWithChi
                                                                              @Nonnull List<Function<byte[], RecordCursor<QueryResult>>> childCursorFunctions,
                                                                              @Nullable byte[] continuation);
 
+    /**
+     * Get the maximum number of children of a union to read from at once for a store.
+     * @param store the record store being queried
+     * @return the value of {@link FDBRecordStoreProperties#UNION_MAX_CONCURRENT_CHILDREN} for the store's context
+     */
+    static int getMaxConcurrentChildren(@Nonnull FDBRecordStoreBase<?> store) {
+        final Integer maxConcurrentChildren = store.getContext().getPropertyStorage().getPropertyValue(FDBRecordStoreProperties.UNION_MAX_CONCURRENT_CHILDREN);
+        return maxConcurrentChildren == null ? 0 : maxConcurrentChildren;
+    }
+
     @SuppressWarnings("resource")
     @Nonnull
     @Override
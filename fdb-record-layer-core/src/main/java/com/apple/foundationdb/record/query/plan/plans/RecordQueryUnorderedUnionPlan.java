@@ -80,7 +80,7 @@ public class RecordQueryUnorderedUnionPlan extends RecordQueryUnionPlanBase {
                                                                     @Nonnull EvaluationContext context,
                                                                     @Nonnull List<Function<byte[], RecordCursor<QueryResult>>> childCursorFunctions,
                                                                     @Nullable byte[] continuation) {
-        return UnorderedUnionCursor.create(childCursorFunctions, continuation, store.getTimer());
+        return UnorderedUnionCursor.create(childCursorFunctions, continuation, store.getTimer(), getMaxConcurrentChildren(store));
     }
 
     @Nonnull
@@ -21,47 +21,43 @@
 package com.apple.foundationdb.record.query.plan.sorting;
 
 import com.apple.foundationdb.annotation.API;
-import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.RecordMetaData;
-import com.apple.foundationdb.record.provider.common.CipherPool;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
 import com.apple.foundationdb.record.provider.common.TransformedRecordSerializer;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
 import com.apple.foundationdb.record.provider.foundationdb.SortedRecordSerializer;
 import com.apple.foundationdb.record.sorting.FileSortAdapter;
+import com.apple.foundationdb.record.sorting.FileSortAdapterBase;
 import com.apple.foundationdb.record.sorting.MemorySortAdapter;
 import com.apple.foundationdb.record.sorting.MemorySorter;
 import com.apple.foundationdb.tuple.Tuple;
-import com.google.common.base.Suppliers;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.crypto.KeyGenerator;
 import java.io.File;
 import java.io.IOException;
-import java.security.GeneralSecurityException;
-import java.security.Key;
-import java.security.SecureRandom;
 import java.util.function.BiFunction;
-import java.util.function.Supplier;
 
 /**
  * A {@link MemorySortAdapter} / {@link FileSortAdapter} for use with {@link RecordQuerySortPlan}.
  * @param <M> type used to represent stored records
  */
 @API(API.Status.EXPERIMENTAL)
-public class RecordQuerySortAdapter<M extends Message> implements FileSortAdapter<Tuple, FDBQueriedRecord<M>> {
-    // To use different values, override the associated methods.
+public class RecordQuerySortAdapter<M extends Message> extends FileSortAdapterBase<Tuple, FDBQueriedRecord<M>> {
     public static final int DEFAULT_MAX_RECORD_COUNT_IN_MEMORY = 1000;
-    public static final int DEFAULT_MAX_FILE_COUNT = 10;
-    public static final int DEFAULT_RECORD_COUNT_PER_SECTION = 100;
 
     private final int memoryLimit;
     private final boolean memoryOnly;
+    private final long maxBufferedBytes;
+    private final long sortBufferBytes;
+    private final boolean parallelFileSort;
+    @Nullable
+    private final File sessionDirectory;
     @Nonnull
     private final BiFunction<MemorySortAdapter<Tuple, FDBQueriedRecord<M>>, Tuple, MemorySortComparator<Tuple>> comparatorFunction;
     @Nonnull
@@ -70,16 +66,23 @@ public class RecordQuerySortAdapter<M extends Message> implements FileSortAdapte
     private final SortedRecordSerializer<M> serializer;
     private final int metaDataVersion;
 
-    @Nullable
-    private Key encryptionKey;
-    private static final Supplier<SecureRandom> RANDOM = Suppliers.memoize(SecureRandom::new);
-
     protected RecordQuerySortAdapter(int memoryLimit, boolean memoryOnly, @Nonnull BiFunction<MemorySortAdapter<Tuple, FDBQueriedRecord<M>>, Tuple, MemorySortComparator<Tuple>> comparatorFunction,
                                      @Nonnull RecordQuerySortKey key, @Nonnull FDBRecordStoreBase<M> recordStore) {
         this.memoryLimit = memoryLimit;
         this.memoryOnly = memoryOnly;
         this.comparatorFunction = comparatorFunction;
         this.key = key;
+        final Long maxBufferedBytesProperty = recordStore.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.SORT_TOP_K_MAX_BUFFERED_BYTES);
+        this.maxBufferedBytes = maxBufferedBytesProperty == null ? 0L : maxBufferedBytesProperty;
+        final Long sortBufferBytesProperty = recordStore.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.FILE_SORT_BUFFER_BYTES);
+        this.sortBufferBytes = sortBufferBytesProperty == null ? 0L : sortBufferBytesProperty;
+        this.parallelFileSort = Boolean.TRUE.equals(recordStore.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.FILE_SORT_PARALLEL));
+        final String sessionDirectoryProperty = recordStore.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.FILE_SORT_SESSION_DIRECTORY);
+        this.sessionDirectory = sessionDirectoryProperty == null || sessionDirectoryProperty.isEmpty() ? null : new File(sessionDirectoryProperty);
         RecordSerializer<M> recordSerializer = recordStore.getSerializer();
         if (recordSerializer instanceof TransformedRecordSerializer) {
             // Nothing goes wrong without this, but it avoids double encryption / compression.
@@ -145,10 +148,14 @@ public class RecordQuerySortAdapter<M extends Message> implements FileSortAdapte
         return memoryOnly ? MemorySorter.RecordCountInMemoryLimitMode.DISCARD : MemorySorter.RecordCountInMemoryLimitMode.STOP;
     }
 
-    @Nonnull
     @Override
-    public File generateFilename() throws IOException {
-        return File.createTempFile("fdb", ".bin");
+    public long getMaxBufferedBytesInMemory() {
+        return maxBufferedBytes;
+    }
+
+    @Override
+    public long estimateValueSize(@Nonnull final FDBQueriedRecord<M> record) {
+        return record.getRecord().getSerializedSize();
     }
 
     @Override
@@ -172,45 +179,19 @@ public class RecordQuerySortAdapter<M extends Message> implements FileSortAdapte
     }
 
     @Override
-    public int getMaxFileCount() {
-        return DEFAULT_MAX_FILE_COUNT;
-    }
-
-    @Override
-    public int getRecordCountPerSection() {
-        return DEFAULT_RECORD_COUNT_PER_SECTION;
+    public long getSortBufferBytes() {
+        return sortBufferBytes;
     }
 
     @Override
-    public boolean isCompressed() {
-        return true;
-    }
-
-    @Nullable
-    @Override
-    public String getEncryptionCipherName() {
-        return CipherPool.DEFAULT_CIPHER;
-    }
-
-    @Nullable
-    @Override
-    public synchronized Key getEncryptionKey() {
-        if (encryptionKey == null) {
-            try {
-                final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
-                keyGen.init(128, RANDOM.get());
-                encryptionKey = keyGen.generateKey();
-            } catch (GeneralSecurityException ex) {
-                throw new RecordCoreException(ex);
-            }
-        }
-        return encryptionKey;
+    public boolean isParallelFileSort() {
+        return parallelFileSort;
     }
 
     @Nullable
     @Override
-    public SecureRandom getSecureRandom() {
-        return RANDOM.get();
+    public File getSessionDirectory() {
+        return sessionDirectory;
     }
 
     @Nonnull
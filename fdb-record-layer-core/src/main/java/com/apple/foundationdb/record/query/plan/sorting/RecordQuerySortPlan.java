@@ -105,7 +105,8 @@ public class RecordQuerySortPlan implements RecordQueryPlanWithChild {
         final FDBStoreTimer timer = store.getTimer();
         final RecordCursor<FDBQueriedRecord<M>> sorted;
         if (adapter.isMemoryOnly()) {
-            sorted = MemorySortCursor.createSort(adapter, innerCursor, timer, continuation).skipThenLimit(skip, limit);
+            // The adapter is only memory-only when there is a limit, so only the first skip + limit records need to be kept.
+            sorted = MemorySortCursor.createTopK(adapter, innerCursor, timer, continuation).skipThenLimit(skip, limit);
         } else {
             sorted = FileSortCursor.create(adapter, innerCursor, timer, continuation, skip, limit);
         }
@@ -92,6 +92,42 @@ public interface FileSortAdapter<K, V> extends MemorySortAdapter<K, V> {
      */
     int getRecordCountPerSection();
 
+    /**
+     * Get the number of bytes of serialized keys and values to collect in large pages before sorting them and saving them
+     * to a file. If this is positive, it is used instead of {@link #getMaxRecordCountInMemory} to decide when to save
+     * a file, and {@link #serializeKey} and {@link #serializeValue} are used to collect records, which must then be
+     * consistent with {@link #writeValue}.
+     * @return the size of the sort buffer in bytes or {@code 0} to collect deserialized values in a {@link MemorySorter}
+     * @see FileSorter
+     */
+    default long getSortBufferBytes() {
+        return 0L;
+    }
+
+    /**
+     * Get whether files should be sorted and saved in the background while the records for the next file are loaded,
+     * and whether files should be written and read with larger stream buffers.
+     * @return {@code true} if file sorting uses more than one thread
+     * @see FileSorter
+     */
+    default boolean isParallelFileSort() {
+        return false;
+    }
+
+    /**
+     * Get the directory under which each sort keeps its files in a directory of its own, so that a
+     * {@link FileSortCursor} resumed from a continuation in a later transaction can return the rest of the sorted
+     * records from the files instead of sorting the input again. The files are then only deleted once the cursor has
+     * returned all of the records, so abandoned sorts need to be cleaned up with {@link FileSortCursor#deleteExpiredSessions}.
+     * A continuation can only resume from the files in the same process, and only while they have not been cleaned up.
+     * Otherwise, the cursor sorts its input again and skips the records that were already returned.
+     * @return the directory for sort sessions or {@code null} to delete files when the cursor is closed
+     */
+    @Nullable
+    default File getSessionDirectory() {
+        return null;
+    }
+
     // TODO: Limit on number of records total?
 
     /**
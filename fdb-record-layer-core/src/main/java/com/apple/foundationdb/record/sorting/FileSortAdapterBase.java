@@ -0,0 +1,102 @@
+/*
+ * FileSortAdapterBase.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.sorting;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.provider.common.CipherPool;
+import com.google.common.base.Suppliers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.KeyGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+/**
+ * Defaults for a {@link FileSortAdapter} whose files are temporary files that are compressed and encrypted with a key
+ * generated by the adapter. Since the key is only kept by the adapter, files written with one adapter can only be read
+ * using the same adapter.
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+@API(API.Status.EXPERIMENTAL)
+public abstract class FileSortAdapterBase<K, V> implements FileSortAdapter<K, V> {
+    // To use different values, override the associated methods.
+    public static final int DEFAULT_MAX_FILE_COUNT = 10;
+    public static final int DEFAULT_RECORD_COUNT_PER_SECTION = 100;
+
+    @Nullable
+    private Key encryptionKey;
+    private static final Supplier<SecureRandom> RANDOM = Suppliers.memoize(SecureRandom::new);
+
+    @Nonnull
+    @Override
+    public File generateFilename() throws IOException {
+        return File.createTempFile("fdb", ".bin");
+    }
+
+    @Override
+    public int getMaxFileCount() {
+        return DEFAULT_MAX_FILE_COUNT;
+    }
+
+    @Override
+    public int getRecordCountPerSection() {
+        return DEFAULT_RECORD_COUNT_PER_SECTION;
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public String getEncryptionCipherName() {
+        return CipherPool.DEFAULT_CIPHER;
+    }
+
+    @Nullable
+    @Override
+    public synchronized Key getEncryptionKey() {
+        if (encryptionKey == null) {
+            try {
+                final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+                keyGen.init(128, RANDOM.get());
+                encryptionKey = keyGen.generateKey();
+            } catch (GeneralSecurityException ex) {
+                throw new RecordCoreException(ex);
+            }
+        }
+        return encryptionKey;
+    }
+
+    @Nullable
+    @Override
+    public SecureRandom getSecureRandom() {
+        return RANDOM.get();
+    }
+}
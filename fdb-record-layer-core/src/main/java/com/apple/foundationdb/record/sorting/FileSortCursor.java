@@ -26,7 +26,9 @@ import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
 import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.google.common.annotations.VisibleForTesting;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,6 +38,7 @@ import java.security.GeneralSecurityException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -58,6 +61,12 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
     private final StoreTimer timer;
     private final int skip;
     private final int limit;
+    @Nullable
+    private final FileSortSession<K, V> session;
+    @Nullable
+    private final String sessionId;
+    // The position in the sorted records from which a continuation resumes.
+    private final int resumeRecordPosition;
 
     private RecordCursorContinuation inputContinuation;
     private Iterator<Map.Entry<K, V>> inMemoryIterator;
@@ -65,17 +74,21 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
     @Nullable
     private K minimumKey;
     private SortedFileReader<V> fileReader;
+    private boolean exhausted;
     private boolean closed;
 
     private FileSortCursor(@Nonnull FileSortAdapter<K, V> adapter, @Nonnull FileSorter<K, V> sorter,
                            @Nonnull RecordCursor<V> inputCursor, @Nullable StoreTimer timer,
-                           int skip, int limit) {
+                           int skip, int limit, @Nullable FileSortSession<K, V> session, int resumeRecordPosition) {
         this.inputCursor = inputCursor;
         this.sorter = sorter;
         this.adapter = adapter;
         this.timer = timer;
         this.skip = skip;
         this.limit = limit;
+        this.session = session;
+        this.sessionId = session == null ? null : session.getSessionId();
+        this.resumeRecordPosition = resumeRecordPosition;
         this.closed = false;
     }
 
@@ -93,13 +106,14 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
             if (loadResult.getSourceNoNextReason().isOutOfBand()) {
                 // The input cursor did not complete; we must save the sorter state in the continuation so can pick up after.
                 Collection<V> inMemoryRecords = sorter.getMapSorter().getMap().values();
-                FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, false, true, inMemoryRecords, sorter.getFiles(), inputContinuation, 0, 0);
+                FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, false, true, inMemoryRecords, sorter.getFiles(), inputContinuation, resumeRecordPosition, 0, sessionId);
                 return RecordCursorResult.withoutNextValue(continuation, loadResult.getSourceNoNextReason());
             }
             // Loaded all the records into the sorter, start returning them.
             if (loadResult.isInMemory()) {
                 inMemoryIterator = sorter.getMapSorter().getMap().entrySet().iterator();
-                for (int i = 0; i < skip; i++) {
+                final int toSkip = resumeRecordPosition > 0 ? resumeRecordPosition : skip;
+                for (int i = 0; i < toSkip; i++) {
                     if (!inMemoryIterator.hasNext()) {
                         break;
                     }
@@ -111,7 +125,9 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
                 throw new RecordCoreException("sort loading did not produce exactly one file");
             }
             try {
-                fileReader = new SortedFileReader<>(sorter.getFiles().get(0), adapter, timer, skip, limit);
+                // A continuation saved while returning records from the file resumes from where it left off.
+                fileReader = new SortedFileReader<>(sorter.getFiles().get(0), adapter, timer,
+                        resumeRecordPosition > 0 ? resumeRecordPosition : skip, limit);
             } catch (IOException | GeneralSecurityException ex) {
                 throw new RecordCoreException(ex);
             }
@@ -122,7 +138,7 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
     @Nonnull
     private RecordCursorResult<V> nextFromIterator() {
         if (inMemoryPosition >= limit) {
-            FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, true, false, Collections.emptyList(), Collections.emptyList(), inputContinuation, inMemoryPosition, 0);
+            FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, true, false, Collections.emptyList(), Collections.emptyList(), inputContinuation, inMemoryPosition, 0, sessionId);
             return RecordCursorResult.withoutNextValue(continuation, NoNextReason.RETURN_LIMIT_REACHED);
         }
         if (inMemoryIterator.hasNext()) {
@@ -131,10 +147,11 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
             minimumKey = next.getKey();
             inMemoryPosition++;
             Collection<V> remainingRecords = sorter.getMapSorter().getMap().tailMap(minimumKey, false).values();
-            FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, false, false, remainingRecords, sorter.getFiles(), inputContinuation, inMemoryPosition, 0);
+            FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, false, false, remainingRecords, sorter.getFiles(), inputContinuation, inMemoryPosition, 0, sessionId);
             return RecordCursorResult.withNextValue(next.getValue(), continuation);
         }
-        FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, true, false, Collections.emptyList(), Collections.emptyList(), inputContinuation, inMemoryPosition, 0);
+        FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, true, false, Collections.emptyList(), Collections.emptyList(), inputContinuation, inMemoryPosition, 0, sessionId);
+        exhausted = true;
         return RecordCursorResult.withoutNextValue(continuation, NoNextReason.SOURCE_EXHAUSTED);
     }
 
@@ -146,10 +163,11 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
         } catch (IOException | GeneralSecurityException ex) {
             throw new RecordCoreException(ex);
         }
-        FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, record == null, false, Collections.emptyList(), sorter.getFiles(), inputContinuation, fileReader.getRecordPosition(), fileReader.getFilePosition());
+        FileSortCursorContinuation<K, V> continuation = new FileSortCursorContinuation<>(adapter, record == null, false, Collections.emptyList(), sorter.getFiles(), inputContinuation, fileReader.getRecordPosition(), fileReader.getFilePosition(), sessionId);
         if (record != null) {
             return RecordCursorResult.withNextValue(record, continuation);
         } else {
+            exhausted = true;
             return RecordCursorResult.withoutNextValue(continuation, NoNextReason.SOURCE_EXHAUSTED);
         }
     }
@@ -157,10 +175,17 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
     @Override
     public void close() {
         inputCursor.close();
-        // TODO: For now, delete the sort file.
-        //  In the future, it should be possible to save a query result to a file and open multiple cursors on that same file to page through the results.
         try {
-            sorter.deleteFiles();
+            if (fileReader != null) {
+                fileReader.close();
+            }
+            if (session == null) {
+                sorter.deleteFiles();
+            } else if (exhausted) {
+                // Otherwise, the session's files are kept for a continuation to resume from.
+                sorter.deleteFiles();
+                session.delete();
+            }
         } catch (IOException ex) {
             throw new RecordCoreException(ex);
         }
@@ -191,14 +216,97 @@ public class FileSortCursor<K, V> implements RecordCursor<V> {
                                                      @Nullable StoreTimer timer,
                                                      @Nullable byte[] continuation, int skip, int limit) {
         final FileSortCursorContinuation<K, V> parsedContinuation = FileSortCursorContinuation.from(continuation, adapter);
-        final RecordCursor<V> inputCursor = parsedContinuation.isLoading() ? inputCursorFunction.apply(parsedContinuation.getChild().toBytes()) : RecordCursor.empty();
-        final FileSorter<K, V> sorter = new FileSorter<>(adapter, timer, inputCursor.getExecutor());
-        for (V record : parsedContinuation.getInMemoryRecords()) {
-            sorter.getMapSorter().addValue(record);
+        final File sessionDirectory = adapter.getSessionDirectory();
+        List<File> files = parsedContinuation.getFiles();
+        FileSortSession<K, V> session = null;
+        boolean restart = false;
+        if (parsedContinuation.getSessionId() != null) {
+            if (sessionDirectory == null) {
+                throw new RecordCoreException("invalid continuation (sort session without session directory)")
+                        .addLogInfo(LogMessageKeys.SESSION_ID, parsedContinuation.getSessionId());
+            }
+            final FileSortSession<K, V> resumed = FileSortSession.resume(adapter, sessionDirectory, parsedContinuation.getSessionId());
+            if (files.isEmpty()) {
+                // Nothing was saved yet, so the next files can just as well go into a new session.
+                session = FileSortSession.start(adapter, sessionDirectory);
+            } else {
+                files = resumed.resolveFiles(files);
+                if (files != null) {
+                    session = resumed;
+                } else {
+                    // The files have expired or belong to another process: sort the input again from the beginning
+                    // and skip what was already returned.
+                    try {
+                        resumed.delete();
+                    } catch (IOException ex) {
+                        throw new RecordCoreException(ex);
+                    }
+                    if (timer != null) {
+                        timer.increment(SortEvents.Counts.FILE_SORT_SESSION_RESTART);
+                    }
+                    restart = true;
+                    files = Collections.emptyList();
+                    session = FileSortSession.start(adapter, sessionDirectory);
+                }
+            }
+        } else if (sessionDirectory != null && files.isEmpty()) {
+            // Files saved without a session are left where they are, and are deleted when the cursor is closed.
+            session = FileSortSession.start(adapter, sessionDirectory);
         }
-        for (File file : parsedContinuation.getFiles()) {
-            sorter.getFiles().add(file);
+        final boolean loading = restart || parsedContinuation.isLoading();
+        final RecordCursor<V> inputCursor;
+        if (!loading) {
+            inputCursor = RecordCursor.empty();
+        } else if (restart) {
+            inputCursor = inputCursorFunction.apply(null);
+        } else {
+            inputCursor = inputCursorFunction.apply(parsedContinuation.getChild().toBytes());
         }
-        return new FileSortCursor<>(adapter, sorter, inputCursor, timer, skip, limit);
+        final FileSortAdapter<K, V> sortAdapter = session != null ? session : adapter;
+        final FileSorter<K, V> sorter = new FileSorter<>(sortAdapter, timer, inputCursor.getExecutor());
+        if (!restart) {
+            for (V record : parsedContinuation.getInMemoryRecords()) {
+                sorter.getMapSorter().addValue(record);
+            }
+        }
+        sorter.getFiles().addAll(files);
+        // Records returned from memory are not counted, since the rest of them are saved in the continuation.
+        final int resumeRecordPosition = loading || !files.isEmpty() ? parsedContinuation.getRecordPosition() : 0;
+        return new FileSortCursor<>(sortAdapter, sorter, inputCursor, timer, skip, limit, session, resumeRecordPosition);
+    }
+
+    /**
+     * Delete the files of sort sessions that have not been changed for some time. Since the files of a session are
+     * kept until its cursor has returned all of the records, this cleans up after sorts whose continuations were not
+     * resumed to the end. The age should be longer than the time allowed to resume from a continuation.
+     * @param sessionDirectory the directory of sort sessions, as given by {@link FileSortAdapter#getSessionDirectory}
+     * @param maxAgeMillis the time since a session last changed after which it is deleted
+     * @throws IOException if something fails deleting files
+     */
+    public static void deleteExpiredSessions(@Nonnull File sessionDirectory, long maxAgeMillis) throws IOException {
+        final File[] sessions = sessionDirectory.listFiles(File::isDirectory);
+        if (sessions == null) {
+            return;
+        }
+        final long expiration = System.currentTimeMillis() - maxAgeMillis;
+        for (File session : sessions) {
+            if (session.lastModified() < expiration) {
+                FileSortSession.deleteDirectory(session);
+            }
+        }
+        // Sessions whose directories were deleted some other way, such as by another process, cannot be resumed.
+        FileSortSession.dropDeletedSessionKeys();
+    }
+
+    /**
+     * Get whether this process still has the encryption key of a sort session, which it keeps for as long as the
+     * session's directory exists.
+     * @param sessionId the identifier of the session, which is the name of its directory
+     * @return {@code true} if the key of the session is known
+     */
+    @API(API.Status.INTERNAL)
+    @VisibleForTesting
+    public static boolean hasSessionKey(@Nonnull String sessionId) {
+        return FileSortSession.hasSessionKey(sessionId);
     }
 }
@@ -55,7 +55,9 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
     private final RecordCursorContinuation childContinuation;
     private final int recordPosition;
     private final long filePosition;
-    
+    @Nullable
+    private final String sessionId;
+
     @Nullable
     private RecordSortingProto.FileSortContinuation cachedProto;
     @Nullable
@@ -65,7 +67,7 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
                                boolean exhausted, boolean loading,
                                @Nonnull Collection<V> inMemoryRecords,
                                @Nonnull List<File> files, @Nonnull RecordCursorContinuation childContinuation,
-                               int recordPosition, long filePosition) {
+                               int recordPosition, long filePosition, @Nullable String sessionId) {
         this.exhausted = exhausted;
         this.loading = loading;
         this.adapter = adapter;
@@ -74,6 +76,7 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
         this.childContinuation = childContinuation;
         this.recordPosition = recordPosition;
         this.filePosition = filePosition;
+        this.sessionId = sessionId;
     }
 
     @Nonnull
@@ -87,10 +90,13 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
                 builder.addInMemoryRecords(ZeroCopyByteString.wrap(adapter.serializeValue(record)));
             }
             for (File file : files) {
-                builder.addFiles(file.getPath());
+                builder.addFiles(sessionId != null ? file.getName() : file.getPath());
+            }
+            if (sessionId != null) {
+                builder.setSessionId(sessionId);
             }
             ByteString childBytes = childContinuation.toByteString();
-            if (childBytes.isEmpty()) {
+            if (!childBytes.isEmpty()) {
                 builder.setContinuation(childBytes);
             }
             if (recordPosition > 0) {
@@ -128,12 +134,13 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
     @Nonnull
     static <K, V> FileSortCursorContinuation<K, V> from(@Nonnull RecordSortingProto.FileSortContinuation parsed,
                                                         @Nonnull FileSortAdapter<K, V> adapter) {
+        // The files of a session are only names, which the cursor resolves within the session's directory.
         FileSortCursorContinuation<K, V> result = new FileSortCursorContinuation<>(
                 adapter, false, parsed.getLoading(),
                 parsed.getInMemoryRecordsList().stream().map(bs -> adapter.deserializeValue(bs.toByteArray())).collect(Collectors.toList()),
                 parsed.getFilesList().stream().map(File::new).collect(Collectors.toList()),
                 parsed.hasContinuation() ? ByteArrayContinuation.fromNullable(parsed.getContinuation().toByteArray()) : RecordCursorStartContinuation.START,
-                parsed.getRecordPosition(), parsed.getFilePosition()
+                parsed.getRecordPosition(), parsed.getFilePosition(), parsed.hasSessionId() ? parsed.getSessionId() : null
         );
         result.cachedProto = parsed;
         return result;
@@ -144,7 +151,7 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
                                                         @Nonnull FileSortAdapter<K, V> adapter) {
         FileSortCursorContinuation<K, V> result;
         if (unparsed == null) {
-            result = new FileSortCursorContinuation<>(adapter, false, true, Collections.emptyList(), Collections.emptyList(), RecordCursorStartContinuation.START, 0, 0);
+            result = new FileSortCursorContinuation<>(adapter, false, true, Collections.emptyList(), Collections.emptyList(), RecordCursorStartContinuation.START, 0, 0, null);
         } else {
             try {
                 result = from(RecordSortingProto.FileSortContinuation.parseFrom(unparsed), adapter);
@@ -184,6 +191,11 @@ class FileSortCursorContinuation<K, V> implements RecordCursorContinuation {
         return filePosition;
     }
 
+    @Nullable
+    String getSessionId() {
+        return sessionId;
+    }
+
     @Override
     public boolean isEnd() {
         return exhausted;
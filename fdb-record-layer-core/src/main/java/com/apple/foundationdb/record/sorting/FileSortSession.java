@@ -0,0 +1,375 @@
+/*
+ * FileSortSession.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.sorting;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link FileSortAdapter} for a sort whose files are kept in a directory of their own under
+ * {@link FileSortAdapter#getSessionDirectory}, so that a {@link FileSortCursor} resumed from a continuation in a later
+ * transaction can find them. Everything else is delegated to the adapter given for the sort.
+ *
+ * <p>
+ * The session identifier is saved in the continuation, as are the names of the files, which are always resolved within
+ * the session's directory. Since the adapter's encryption key need not be the same from one cursor to the next, the
+ * files are encrypted with a key generated for the session. That key is only kept in memory, by this process, so that
+ * the continuation is not enough to read the files. A session whose files are gone or whose key is not known, for
+ * instance because it is resumed by another process, cannot be resumed, and the sort is started over.
+ * </p>
+ *
+ * <p>
+ * A session's key is kept for as long as its directory exists. It is dropped when the directory is deleted by this
+ * process and, for directories deleted some other way, when this process next looks for keys whose directory is gone,
+ * which {@link FileSortCursor#deleteExpiredSessions} does, as does starting a session, at most once a minute.
+ * </p>
+ *
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+@API(API.Status.INTERNAL)
+class FileSortSession<K, V> implements FileSortAdapter<K, V> {
+    @Nonnull
+    private final FileSortAdapter<K, V> adapter;
+    @Nonnull
+    private final String sessionId;
+    @Nonnull
+    private final File directory;
+    @Nullable
+    private final Key encryptionKey;
+
+    // The encryption keys of the sessions with a directory, by session id.
+    private static final Map<String, SessionKey> SESSION_KEYS = new ConcurrentHashMap<>();
+    private static final long SESSION_KEY_SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final AtomicLong NEXT_SESSION_KEY_SWEEP_MILLIS = new AtomicLong();
+
+    private FileSortSession(@Nonnull FileSortAdapter<K, V> adapter, @Nonnull File sessionDirectory,
+                            @Nonnull String sessionId, @Nullable Key encryptionKey) {
+        this.adapter = adapter;
+        this.sessionId = sessionId;
+        this.directory = new File(sessionDirectory, sessionId);
+        this.encryptionKey = encryptionKey;
+    }
+
+    /**
+     * Start a new session.
+     * @param adapter the adapter for the sort
+     * @param sessionDirectory the directory under which to keep the session's files
+     * @param <K> type of key
+     * @param <V> type of value
+     * @return a new session
+     */
+    @Nonnull
+    static <K, V> FileSortSession<K, V> start(@Nonnull FileSortAdapter<K, V> adapter, @Nonnull File sessionDirectory) {
+        final long now = System.currentTimeMillis();
+        final long nextSweep = NEXT_SESSION_KEY_SWEEP_MILLIS.get();
+        if (now >= nextSweep && NEXT_SESSION_KEY_SWEEP_MILLIS.compareAndSet(nextSweep, now + SESSION_KEY_SWEEP_INTERVAL_MILLIS)) {
+            dropDeletedSessionKeys();
+        }
+        Key encryptionKey = null;
+        final Key adapterKey = adapter.getEncryptionKey();
+        if (adapterKey != null && adapter.getEncryptionCipherName() != null) {
+            final SecureRandom secureRandom = adapter.getSecureRandom();
+            final byte[] keyBytes = new byte[adapterKey.getEncoded().length];
+            (secureRandom != null ? secureRandom : new SecureRandom()).nextBytes(keyBytes);
+            encryptionKey = new SecretKeySpec(keyBytes, adapterKey.getAlgorithm());
+        }
+        return new FileSortSession<>(adapter, sessionDirectory, UUID.randomUUID().toString(), encryptionKey);
+    }
+
+    /**
+     * Resume a session from a continuation. The session's encryption key is {@code null} if this process does not know
+     * it, in which case {@link #resolveFiles} does not find the files.
+     * @param adapter the adapter for the sort
+     * @param sessionDirectory the directory under which the session keeps its files
+     * @param sessionId the identifier of the session, from the continuation
+     * @param <K> type of key
+     * @param <V> type of value
+     * @return the resumed session
+     */
+    @Nonnull
+    static <K, V> FileSortSession<K, V> resume(@Nonnull FileSortAdapter<K, V> adapter, @Nonnull File sessionDirectory,
+                                               @Nonnull String sessionId) {
+        // The identifier names a directory, so only accept ones that this class could have generated.
+        boolean valid;
+        try {
+            valid = UUID.fromString(sessionId).toString().equals(sessionId);
+        } catch (IllegalArgumentException ex) {
+            valid = false;
+        }
+        if (!valid) {
+            throw new RecordCoreException("invalid continuation (malformed sort session id)")
+                    .addLogInfo(LogMessageKeys.SESSION_ID, sessionId);
+        }
+        final SessionKey sessionKey = SESSION_KEYS.get(sessionId);
+        final Key encryptionKey = sessionKey == null ? null : sessionKey.key;
+        if (encryptionKey != null && (adapter.getEncryptionKey() == null || adapter.getEncryptionCipherName() == null)) {
+            throw new RecordCoreException("invalid continuation (sort session is encrypted but sort is not)")
+                    .addLogInfo(LogMessageKeys.SESSION_ID, sessionId);
+        }
+        return new FileSortSession<>(adapter, sessionDirectory, sessionId, encryptionKey);
+    }
+
+    @Nonnull
+    String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Get the files of this session from the names saved in a continuation. Since the session is being used again,
+     * this also marks its directory as modified, so that {@link FileSortCursor#deleteExpiredSessions} keeps it.
+     * @param names the names of the files
+     * @return the files within this session's directory or {@code null} if any of them no longer exists or this
+     * process cannot decrypt them
+     */
+    @Nullable
+    List<File> resolveFiles(@Nonnull List<File> names) {
+        if (encryptionKey == null && adapter.getEncryptionKey() != null && adapter.getEncryptionCipherName() != null) {
+            return null;
+        }
+        final List<File> files = new ArrayList<>(names.size());
+        for (File name : names) {
+            final File file = new File(directory, name.getPath());
+            if (!file.getName().equals(name.getPath()) || name.getPath().startsWith(".")) {
+                throw new RecordCoreException("invalid continuation (sort file outside of session)")
+                        .addLogInfo(LogMessageKeys.SESSION_ID, sessionId);
+            }
+            if (!file.exists()) {
+                return null;
+            }
+            files.add(file);
+        }
+        if (!directory.setLastModified(System.currentTimeMillis())) {
+            return null;
+        }
+        return files;
+    }
+
+    /**
+     * Delete this session's directory, along with any files left in it.
+     * @throws IOException if something fails deleting the files
+     */
+    void delete() throws IOException {
+        deleteDirectory(directory);
+    }
+
+    /**
+     * Forget the keys of sessions whose directories no longer exist.
+     */
+    static void dropDeletedSessionKeys() {
+        SESSION_KEYS.values().removeIf(sessionKey -> !sessionKey.directory.exists());
+    }
+
+    static boolean hasSessionKey(@Nonnull String sessionId) {
+        return SESSION_KEYS.containsKey(sessionId);
+    }
+
+    static void deleteDirectory(@Nonnull File directory) throws IOException {
+        SESSION_KEYS.remove(directory.getName());
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Files.deleteIfExists(file.toPath());
+        }
+        Files.deleteIfExists(directory.toPath());
+    }
+
+    @Nonnull
+    @Override
+    public File generateFilename() throws IOException {
+        // Only make the directory once a file is needed, so that sorts that fit in memory leave nothing behind.
+        Files.createDirectories(directory.toPath());
+        if (encryptionKey != null) {
+            SESSION_KEYS.putIfAbsent(sessionId, new SessionKey(encryptionKey, directory));
+        }
+        return File.createTempFile("fdb", ".bin", directory);
+    }
+
+    @Nullable
+    @Override
+    public Key getEncryptionKey() {
+        return encryptionKey;
+    }
+
+    @Nullable
+    @Override
+    public File getSessionDirectory() {
+        return adapter.getSessionDirectory();
+    }
+
+    @Override
+    public int compare(K o1, K o2) {
+        return adapter.compare(o1, o2);
+    }
+
+    @Nonnull
+    @Override
+    public K generateKey(V value) {
+        return adapter.generateKey(value);
+    }
+
+    @Nonnull
+    @Override
+    public byte[] serializeKey(K key) {
+        return adapter.serializeKey(key);
+    }
+
+    @Override
+    public boolean isSerializedOrderReversed() {
+        return adapter.isSerializedOrderReversed();
+    }
+
+    @Nonnull
+    @Override
+    public K deserializeKey(@Nonnull byte[] key) {
+        return adapter.deserializeKey(key);
+    }
+
+    @Nonnull
+    @Override
+    public byte[] serializeValue(V value) {
+        return adapter.serializeValue(value);
+    }
+
+    @Nonnull
+    @Override
+    public V deserializeValue(@Nonnull byte[] value) {
+        return adapter.deserializeValue(value);
+    }
+
+    @Override
+    public int getMaxRecordCountInMemory() {
+        return adapter.getMaxRecordCountInMemory();
+    }
+
+    @Nonnull
+    @Override
+    public MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode() {
+        return adapter.getRecordCountInMemoryLimitMode();
+    }
+
+    @Override
+    public long getMaxBufferedBytesInMemory() {
+        return adapter.getMaxBufferedBytesInMemory();
+    }
+
+    @Override
+    public long estimateValueSize(@Nonnull V value) {
+        return adapter.estimateValueSize(value);
+    }
+
+    @Nonnull
+    @Override
+    public MemorySortComparator<K> getComparator(@Nullable K minimumKey) {
+        return adapter.getComparator(minimumKey);
+    }
+
+    @Override
+    public int getMetaDataVersion() {
+        return adapter.getMetaDataVersion();
+    }
+
+    @Override
+    public void writeValue(@Nonnull V value, @Nonnull CodedOutputStream stream) throws IOException {
+        adapter.writeValue(value, stream);
+    }
+
+    @Nonnull
+    @Override
+    public V readValue(@Nonnull CodedInputStream stream) throws IOException {
+        return adapter.readValue(stream);
+    }
+
+    @Override
+    public int getMinFileRecordCount() {
+        return adapter.getMinFileRecordCount();
+    }
+
+    @Override
+    public int getMaxFileCount() {
+        return adapter.getMaxFileCount();
+    }
+
+    @Override
+    public int getRecordCountPerSection() {
+        return adapter.getRecordCountPerSection();
+    }
+
+    @Override
+    public long getSortBufferBytes() {
+        return adapter.getSortBufferBytes();
+    }
+
+    @Override
+    public boolean isParallelFileSort() {
+        return adapter.isParallelFileSort();
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return adapter.isCompressed();
+    }
+
+    @Nullable
+    @Override
+    public String getEncryptionCipherName() {
+        return adapter.getEncryptionCipherName();
+    }
+
+    @Nullable
+    @Override
+    public SecureRandom getSecureRandom() {
+        return adapter.getSecureRandom();
+    }
+
+    private static final class SessionKey {
+        @Nonnull
+        private final Key key;
+        @Nonnull
+        private final File directory;
+
+        private SessionKey(@Nonnull Key key, @Nonnull File directory) {
+            this.key = key;
+            this.directory = directory;
+        }
+    }
+}
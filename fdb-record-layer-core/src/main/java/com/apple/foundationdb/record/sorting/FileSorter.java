@@ -56,6 +56,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.zip.DeflaterOutputStream;
@@ -78,12 +81,23 @@ import java.util.zip.InflaterInputStream;
  *
  * If the input set is small enough, it can remain in memory in the tree map
  * and can be returned directly from there.
+ *
+ * If the adapter gives a {@linkplain FileSortAdapter#getSortBufferBytes sort buffer size}, the subsets are instead
+ * collected as serialized keys and values in large pages and sorted by their serialized keys, so that the number
+ * of records in each file is bounded by their size rather than their number and they do not need to be kept as Java
+ * objects. In that case, loading that stops before the input is exhausted saves what it has collected to a file, so
+ * that only files need to be carried over to the next transaction.
+ *
+ * If the adapter enables {@linkplain FileSortAdapter#isParallelFileSort parallel file sorting}, each file is sorted
+ * and saved in the background while the records for the next one are loaded, and files are written and read with
+ * larger stream buffers.
  * @param <K> type of key
  * @param <V> type of value
  */
 @API(API.Status.EXPERIMENTAL)
 public class FileSorter<K, V>  {
     public static final int SORT_FILE_VERSION = 1;
+    private static final int PARALLEL_STREAM_BUFFER_SIZE = 1 << 16;
 
     @Nonnull
     private final MemorySorter<K, V> mapSorter;
@@ -95,6 +109,13 @@ public class FileSorter<K, V>  {
     private final Executor executor;
     @Nonnull
     private final List<File> files;
+    @Nullable
+    private SerializedSortBuffer sortBuffer;
+    // With parallel file sorting, the buffer being saved in the background, which is swapped with sortBuffer.
+    @Nullable
+    private SerializedSortBuffer spareSortBuffer;
+    @Nonnull
+    private CompletableFuture<Void> pendingSave;
 
     private LoadResult loadResult;
 
@@ -105,6 +126,14 @@ public class FileSorter<K, V>  {
         this.executor = executor;
         mapSorter = new MemorySorter<>(adapter, timer);
         files = new ArrayList<>();
+        sortBuffer = adapter.getSortBufferBytes() > 0 ? createSortBuffer() : null;
+        pendingSave = AsyncUtil.DONE;
+    }
+
+    @Nonnull
+    private SerializedSortBuffer createSortBuffer() {
+        return new SerializedSortBuffer((int)Math.min(adapter.getSortBufferBytes(), SerializedSortBuffer.DEFAULT_PAGE_SIZE),
+                adapter.isSerializedOrderReversed());
     }
 
     @Nonnull
@@ -154,38 +183,122 @@ public class FileSorter<K, V>  {
     }
 
     public CompletableFuture<LoadResult> load(@Nonnull RecordCursor<V> source) {
+        if (sortBuffer != null) {
+            return loadSerialized(source);
+        }
         loadResult = null;
         return AsyncUtil.whileTrue(() -> mapSorter.load(source, null).thenCompose(mapResult -> {
             if (mapResult.isFull()) {
-                return CompletableFuture.runAsync(() -> saveToNextFile(adapter.getMaxFileCount()), executor).thenApply(vignore -> true);
+                return saveToNextFileAsync(adapter.getMaxFileCount()).thenApply(vignore -> true);
             }
-            if (mapResult.getSourceNoNextReason().isOutOfBand()) {
-                loadResult = new LoadResult(false, false, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
-                return AsyncUtil.READY_FALSE;
-            } else if (files.isEmpty() && mapSorter.getMap().size() < adapter.getMinFileRecordCount()) {
-                loadResult = new LoadResult(true, true, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
-                return AsyncUtil.READY_FALSE;
-            } else {
-                loadResult = new LoadResult(true, false, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
-                // Save from memory and, if necessary, consolidate into a single file.
-                return CompletableFuture.runAsync(() -> saveToNextFile(1), executor).thenApply(vignore -> false);
+            // The files must include any still being saved in the background.
+            return pendingSave.thenCompose(vignore -> {
+                if (mapResult.getSourceNoNextReason().isOutOfBand()) {
+                    loadResult = new LoadResult(false, false, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
+                    return AsyncUtil.READY_FALSE;
+                } else if (files.isEmpty() && mapSorter.getMap().size() < adapter.getMinFileRecordCount()) {
+                    loadResult = new LoadResult(true, true, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
+                    return AsyncUtil.READY_FALSE;
+                } else {
+                    loadResult = new LoadResult(true, false, mapResult.getSourceContinuation(), mapResult.getSourceNoNextReason());
+                    // Save from memory and, if necessary, consolidate into a single file.
+                    return saveToNextFileNow(1).thenApply(vignore2 -> false);
+                }
+            });
+        }), executor).thenApply(vignore -> loadResult);
+    }
+
+    private CompletableFuture<LoadResult> loadSerialized(@Nonnull RecordCursor<V> source) {
+        loadResult = null;
+        // Values carried over in memory by a continuation from before the buffer was used.
+        for (V value : mapSorter.getMap().values()) {
+            addToBuffer(value);
+        }
+        mapSorter.getMap().clear();
+        final long maxBytes = adapter.getSortBufferBytes();
+        return AsyncUtil.whileTrue(() -> source.onNext().thenCompose(sourceResult -> {
+            if (sourceResult.hasNext()) {
+                final long startTime = System.nanoTime();
+                final SerializedSortBuffer buffer = addToBuffer(sourceResult.get());
+                if (timer != null) {
+                    timer.recordSinceNanoTime(SortEvents.Events.MEMORY_SORT_STORE_RECORD, startTime);
+                }
+                if (buffer.getBytes() >= maxBytes) {
+                    return saveToNextFileAsync(adapter.getMaxFileCount()).thenApply(vignore -> true);
+                }
+                return AsyncUtil.READY_TRUE;
             }
+            // The files must include any still being saved in the background.
+            return pendingSave.thenCompose(vignore -> {
+                final SerializedSortBuffer buffer = Objects.requireNonNull(sortBuffer);
+                if (sourceResult.getNoNextReason().isOutOfBand()) {
+                    loadResult = new LoadResult(false, false, sourceResult.getContinuation(), sourceResult.getNoNextReason());
+                    // Save what has been collected, so that the continuation only needs to refer to files.
+                    return saveToNextFileNow(adapter.getMaxFileCount()).thenApply(vignore2 -> false);
+                } else if (files.isEmpty() && buffer.size() < adapter.getMinFileRecordCount()) {
+                    loadResult = new LoadResult(true, true, sourceResult.getContinuation(), sourceResult.getNoNextReason());
+                    buffer.sort();
+                    for (int i = 0; i < buffer.size(); i++) {
+                        mapSorter.addValue(adapter.deserializeValue(buffer.getValue(i)));
+                    }
+                    buffer.release();
+                    return AsyncUtil.READY_FALSE;
+                } else {
+                    loadResult = new LoadResult(true, false, sourceResult.getContinuation(), sourceResult.getNoNextReason());
+                    // Save from memory and, if necessary, consolidate into a single file.
+                    return saveToNextFileNow(1).thenApply(vignore2 -> false);
+                }
+            });
         }), executor).thenApply(vignore -> loadResult);
     }
 
+    @Nonnull
+    private SerializedSortBuffer addToBuffer(@Nonnull V value) {
+        final SerializedSortBuffer buffer = Objects.requireNonNull(sortBuffer);
+        buffer.add(adapter.serializeKey(adapter.generateKey(value)), adapter.serializeValue(value));
+        return buffer;
+    }
+
+    /**
+     * Save the records in memory to the next file. With parallel file sorting, they are instead handed off to be
+     * saved in the background, once any previous file has been saved, and loading can continue as soon as that is done.
+     * @param maxNumFiles the number of files above which to merge them into one
+     * @return a future that completes when loading can continue
+     */
+    private CompletableFuture<Void> saveToNextFileAsync(int maxNumFiles) {
+        if (!adapter.isParallelFileSort()) {
+            return saveToNextFileNow(maxNumFiles);
+        }
+        // Only one file is saved at a time, so that merges happen in order.
+        return pendingSave.thenRun(() -> {
+            final NavigableMap<K, V> map = new TreeMap<>(mapSorter.getMap());
+            mapSorter.getMap().clear();
+            final SerializedSortBuffer buffer = sortBuffer;
+            if (buffer != null) {
+                sortBuffer = spareSortBuffer != null ? spareSortBuffer : createSortBuffer();
+                spareSortBuffer = buffer;
+            }
+            pendingSave = CompletableFuture.runAsync(() -> saveToNextFile(map, buffer, maxNumFiles), executor);
+        });
+    }
+
+    private CompletableFuture<Void> saveToNextFileNow(int maxNumFiles) {
+        return CompletableFuture.runAsync(() -> saveToNextFile(mapSorter.getMap(), sortBuffer, maxNumFiles), executor);
+    }
+
     @SuppressWarnings({"PMD.CompareObjectsWithEquals", "PMD.CloseResource"})
-    private void saveToNextFile(int maxNumFiles) {
+    private void saveToNextFile(@Nonnull Map<K, V> map, @Nullable SerializedSortBuffer buffer, int maxNumFiles) {
         final long startTime = System.nanoTime();
         final boolean compress = adapter.isCompressed();
         final java.security.Key encryptionKey = adapter.getEncryptionKey();
         Cipher cipher = null;
-        if (!mapSorter.getMap().isEmpty()) {
+        if (!map.isEmpty() || (buffer != null && buffer.size() > 0)) {
             File file;
             try {
                 file = adapter.generateFilename();
                 try (FileOutputStream fileStream = new FileOutputStream(file)) {
                     final FileChannel fileChannel = fileStream.getChannel();
-                    final CodedOutputStream headerStream = CodedOutputStream.newInstance(fileStream);
+                    final CodedOutputStream headerStream = CodedOutputStream.newInstance(fileStream, getStreamBufferSize(adapter));
                     // To stay the same size, field existence must not change.
                     final RecordSortingProto.SortFileHeader.Builder fileHeader = RecordSortingProto.SortFileHeader.newBuilder()
                             .setVersion(SORT_FILE_VERSION)
@@ -210,7 +323,7 @@ public class FileSorter<K, V>  {
                     if (compress || cipher != null) {
                         headerStream.flush();
                         outputStream = wrapOutputStream(fileStream, cipher, compress);
-                        entryStream = CodedOutputStream.newInstance(outputStream);
+                        entryStream = CodedOutputStream.newInstance(outputStream, getStreamBufferSize(adapter));
                     } else {
                         outputStream = fileStream;
                         entryStream = headerStream;
@@ -219,13 +332,29 @@ public class FileSorter<K, V>  {
                         timer.recordSinceNanoTime(SortEvents.Events.FILE_SORT_OPEN_FILE, startTime);
                     }
                     int numberOfRecords = 0;
-                    for (Map.Entry<K, V> keyAndValue : mapSorter.getMap().entrySet()) {
-                        final long recordStartTime = System.nanoTime();
-                        entryStream.writeByteArrayNoTag(adapter.serializeKey(keyAndValue.getKey()));
-                        adapter.writeValue(keyAndValue.getValue(), entryStream);
-                        numberOfRecords++;
+                    if (buffer != null) {
+                        final long sortStartTime = System.nanoTime();
+                        buffer.sort();
                         if (timer != null) {
-                            timer.recordSinceNanoTime(SortEvents.Events.FILE_SORT_SAVE_RECORD, recordStartTime);
+                            timer.recordSinceNanoTime(SortEvents.Events.FILE_SORT_SORT_BUFFER, sortStartTime);
+                        }
+                        for (int i = 0; i < buffer.size(); i++) {
+                            final long recordStartTime = System.nanoTime();
+                            buffer.writeEntry(i, entryStream);
+                            numberOfRecords++;
+                            if (timer != null) {
+                                timer.recordSinceNanoTime(SortEvents.Events.FILE_SORT_SAVE_RECORD, recordStartTime);
+                            }
+                        }
+                    } else {
+                        for (Map.Entry<K, V> keyAndValue : map.entrySet()) {
+                            final long recordStartTime = System.nanoTime();
+                            entryStream.writeByteArrayNoTag(adapter.serializeKey(keyAndValue.getKey()));
+                            adapter.writeValue(keyAndValue.getValue(), entryStream);
+                            numberOfRecords++;
+                            if (timer != null) {
+                                timer.recordSinceNanoTime(SortEvents.Events.FILE_SORT_SAVE_RECORD, recordStartTime);
+                            }
                         }
                     }
                     entryStream.flush();
@@ -255,7 +384,10 @@ public class FileSorter<K, V>  {
                 }
             }
             files.add(file);
-            mapSorter.getMap().clear();
+            map.clear();
+            if (buffer != null) {
+                buffer.clear();
+            }
         }
         if (files.size() > maxNumFiles) {
             File file;
@@ -270,6 +402,10 @@ public class FileSorter<K, V>  {
         }
     }
 
+    static int getStreamBufferSize(@Nonnull FileSortAdapter<?, ?> adapter) {
+        return adapter.isParallelFileSort() ? PARALLEL_STREAM_BUFFER_SIZE : CodedOutputStream.DEFAULT_BUFFER_SIZE;
+    }
+
     static void initCipherEncrypt(@Nonnull Cipher cipher,
                                   @Nonnull java.security.Key encryptionKey,
                                   @Nonnull SecureRandom secureRandom,
@@ -335,6 +471,7 @@ public class FileSorter<K, V>  {
         final File file;
         @Nonnull
         final FileInputStream fileStream;
+        final int bufferSize;
         @Nonnull
         CodedInputStream headerStream;
         @Nonnull
@@ -359,10 +496,12 @@ public class FileSorter<K, V>  {
         public InputState(@Nonnull File file, @Nonnull FileSortAdapter<?, ?> adapter) throws IOException, GeneralSecurityException {
             this.file = file;
             fileStream = new FileInputStream(file);
-            headerStream = CodedInputStream.newInstance(fileStream);
-            entryStream = headerStream;
             compressed = adapter.isCompressed();
             encryptionKey = adapter.getEncryptionKey();
+            // The whole file is read in order, so a larger buffer means fewer reads, as when writing.
+            bufferSize = getStreamBufferSize(adapter);
+            headerStream = CodedInputStream.newInstance(fileStream, bufferSize);
+            entryStream = headerStream;
             final String cipherName = adapter.getEncryptionCipherName();
             if (encryptionKey != null && cipherName != null) {
                 cipher = CipherPool.borrowCipher(cipherName);
@@ -393,7 +532,7 @@ public class FileSorter<K, V>  {
                     fileChannel = fileStream.getChannel();
                     if (recordPosition > 0) {
                         fileChannel.position(sectionFilePosition);
-                        headerStream = CodedInputStream.newInstance(fileStream);
+                        headerStream = CodedInputStream.newInstance(fileStream, bufferSize);
                     }
                 } else {
                     fileChannel = null;
@@ -409,7 +548,7 @@ public class FileSorter<K, V>  {
                         initCipherDecrypt(cipher, encryptionKey, builder);
                     }
                     InputStream inputStream = wrapInputStream(fileStream, cipher, compressed);
-                    entryStream = CodedInputStream.newInstance(inputStream);
+                    entryStream = CodedInputStream.newInstance(inputStream, bufferSize);
                 }
             }
             key = entryStream.readByteArray();
@@ -430,6 +569,7 @@ public class FileSorter<K, V>  {
         @Nonnull
         final File file;
         final int recordsPerSection;
+        final int bufferSize;
         @Nonnull
         final FileOutputStream fileStream;
         @Nonnull
@@ -464,7 +604,8 @@ public class FileSorter<K, V>  {
             fileStream = new FileOutputStream(file);
             outputStream = fileStream;
             fileChannel = fileStream.getChannel();
-            headerStream = CodedOutputStream.newInstance(fileStream);
+            bufferSize = getStreamBufferSize(adapter);
+            headerStream = CodedOutputStream.newInstance(fileStream, bufferSize);
             entryStream = headerStream;
             compress = adapter.isCompressed();
             encryptionKey = adapter.getEncryptionKey();
@@ -538,7 +679,7 @@ public class FileSorter<K, V>  {
             if (compress || cipher != null) {
                 headerStream.flush();
                 outputStream = wrapOutputStream(fileStream, cipher, compress);
-                entryStream = CodedOutputStream.newInstance(outputStream);
+                entryStream = CodedOutputStream.newInstance(outputStream, bufferSize);
             }
         }
 
@@ -559,6 +700,78 @@ public class FileSorter<K, V>  {
         }
     }
 
+    /**
+     * A tournament tree of losers for merging the inputs, which finds the next smallest key with one comparison per
+     * level of the tree instead of one per input. Ties go to the earliest input, and exhausted inputs lose to all
+     * others.
+     */
+    private static class MergeTree {
+        @Nonnull
+        private final List<InputState> inputs;
+        private final boolean reversed;
+        // tree[0] is the index of the input with the smallest key; the others hold the loser at each internal node,
+        // whose children are at 2n and 2n + 1, with input i as the leaf at inputs.size() + i.
+        @Nonnull
+        private final int[] tree;
+
+        MergeTree(@Nonnull List<InputState> inputs, boolean reversed) {
+            this.inputs = inputs;
+            this.reversed = reversed;
+            final int size = inputs.size();
+            this.tree = new int[Math.max(size, 1)];
+            final int[] winners = new int[2 * size];
+            for (int i = 0; i < size; i++) {
+                winners[size + i] = i;
+            }
+            for (int node = size - 1; node >= 1; node--) {
+                final int left = winners[2 * node];
+                final int right = winners[2 * node + 1];
+                if (beats(left, right)) {
+                    winners[node] = left;
+                    tree[node] = right;
+                } else {
+                    winners[node] = right;
+                    tree[node] = left;
+                }
+            }
+            tree[0] = size > 1 ? winners[1] : 0;
+        }
+
+        @Nullable
+        InputState getMin() {
+            if (inputs.isEmpty()) {
+                return null;
+            }
+            final InputState min = inputs.get(tree[0]);
+            return min.key == null ? null : min;
+        }
+
+        /**
+         * Restore the tree after the input with the smallest key has advanced.
+         */
+        void replay() {
+            int winner = tree[0];
+            for (int node = (inputs.size() + winner) / 2; node >= 1; node /= 2) {
+                if (beats(tree[node], winner)) {
+                    final int loser = winner;
+                    winner = tree[node];
+                    tree[node] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int index1, int index2) {
+            final byte[] key1 = inputs.get(index1).key;
+            final byte[] key2 = inputs.get(index2).key;
+            if (key1 == null || key2 == null) {
+                return key2 == null && (key1 != null || index1 < index2);
+            }
+            final int comp = reversed ? ByteArrayUtil.compareUnsigned(key2, key1) : ByteArrayUtil.compareUnsigned(key1, key2);
+            return comp < 0 || (comp == 0 && index1 < index2);
+        }
+    }
+
     // TODO: If there were a limit on the total number of records saved, then each file could be limited to
     // that number and merge could stop when it is reached.
     @SuppressWarnings({"PMD.EmptyCatchBlock", "PMD.CloseResource", "PMD.UseTryWithResources"})
@@ -574,27 +787,15 @@ public class FileSorter<K, V>  {
                 input.next();
             }
             output = new OutputState(outputFile, adapter);
+            final MergeTree mergeTree = new MergeTree(inputs, adapter.isSerializedOrderReversed());
             while (true) {
-                InputState minState = null;
-                for (InputState input : inputs) {
-                    if (input.key != null) {
-                        if (minState == null) {
-                            minState = input;
-                        } else {
-                            int comp = adapter.isSerializedOrderReversed() ?
-                                       ByteArrayUtil.compareUnsigned(input.key, minState.key) :
-                                       ByteArrayUtil.compareUnsigned(minState.key, input.key);
-                            if (comp > 0) {
-                                minState = input;
-                            }
-                        }
-                    }
-                }
+                final InputState minState = mergeTree.getMin();
                 if (minState == null) {
                     break;
                 }
                 output.next(minState.key, minState.value);
                 minState.next();
+                mergeTree.replay();
             }
             output.finish();
             output.close();
@@ -630,7 +831,29 @@ public class FileSorter<K, V>  {
         }
     }
 
+    @SuppressWarnings("PMD.EmptyCatchBlock")
     public void deleteFiles() throws IOException {
+        if (!pendingSave.isDone()) {
+            // A file is still being saved in the background, so delete the files once it has been.
+            pendingSave.whenComplete((vignore, err) -> {
+                try {
+                    deleteFilesNow();
+                } catch (IOException ex) {
+                    // swallow cleanup error
+                }
+            });
+            return;
+        }
+        deleteFilesNow();
+    }
+
+    private void deleteFilesNow() throws IOException {
+        if (sortBuffer != null) {
+            sortBuffer.release();
+        }
+        if (spareSortBuffer != null) {
+            spareSortBuffer.release();
+        }
         for (File file : files) {
             deleteFile(file);
         }
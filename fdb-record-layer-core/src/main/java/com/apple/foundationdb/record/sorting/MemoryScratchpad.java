@@ -147,7 +147,7 @@ public abstract class MemoryScratchpad<K, V, M extends Map<K, V>> {
                     addKeyValue(key, value);
                 }
 
-                if (map.size() <= adapter.getMaxRecordCountInMemory()) {
+                if (size() <= adapter.getMaxRecordCountInMemory()) {
                     return true;
                 }
                 switch (adapter.getRecordCountInMemoryLimitMode()) {
@@ -169,6 +169,15 @@ public abstract class MemoryScratchpad<K, V, M extends Map<K, V>> {
         }), source.getExecutor()).thenApply(vignore -> loadResult);
     }
 
+    /**
+     * Get the number of values held, for comparison with {@link MemorySortAdapter#getMaxRecordCountInMemory} while
+     * loading.
+     * @return the number of values held
+     */
+    protected int size() {
+        return map.size();
+    }
+
     public abstract void removeLast(@Nonnull K currentKey);
 
     @Nonnull
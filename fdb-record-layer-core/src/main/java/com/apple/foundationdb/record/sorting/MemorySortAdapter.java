@@ -95,6 +95,26 @@ public interface MemorySortAdapter<K, V> extends Comparator<K> {
      */
     @Nonnull
     MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode();
+
+    /**
+     * Get the maximum total size of the values that {@link MemoryTopKSorter} buffers before cutting its buffer back
+     * to {@link #getMaxRecordCountInMemory} values. The values retained after that are not counted.
+     * @return the maximum size in bytes, as given by {@link #estimateValueSize}, or {@code 0} to only limit the
+     * number of values buffered
+     */
+    default long getMaxBufferedBytesInMemory() {
+        return 0L;
+    }
+
+    /**
+     * Estimate the number of bytes of memory taken by a value held in memory.
+     * @param value the value
+     * @return the estimated size of {@code value} in bytes
+     * @see #getMaxBufferedBytesInMemory
+     */
+    default long estimateValueSize(@Nonnull V value) {
+        return 0L;
+    }
     
     @Nonnull
     MemorySortComparator<K> getComparator(@Nullable K minimumKey);
@@ -161,6 +161,25 @@ public class MemorySortCursor<K, V> implements RecordCursor<V> {
         return create(adapter, inputCursorFunction, timer, MemorySorter::new, continuation);
     }
 
+    /**
+     * Create a cursor that returns only the values with the smallest keys, using a {@link MemoryTopKSorter}, which
+     * is faster than {@link #createSort} when the input is much larger than {@link MemorySortAdapter#getMaxRecordCountInMemory}.
+     * @param adapter the adapter, which must discard values beyond the limit
+     * @param inputCursorFunction a function to create the input cursor from its continuation
+     * @param timer the timer to record events with
+     * @param continuation the continuation from a previous sort cursor or {@code null} to start at the beginning
+     * @param <K> type of key
+     * @param <V> type of value
+     * @return a new cursor returning the sorted values
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public static <K, V> MemorySortCursor<K, V> createTopK(@Nonnull MemorySortAdapter<K, V> adapter,
+                                                           @Nonnull Function<byte[], RecordCursor<V>> inputCursorFunction,
+                                                           @Nullable StoreTimer timer,
+                                                           @Nullable byte[] continuation) {
+        return create(adapter, inputCursorFunction, timer, MemoryTopKSorter::new, continuation);
+    }
+
     @SuppressWarnings("PMD.CloseResource")
     public static <K, V> MemorySortCursor<K, V> createDam(@Nonnull MemorySortAdapter<K, V> adapter,
                                                           @Nonnull Function<byte[], RecordCursor<V>> inputCursorFunction,
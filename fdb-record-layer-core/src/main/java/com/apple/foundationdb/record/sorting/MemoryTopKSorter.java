@@ -0,0 +1,194 @@
+/*
+ * MemoryTopKSorter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.sorting;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Collect only the keyed values with the smallest keys, up to {@link MemorySortAdapter#getMaxRecordCountInMemory},
+ * so that they end up sorted.
+ *
+ * <p>
+ * {@link MemorySorter} puts every value into a {@link TreeMap} and then removes the greatest entry once the map is
+ * full, so reading a large input to return only its first few values in order pays for a tree insertion and removal
+ * for each one. This instead appends values to a buffer, which is sorted and cut back to the limit whenever as many
+ * values again as the limit have been added to it or, if the adapter gives one, more than
+ * {@link MemorySortAdapter#getMaxBufferedBytesInMemory} bytes of values have been added to it since the last time. Once the limit has been reached, any value with a key greater than the
+ * greatest retained key is rejected with a single comparison, without being buffered at all. The sorted map is only
+ * built when it is needed, which is usually once, after all the values have been loaded.
+ * </p>
+ *
+ * <p>
+ * As with {@link MemorySorter}, when more than one value has the same key, the one added last is kept. Only
+ * {@link MemoryScratchpad.RecordCountInMemoryLimitMode#DISCARD} is supported.
+ * </p>
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+@API(API.Status.EXPERIMENTAL)
+public class MemoryTopKSorter<K, V> extends MemoryScratchpad<K, V, NavigableMap<K, V>> {
+    private static final int MAX_INITIAL_BUFFER_CAPACITY = 1024;
+
+    private final int limit;
+    private final long maxBufferedBytes;
+    @Nonnull
+    private final Comparator<Entry<K, V>> entryComparator;
+    @Nonnull
+    private final List<Entry<K, V>> buffer;
+    @Nullable
+    private final StoreTimer timer;
+    // The number of entries at the start of the buffer that are sorted, have distinct keys, and are within the limit.
+    private int compactedCount;
+    private long bufferedBytes;
+    // Once the limit has been reached, the greatest retained key; no greater key can be among the smallest.
+    @Nullable
+    private K bound;
+    // Whether the buffer has changed since the map was built from it.
+    private boolean mapStale;
+
+    public MemoryTopKSorter(@Nonnull final MemorySortAdapter<K, V> adapter, @Nullable final StoreTimer timer) {
+        super(adapter, new TreeMap<>(adapter), timer);
+        if (adapter.getRecordCountInMemoryLimitMode() != RecordCountInMemoryLimitMode.DISCARD) {
+            throw new RecordCoreArgumentException("top-k sort only supports discarding values beyond the limit")
+                    .addLogInfo(LogMessageKeys.VALUE, adapter.getRecordCountInMemoryLimitMode());
+        }
+        this.limit = adapter.getMaxRecordCountInMemory();
+        if (limit <= 0) {
+            throw new RecordCoreArgumentException("top-k sort requires a positive record count limit")
+                    .addLogInfo(LogMessageKeys.VALUE, limit);
+        }
+        this.maxBufferedBytes = adapter.getMaxBufferedBytesInMemory();
+        this.entryComparator = (entry1, entry2) -> adapter.compare(entry1.key, entry2.key);
+        this.buffer = new ArrayList<>(Math.min(limit, MAX_INITIAL_BUFFER_CAPACITY));
+        this.timer = timer;
+    }
+
+    @Override
+    public void addKeyValue(K key, V value) {
+        if (bound != null && getAdapter().compare(key, bound) > 0) {
+            return;
+        }
+        buffer.add(new Entry<>(key, value));
+        mapStale = true;
+        if (maxBufferedBytes > 0) {
+            bufferedBytes += getAdapter().estimateValueSize(value);
+        }
+        if (buffer.size() - compactedCount >= limit || (maxBufferedBytes > 0 && bufferedBytes > maxBufferedBytes)) {
+            compact();
+        }
+    }
+
+    /**
+     * Sort the buffer, keeping only the last value added for each key, and cut it back to the limit.
+     */
+    private void compact() {
+        if (buffer.size() == compactedCount) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        // The sort is stable, so that values with the same key stay in the order they were added.
+        buffer.sort(entryComparator);
+        int count = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            final Entry<K, V> entry = buffer.get(i);
+            if (count > 0 && entryComparator.compare(buffer.get(count - 1), entry) == 0) {
+                buffer.set(count - 1, entry);
+            } else {
+                buffer.set(count++, entry);
+            }
+        }
+        if (count > limit) {
+            count = limit;
+        }
+        buffer.subList(count, buffer.size()).clear();
+        compactedCount = count;
+        bufferedBytes = 0;
+        if (count == limit) {
+            bound = buffer.get(count - 1).key;
+        }
+        if (timer != null) {
+            timer.recordSinceNanoTime(SortEvents.Events.MEMORY_SORT_TOP_K_COMPACT, startTime);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public NavigableMap<K, V> getMap() {
+        final NavigableMap<K, V> map = super.getMap();
+        if (mapStale) {
+            compact();
+            map.clear();
+            for (Entry<K, V> entry : buffer) {
+                map.put(entry.key, entry.value);
+            }
+            mapStale = false;
+        }
+        return map;
+    }
+
+    @Override
+    protected int size() {
+        // Values beyond the limit are already discarded as they are added.
+        return Math.min(buffer.size(), limit);
+    }
+
+    @Override
+    public void removeLast(@Nonnull final K currentKey) {
+        compact();
+        if (!buffer.isEmpty()) {
+            buffer.remove(buffer.size() - 1);
+            compactedCount--;
+            if (!buffer.isEmpty()) {
+                bound = buffer.get(buffer.size() - 1).key;
+            }
+            mapStale = true;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Collection<V> tailValues(@Nullable final K minimumKey) {
+        return getMap().tailMap(minimumKey, false).values();
+    }
+
+    private static final class Entry<K, V> {
+        @Nonnull
+        private final K key;
+        private final V value;
+
+        private Entry(@Nonnull K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
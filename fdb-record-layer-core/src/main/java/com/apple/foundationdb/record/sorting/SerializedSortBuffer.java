@@ -0,0 +1,315 @@
+/*
+ * SerializedSortBuffer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.sorting;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.google.protobuf.CodedOutputStream;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collect serialized keys and values in large {@link ByteBuffer} pages and sort them by the unsigned byte order of
+ * their keys.
+ *
+ * <p>
+ * Each entry is stored contiguously in a page as the lengths of the key and the value followed by their bytes. An
+ * index of the page and offset of each entry, packed into a {@code long}, is what gets sorted, so the only Java objects
+ * that grow with the number of entries are the pages and the index arrays. The pages are heap buffers, so that they are
+ * reclaimed like any other garbage once the buffer is released, and they are kept when the buffer is cleared, so that
+ * they can be reused for the next batch of entries. Entries too large for a page share a single overflow page, which
+ * grows as needed and is also kept for reuse.
+ * </p>
+ *
+ * <p>
+ * As with {@link MemorySorter}, when more than one entry has the same key, only the one added last is kept by
+ * {@link #sort}.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+class SerializedSortBuffer {
+    /**
+     * The default size of each page.
+     */
+    static final int DEFAULT_PAGE_SIZE = 1 << 20;
+    private static final int ENTRY_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final int pageSize;
+    private final boolean reversed;
+    @Nonnull
+    private final List<ByteBuffer> pages;
+    private int currentPage;
+    private int currentOffset;
+    // The page for entries that are larger than pageSize, if there has been one, and the end of what is in it.
+    private int overflowPage;
+    private int overflowOffset;
+    @Nonnull
+    private long[] index;
+    private int count;
+    private long bytes;
+
+    /**
+     * Create a new buffer.
+     * @param pageSize the size of each page in bytes
+     * @param reversed whether entries should be sorted in the reverse of the unsigned byte order of their keys
+     */
+    SerializedSortBuffer(int pageSize, boolean reversed) {
+        if (pageSize <= ENTRY_HEADER_SIZE) {
+            throw new RecordCoreArgumentException("sort buffer page size is too small")
+                    .addLogInfo(LogMessageKeys.VALUE, pageSize);
+        }
+        this.pageSize = pageSize;
+        this.reversed = reversed;
+        this.pages = new ArrayList<>();
+        this.currentPage = -1;
+        this.overflowPage = -1;
+        this.index = new long[INITIAL_INDEX_CAPACITY];
+    }
+
+    /**
+     * Get the number of entries in the buffer.
+     * @return the number of entries
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Get the number of bytes taken by the entries in the buffer, not counting the index.
+     * @return the size of the entries in bytes
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Add an entry to the buffer.
+     * @param key the serialized key
+     * @param value the serialized value
+     */
+    void add(@Nonnull byte[] key, @Nonnull byte[] value) {
+        final int entrySize = ENTRY_HEADER_SIZE + key.length + value.length;
+        final int page;
+        final int offset;
+        if (entrySize > pageSize) {
+            reserveOverflow(entrySize);
+            page = overflowPage;
+            offset = overflowOffset;
+            overflowOffset += entrySize;
+        } else {
+            if (currentPage < 0 || currentOffset + entrySize > pageSize) {
+                nextPage();
+            }
+            page = currentPage;
+            offset = currentOffset;
+            currentOffset += entrySize;
+        }
+        final ByteBuffer buffer = pages.get(page).duplicate();
+        buffer.position(offset);
+        buffer.putInt(key.length);
+        buffer.putInt(value.length);
+        buffer.put(key);
+        buffer.put(value);
+        if (count == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[count++] = ((long)page << 32) | offset;
+        bytes += entrySize;
+    }
+
+    private void nextPage() {
+        // Pages after the current one are pooled pages that have not been written yet, apart from the overflow page.
+        for (int i = currentPage + 1; i < pages.size(); i++) {
+            if (i != overflowPage) {
+                currentPage = i;
+                currentOffset = 0;
+                return;
+            }
+        }
+        pages.add(ByteBuffer.allocate(pageSize));
+        currentPage = pages.size() - 1;
+        currentOffset = 0;
+    }
+
+    private void reserveOverflow(int entrySize) {
+        if (overflowPage < 0) {
+            pages.add(ByteBuffer.allocate(Math.max(entrySize, 2 * pageSize)));
+            overflowPage = pages.size() - 1;
+            overflowOffset = 0;
+            return;
+        }
+        final ByteBuffer current = pages.get(overflowPage);
+        final long needed = (long)overflowOffset + entrySize;
+        if (needed > current.capacity()) {
+            // Entries already in the overflow page keep their offsets in the larger copy.
+            final int capacity = (int)Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * current.capacity()));
+            if (needed > capacity) {
+                throw new RecordCoreArgumentException("sort buffer entries too large")
+                        .addLogInfo(LogMessageKeys.VALUE, needed);
+            }
+            final ByteBuffer larger = ByteBuffer.allocate(capacity);
+            System.arraycopy(current.array(), 0, larger.array(), 0, overflowOffset);
+            pages.set(overflowPage, larger);
+        }
+    }
+
+    /**
+     * Sort the entries by key, keeping only the last entry added for each key.
+     */
+    void sort() {
+        if (count > 1) {
+            mergeSort();
+        }
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct > 0 && compareKeys(index[distinct - 1], index[i]) == 0) {
+                index[distinct - 1] = index[i];
+            } else {
+                index[distinct++] = index[i];
+            }
+        }
+        count = distinct;
+    }
+
+    // A bottom-up merge sort, which, unlike sorting a primitive array with Arrays.sort, is stable, so that
+    // entries with the same key stay in the order they were added.
+    private void mergeSort() {
+        long[] from = index;
+        long[] to = new long[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int low = 0; low < count; low += 2 * width) {
+                final int middle = Math.min(low + width, count);
+                final int high = Math.min(low + 2 * width, count);
+                int left = low;
+                int right = middle;
+                for (int i = low; i < high; i++) {
+                    if (left < middle && (right >= high || compareKeys(from[left], from[right]) <= 0)) {
+                        to[i] = from[left++];
+                    } else {
+                        to[i] = from[right++];
+                    }
+                }
+            }
+            final long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != index) {
+            System.arraycopy(from, 0, index, 0, count);
+        }
+    }
+
+    private int compareKeys(long entry1, long entry2) {
+        final ByteBuffer page1 = pages.get(pageOf(entry1));
+        final ByteBuffer page2 = pages.get(pageOf(entry2));
+        final int offset1 = offsetOf(entry1);
+        final int offset2 = offsetOf(entry2);
+        final int length1 = page1.getInt(offset1);
+        final int length2 = page2.getInt(offset2);
+        final int start1 = offset1 + ENTRY_HEADER_SIZE;
+        final int start2 = offset2 + ENTRY_HEADER_SIZE;
+        final int length = Math.min(length1, length2);
+        int comp = 0;
+        for (int i = 0; i < length && comp == 0; i++) {
+            comp = Integer.compare(Byte.toUnsignedInt(page1.get(start1 + i)), Byte.toUnsignedInt(page2.get(start2 + i)));
+        }
+        if (comp == 0) {
+            comp = Integer.compare(length1, length2);
+        }
+        return reversed ? -comp : comp;
+    }
+
+    private static int pageOf(long entry) {
+        return (int)(entry >>> 32);
+    }
+
+    private static int offsetOf(long entry) {
+        return (int)entry;
+    }
+
+    /**
+     * Get the serialized value of an entry.
+     * @param position the position of the entry, which is in key order after {@link #sort}
+     * @return a copy of the value's bytes
+     */
+    @Nonnull
+    byte[] getValue(int position) {
+        final long entry = index[position];
+        final ByteBuffer buffer = pages.get(pageOf(entry)).duplicate();
+        buffer.position(offsetOf(entry));
+        final int keyLength = buffer.getInt();
+        final int valueLength = buffer.getInt();
+        buffer.position(buffer.position() + keyLength);
+        final byte[] value = new byte[valueLength];
+        buffer.get(value);
+        return value;
+    }
+
+    /**
+     * Write an entry to a stream, in the same form as {@link FileSorter} writes entries to its files: the key
+     * and then the value, each preceded by its length.
+     * @param position the position of the entry, which is in key order after {@link #sort}
+     * @param stream the destination stream
+     * @throws IOException if something fails writing to the stream
+     */
+    void writeEntry(int position, @Nonnull CodedOutputStream stream) throws IOException {
+        final long entry = index[position];
+        final ByteBuffer buffer = pages.get(pageOf(entry)).duplicate();
+        final int offset = offsetOf(entry);
+        final int keyLength = buffer.getInt(offset);
+        final int valueLength = buffer.getInt(offset + Integer.BYTES);
+        final int keyStart = offset + ENTRY_HEADER_SIZE;
+        stream.writeUInt32NoTag(keyLength);
+        buffer.limit(keyStart + keyLength).position(keyStart);
+        stream.write(buffer);
+        stream.writeUInt32NoTag(valueLength);
+        buffer.limit(keyStart + keyLength + valueLength).position(keyStart + keyLength);
+        stream.write(buffer);
+    }
+
+    /**
+     * Remove all the entries, keeping the pages for reuse.
+     */
+    void clear() {
+        currentPage = -1;
+        currentOffset = 0;
+        overflowOffset = 0;
+        count = 0;
+        bytes = 0;
+    }
+
+    /**
+     * Remove all the entries and release the pages.
+     */
+    void release() {
+        clear();
+        pages.clear();
+        overflowPage = -1;
+        index = new long[INITIAL_INDEX_CAPACITY];
+    }
+}
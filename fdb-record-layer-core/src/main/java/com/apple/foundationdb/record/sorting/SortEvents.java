@@ -40,7 +40,9 @@ public class SortEvents {
     public enum Events implements StoreTimer.Event {
         MEMORY_SORT_STORE_RECORD("memory sort store record"),
         MEMORY_SORT_LOAD_RECORD("memory sort load record"),
+        MEMORY_SORT_TOP_K_COMPACT("memory sort top-k compact"),
         FILE_SORT_OPEN_FILE("file sort open file"),
+        FILE_SORT_SORT_BUFFER("file sort sort buffer"),
         FILE_SORT_SAVE_RECORD("file sort save record"),
         FILE_SORT_MERGE_FILES("file sort merge files"),
         FILE_SORT_SKIP_SECTION("file sort skip section"),
@@ -75,7 +77,8 @@ public class SortEvents {
      * Instrumentation counts related to sorting.
      */
     public enum Counts implements StoreTimer.Count {
-        FILE_SORT_FILE_BYTES("file sort file bytes", true);
+        FILE_SORT_FILE_BYTES("file sort file bytes", true),
+        FILE_SORT_SESSION_RESTART("file sort session restart");
 
         private final String title;
         private final String logKey;
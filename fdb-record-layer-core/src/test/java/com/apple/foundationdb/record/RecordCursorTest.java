@@ -22,6 +22,8 @@ package com.apple.foundationdb.record;
 
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.MoreAsyncUtil;
+import com.apple.foundationdb.record.cursors.CursorProfiler;
+import com.apple.foundationdb.record.cursors.CursorProfiling;
 import com.apple.foundationdb.record.cursors.FilterCursor;
 import com.apple.foundationdb.record.cursors.FirableCursor;
 import com.apple.foundationdb.record.cursors.LazyCursor;
@@ -51,11 +53,15 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -159,6 +165,164 @@ public class RecordCursorTest {
         assertThat(cursor.onNextCalled, Matchers.lessThanOrEqualTo(102));
     }
 
+    @Test
+    void mapPipelinedOnExecutorTest() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<Integer> list = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+            final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            final Function<Integer, Integer> func = i -> {
+                threads.add(Thread.currentThread());
+                return i * 2;
+            };
+            final List<Integer> expected = list.stream().map(i -> i * 2).collect(Collectors.toList());
+            assertEquals(expected, RecordCursor.fromList(list).mapPipelined(func, 10, pool).asList().join());
+            assertTrue(threads.stream().allMatch(thread -> thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)thread).getPool() == pool));
+
+            // Continuations are those of the source cursor, so a limited scan can be resumed.
+            final List<Integer> results = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                RecordCursorIterator<Integer> cursor = RecordCursor.fromList(list, continuation).mapPipelined(func, 10, pool).limitRowsTo(7).asIterator();
+                while (cursor.hasNext()) {
+                    results.add(cursor.next());
+                }
+                continuation = cursor.getContinuation();
+            } while (continuation != null);
+            assertEquals(expected, results);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void onNextBatchTest() {
+        final List<Integer> list = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        final List<Integer> expected = list.stream().filter(i -> i % 3 != 0).map(i -> i * 2).collect(Collectors.toList());
+        // List, filter and map cursors produce batches natively; the row limit uses the default implementation.
+        final List<RecordCursor<Integer>> cursors = Arrays.asList(
+                RecordCursor.fromList(list).filter(i -> i % 3 != 0).map(i -> i * 2),
+                RecordCursor.fromList(list).filter(i -> i % 3 != 0).map(i -> i * 2).limitRowsTo(1000));
+        for (RecordCursor<Integer> cursor : cursors) {
+            final List<Integer> results = new ArrayList<>();
+            RecordCursorResult<Integer> last;
+            do {
+                final List<RecordCursorResult<Integer>> batch = cursor.onNextBatch(10).join();
+                assertThat(batch.size(), Matchers.allOf(greaterThan(0), Matchers.lessThanOrEqualTo(10)));
+                for (int i = 0; i < batch.size() - 1; i++) {
+                    assertTrue(batch.get(i).hasNext());
+                }
+                last = batch.get(batch.size() - 1);
+                batch.stream().filter(RecordCursorResult::hasNext).forEach(result -> results.add(result.get()));
+            } while (last.hasNext());
+            assertEquals(expected, results);
+            assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, last.getNoNextReason());
+            // The cursor stays stopped.
+            assertFalse(cursor.onNextBatch(10).join().get(0).hasNext());
+            assertFalse(cursor.getNext().hasNext());
+        }
+
+        // Batches and single results can be interleaved, and continuations match.
+        RecordCursor<Integer> cursor = RecordCursor.fromList(list).map(i -> i * 2);
+        final List<RecordCursorResult<Integer>> batch = cursor.onNextBatch(5).join();
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8), batch.stream().map(RecordCursorResult::get).collect(Collectors.toList()));
+        assertEquals(10, (int)cursor.getNext().get());
+        cursor = RecordCursor.fromList(list, batch.get(4).getContinuation().toBytes()).map(i -> i * 2);
+        assertEquals(10, (int)cursor.getNext().get());
+
+        assertThrows(RecordCoreArgumentException.class, () -> RecordCursor.fromList(list).onNextBatch(0));
+    }
+
+    @Test
+    void profileCursorTree() {
+        final List<Integer> list = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        final RecordCursor<Integer> unprofiled = RecordCursor.fromList(list).filter(i -> i % 3 != 0);
+        unprofiled.asList().join();
+        assertEquals(Collections.emptyList(), CursorProfiler.collect(unprofiled));
+
+        // The row limit is not profiled, so its child is attached to the map cursor.
+        final RecordCursor<Integer> cursor = RecordCursor.fromList(list)
+                .filter(i -> i % 3 != 0)
+                .limitRowsTo(1000)
+                .mapPipelined(i -> CompletableFuture.completedFuture(i * 2), 4)
+                .map(i -> i + 1);
+        CursorProfiler.enable(cursor);
+        assertEquals(66, cursor.asList().join().size());
+
+        final List<CursorProfiler.Node> roots = CursorProfiler.collect(cursor);
+        assertEquals(1, roots.size());
+        final CursorProfiler.Node map = roots.get(0);
+        assertEquals("MapResultCursor", map.getProfile().getName());
+        assertEquals(66, map.getProfile().getRowsOut());
+        assertEquals(66, map.getRowsIn());
+        assertThat(map.getProfile().getNextCalls(), greaterThan(0L));
+        assertEquals(1, map.getChildren().size());
+        final CursorProfiler.Node mapPipelined = map.getChildren().get(0);
+        assertEquals("MapPipelinedCursor", mapPipelined.getProfile().getName());
+        assertEquals(66, mapPipelined.getProfile().getRowsOut());
+        assertEquals(1, mapPipelined.getChildren().size());
+        final CursorProfiler.Node filter = mapPipelined.getChildren().get(0);
+        assertEquals("FilterCursor", filter.getProfile().getName());
+        assertEquals(66, filter.getProfile().getRowsOut());
+        // The list cursor is not profiled.
+        assertEquals(0, filter.getRowsIn());
+        assertEquals(Collections.emptyList(), filter.getChildren());
+        assertThat(filter.getProfile().getTotalNanos(), greaterThan(0L));
+        assertThat(filter.getProfile().getFunctionNanos(), Matchers.lessThanOrEqualTo(filter.getProfile().getTotalNanos()));
+        assertEquals(Math.max(0L, map.getProfile().getTotalNanos() - mapPipelined.getProfile().getTotalNanos()), map.getSelfNanos());
+
+        final String explain = CursorProfiler.explain(cursor);
+        assertThat(explain, Matchers.startsWith("MapResultCursor [next_calls="));
+        assertThat(explain, Matchers.containsString("\n  MapPipelinedCursor [next_calls="));
+        assertThat(explain, Matchers.containsString("\n    FilterCursor [next_calls="));
+        assertThat(explain, Matchers.containsString("rows_out=66"));
+    }
+
+    @Test
+    void profileLazilyOpenedChildren() {
+        final List<Integer> list = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        // None of the inner cursors exist yet when profiling is enabled.
+        final RecordCursor<Integer> cursor = RecordCursor.flatMapPipelined(
+                outerContinuation -> RecordCursor.fromList(Arrays.asList(0, 1, 2), outerContinuation),
+                (outer, innerContinuation) -> RecordCursor.fromList(list, innerContinuation).filter(i -> i % 3 == outer),
+                null, 2);
+        CursorProfiler.enable(cursor);
+        assertEquals(10, cursor.asList().join().size());
+
+        final List<CursorProfiler.Node> roots = CursorProfiler.collect(cursor);
+        assertEquals(1, roots.size());
+        final CursorProfiler.Node flatMap = roots.get(0);
+        assertEquals("FlatMapPipelinedCursor", flatMap.getProfile().getName());
+        assertEquals(10, flatMap.getProfile().getRowsOut());
+        // One node for each inner cursor, including those that have already been closed.
+        assertEquals(Arrays.asList(4L, 3L, 3L), flatMap.getChildren().stream()
+                .map(child -> child.getProfile().getRowsOut())
+                .collect(Collectors.toList()));
+        for (CursorProfiler.Node inner : flatMap.getChildren()) {
+            assertEquals("FilterCursor", inner.getProfile().getName());
+        }
+        assertEquals(10, flatMap.getRowsIn());
+    }
+
+    @Test
+    void profileManyOpenedChildren() {
+        final List<Integer> outerValues = IntStream.range(0, 250).boxed().collect(Collectors.toList());
+        final RecordCursor<Integer> cursor = RecordCursor.flatMapPipelined(
+                outerContinuation -> RecordCursor.fromList(outerValues, outerContinuation),
+                (outer, innerContinuation) -> RecordCursor.fromList(Arrays.asList(outer, outer), innerContinuation).filter(i -> true),
+                null, 2);
+        CursorProfiler.enable(cursor);
+        assertEquals(500, cursor.asList().join().size());
+
+        final CursorProfiler.Node flatMap = CursorProfiler.collect(cursor).get(0);
+        // The earlier inner cursors are not kept, but what they returned is still counted.
+        assertThat(flatMap.getChildren().size(), Matchers.lessThanOrEqualTo(CursorProfiling.MAX_OPENED_CHILDREN + 1));
+        final CursorProfiler.Node combined = flatMap.getChildren().get(0);
+        assertEquals(CursorProfiling.COMBINED_CHILDREN_NAME, combined.getProfile().getName());
+        assertThat(combined.getProfile().getRowsOut(), greaterThan(0L));
+        assertEquals(500, flatMap.getRowsIn());
+    }
+
     @Test
     void forEachAsyncTest() {
         RecordCursor<Integer> cursor = RecordCursor.fromList(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
@@ -23,11 +23,13 @@ package com.apple.foundationdb.record.cursors;
 import com.apple.foundationdb.FDBError;
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.async.MoreAsyncUtil;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorResult;
 import com.apple.foundationdb.record.provider.foundationdb.FDBDatabase;
 import com.apple.foundationdb.record.provider.foundationdb.FDBDatabaseRunner;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.test.FDBDatabaseExtension;
 import com.apple.test.Tags;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,15 +38,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -132,6 +138,69 @@ public class AutoContinuingCursorTest {
         assertEquals(exceptionCount.get(), 4);
     }
 
+    @Test
+    void checkpointAndResume() {
+        final List<byte[]> checkpoints = new ArrayList<>();
+        final BiFunction<FDBRecordContext, byte[], RecordCursor<Integer>> nextCursorGenerator = (context, continuation) ->
+                new ListCursor<>(list, continuation).limitRowsTo(3);
+        try (FDBDatabaseRunner runner = database.newRunner()) {
+            RecordCursor<Integer> cursor = AutoContinuingCursor.newBuilder(runner, nextCursorGenerator)
+                    .setContinuationCheckpoint(continuation -> {
+                        checkpoints.add(continuation);
+                        return AsyncUtil.DONE;
+                    })
+                    .build();
+            assertEquals(list, cursor.asList().join());
+        }
+        // One checkpoint for each transaction after the first and one at the end.
+        assertEquals(4, checkpoints.size());
+        assertNull(checkpoints.get(3));
+
+        try (FDBDatabaseRunner runner = database.newRunner()) {
+            RecordCursor<Integer> cursor = AutoContinuingCursor.newBuilder(runner, nextCursorGenerator)
+                    .setContinuation(checkpoints.get(1))
+                    .build();
+            assertEquals(list.subList(6, 10), cursor.asList().join());
+        }
+
+        // Resuming from the checkpoint taken by a resumed cursor gives the same continuation.
+        final List<byte[]> resumedCheckpoints = new ArrayList<>();
+        try (FDBDatabaseRunner runner = database.newRunner()) {
+            RecordCursor<Integer> cursor = AutoContinuingCursor.newBuilder(runner, nextCursorGenerator)
+                    .setContinuation(checkpoints.get(0))
+                    .setContinuationCheckpoint(continuation -> {
+                        resumedCheckpoints.add(continuation);
+                        return AsyncUtil.DONE;
+                    })
+                    .build();
+            assertEquals(list.subList(3, 10), cursor.asList().join());
+        }
+        assertEquals(3, resumedCheckpoints.size());
+        assertArrayEquals(checkpoints.get(1), resumedCheckpoints.get(0));
+    }
+
+    @Test
+    void prefetchNextContext() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final List<FDBRecordContext> contexts = new ArrayList<>();
+        final BiFunction<FDBRecordContext, byte[], RecordCursor<Integer>> nextCursorGenerator = (context, continuation) -> {
+            contexts.add(context);
+            return new TestingListCursor<>(list, continuation, () ->
+                    context.getReadVersionAsync().thenCompose(vignore -> MoreAsyncUtil.delayedFuture(10, TimeUnit.MILLISECONDS)))
+                    .limitRowsTo(2);
+        };
+        try (FDBDatabaseRunner runner = database.newRunner(timer, null)) {
+            RecordCursor<Integer> cursor = AutoContinuingCursor.newBuilder(runner, nextCursorGenerator)
+                    .setPrefetchNextContext(true)
+                    .build();
+            assertEquals(list, cursor.asList().join());
+            cursor.close();
+        }
+        assertEquals(contexts.size(), contexts.stream().distinct().count());
+        assertTrue(contexts.stream().allMatch(FDBRecordContext::isClosed));
+        assertTrue(timer.getCount(FDBStoreTimer.Counts.AUTO_CONTINUE_PREFETCHED_CONTEXT) > 0);
+    }
+
     private static class TestingListCursor<T> extends ListCursor<T> {
         private final Supplier<CompletableFuture<Void>> pollOnNext;
 
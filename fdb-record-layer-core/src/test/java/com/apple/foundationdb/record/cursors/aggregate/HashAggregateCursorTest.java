@@ -0,0 +1,135 @@
+/*
+ * HashAggregateCursorTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.aggregate;
+
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorTest;
+import com.apple.foundationdb.tuple.Tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link HashAggregateCursor}.
+ */
+public class HashAggregateCursorTest {
+    private static final int GROUP_COUNT = 23;
+    // Not in grouping key order, so that each batch of groups has a mix of them.
+    private static final List<Integer> RECORDS = IntStream.range(0, 200).map(i -> (i * 37) % 200).boxed().collect(Collectors.toList());
+    private static final List<HashAggregateCursor.Aggregate<Integer>> AGGREGATES = Arrays.asList(
+            HashAggregateCursor.Aggregate.count(),
+            HashAggregateCursor.Aggregate.ofLong(PrimitiveAccumulatorOperation.SUM, i -> (long)i),
+            HashAggregateCursor.Aggregate.ofDouble(PrimitiveAccumulatorOperation.MAX, i -> i * 0.5),
+            HashAggregateCursor.Aggregate.ofLong(PrimitiveAccumulatorOperation.MIN, i -> i % 2 == 0 ? (long)i : null));
+
+    @Nonnull
+    private static List<Tuple> expectedGroups() {
+        final Map<Integer, List<Integer>> groups = new TreeMap<>();
+        for (Integer record : RECORDS) {
+            groups.computeIfAbsent(record % GROUP_COUNT, k -> new ArrayList<>()).add(record);
+        }
+        final List<Tuple> expected = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> group : groups.entrySet()) {
+            final List<Integer> records = group.getValue();
+            expected.add(Tuple.from(group.getKey(),
+                    records.size(),
+                    records.stream().mapToLong(i -> i).sum(),
+                    records.stream().mapToDouble(i -> i * 0.5).max().getAsDouble(),
+                    records.stream().filter(i -> i % 2 == 0).mapToLong(i -> i).min().getAsLong()));
+        }
+        return expected;
+    }
+
+    @Nonnull
+    private static HashAggregateCursor<Integer> newCursor(@Nonnull HashAggregateSpillAdapter adapter, int inputLimit,
+                                                          @Nullable byte[] continuation) {
+        return HashAggregateCursor.create(adapter,
+                inputContinuation -> new RecordCursorTest.FakeOutOfBandCursor<>(RecordCursor.fromList(RECORDS, inputContinuation), inputLimit),
+                record -> Tuple.from(record % GROUP_COUNT),
+                AGGREGATES, null, continuation);
+    }
+
+    @ParameterizedTest(name = "aggregate[maxGroups={0}]")
+    @ValueSource(ints = {1000, GROUP_COUNT, 5, 1})
+    void aggregate(int maxGroups) {
+        final HashAggregateSpillAdapter adapter = new HashAggregateSpillAdapter(maxGroups);
+        try (HashAggregateCursor<Integer> cursor = newCursor(adapter, Integer.MAX_VALUE, null)) {
+            assertEquals(expectedGroups(), cursor.asList().join());
+        }
+    }
+
+    @Test
+    void aggregateEmpty() {
+        final HashAggregateSpillAdapter adapter = new HashAggregateSpillAdapter(5);
+        try (HashAggregateCursor<Integer> cursor = HashAggregateCursor.create(adapter,
+                inputContinuation -> RecordCursor.<Integer>empty(),
+                record -> Tuple.from(record % GROUP_COUNT),
+                AGGREGATES, null, null)) {
+            assertEquals(0, cursor.getCount().join());
+        }
+    }
+
+    @ParameterizedTest(name = "aggregateWithContinuations[maxGroups={0}]")
+    @ValueSource(ints = {1000, 5})
+    void aggregateWithContinuations(int maxGroups) {
+        // The same adapter is needed to read encrypted files again.
+        final HashAggregateSpillAdapter adapter = new HashAggregateSpillAdapter(maxGroups);
+        final List<Tuple> results = new ArrayList<>();
+        byte[] continuation = null;
+        int transactions = 0;
+        HashAggregateCursor<Integer> cursor;
+        while (true) {
+            transactions++;
+            // Only the last cursor is closed, since closing deletes the files that continuations refer to.
+            cursor = newCursor(adapter, 17, continuation);
+            RecordCursorResult<Tuple> result;
+            int returned = 0;
+            do {
+                result = cursor.getNext();
+                if (result.hasNext()) {
+                    results.add(result.get());
+                    returned++;
+                }
+            } while (result.hasNext() && returned < 3);
+            if (!result.hasNext() && result.getNoNextReason().isSourceExhausted()) {
+                break;
+            }
+            continuation = result.getContinuation().toBytes();
+        }
+        cursor.close();
+        assertEquals(expectedGroups(), results);
+        assertTrue(transactions > RECORDS.size() / 17);
+    }
+}
@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.common;
 
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.metadata.Key;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.DescriptorProtos;
 import com.google.protobuf.Descriptors;
@@ -32,12 +33,16 @@ import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.UnaryOperator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -147,4 +152,50 @@ public class DynamicMessageRecordSerializerTest {
         assertThat(ex.getMessage(), containsString("there are no fields"));
         assertThat((Collection<?>)ex.getLogInfo().get("fields"), empty());
     }
+
+    @Test
+    public void deserializeWithProjection() {
+        final TestRecords1Proto.MySimpleRecord simpleRecord = TestRecords1Proto.MySimpleRecord.newBuilder()
+                .setRecNo(1066L)
+                .setStrValueIndexed("a fairly long string that is not needed")
+                .setNumValue2(42)
+                .addRepeater(1).addRepeater(2)
+                .build();
+        final TestRecords1Proto.MyOtherRecord otherRecord = TestRecords1Proto.MyOtherRecord.newBuilder()
+                .setRecNo(1413L)
+                .setNumValue2(7)
+                .setNumValue3Indexed(8)
+                .build();
+        final RecordProjection projection = RecordProjection.fromKeyExpressions(metaData, List.of("MySimpleRecord", "MyOtherRecord"),
+                List.of(Key.Expressions.field("num_value_2")));
+        final RecordSerializer<Message> projecting = serializer.withProjection(projection);
+        assertEquals(projection, projecting.getProjection());
+
+        final StoreTimer timer = new StoreTimer();
+        final byte[] simpleSerialized = serializer.serialize(metaData, metaData.getRecordType("MySimpleRecord"), simpleRecord, timer);
+        final Message simpleProjected = projecting.deserialize(metaData, Tuple.from(1066L), simpleSerialized, timer);
+        assertEquals(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1066L).setNumValue2(42).build(),
+                TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(simpleProjected).build());
+        assertThat(timer.getCount(RecordSerializer.Counts.RECORD_BYTES_SKIPPED_BY_PROJECTION), greaterThan(0));
+
+        // The primary key and required fields are always kept
+        final byte[] otherSerialized = serializer.serialize(metaData, metaData.getRecordType("MyOtherRecord"), otherRecord, timer);
+        final Message otherProjected = projecting.deserialize(metaData, Tuple.from(1413L), otherSerialized, timer);
+        assertEquals(TestRecords1Proto.MyOtherRecord.newBuilder().setRecNo(1413L).setNumValue2(7).build(),
+                TestRecords1Proto.MyOtherRecord.newBuilder().mergeFrom(otherProjected).build());
+
+        // Projection passes through transformations, but partial records cannot be serialized
+        final RecordSerializer<Message> transformed = TransformedRecordSerializer.newDefaultBuilder().setCompressWhenSerializing(true).build();
+        final RecordSerializer<Message> transformedProjecting = transformed.withProjection(projection);
+        assertEquals(projection, transformedProjecting.getProjection());
+        final byte[] transformedSerialized = transformed.serialize(metaData, metaData.getRecordType("MySimpleRecord"), simpleRecord, timer);
+        assertEquals(simpleProjected, transformedProjecting.deserialize(metaData, Tuple.from(1066L), transformedSerialized, timer));
+        assertThrows(RecordSerializationException.class,
+                () -> transformedProjecting.serialize(metaData, metaData.getRecordType("MySimpleRecord"), simpleRecord, timer));
+
+        // Functions might use any field, so nothing is projected
+        assertEquals(RecordProjection.ALL, RecordProjection.fromKeyExpressions(metaData, List.of("MySimpleRecord"),
+                List.of(Key.Expressions.function("nada", Key.Expressions.field("num_value_2")))));
+        assertSame(serializer, serializer.withProjection(RecordProjection.ALL));
+    }
 }
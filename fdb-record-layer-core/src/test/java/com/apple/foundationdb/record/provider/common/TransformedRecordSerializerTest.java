@@ -31,6 +31,8 @@ import com.apple.foundationdb.record.metadata.RecordType;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.common.base.Strings;
 import com.google.common.primitives.Bytes;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.Message;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,8 +46,10 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.Deflater;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -313,6 +317,85 @@ public class TransformedRecordSerializerTest {
         assertThat(tooLargeException.getLogInfo(), hasEntry(LogMessageKeys.EXPECTED.toString(), innerSize / 2));
     }
 
+    @Test
+    public void compressWithDictionary() {
+        final MySimpleRecord dictionaryRecord = MySimpleRecord.newBuilder().setRecNo(1609L).setStrValueIndexed(SONNET_108).build();
+        final byte[] dictionary = RecordTypeUnion.newBuilder().setMySimpleRecord(dictionaryRecord).build().toByteArray();
+        final TransformedRecordSerializer<Message> plainSerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setWriteValidationRatio(1.0)
+                .build();
+        final TransformedRecordSerializer<Message> dictionarySerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setCompressionCodec(new DeflateRecordCompressionCodec(Deflater.BEST_COMPRESSION, Map.of("MySimpleRecord", dictionary)))
+                .setWriteValidationRatio(1.0)
+                .build();
+
+        final MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).setNumValue2(42).build();
+        final byte[] plainSerialized = serialize(plainSerializer, simpleRecord);
+        final byte[] dictionarySerialized = serialize(dictionarySerializer, simpleRecord);
+        assertTrue(isCompressed(plainSerialized));
+        assertTrue(isCompressed(dictionarySerialized));
+        assertThat(plainSerialized.length, greaterThan(dictionarySerialized.length));
+        assertEquals(DeflateRecordCompressionCodec.COMPRESSION_VERSION, dictionarySerialized[1]);
+
+        // Records written with and without the dictionary can both be read by the dictionary serializer
+        assertEquals(simpleRecord, deserialize(dictionarySerializer, Tuple.from(1066L), dictionarySerialized));
+        assertEquals(simpleRecord, deserialize(dictionarySerializer, Tuple.from(1066L), plainSerialized));
+
+        // Without the dictionary, nothing can be decompressed
+        RecordSerializationException e = assertThrows(RecordSerializationException.class,
+                () -> deserialize(plainSerializer, Tuple.from(1066L), dictionarySerialized));
+        assertThat(e.getMessage(), containsString("decompressed record too small"));
+    }
+
+    @Test
+    public void customCompressionCodec() {
+        final RecordCompressionCodec customCodec = new DeflateRecordCompressionCodec(Deflater.BEST_SPEED) {
+            @Override
+            public int getCompressionVersion() {
+                return 2;
+            }
+        };
+        final TransformedRecordSerializer<Message> customSerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setCompressionCodec(customCodec)
+                .setWriteValidationRatio(1.0)
+                .build();
+        final MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).build();
+        final byte[] serialized = serialize(customSerializer, simpleRecord);
+        assertTrue(isCompressed(serialized));
+        assertEquals(2, serialized[1]);
+
+        // A serializer that does not know about the codec cannot read the record
+        final TransformedRecordSerializer<Message> defaultSerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .build();
+        RecordSerializationException e = assertThrows(RecordSerializationException.class,
+                () -> deserialize(defaultSerializer, Tuple.from(1066L), serialized));
+        assertThat(e.getMessage(), containsString("unknown compression version"));
+
+        // Registering the codec for reading allows both old and new records to be read
+        final TransformedRecordSerializer<Message> migratingSerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .addDecompressionCodec(customCodec)
+                .setWriteValidationRatio(1.0)
+                .build();
+        assertEquals(simpleRecord, deserialize(migratingSerializer, Tuple.from(1066L), serialized));
+        final byte[] defaultSerialized = serialize(migratingSerializer, simpleRecord);
+        assertEquals(DeflateRecordCompressionCodec.COMPRESSION_VERSION, defaultSerialized[1]);
+        assertEquals(simpleRecord, deserialize(customSerializer, Tuple.from(1066L), defaultSerialized));
+        assertEquals(simpleRecord, deserialize(migratingSerializer.widen(), Tuple.from(1066L), serialized));
+
+        assertThrows(RecordCoreArgumentException.class, () -> TransformedRecordSerializer.newDefaultBuilder()
+                .addDecompressionCodec(new DeflateRecordCompressionCodec(Deflater.BEST_SPEED) {
+                    @Override
+                    public int getCompressionVersion() {
+                        return 0;
+                    }
+                }));
+    }
+
     @Test
     public void buildWithoutSettingEncryption() {
         assertThrows(RecordCoreArgumentException.class, () -> TransformedRecordSerializer.newDefaultBuilder().setEncryptWhenSerializing(true).build());
@@ -364,6 +447,86 @@ public class TransformedRecordSerializerTest {
         assertEquals(mediumRecord, deserialized);
     }
 
+    @Test
+    public void pooledBuffers() throws Exception {
+        KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+        keyGen.init(128);
+        SecretKey key = keyGen.generateKey();
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializerJCE.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setEncryptWhenSerializing(true)
+                .setEncryptionKey(key)
+                .setUsePooledBuffers(true)
+                .setWriteValidationRatio(1.0)
+                .build();
+
+        // Records of increasing and then decreasing size, so that buffers are both grown and reused
+        List<MySimpleRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int repeats = i < 5 ? (1 << (2 * i)) : (1 << (2 * (9 - i)));
+            records.add(MySimpleRecord.newBuilder().setRecNo(i).setStrValueIndexed(Strings.repeat(SONNET_108, repeats)).build());
+        }
+        List<byte[]> serialized = new ArrayList<>();
+        for (MySimpleRecord rec : records) {
+            serialized.add(serialize(serializer, rec));
+        }
+        List<Message> deserialized = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            deserialized.add(deserialize(serializer, Tuple.from(i), serialized.get(i)));
+        }
+        // Reading later records must not have changed the earlier ones
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i), deserialized.get(i));
+        }
+
+        // A pooled serializer wrapping another pooled serializer falls back to allocating for the inner one
+        TransformedRecordSerializer<Message> nested = TransformedRecordSerializer.newBuilder(serializer)
+                .setCompressWhenSerializing(true)
+                .setUsePooledBuffers(true)
+                .setWriteValidationRatio(1.0)
+                .build();
+        for (int i = 0; i < records.size(); i++) {
+            byte[] nestedSerialized = serialize(nested, records.get(i));
+            assertEquals(records.get(i), deserialize(nested, Tuple.from(i), nestedSerialized));
+        }
+    }
+
+    @Test
+    public void deserializeSlice() {
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .build();
+        MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).build();
+        byte[] serialized = serialize(serializer, simpleRecord);
+        byte[] padded = new byte[serialized.length + 20];
+        Arrays.fill(padded, (byte) 0xff);
+        System.arraycopy(serialized, 0, padded, 10, serialized.length);
+        assertEquals(simpleRecord, serializer.deserialize(metaData, Tuple.from(1066L), padded, 10, serialized.length, storeTimer));
+
+        byte[] clear = serialize(serializer.untransformed(), simpleRecord);
+        System.arraycopy(clear, 0, padded, 10, clear.length);
+        assertEquals(simpleRecord, serializer.untransformed().deserialize(metaData, Tuple.from(1066L), padded, 10, clear.length, storeTimer));
+    }
+
+    @Test
+    public void deserializeWithOverriddenHooks() {
+        final CountingRecordSerializer inner = new CountingRecordSerializer();
+        MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).build();
+        byte[] clear = serialize(inner, simpleRecord);
+        assertEquals(simpleRecord, deserialize(inner, Tuple.from(1066L), clear));
+        assertEquals(1, inner.unionCount);
+        assertEquals(1, inner.fromBytesCount);
+
+        // Without pooled buffers, the inner serializer is still given a whole array, even for clear records
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newBuilder(inner)
+                .setCompressWhenSerializing(true)
+                .build();
+        assertEquals(simpleRecord, deserialize(serializer, Tuple.from(1066L), serialize(serializer, simpleRecord)));
+        assertEquals(simpleRecord, deserialize(serializer, Tuple.from(1066L), serialize(serializer.untransformed(), simpleRecord)));
+        assertEquals(3, inner.unionCount);
+        assertEquals(3, inner.fromBytesCount);
+    }
+
     @Test
     public void validateWithIncorrectInner() {
         TransformedRecordSerializer<MySimpleRecord> serializer = TransformedRecordSerializer.newBuilder(new ModifyingRecordSerializer())
@@ -455,6 +618,26 @@ public class TransformedRecordSerializerTest {
      * us to test that we catch faulty implementations that modify records if the {@link TransformedRecordSerializer#writeValidationRatio}
      * is configured to check for writes that mishandle.
      */
+    private static class CountingRecordSerializer extends DynamicMessageRecordSerializer {
+        private int unionCount;
+        private int fromBytesCount;
+
+        @Nonnull
+        @Override
+        protected DynamicMessage deserializeUnion(@Nonnull Descriptors.Descriptor unionDescriptor, @Nonnull Tuple primaryKey,
+                                                  @Nonnull byte[] serialized, int metaDataVersion) {
+            unionCount++;
+            return super.deserializeUnion(unionDescriptor, primaryKey, serialized, metaDataVersion);
+        }
+
+        @Nonnull
+        @Override
+        protected DynamicMessage deserializeFromBytes(@Nonnull Descriptors.Descriptor storedDescriptor, @Nonnull byte[] serialized) {
+            fromBytesCount++;
+            return super.deserializeFromBytes(storedDescriptor, serialized);
+        }
+    }
+
     private static class ModifyingRecordSerializer implements RecordSerializer<MySimpleRecord> {
         @Nonnull
         private static TypedRecordSerializer<MySimpleRecord, TestRecords1Proto.RecordTypeUnion, TestRecords1Proto.RecordTypeUnion.Builder> underlying = new TypedRecordSerializer<>(
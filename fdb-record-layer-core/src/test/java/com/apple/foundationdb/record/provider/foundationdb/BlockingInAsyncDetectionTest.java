@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.async.MoreAsyncUtil;
 import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.TestHelpers;
 import com.apple.foundationdb.record.test.FDBDatabaseExtension;
 import com.apple.test.Tags;
@@ -29,12 +30,26 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @Tag(Tags.RequiresFDB)
 class BlockingInAsyncDetectionTest {
@@ -111,6 +126,74 @@ class BlockingInAsyncDetectionTest {
                 () -> returnAnAsync(database, CompletableFuture.completedFuture(10L)));
     }
 
+    @Test
+    void testRunOnExecutor() {
+        FDBDatabaseFactory factory = dbExtension.getDatabaseFactory();
+        factory.setBlockingInAsyncDetection(BlockingInAsyncDetection.IGNORE_COMPLETE_EXCEPTION_BLOCKING);
+        factory.clear();
+
+        FDBDatabase database = factory.getDatabase();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (FDBDatabaseRunner runner = database.newRunner()) {
+            final Function<FDBRecordContext, List<Integer>> blocking = context -> {
+                final RecordCursor<Integer> cursor = RecordCursor.fromList(Arrays.asList(1, 2, 3))
+                        .mapPipelined(i -> MoreAsyncUtil.delayedFuture(10L, TimeUnit.MILLISECONDS).thenApply(vignore -> i), 1);
+                final List<Integer> values = new ArrayList<>();
+                try (RecordCursorBlockingIterator<Integer> iterator = new RecordCursorBlockingIterator<>(context, cursor)) {
+                    while (iterator.hasNext()) {
+                        values.add(iterator.next());
+                    }
+                    assertNull(iterator.getContinuation());
+                    assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, iterator.getNoNextReason());
+                }
+                return values;
+            };
+            assertEquals(Arrays.asList(1, 2, 3), runner.runOnExecutor(executor, blocking).join());
+
+            // Running the same function from within a future is detected as blocking.
+            final CompletionException err = assertThrows(CompletionException.class,
+                    () -> CompletableFuture.supplyAsync(() -> runner.run(blocking), executor).join());
+            assertThat(err.getCause(), instanceOf(BlockingInAsyncException.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    void testVirtualThreadsNotReported() throws Exception {
+        final Method newVirtualThreadPerTaskExecutor;
+        try {
+            newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            assumeTrue(false, "virtual threads require Java 21");
+            return;
+        }
+        FDBDatabaseFactory factory = dbExtension.getDatabaseFactory();
+        factory.setBlockingInAsyncDetection(BlockingInAsyncDetection.IGNORE_COMPLETE_EXCEPTION_BLOCKING);
+        factory.clear();
+
+        FDBDatabase database = factory.getDatabase();
+        assertFalse(FDBDatabase.isVirtualThread(Thread.currentThread()));
+        final ExecutorService executor = (ExecutorService)newVirtualThreadPerTaskExecutor.invoke(null);
+        try (FDBDatabaseRunner runner = database.newRunner()) {
+            assertTrue(CompletableFuture.supplyAsync(() -> FDBDatabase.isVirtualThread(Thread.currentThread()), executor).join());
+
+            // Blocking from within a future is not reported on a virtual thread.
+            assertEquals(10L, CompletableFuture.supplyAsync(() -> runner.run(context -> context.asyncToSync(FDBStoreTimer.Waits.WAIT_ERROR_CHECK,
+                    MoreAsyncUtil.delayedFuture(10L, TimeUnit.MILLISECONDS).thenApply(vignore -> 10L))), executor).join().longValue());
+
+            // Exceptions from the function complete the future rather than being lost with the thread.
+            final CompletionException err = assertThrows(CompletionException.class,
+                    () -> runner.runOnExecutor(executor, context -> {
+                        throw new RecordCoreException("failed on virtual thread");
+                    }).join());
+            assertThat(err.getCause(), instanceOf(RecordCoreException.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 
     private CompletableFuture<Long> returnAnAsync(FDBDatabase database, CompletableFuture<?> toComplete) {
         database.asyncToSync(new FDBStoreTimer(), FDBStoreTimer.Waits.WAIT_ERROR_CHECK, toComplete);
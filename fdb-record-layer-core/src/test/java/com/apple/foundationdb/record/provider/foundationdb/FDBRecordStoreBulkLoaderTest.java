@@ -0,0 +1,218 @@
+/*
+ * FDBRecordStoreBulkLoaderTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2024 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.FDBException;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.query.RecordQuery;
+import com.apple.foundationdb.record.query.expressions.Query;
+import com.apple.test.BooleanSource;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FDBRecordStoreBulkLoader}.
+ */
+@Tag(Tags.RequiresFDB)
+public class FDBRecordStoreBulkLoaderTest extends FDBRecordStoreTestBase {
+
+    @ParameterizedTest(name = "loadRecords [deferIndexBuilds = {0}]")
+    @BooleanSource
+    public void loadRecords(boolean deferIndexBuilds) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            commit(context);
+        }
+
+        final List<TestRecords1Proto.MySimpleRecord> records = simpleRecords(0, 500);
+        final long loaded;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (FDBRecordStoreBulkLoader loader = FDBRecordStoreBulkLoader.newBuilder()
+                    .setRecordStore(recordStore)
+                    .setTimer(timer)
+                    .setMaxTransactionBytes(10_000)
+                    .setDeferIndexBuilds(deferIndexBuilds)
+                    .build()) {
+                loaded = loader.loadRecords(records.iterator());
+            }
+        }
+        assertEquals(records.size(), loaded);
+        assertEquals(records.size(), timer.getCount(FDBStoreTimer.Counts.BULK_LOAD_RECORDS));
+        assertThat(timer.getCount(FDBStoreTimer.Counts.BULK_LOAD_TRANSACTIONS), greaterThan(1));
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            assertTrue(recordStore.isIndexReadable("MySimpleRecord$str_value_indexed"));
+            assertEquals(records.size(), recordStore.scanRecords(null, ScanProperties.FORWARD_SCAN).getCount().get());
+            RecordQuery query = RecordQuery.newBuilder()
+                    .setRecordType("MySimpleRecord")
+                    .setFilter(Query.field("str_value_indexed").equalsValue("even"))
+                    .build();
+            assertEquals(records.size() / 2, recordStore.executeQuery(query).getCount().get());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void deferOnlyEmptyIndexes() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1000)
+                    .setStrValueIndexed("even")
+                    .setNumValueUnique(1000)
+                    .build());
+            commit(context);
+        }
+
+        final List<TestRecords1Proto.MySimpleRecord> records = simpleRecords(0, 100);
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (FDBRecordStoreBulkLoader loader = FDBRecordStoreBulkLoader.newBuilder()
+                    .setRecordStore(recordStore)
+                    .setTimer(timer)
+                    .setDeferIndexBuilds(true)
+                    .build()) {
+                assertEquals(records.size(), loader.loadRecords(records.iterator()));
+            }
+        }
+        // Every index already had an entry, so none of them were disabled and rebuilt
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            assertTrue(recordStore.isIndexReadable("MySimpleRecord$str_value_indexed"));
+            assertEquals(records.size() + 1, recordStore.getSnapshotRecordCount().get());
+            RecordQuery query = RecordQuery.newBuilder()
+                    .setRecordType("MySimpleRecord")
+                    .setFilter(Query.field("str_value_indexed").equalsValue("even"))
+                    .build();
+            assertEquals(records.size() / 2 + 1, recordStore.executeQuery(query).getCount().get());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void loadRecordsAfterCommitUnknownResult() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            commit(context);
+        }
+
+        final List<TestRecords1Proto.MySimpleRecord> records = simpleRecords(0, 200);
+        // Every transaction that saves records is committed but reported as commit_unknown_result, so that it is retried
+        final AtomicInteger failures = new AtomicInteger();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final FDBRecordStore.Builder storeBuilder = new CommitUnknownResultBuilder(recordStore.asBuilder(), failures);
+            try (FDBRecordStoreBulkLoader loader = FDBRecordStoreBulkLoader.newBuilder()
+                    .setDatabase(fdb)
+                    .setRecordStoreBuilder(storeBuilder)
+                    .setTimer(timer)
+                    .setMaxTransactionBytes(10_000)
+                    .build()) {
+                assertEquals(records.size(), loader.loadRecords(records.iterator()));
+            }
+        }
+        assertThat(failures.get(), greaterThan(1));
+        assertEquals(failures.get(), timer.getCount(FDBStoreTimer.Counts.BULK_LOAD_ALREADY_COMMITTED));
+        assertEquals(failures.get(), timer.getCount(FDBStoreTimer.Counts.BULK_LOAD_TRANSACTIONS));
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            // The retried transactions did not count their records again
+            assertEquals(records.size(), recordStore.getSnapshotRecordCount().get());
+            assertEquals(records.size(), recordStore.scanRecords(null, ScanProperties.FORWARD_SCAN).getCount().get());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void invalidTransactionSize() {
+        assertThrows(RecordCoreArgumentException.class, () -> FDBRecordStoreBulkLoader.newBuilder().setMaxTransactionBytes(0));
+    }
+
+    @Nonnull
+    private static List<TestRecords1Proto.MySimpleRecord> simpleRecords(int start, int end) {
+        return IntStream.range(start, end)
+                .mapToObj(i -> TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setStrValueIndexed(i % 2 == 0 ? "even" : "odd")
+                        .setNumValueUnique(i)
+                        .setNumValue2(i % 7)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A store builder whose stores fail each transaction that writes anything with {@code commit_unknown_result}
+     * after it has in fact been committed.
+     */
+    private static class CommitUnknownResultBuilder extends FDBRecordStore.Builder {
+        @Nonnull
+        private final AtomicInteger failures;
+
+        CommitUnknownResultBuilder(@Nonnull FDBRecordStore.Builder other, @Nonnull AtomicInteger failures) {
+            super(other);
+            this.failures = failures;
+        }
+
+        @Nonnull
+        @Override
+        public FDBRecordStore.Builder copyBuilder() {
+            return new CommitUnknownResultBuilder(this, failures);
+        }
+
+        @Nonnull
+        @Override
+        public CompletableFuture<FDBRecordStore> createOrOpenAsync(@Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            final FDBRecordContext context = Objects.requireNonNull(getContext());
+            context.addPostCommit(() -> {
+                if (context.getCommittedVersion() > 0) {
+                    failures.incrementAndGet();
+                    return CompletableFuture.failedFuture(new FDBException("commit_unknown_result", 1021));
+                }
+                return AsyncUtil.DONE;
+            });
+            return super.createOrOpenAsync(existenceCheck);
+        }
+    }
+}
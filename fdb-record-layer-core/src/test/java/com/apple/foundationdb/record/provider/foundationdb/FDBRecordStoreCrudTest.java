@@ -22,11 +22,20 @@ package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.FDBError;
 import com.apple.foundationdb.FDBException;
+import com.apple.foundationdb.record.EndpointType;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.TestRecords1Proto;
 import com.apple.foundationdb.record.TestRecordsBytesProto;
 import com.apple.foundationdb.record.TestRecordsWithUnionProto;
+import com.apple.foundationdb.record.metadata.Key;
 import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.provider.common.RecordProjection;
+import com.apple.foundationdb.record.provider.foundationdb.properties.RecordLayerPropertyStorage;
+import com.apple.foundationdb.record.query.RecordQuery;
+import com.apple.foundationdb.record.query.expressions.Query;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.Tags;
 import com.google.protobuf.Message;
@@ -35,6 +44,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
@@ -340,6 +352,200 @@ public class FDBRecordStoreCrudTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void saveRecordsBatch() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(2L)
+                    .setNumValueUnique(2)
+                    .build());
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            List<TestRecords1Proto.MySimpleRecord> records = new ArrayList<>();
+            for (long recNo = 1L; recNo <= 5L; recNo++) {
+                records.add(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setStrValueIndexed("batch")
+                        .setNumValueUnique((int)recNo * 10)
+                        .build());
+            }
+            List<FDBStoredRecord<Message>> saved = recordStore.saveRecords(records);
+            assertEquals(records.size(), saved.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(Tuple.from(i + 1L), saved.get(i).getPrimaryKey());
+                assertSame(records.get(i), saved.get(i).getRecord());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            assertEquals(5, (int)recordStore.countRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END).join());
+            List<Tuple> primaryKeys = recordStore.scanIndexRecordsEqual("MySimpleRecord$str_value_indexed", "batch")
+                    .map(FDBIndexedRecord::getPrimaryKey)
+                    .asList()
+                    .join();
+            assertEquals(List.of(Tuple.from(1L), Tuple.from(2L), Tuple.from(3L), Tuple.from(4L), Tuple.from(5L)), primaryKeys);
+            // The old entry for record 2 must have been replaced
+            assertEquals(List.of(), recordStore.scanIndexRecordsEqual("MySimpleRecord$num_value_unique", 2).asList().join());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void saveRecordsBatchExistenceCheck() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(3L).build());
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            List<TestRecords1Proto.MySimpleRecord> records = List.of(
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).build(),
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(3L).build());
+            assertThrows(RecordAlreadyExistsException.class, () -> recordStore.saveRecords(records, FDBRecordStoreBase.RecordExistenceCheck.ERROR_IF_EXISTS));
+            // Nothing in the batch should have been written
+            assertNull(recordStore.loadRecord(Tuple.from(1L)));
+
+            List<TestRecords1Proto.MySimpleRecord> duplicates = List.of(
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(4L).build(),
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(4L).build());
+            assertThrows(RecordCoreArgumentException.class, () -> recordStore.saveRecords(duplicates));
+        }
+    }
+
+    @Test
+    public void loadRecordsBatch() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            for (long recNo : new long[] {1L, 2L, 3L, 5L, 8L, 9L}) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setNumValue2((int)recNo)
+                        .build());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            List<Tuple> primaryKeys = List.of(Tuple.from(9L), Tuple.from(1L), Tuple.from(2L), Tuple.from(3L), Tuple.from(4L),
+                    Tuple.from(5L), Tuple.from(8L), Tuple.from(2L), Tuple.from(100L));
+            List<FDBStoredRecord<Message>> records = recordStore.loadRecords(primaryKeys);
+            assertEquals(primaryKeys.size(), records.size());
+            for (int i = 0; i < primaryKeys.size(); i++) {
+                FDBStoredRecord<Message> expected = recordStore.loadRecord(primaryKeys.get(i));
+                FDBStoredRecord<Message> actual = records.get(i);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertNotNull(actual);
+                    assertEquals(expected.getPrimaryKey(), actual.getPrimaryKey());
+                    assertEquals(expected.getRecord(), actual.getRecord());
+                    assertEquals(expected.getKeyCount(), actual.getKeyCount());
+                }
+            }
+            commit(context);
+        }
+    }
+
+    @Test
+    public void loadWithProjection() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            for (long recNo = 1L; recNo <= 4L; recNo++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setStrValueIndexed("record " + recNo)
+                        .setNumValue2((int)recNo)
+                        .setNumValue3Indexed((int)recNo * 10)
+                        .build());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            RecordQuery query = RecordQuery.newBuilder()
+                    .setRecordType("MySimpleRecord")
+                    .setFilter(Query.field("num_value_2").greaterThan(2))
+                    .setRequiredResults(List.of(Key.Expressions.field("num_value_3_indexed")))
+                    .build();
+            RecordProjection projection = RecordProjection.forQuery(recordStore.getRecordMetaData(), query);
+            FDBTypedRecordStore<Message> projectedStore = recordStore.getProjectedRecordStore(projection);
+
+            List<TestRecords1Proto.MySimpleRecord> results = projectedStore.executeQuery(query)
+                    .map(rec -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(rec.getRecord()).build())
+                    .asList().get();
+            assertEquals(List.of(
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(3L).setNumValue2(3).setNumValue3Indexed(30).build(),
+                    TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(4L).setNumValue2(4).setNumValue3Indexed(40).build()),
+                    results);
+
+            FDBStoredRecord<Message> loaded = projectedStore.loadRecord(Tuple.from(1L));
+            assertNotNull(loaded);
+            assertEquals(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).setNumValue2(1).setNumValue3Indexed(10).build(),
+                    TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(loaded.getRecord()).build());
+
+            // Partial records cannot be written back
+            assertThrows(RecordCoreException.class, () -> projectedStore.saveRecord(loaded.getRecord()));
+            assertThrows(RecordCoreException.class, () -> projectedStore.deleteRecord(Tuple.from(1L)));
+            assertEquals("record 1", TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .mergeFrom(recordStore.loadRecord(Tuple.from(1L)).getRecord()).getStrValueIndexed());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void loadWithTransactionRecordCache() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).setNumValue2(1).build());
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(2L).setNumValue2(2).build());
+            commit(context);
+        }
+        final RecordLayerPropertyStorage.Builder props = RecordLayerPropertyStorage.newBuilder()
+                .addProp(FDBRecordStoreProperties.TRANSACTION_RECORD_CACHE_SIZE, 100);
+        try (FDBRecordContext context = openContext(props)) {
+            openSimpleRecordStore(context);
+            timer.reset();
+            FDBStoredRecord<Message> first = recordStore.loadRecord(Tuple.from(1L));
+            FDBStoredRecord<Message> second = recordStore.loadRecord(Tuple.from(1L));
+            assertNotNull(first);
+            assertSame(first, second);
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_MISS));
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_HIT));
+
+            // Missing records are not cached
+            assertNull(recordStore.loadRecord(Tuple.from(3L)));
+            assertNull(recordStore.loadRecord(Tuple.from(3L)));
+            assertEquals(3, timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_MISS));
+
+            // Saves replace the cached record
+            TestRecords1Proto.MySimpleRecord updated = TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).setNumValue2(10).build();
+            recordStore.saveRecord(updated);
+            assertEquals(updated, recordStore.loadRecord(Tuple.from(1L)).getRecord());
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_HIT));
+
+            // Deletes remove it
+            assertThat(recordStore.deleteRecord(Tuple.from(1L)), is(true));
+            assertNull(recordStore.loadRecord(Tuple.from(1L)));
+
+            // Another store object for the same store shares the cache
+            assertNotNull(recordStore.loadRecord(Tuple.from(2L)));
+            final int hits = timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_HIT);
+            FDBRecordStore otherStore = recordStore.asBuilder().open();
+            assertNotNull(otherStore.loadRecord(Tuple.from(2L)));
+            assertEquals(hits + 1, timer.getCount(FDBStoreTimer.Counts.TRANSACTION_RECORD_CACHE_HIT));
+
+            // Deleting all records clears the cache
+            recordStore.deleteAllRecords();
+            assertNull(recordStore.loadRecord(Tuple.from(2L)));
+            commit(context);
+        }
+    }
+
     @Test
     public void delete() throws Exception {
         try (FDBRecordContext context = openContext()) {
@@ -32,6 +32,7 @@ import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.IndexState;
 import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursorIterator;
 import com.apple.foundationdb.record.RecordIndexUniquenessViolation;
@@ -105,6 +106,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static com.apple.foundationdb.record.metadata.Key.Expressions.concat;
 import static com.apple.foundationdb.record.metadata.Key.Expressions.concatenateFields;
@@ -2840,6 +2842,69 @@ public class FDBRecordStoreIndexTest extends FDBRecordStoreTestBase {
         database.close();
     }
 
+    @ParameterizedTest(name = "scanRecordsParallel [ordered = {0}]")
+    @BooleanSource
+    void scanRecordsParallel(boolean ordered) {
+        runLocalityTest(() -> scanRecordsParallelImpl(ordered));
+    }
+
+    private void scanRecordsParallelImpl(boolean ordered) {
+        final FDBDatabaseFactory factory = dbExtension.getDatabaseFactory();
+        factory.setLocalityProvider(MockedLocalityUtil.instance());
+        factory.clear();
+        FDBDatabase database = factory.getDatabase();
+
+        final List<byte[]> keys = new ArrayList<>();
+        try (FDBRecordContext context = database.openContext()) {
+            openSimpleRecordStore(context);
+            for (int i = 0; i < 50; i++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(i).setNumValue2(i % 5).build());
+                keys.add(recordStore.recordsSubspace().pack(i));
+            }
+            commit(context);
+        }
+
+        final List<Long> recNos = new ArrayList<>();
+        byte[] continuation = null;
+        do {
+            try (FDBRecordContext context = database.openContext()) {
+                openSimpleRecordStore(context);
+                MockedLocalityUtil.init(keys, 5);
+                final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder().setReturnedRowLimit(7).build());
+                try (RecordCursorIterator<FDBStoredRecord<Message>> cursor = recordStore.scanRecordsParallel(null, continuation, scanProperties, 4, ordered).asIterator()) {
+                    int count = 0;
+                    while (cursor.hasNext()) {
+                        recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(cursor.next().getRecord()).getRecNo());
+                        count++;
+                    }
+                    assertThat(count, lessThanOrEqualTo(7));
+                    continuation = cursor.getContinuation();
+                }
+            }
+        } while (continuation != null);
+
+        final List<Long> expected = LongStream.range(0, 50).boxed().collect(Collectors.toList());
+        if (ordered) {
+            assertEquals(expected, recNos);
+        } else {
+            assertEquals(expected, recNos.stream().sorted().collect(Collectors.toList()));
+        }
+
+        try (FDBRecordContext context = database.openContext()) {
+            openSimpleRecordStore(context);
+            MockedLocalityUtil.init(keys, 5);
+            // Starting a scan from an asynchronous context does not block to find the partition boundaries
+            final List<FDBStoredRecord<Message>> records = context.asyncToSync(FDBStoreTimer.Waits.WAIT_SCAN_RECORDS,
+                    AsyncUtil.DONE.thenComposeAsync(vignore -> recordStore.scanRecordsParallel(null, null, ScanProperties.FORWARD_SCAN, 4, ordered).asList(),
+                            context.getExecutor()));
+            assertEquals(50, records.size());
+
+            assertThrows(RecordCoreArgumentException.class,
+                    () -> recordStore.scanRecordsParallel(null, null, ScanProperties.FORWARD_SCAN, 0, ordered));
+        }
+        database.close();
+    }
+
     private List<Pair<Tuple, Tuple>> getOneRangePerSplit(TupleRange tupleRange, List<Tuple> boundaries) {
         List<Tuple> newBoundaries = new ArrayList<>(boundaries);
         if (tupleRange.getLow().compareTo(boundaries.get(0)) < 0) {
@@ -24,6 +24,7 @@ import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.FDBRecordStoreProperties;
 import com.apple.foundationdb.record.IndexState;
 import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursorIterator;
 import com.apple.foundationdb.record.RecordMetaData;
@@ -55,6 +56,7 @@ import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -639,6 +641,51 @@ public class FDBRecordStoreSplitRecordsTest extends FDBRecordStoreTestBase {
         assertEquals(createdRecords, scannedRecords);
     }
 
+    @Test
+    public void splitChunkSizePerRecordType() {
+        final int chunkSize = 10_000;
+        final String bigValue = Strings.repeat("X", chunkSize * 5);
+        final FDBStoredRecord<Message> savedRecord;
+        try (FDBRecordContext context = openContext()) {
+            recordStore = getStoreBuilder(context, simpleMetaData(TEST_SPLIT_HOOK))
+                    .setSplitChunkSizes(Map.of("MySimpleRecord", chunkSize))
+                    .createOrOpen();
+            savedRecord = recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed(bigValue)
+                    .build());
+            assertTrue(savedRecord.isSplit());
+            assertEquals(bigValue.length() / chunkSize + 1, savedRecord.getKeyCount());
+
+            // Other record types are still split at the default size
+            FDBStoredRecord<Message> otherRecord = recordStore.saveRecord(TestRecords1Proto.MyOtherRecord.newBuilder()
+                    .setRecNo(1415L)
+                    .setNumValue2(1)
+                    .build());
+            assertFalse(otherRecord.isSplit());
+            commit(context);
+        }
+
+        // Records written with a smaller chunk size can be read back with or without parallel chunk reads
+        for (int parallelReadChunks : List.of(0, 1, 2)) {
+            try (FDBRecordContext context = openContext(RecordLayerPropertyStorage.newBuilder()
+                    .addProp(FDBRecordStoreProperties.LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS, parallelReadChunks))) {
+                openSimpleRecordStore(context, TEST_SPLIT_HOOK);
+                FDBStoredRecord<Message> loadedRecord = recordStore.loadRecord(Tuple.from(1066L));
+                assertNotNull(loadedRecord);
+                assertEquals(savedRecord.getRecord(), loadedRecord.getRecord());
+                assertEquals(savedRecord.getKeyCount(), loadedRecord.getKeyCount());
+                assertEquals(savedRecord.getValueSize(), loadedRecord.getValueSize());
+                commit(context);
+            }
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            assertThrows(RecordCoreArgumentException.class, () -> getStoreBuilder(context, simpleMetaData(TEST_SPLIT_HOOK))
+                    .setSplitChunkSizes(Map.of("MySimpleRecord", SplitHelper.SPLIT_RECORD_SIZE + 1)));
+        }
+    }
+
     @ParameterizedTest(name = "testSaveRecordWithDifferentSplits[{0}]")
     @MethodSource("testConfigs")
     public void testSaveRecordWithDifferentSplits(SplitRecordsTestConfig testConfig) {
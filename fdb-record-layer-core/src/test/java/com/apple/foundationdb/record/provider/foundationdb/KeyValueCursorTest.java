@@ -20,10 +20,15 @@
 
 package com.apple.foundationdb.record.provider.foundationdb;
 
+import com.apple.foundationdb.KeySelector;
 import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.record.CursorStreamingMode;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.ExecuteState;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorIterator;
@@ -39,18 +44,25 @@ import com.apple.foundationdb.record.test.TestKeySpace;
 import com.apple.foundationdb.record.test.TestKeySpacePathManagerExtension;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.BooleanSource;
 import com.apple.test.Tags;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -273,6 +285,231 @@ public class KeyValueCursorTest {
         });
     }
 
+    @ParameterizedTest(name = "readAhead [reverse = {0}]")
+    @BooleanSource
+    public void readAhead(boolean reverse) {
+        final List<Tuple> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                expected.add(Tuple.from((long)i, (long)j));
+            }
+        }
+        if (reverse) {
+            Collections.reverse(expected);
+        }
+        fdb.run(context -> {
+            // A budget of a few entries, so that the scan takes many batches.
+            final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder().setReturnedRowLimit(7).build(), reverse)
+                    .setReadAhead(200, 0.5);
+            final List<Tuple> results = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                        .setContext(context)
+                        .setRange(TupleRange.ALL)
+                        .setContinuation(continuation)
+                        .setScanProperties(scanProperties)
+                        .build();
+                final List<Tuple> page = cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join();
+                assertThat(page.size(), lessThanOrEqualTo(7));
+                results.addAll(page);
+                continuation = cursor.getNext().getContinuation().toBytes();
+            } while (continuation != null);
+            assertEquals(expected, results);
+
+            KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.allOf(Tuple.from(3)))
+                    .setContinuation(null)
+                    .setScanProperties(new ScanProperties(ExecuteProperties.newBuilder().setSkip(1).build(), reverse).setReadAhead(200, 0.0))
+                    .build();
+            assertEquals(expected.stream().filter(t -> t.getLong(0) == 3L).skip(1).collect(Collectors.toList()),
+                    cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+
+            return null;
+        });
+        assertThrows(RecordCoreArgumentException.class, () -> ScanProperties.FORWARD_SCAN.setReadAhead(100, 1.5));
+    }
+
+    @Test
+    public void readAheadOverlapsConsumer() {
+        final List<Tuple> expected = new ArrayList<>();
+        fdb.database().run(tr -> {
+            for (int i = 0; i < 250; i++) {
+                final Tuple key = Tuple.from(20L, (long)i);
+                tr.set(subspace.pack(key), key.pack());
+                expected.add(key);
+            }
+            return null;
+        });
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        try (FDBRecordContext context = fdb.openContext(null, timer)) {
+            final KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.allOf(Tuple.from(20L)))
+                    .setContinuation(null)
+                    .setScanProperties(ScanProperties.FORWARD_SCAN.setReadAhead(200, 0.5))
+                    .build();
+            final List<Tuple> results = new ArrayList<>();
+            // The first batch has INITIAL_BATCH_ROWS rows, and the second is only requested once half of them have been returned.
+            final int readAheadPosition = ReadAheadKeyValueIterator.INITIAL_BATCH_ROWS / 2;
+            for (int i = 0; i < readAheadPosition; i++) {
+                assertEquals(1, timer.getCount(FDBStoreTimer.Counts.READ_AHEAD_BATCH));
+                results.add(Tuple.fromBytes(cursor.getNext().get().getValue()));
+            }
+            // Requested while the rest of the first batch is still to be consumed.
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.READ_AHEAD_BATCH));
+            results.addAll(cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+            assertEquals(expected, results);
+            // The later batches are sized to the byte budget, so there are many of them.
+            assertThat(timer.getCount(FDBStoreTimer.Counts.READ_AHEAD_BATCH), greaterThan(10));
+        }
+    }
+
+    @ParameterizedTest(name = "adaptiveStreaming [reverse = {0}]")
+    @BooleanSource
+    public void adaptiveStreaming(boolean reverse) {
+        final List<Tuple> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                expected.add(Tuple.from((long)i, (long)j));
+            }
+        }
+        if (reverse) {
+            Collections.reverse(expected);
+        }
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        fdb.run(timer, null, context -> {
+            final ExecuteProperties executeProperties = ExecuteProperties.newBuilder()
+                    .setDefaultCursorStreamingMode(CursorStreamingMode.ADAPTIVE)
+                    .build();
+            KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(null)
+                    .setScanProperties(new ScanProperties(executeProperties, reverse))
+                    .build();
+            assertEquals(expected, cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_BATCHED));
+            assertThat(timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_GROW), greaterThan(0));
+
+            cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(null)
+                    .setScanProperties(new ScanProperties(executeProperties.setReturnedRowLimit(3), reverse))
+                    .build();
+            assertEquals(expected.subList(0, 3), cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_EXACT));
+
+            cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(cursor.getNext().getContinuation().toBytes())
+                    .setScanProperties(new ScanProperties(executeProperties.setReturnedRowLimit(15), reverse))
+                    .build();
+            assertEquals(expected.subList(3, 18), cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_BATCHED));
+
+            return null;
+        });
+    }
+
+    @Test
+    public void adaptiveStreamingBatchRows() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        try (FDBRecordContext context = fdb.openContext(null, timer)) {
+            final Transaction tr = context.ensureActive();
+            final ReadAheadKeyValueIterator iterator = new ReadAheadKeyValueIterator(context, tr,
+                    KeySelector.firstGreaterOrEqual(subspace.range().begin), KeySelector.firstGreaterOrEqual(subspace.range().end),
+                    ReadTransaction.ROW_LIMIT_UNLIMITED, false, 0L, 0.0, true);
+            final int initialRows = ReadAheadKeyValueIterator.ADAPTIVE_INITIAL_BATCH_ROWS;
+            assertEquals(initialRows, iterator.getAdaptiveBatchRows());
+
+            // A consumer that gets ahead of the reads makes the batches larger,
+            iterator.adjustAdaptiveBatchRows(true);
+            iterator.adjustAdaptiveBatchRows(true);
+            iterator.adjustAdaptiveBatchRows(true);
+            assertEquals(initialRows * 8, iterator.getAdaptiveBatchRows());
+            assertEquals(3, timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_GROW));
+
+            // while one that is slower than them makes the batches smaller again, down to the initial size.
+            iterator.adjustAdaptiveBatchRows(false);
+            assertEquals(initialRows * 4, iterator.getAdaptiveBatchRows());
+            iterator.adjustAdaptiveBatchRows(false);
+            iterator.adjustAdaptiveBatchRows(false);
+            iterator.adjustAdaptiveBatchRows(false);
+            assertEquals(initialRows, iterator.getAdaptiveBatchRows());
+            assertEquals(3, timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_SHRINK));
+            iterator.cancel();
+        }
+    }
+
+    @Test
+    public void adaptiveStreamingLargerRange() {
+        final List<Tuple> expected = new ArrayList<>();
+        fdb.database().run(tr -> {
+            for (int i = 0; i < 60; i++) {
+                final Tuple key = Tuple.from(10L, (long)i);
+                tr.set(subspace.pack(key), key.pack());
+                expected.add(key);
+            }
+            return null;
+        });
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        try (FDBRecordContext context = fdb.openContext(null, timer)) {
+            final ExecuteProperties executeProperties = ExecuteProperties.newBuilder()
+                    .setDefaultCursorStreamingMode(CursorStreamingMode.ADAPTIVE)
+                    .build();
+            final KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.allOf(Tuple.from(10L)))
+                    .setContinuation(null)
+                    .setScanProperties(new ScanProperties(executeProperties))
+                    .build();
+            assertEquals(expected, cursor.map(KeyValue::getValue).map(Tuple::fromBytes).asList().join());
+            // Whether the consumer waits depends on timing, but the batch size never goes below where it started
+            // and changes at most once for each batch that the consumer reaches.
+            final int grow = timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_GROW);
+            final int shrink = timer.getCount(FDBStoreTimer.Counts.ADAPTIVE_STREAMING_SHRINK);
+            assertThat(shrink, lessThanOrEqualTo(grow));
+            assertThat(grow + shrink, lessThanOrEqualTo(timer.getCount(FDBStoreTimer.Counts.READ_AHEAD_BATCH)));
+        }
+    }
+
+    @Test
+    public void onNextBatch() {
+        fdb.run(context -> {
+            KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(null)
+                    .setScanProperties(new ScanProperties(ExecuteProperties.newBuilder().setReturnedRowLimit(17).build()))
+                    .build();
+            final List<Tuple> results = new ArrayList<>();
+            RecordCursorResult<KeyValue> last;
+            do {
+                final List<RecordCursorResult<KeyValue>> batch = cursor.onNextBatch(5).join();
+                assertThat(batch.size(), lessThanOrEqualTo(5));
+                last = batch.get(batch.size() - 1);
+                batch.stream().filter(RecordCursorResult::hasNext).forEach(result -> results.add(Tuple.fromBytes(result.get().getValue())));
+            } while (last.hasNext());
+            assertEquals(17, results.size());
+            assertEquals(Tuple.from(3L, 1L), results.get(16));
+            assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, last.getNoNextReason());
+
+            cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(last.getContinuation().toBytes())
+                    .setScanProperties(ScanProperties.FORWARD_SCAN)
+                    .build();
+            assertEquals(8, (int)cursor.getCount().join());
+
+            return null;
+        });
+    }
+
     @Test
     public void noNextReasons() {
         fdb.run(context -> {
@@ -324,6 +561,31 @@ public class KeyValueCursorTest {
         });
     }
 
+    @Test
+    public void scanLimitInBatch() {
+        fdb.run(context -> {
+            RecordScanLimiter limiter = RecordScanLimiterFactory.enforce(7);
+            KeyValueCursor cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setScanProperties(forwardScanWithLimiter(limiter))
+                    .build();
+            final List<RecordCursorResult<KeyValue>> results = new ArrayList<>();
+            RecordCursorResult<KeyValue> last;
+            do {
+                final List<RecordCursorResult<KeyValue>> batch = cursor.onNextBatch(100).join();
+                results.addAll(batch);
+                last = batch.get(batch.size() - 1);
+            } while (last.hasNext());
+            assertEquals(7, results.stream().filter(RecordCursorResult::hasNext).count());
+            assertThat("no next reason should be SCAN_LIMIT_REACHED", last.getNoNextReason(),
+                    equalTo(RecordCursor.NoNextReason.SCAN_LIMIT_REACHED));
+            assertEquals(Tuple.from(1L, 2L), Tuple.fromBytes(results.get(6).get().getValue()));
+
+            return null;
+        });
+    }
+
     @Test
     public void limitNotReached() {
         fdb.run(context -> {
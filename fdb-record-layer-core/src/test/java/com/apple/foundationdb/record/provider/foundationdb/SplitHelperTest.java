@@ -44,6 +44,7 @@ import com.google.common.collect.Lists;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -64,6 +65,7 @@ import java.util.stream.Stream;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -131,26 +133,38 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
         private final boolean unrollRecordDeletes;
         private final boolean loadViaGets;
         private final boolean isDryRun;
+        private final int parallelReadChunks;
 
         public SplitHelperTestConfig(boolean splitLongRecords, boolean omitUnsplitSuffix, boolean unrollRecordDeletes, boolean loadViaGets, boolean isDryRun) {
+            this(splitLongRecords, omitUnsplitSuffix, unrollRecordDeletes, loadViaGets, isDryRun, 0);
+        }
+
+        public SplitHelperTestConfig(boolean splitLongRecords, boolean omitUnsplitSuffix, boolean unrollRecordDeletes, boolean loadViaGets, boolean isDryRun,
+                                     int parallelReadChunks) {
             this.splitLongRecords = splitLongRecords;
             this.omitUnsplitSuffix = omitUnsplitSuffix;
             this.unrollRecordDeletes = unrollRecordDeletes;
             this.loadViaGets = loadViaGets;
             this.isDryRun = isDryRun;
+            this.parallelReadChunks = parallelReadChunks;
         }
 
         @Nonnull
         public RecordLayerPropertyStorage.Builder setProps(@Nonnull RecordLayerPropertyStorage.Builder props) {
             return props
                     .addProp(FDBRecordStoreProperties.UNROLL_SINGLE_RECORD_DELETES, unrollRecordDeletes)
-                    .addProp(FDBRecordStoreProperties.LOAD_RECORDS_VIA_GETS, loadViaGets);
+                    .addProp(FDBRecordStoreProperties.LOAD_RECORDS_VIA_GETS, loadViaGets)
+                    .addProp(FDBRecordStoreProperties.LOAD_SPLIT_RECORDS_PARALLEL_READ_CHUNKS, parallelReadChunks);
         }
 
         public boolean hasSplitPoints() {
             return splitLongRecords || !omitUnsplitSuffix;
         }
 
+        public boolean loadsViaGets() {
+            return loadViaGets || (splitLongRecords && parallelReadChunks > 0);
+        }
+
         @Override
         public String toString() {
             return "SplitHelperTestConfig{" +
@@ -159,6 +173,7 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
                    ", unrollRecordDeletes=" + unrollRecordDeletes +
                    ", loadViaGets=" + loadViaGets +
                    ", isDryRun=" + isDryRun +
+                   ", parallelReadChunks=" + parallelReadChunks +
                    '}';
         }
 
@@ -171,12 +186,12 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
                 return false;
             }
             final SplitHelperTestConfig that = (SplitHelperTestConfig)o;
-            return splitLongRecords == that.splitLongRecords && omitUnsplitSuffix == that.omitUnsplitSuffix && unrollRecordDeletes == that.unrollRecordDeletes && loadViaGets == that.loadViaGets && isDryRun == that.isDryRun;
+            return splitLongRecords == that.splitLongRecords && omitUnsplitSuffix == that.omitUnsplitSuffix && unrollRecordDeletes == that.unrollRecordDeletes && loadViaGets == that.loadViaGets && isDryRun == that.isDryRun && parallelReadChunks == that.parallelReadChunks;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(splitLongRecords, omitUnsplitSuffix, unrollRecordDeletes, loadViaGets);
+            return Objects.hash(splitLongRecords, omitUnsplitSuffix, unrollRecordDeletes, loadViaGets, parallelReadChunks);
         }
 
         public static Stream<SplitHelperTestConfig> allValidConfigs() {
@@ -200,6 +215,13 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
         return SplitHelperTestConfig.allValidConfigs().map(Arguments::of);
     }
 
+    public static Stream<Arguments> parallelReadConfigs() {
+        return Stream.of(1, 2, 3).flatMap(parallelReadChunks ->
+                Stream.of(false, true).map(loadViaGets ->
+                        Arguments.of(new SplitHelperTestConfig(true, false,
+                                FDBRecordStoreProperties.UNROLL_SINGLE_RECORD_DELETES.getDefaultValue(), loadViaGets, false, parallelReadChunks))));
+    }
+
     @Nonnull
     public static Stream<Arguments> limitsAndReverseArgs() {
         List<Integer> limits = Arrays.asList(1, 2, 7, Integer.MAX_VALUE);
@@ -664,7 +686,7 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
                 // One split record then delete the first split point
                 writeDummyRecord(context, Tuple.from(1189L), MEDIUM_COPIES, false);
                 context.ensureActive().clear(subspace.pack(Tuple.from(1189L, SplitHelper.START_SPLIT_RECORD)));
-                if (testConfig.loadViaGets) {
+                if (testConfig.loadsViaGets()) {
                     loadRecordFunction.load(context, Tuple.from(1189L), null, null);
                 } else {
                     assertThrows(SplitHelper.FoundSplitWithoutStartException.class,
@@ -785,6 +807,88 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @MethodSource("parallelReadConfigs")
+    @ParameterizedTest(name = "loadWithSplitInParallel[{0}]")
+    public void loadWithSplitInParallel(SplitHelperTestConfig testConfig) {
+        loadWithSplit(testConfig);
+
+        try (FDBRecordContext context = openContext()) {
+            // Many more chunks than would be read with a single range read batch
+            final byte[] serialized = VERY_LONG_STRING;
+            final int chunkSize = 1_000;
+            timer.reset();
+            final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
+            SplitHelper.saveWithSplit(context, subspace, Tuple.from(1346L), serialized, null, true, false, false, null, chunkSize, sizeInfo);
+            assertEquals((serialized.length - 1) / chunkSize + 1, sizeInfo.getKeyCount());
+            loadWithSplit(context, Tuple.from(1346L), testConfig, sizeInfo, serialized);
+
+            // The remaining chunks are read concurrently, but with a bounded number of range reads
+            final int rangeReads = timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_PARALLEL_RANGE_READS);
+            assertThat(rangeReads, greaterThan(1));
+            assertThat(rangeReads, lessThanOrEqualTo(32));
+
+            commit(context);
+        }
+    }
+
+    @MethodSource("parallelReadConfigs")
+    @ParameterizedTest(name = "loadInParallelDoesNotConflictWithPreviousRecord[{0}]")
+    public void loadInParallelDoesNotConflictWithPreviousRecord(SplitHelperTestConfig testConfig) {
+        this.testConfig = testConfig;
+        final Tuple previousKey = Tuple.from(1362L);
+        final Tuple missingKey = Tuple.from(1363L);
+        final Tuple unsplitKey = Tuple.from(1364L);
+        final FDBStoredSizes unsplitSizes;
+        try (FDBRecordContext context = openContext()) {
+            writeDummyRecord(context, previousKey, MEDIUM_COPIES, false);
+            unsplitSizes = writeDummyRecord(context, unsplitKey, 1, false);
+            commit(context);
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            // Neither an unsplit record nor a missing one should read anything from the record before it
+            loadWithSplit(context, unsplitKey, testConfig, unsplitSizes, HUMPTY_DUMPTY);
+            loadWithSplit(context, missingKey, testConfig, null, null);
+            context.ensureActive().set(subspace.pack(Tuple.from(1365L)), HUMPTY_DUMPTY);
+
+            try (FDBRecordContext otherContext = openContext()) {
+                writeDummyRecord(otherContext, previousKey, 1, false);
+                commit(otherContext);
+            }
+
+            commit(context);
+        }
+    }
+
+    @Test
+    public void saveWithSplitChunkSize() {
+        try (FDBRecordContext context = openContext()) {
+            final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
+            SplitHelper.saveWithSplit(context, subspace, Tuple.from(1415L), MEDIUM_STRING, null, true, false, false, null, HUMPTY_DUMPTY.length, sizeInfo);
+            assertThat(sizeInfo.isSplit(), is(true));
+            assertEquals(MEDIUM_COPIES, sizeInfo.getKeyCount());
+            loadWithSplit(context, Tuple.from(1415L), testConfig, sizeInfo, MEDIUM_STRING);
+
+            final SplitHelper.SizeInfo dryRunSizeInfo = new SplitHelper.SizeInfo();
+            SplitHelper.dryRunSaveWithSplitOnlySetSizeInfo(subspace, Tuple.from(1415L), MEDIUM_STRING, null, true, false, HUMPTY_DUMPTY.length, dryRunSizeInfo);
+            assertEquals(sizeInfo.getKeyCount(), dryRunSizeInfo.getKeyCount());
+            assertEquals(sizeInfo.getKeySize(), dryRunSizeInfo.getKeySize());
+            assertEquals(sizeInfo.getValueSize(), dryRunSizeInfo.getValueSize());
+
+            // The chunk size does not matter if long records are not split
+            final SplitHelper.SizeInfo unsplitSizeInfo = new SplitHelper.SizeInfo();
+            SplitHelper.saveWithSplit(context, subspace, Tuple.from(1485L), MEDIUM_STRING, null, false, false, false, null, HUMPTY_DUMPTY.length, unsplitSizeInfo);
+            assertThat(unsplitSizeInfo.isSplit(), is(false));
+
+            assertThrows(RecordCoreArgumentException.class,
+                    () -> SplitHelper.saveWithSplit(context, subspace, Tuple.from(1536L), MEDIUM_STRING, null, true, false, false, null, 0, null));
+            assertThrows(RecordCoreArgumentException.class,
+                    () -> SplitHelper.saveWithSplit(context, subspace, Tuple.from(1536L), MEDIUM_STRING, null, true, false, false, null, SplitHelper.SPLIT_RECORD_SIZE + 1, null));
+
+            commit(context);
+        }
+    }
+
     private FDBRawRecord scanSingleRecord(@Nonnull FDBRecordContext context, boolean reverse, @Nonnull Tuple key, @Nullable FDBStoredSizes expectedSizes, @Nullable byte[] expectedContents, @Nullable FDBRecordVersion version) {
         final ScanProperties scanProperties = reverse ? ScanProperties.REVERSE_SCAN : ScanProperties.FORWARD_SCAN;
         KeyValueCursor kvCursor = KeyValueCursor.Builder.withSubspace(subspace)
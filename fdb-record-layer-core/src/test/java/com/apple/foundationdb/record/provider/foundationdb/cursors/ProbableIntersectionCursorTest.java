@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.provider.foundationdb.cursors;
 
 import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorProto;
@@ -33,6 +34,7 @@ import com.apple.foundationdb.record.logging.TestLogMessageKeys;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.google.common.collect.Iterators;
 import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -55,6 +57,7 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -250,6 +253,98 @@ public class ProbableIntersectionCursorTest {
         }
     }
 
+    /**
+     * Test that a scalable Bloom filter keeps its false positive rate as it grows past its initial size.
+     */
+    @Test
+    public void scalableBloomFilter() {
+        final ScalableBloomFilter<Integer> filter = ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(i);
+        }
+        // Filters for 100, 200, ..., 6400 elements
+        assertEquals(7, filter.getFilterCount());
+        final ScalableBloomFilter<Integer> deserialized = ScalableBloomFilter.fromProto(Funnels.integerFunnel(), filter.toProto());
+        assertEquals(filter.toProto(), deserialized.toProto());
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(deserialized.mightContain(i), is(true));
+            if (deserialized.mightContain(i + 10_000)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives, lessThan(200));
+
+        assertThrows(RecordCoreArgumentException.class, () -> ScalableBloomFilter.create(Funnels.integerFunnel(), 0, 0.01));
+        assertThrows(RecordCoreArgumentException.class, () -> ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 1.0));
+    }
+
+    /**
+     * Test that the cursor can be resumed with scalable Bloom filters and that its continuations are much smaller than
+     * with a fixed Bloom filter that is sized for many more results than are read.
+     */
+    @Test
+    public void resumeWithScalableBloomFilter() {
+        final Random r = new Random(0x5ca1ab1e);
+        final List<List<Integer>> lists = Stream.generate(
+                () -> IntStream.generate(() -> r.nextInt(2000)).limit(1000).boxed().collect(Collectors.toList())
+        ).limit(3).collect(Collectors.toList());
+        final List<Function<byte[], RecordCursor<Integer>>> cursorFuncs = lists.stream()
+                .map(list -> (Function<byte[], RecordCursor<Integer>>)((byte[] continuation) -> new RowLimitedCursor<>(RecordCursor.fromList(list, continuation), 50)))
+                .collect(Collectors.toList());
+        final List<Set<Integer>> sets = lists.stream().map(HashSet::new).collect(Collectors.toList());
+        final Set<Integer> actualIntersection = new HashSet<>(sets.get(0));
+        sets.forEach(actualIntersection::retainAll);
+
+        final Set<Integer> found = new HashSet<>();
+        int falsePositives = 0;
+        int maxContinuationSize = 0;
+        byte[] lastContinuation = null;
+        byte[] continuation = null;
+        do {
+            ProbableIntersectionCursor<Integer> intersectionCursor = ProbableIntersectionCursor.createScalable(Collections::singletonList, cursorFuncs, 16, 0.01, continuation, null);
+            for (ProbableIntersectionCursorState<Integer> cursorState : intersectionCursor.getCursorStates()) {
+                assertNotNull(cursorState.getScalableBloomFilter());
+                assertNull(cursorState.getBloomFilter());
+            }
+            RecordCursorResult<Integer> result = intersectionCursor.getNext();
+            while (result.hasNext()) {
+                int value = result.get();
+                assertThat(sets.stream().anyMatch(set -> set.contains(value)), is(true));
+                if (!actualIntersection.contains(value)) {
+                    falsePositives++;
+                }
+                found.add(value);
+                result = intersectionCursor.getNext();
+            }
+            if (continuation != null) {
+                lastContinuation = continuation;
+            }
+            continuation = result.getContinuation().toBytes();
+            if (continuation != null) {
+                maxContinuationSize = Math.max(maxContinuationSize, continuation.length);
+            }
+        } while (continuation != null);
+
+        assertThat(found.containsAll(actualIntersection), is(true));
+        assertThat(falsePositives, lessThan(20));
+        try {
+            RecordCursorProto.ProbableIntersectionContinuation protoContinuation = RecordCursorProto.ProbableIntersectionContinuation.parseFrom(lastContinuation);
+            for (RecordCursorProto.ProbableIntersectionContinuation.CursorState childState : protoContinuation.getChildStateList()) {
+                assertThat(childState.hasBloomFilter(), is(false));
+                assertThat(childState.getScalableBloomFilter().getFilterCount(), greaterThan(1));
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw new RecordCoreException("error parsing proto continuation", e);
+        }
+
+        // A fixed filter sized so that it would not exceed the false positive rate even with many more results.
+        final RecordCursor<Integer> fixedCursor = ProbableIntersectionCursor.create(Collections::singletonList, cursorFuncs, 100_000, 0.01, null, null);
+        final byte[] fixedContinuation = fixedCursor.getNext().getContinuation().toBytes();
+        assertNotNull(fixedContinuation);
+        assertThat(maxContinuationSize * 10, lessThan(fixedContinuation.length));
+    }
+
     private void verifyResults(@Nonnull RecordCursor<Integer> cursor, @Nonnull RecordCursor.NoNextReason expectedReason, int... expectedResults) {
         for (int expectedResult : expectedResults) {
             RecordCursorResult<Integer> result = cursor.getNext();
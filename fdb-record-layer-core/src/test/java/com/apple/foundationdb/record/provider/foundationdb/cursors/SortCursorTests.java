@@ -34,11 +34,12 @@ import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreTestBase;
 import com.apple.foundationdb.record.provider.foundationdb.SortedRecordSerializer;
-import com.apple.foundationdb.record.sorting.FileSortAdapter;
+import com.apple.foundationdb.record.sorting.FileSortAdapterBase;
 import com.apple.foundationdb.record.sorting.FileSortCursor;
 import com.apple.foundationdb.record.sorting.MemorySortAdapter;
 import com.apple.foundationdb.record.sorting.MemorySortCursor;
 import com.apple.foundationdb.record.sorting.MemorySorter;
+import com.apple.foundationdb.record.sorting.SortEvents;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.Tags;
 import com.beust.jcommander.internal.Lists;
@@ -49,6 +50,8 @@ import com.google.protobuf.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -56,6 +59,7 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,6 +68,8 @@ import java.util.Random;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for {@link MemorySortCursor} and {@link FileSortCursor}.
@@ -177,6 +183,37 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         assertEquals(sortedNums.subList(0, 20), resultNums);
     }
 
+    @Test
+    public void memoryTopKSort() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, ScanProperties.FORWARD_SCAN).map(FDBQueriedRecord::stored);
+        final MemoryAdapterBase adapter = new MemoryAdapterBase() {
+            @Override
+            public int getMaxRecordCountInMemory() {
+                return 20;
+            }
+
+            @Override
+            public long getMaxBufferedBytesInMemory() {
+                return 500;
+            }
+
+            @Override
+            public long estimateValueSize(@Nonnull final FDBQueriedRecord<Message> value) {
+                return 100;
+            }
+        };
+
+        List<Integer> resultNums;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = MemorySortCursor.createTopK(adapter, scanRecords, timer, null)) {
+                resultNums = cursor.map(r -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(r.getRecord()).getNumValue2()).asList().get();
+            }
+        }
+        assertEquals(sortedNums.subList(0, 20), resultNums);
+    }
+
     @Test
     public void memoryDam() throws Exception {
         List<Integer> resultNums;
@@ -245,6 +282,46 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         assertEquals(sortedNums, resultNums);
     }
 
+    @Test
+    public void memoryTopKSortContinuations() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> {
+                    final ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setScannedRecordsLimit(20).build();
+                    return recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, new ScanProperties(executeProperties)).map(FDBQueriedRecord::stored);
+                };
+        final MemoryAdapterBase adapter = new MemoryAdapterBase() {
+            @Override
+            public int getMaxRecordCountInMemory() {
+                return 10;
+            }
+        };
+
+        List<Integer> resultNums = new ArrayList<>();
+        byte[] continuation = null;
+        int transactionCount = 0;
+
+        do {
+            try (FDBRecordContext context = openContext()) {
+                openSimpleRecordStore(context);
+                try (RecordCursor<FDBQueriedRecord<Message>> cursor = MemorySortCursor.createTopK(adapter, scanRecords, timer, continuation)) {
+                    while (true) {
+                        RecordCursorResult<FDBQueriedRecord<Message>> result = cursor.getNext();
+                        if (result.hasNext()) {
+                            int num2 = TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(result.get().getRecord()).getNumValue2();
+                            resultNums.add(num2);
+                        } else {
+                            continuation = result.getContinuation().toBytes();
+                            break;
+                        }
+                    }
+                }
+                transactionCount++;
+            }
+        } while (continuation != null);
+        assertEquals(110, transactionCount);
+        assertEquals(sortedNums, resultNums);
+    }
+
     @Test
     public void memoryDamContinuations() throws Exception {
         final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
@@ -291,17 +368,58 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         assertEquals(insertedNums, resultNums);
     }
 
-    abstract class FileSortAdapterBase extends MemoryAdapterBase implements FileSortAdapter<Tuple, FDBQueriedRecord<Message>> {
+    // Files are neither compressed nor encrypted unless a test overrides that.
+    abstract class RecordFileSortAdapter extends FileSortAdapterBase<Tuple, FDBQueriedRecord<Message>> {
+        @Override
+        public int compare(Tuple o1, Tuple o2) {
+            return o1.compareTo(o2);
+        }
+
         @Nonnull
         @Override
-        public MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode() {
-            return MemorySorter.RecordCountInMemoryLimitMode.STOP;
+        public Tuple generateKey(FDBQueriedRecord<Message> record) {
+            return num2Field.evaluateSingleton(record).toTuple();
+        }
+
+        @Nonnull
+        @Override
+        public byte[] serializeKey(final Tuple key) {
+            return key.pack();
+        }
+
+        @Override
+        public boolean isSerializedOrderReversed() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public Tuple deserializeKey(@Nonnull final byte[] key) {
+            return Tuple.fromBytes(key);
         }
 
         @Nonnull
         @Override
-        public File generateFilename() throws IOException {
-            return File.createTempFile("fdb", ".bin");
+        public byte[] serializeValue(final FDBQueriedRecord<Message> record) {
+            return serializer.serialize(record);
+        }
+
+        @Nonnull
+        @Override
+        public FDBQueriedRecord<Message> deserializeValue(@Nonnull final byte[] bytes) {
+            return serializer.deserialize(bytes);
+        }
+
+        @Nonnull
+        @Override
+        public MemorySortComparator<Tuple> getComparator(@Nullable final Tuple minimumKey) {
+            return new OrderComparator<>(this, minimumKey);
+        }
+
+        @Nonnull
+        @Override
+        public MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode() {
+            return MemorySorter.RecordCountInMemoryLimitMode.STOP;
         }
 
         @Override
@@ -343,8 +461,8 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         }
     }
 
-    private FileSortAdapterBase fileSortMemoryAdapter() {
-        return new FileSortAdapterBase() {
+    private RecordFileSortAdapter fileSortMemoryAdapter() {
+        return new RecordFileSortAdapter() {
             @Override
             public int getMinFileRecordCount() {
                 return 200;
@@ -367,8 +485,8 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         };
     }
 
-    private FileSortAdapterBase fileSortFilesAdapter() {
-        return new FileSortAdapterBase() {
+    private RecordFileSortAdapter fileSortFilesAdapter() {
+        return new RecordFileSortAdapter() {
             @Override
             public int getMinFileRecordCount() {
                 return 10;
@@ -391,12 +509,60 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         };
     }
 
-    private FileSortAdapterBase fileSortEncryptedAdapter() throws Exception {
+    private RecordFileSortAdapter fileSortBufferAdapter(long sortBufferBytes, boolean parallel) {
+        return fileSortBufferAdapter(sortBufferBytes, parallel, null);
+    }
+
+    private RecordFileSortAdapter fileSortBufferAdapter(long sortBufferBytes, boolean parallel, @Nullable File sessionDirectory) {
+        return new RecordFileSortAdapter() {
+            @Override
+            public int getMinFileRecordCount() {
+                return 10;
+            }
+
+            @Override
+            public int getMaxFileCount() {
+                return 5;
+            }
+
+            @Override
+            public int getRecordCountPerSection() {
+                return 10;
+            }
+
+            @Override
+            public int getMaxRecordCountInMemory() {
+                return 10;
+            }
+
+            @Override
+            public long getSortBufferBytes() {
+                return sortBufferBytes;
+            }
+
+            @Override
+            public boolean isParallelFileSort() {
+                return parallel;
+            }
+
+            @Nullable
+            @Override
+            public File getSessionDirectory() {
+                return sessionDirectory;
+            }
+        };
+    }
+
+    private RecordFileSortAdapter fileSortEncryptedAdapter() throws Exception {
+        return fileSortEncryptedAdapter(null);
+    }
+
+    private RecordFileSortAdapter fileSortEncryptedAdapter(@Nullable File sessionDirectory) throws Exception {
         final SecureRandom secureRandom = new SecureRandom();
         final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
         keyGen.init(128, secureRandom);
         final SecretKey secretKey = keyGen.generateKey();
-        return new FileSortAdapterBase() {
+        return new RecordFileSortAdapter() {
             @Override
             public int getMinFileRecordCount() {
                 return 10;
@@ -439,6 +605,12 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
             public SecureRandom getSecureRandom() {
                 return secureRandom;
             }
+
+            @Nullable
+            @Override
+            public File getSessionDirectory() {
+                return sessionDirectory;
+            }
         };
     }
 
@@ -470,6 +642,116 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         assertEquals(sortedNums, resultNums);
     }
 
+    @Test
+    public void fileSortBufferMemory() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, ScanProperties.FORWARD_SCAN).map(FDBQueriedRecord::stored);
+        final RecordFileSortAdapter adapter = new RecordFileSortAdapter() {
+            @Override
+            public int getMinFileRecordCount() {
+                return 200;
+            }
+
+            @Override
+            public int getMaxFileCount() {
+                return 5;
+            }
+
+            @Override
+            public int getRecordCountPerSection() {
+                return 200;
+            }
+
+            @Override
+            public int getMaxRecordCountInMemory() {
+                return 10;
+            }
+
+            @Override
+            public long getSortBufferBytes() {
+                return 1 << 20;
+            }
+        };
+        List<Integer> resultNums;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(adapter, scanRecords, timer, null, 0, Integer.MAX_VALUE)) {
+                resultNums = cursor.map(r -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(r.getRecord()).getNumValue2()).asList().get();
+            }
+        }
+        assertEquals(sortedNums, resultNums);
+        assertEquals(0, timer.getCount(SortEvents.Events.FILE_SORT_SORT_BUFFER));
+    }
+
+    @Test
+    public void fileSortBufferFiles() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, ScanProperties.FORWARD_SCAN).map(FDBQueriedRecord::stored);
+        List<Integer> resultNums;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(fileSortBufferAdapter(500, false), scanRecords, timer, null, 0, Integer.MAX_VALUE)) {
+                resultNums = cursor.map(r -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(r.getRecord()).getNumValue2()).asList().get();
+            }
+        }
+        assertEquals(sortedNums, resultNums);
+        assertTrue(timer.getCount(SortEvents.Events.FILE_SORT_SORT_BUFFER) > 1);
+    }
+
+    @ParameterizedTest(name = "fileSortBufferContinuations[sortBufferBytes={0}]")
+    @ValueSource(longs = {500, 1 << 20})
+    public void fileSortBufferContinuations(long sortBufferBytes) throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> {
+                    final ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setScannedRecordsLimit(20).build();
+                    return recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, new ScanProperties(executeProperties)).map(FDBQueriedRecord::stored);
+                };
+        final File sessionDirectory = Files.createTempDirectory("fdb-sort").toFile();
+        try {
+            List<Integer> resultNums = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                // Loading that stops saves the sort buffer to a file, so only the session's files carry over.
+                final RecordFileSortAdapter adapter = fileSortBufferAdapter(sortBufferBytes, false, sessionDirectory);
+                try (FDBRecordContext context = openContext()) {
+                    openSimpleRecordStore(context);
+                    try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(adapter, scanRecords, timer, continuation, 0, Integer.MAX_VALUE)) {
+                        for (int i = 0; i < 7; i++) {
+                            RecordCursorResult<FDBQueriedRecord<Message>> result = cursor.getNext();
+                            continuation = result.getContinuation().toBytes();
+                            if (!result.hasNext()) {
+                                break;
+                            }
+                            int num2 = TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(result.get().getRecord()).getNumValue2();
+                            resultNums.add(num2);
+                        }
+                    }
+                }
+            } while (continuation != null);
+            assertEquals(sortedNums, resultNums);
+            assertEquals(0, Verify.verifyNotNull(sessionDirectory.listFiles()).length);
+        } finally {
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, -1L);
+            Files.deleteIfExists(sessionDirectory.toPath());
+        }
+    }
+
+    @ParameterizedTest(name = "fileSortParallel[sortBufferBytes={0}]")
+    @ValueSource(longs = {0, 500})
+    public void fileSortParallel(long sortBufferBytes) throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, ScanProperties.FORWARD_SCAN).map(FDBQueriedRecord::stored);
+        List<Integer> resultNums;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(fileSortBufferAdapter(sortBufferBytes, true), scanRecords, timer, null, 0, Integer.MAX_VALUE)) {
+                resultNums = cursor.map(r -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(r.getRecord()).getNumValue2()).asList().get();
+            }
+        }
+        assertEquals(sortedNums, resultNums);
+        assertTrue(timer.getCount(SortEvents.Events.FILE_SORT_MERGE_FILES) > 0);
+    }
+
     @Test
     public void fileSortSkip() throws Exception {
         final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
@@ -498,4 +780,150 @@ public class SortCursorTests extends FDBRecordStoreTestBase {
         assertEquals(sortedNums, resultNums);
     }
 
+    @Test
+    public void fileSortSessionContinuations() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> {
+                    final ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setScannedRecordsLimit(20).build();
+                    return recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, new ScanProperties(executeProperties)).map(FDBQueriedRecord::stored);
+                };
+        final File sessionDirectory = Files.createTempDirectory("fdb-sort").toFile();
+        try {
+            List<Integer> resultNums = new ArrayList<>();
+            byte[] continuation = null;
+            int transactionCount = 0;
+            do {
+                // A new adapter, with a new encryption key, for each transaction, as with a new query execution.
+                final RecordFileSortAdapter adapter = fileSortEncryptedAdapter(sessionDirectory);
+                try (FDBRecordContext context = openContext()) {
+                    openSimpleRecordStore(context);
+                    try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(adapter, scanRecords, timer, continuation, 0, Integer.MAX_VALUE)) {
+                        // Return a page of at most 7 sorted records.
+                        for (int i = 0; i < 7; i++) {
+                            RecordCursorResult<FDBQueriedRecord<Message>> result = cursor.getNext();
+                            continuation = result.getContinuation().toBytes();
+                            if (!result.hasNext()) {
+                                break;
+                            }
+                            int num2 = TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(result.get().getRecord()).getNumValue2();
+                            resultNums.add(num2);
+                        }
+                    }
+                    transactionCount++;
+                }
+            } while (continuation != null);
+            assertEquals(sortedNums, resultNums);
+            // Loading takes five or six transactions, after which each page is read from the saved file, rather than
+            // sorting again.
+            assertTrue(transactionCount <= 6 + (100 + 6) / 7);
+            assertEquals(0, Verify.verifyNotNull(sessionDirectory.listFiles()).length);
+        } finally {
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, -1L);
+            Files.deleteIfExists(sessionDirectory.toPath());
+        }
+    }
+
+    @Test
+    public void fileSortSessionExpired() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> {
+                    final ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setScannedRecordsLimit(20).build();
+                    return recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, new ScanProperties(executeProperties)).map(FDBQueriedRecord::stored);
+                };
+        final File sessionDirectory = Files.createTempDirectory("fdb-sort").toFile();
+        try {
+            List<Integer> resultNums = new ArrayList<>();
+            byte[] continuation = null;
+            boolean touched = false;
+            boolean expired = false;
+            do {
+                final RecordFileSortAdapter adapter = fileSortEncryptedAdapter(sessionDirectory);
+                if (resultNums.size() >= 7 && !touched) {
+                    // Resuming marks the session as in use, so that it does not look abandoned.
+                    final File[] sessions = Verify.verifyNotNull(sessionDirectory.listFiles());
+                    assertEquals(1, sessions.length);
+                    assertTrue(sessions[0].setLastModified(System.currentTimeMillis() - 3_600_000L));
+                    try (FDBRecordContext context = openContext()) {
+                        openSimpleRecordStore(context);
+                        FileSortCursor.create(adapter, scanRecords, timer, continuation, 0, Integer.MAX_VALUE).close();
+                    }
+                    FileSortCursor.deleteExpiredSessions(sessionDirectory, 60_000L);
+                    assertEquals(1, Verify.verifyNotNull(sessionDirectory.listFiles()).length);
+                    touched = true;
+                } else if (resultNums.size() >= 14 && !expired) {
+                    // Once the session has expired, the next transaction sorts again and skips what was returned.
+                    FileSortCursor.deleteExpiredSessions(sessionDirectory, -1L);
+                    expired = true;
+                }
+                try (FDBRecordContext context = openContext()) {
+                    openSimpleRecordStore(context);
+                    try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(adapter, scanRecords, timer, continuation, 0, Integer.MAX_VALUE)) {
+                        for (int i = 0; i < 7; i++) {
+                            RecordCursorResult<FDBQueriedRecord<Message>> result = cursor.getNext();
+                            continuation = result.getContinuation().toBytes();
+                            if (!result.hasNext()) {
+                                break;
+                            }
+                            int num2 = TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(result.get().getRecord()).getNumValue2();
+                            resultNums.add(num2);
+                        }
+                    }
+                }
+            } while (continuation != null);
+            assertTrue(expired);
+            assertEquals(sortedNums, resultNums);
+            assertEquals(1, timer.getCount(SortEvents.Counts.FILE_SORT_SESSION_RESTART));
+            assertEquals(0, Verify.verifyNotNull(sessionDirectory.listFiles()).length);
+        } finally {
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, -1L);
+            Files.deleteIfExists(sessionDirectory.toPath());
+        }
+    }
+
+    @Test
+    public void fileSortSessionKeyDropped() throws Exception {
+        final Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords =
+                continuation -> {
+                    final ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setScannedRecordsLimit(20).build();
+                    return recordStore.scanRecords(null, null, EndpointType.TREE_START, EndpointType.TREE_END, continuation, new ScanProperties(executeProperties)).map(FDBQueriedRecord::stored);
+                };
+        final File sessionDirectory = Files.createTempDirectory("fdb-sort").toFile();
+        try {
+            // A session that expires is deleted along with its key.
+            File session = startEncryptedSession(scanRecords, sessionDirectory);
+            assertTrue(FileSortCursor.hasSessionKey(session.getName()));
+            assertTrue(session.setLastModified(System.currentTimeMillis() - 3_600_000L));
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, 60_000L);
+            assertFalse(session.exists());
+            assertFalse(FileSortCursor.hasSessionKey(session.getName()));
+
+            // The key of a session whose directory was deleted some other way is dropped by the next cleanup.
+            session = startEncryptedSession(scanRecords, sessionDirectory);
+            assertTrue(FileSortCursor.hasSessionKey(session.getName()));
+            for (File file : Verify.verifyNotNull(session.listFiles())) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(session.toPath());
+            assertTrue(FileSortCursor.hasSessionKey(session.getName()));
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, 60_000L);
+            assertFalse(FileSortCursor.hasSessionKey(session.getName()));
+        } finally {
+            FileSortCursor.deleteExpiredSessions(sessionDirectory, -1L);
+            Files.deleteIfExists(sessionDirectory.toPath());
+        }
+    }
+
+    // Start a sort whose loading stops, so that it saves files in a new session, and return the session's directory.
+    private File startEncryptedSession(@Nonnull Function<byte[], RecordCursor<FDBQueriedRecord<Message>>> scanRecords,
+                                       @Nonnull File sessionDirectory) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = FileSortCursor.create(fileSortEncryptedAdapter(sessionDirectory), scanRecords, timer, null, 0, Integer.MAX_VALUE)) {
+                assertFalse(cursor.getNext().hasNext());
+            }
+        }
+        final File[] sessions = Verify.verifyNotNull(sessionDirectory.listFiles(File::isDirectory));
+        assertEquals(1, sessions.length);
+        return sessions[0];
+    }
 }
@@ -61,6 +61,9 @@ import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import static com.apple.foundationdb.record.TestHelpers.assertDiscardedAtMost;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
@@ -378,6 +381,74 @@ public class UnionIntersectionTest extends FDBRecordStoreTestBase {
         }
     }
 
+    /**
+     * Intersect a small range of records with a large index scan that can seek to the records' primary keys instead
+     * of reading every entry before them.
+     */
+    @ParameterizedTest(name = "intersectionWithSeek [limit = {0}]")
+    @ValueSource(ints = {0, 2})
+    public void intersectionWithSeek(int limit) throws Exception {
+        final ScanProperties scanProperties = ScanProperties.FORWARD_SCAN;
+        final Tuple prefix = Tuple.from("even");
+        timer.reset();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final Index strValueIndex = recordStore.getRecordMetaData().getIndex("MySimpleRecord$str_value_indexed");
+            final List<Function<byte[], RecordCursor<Tuple>>> cursorFunctions = Arrays.asList(
+                    continuation -> scanRecordsBetween(90L, null, continuation).map(FDBStoredRecord::getPrimaryKey),
+                    continuation -> recordStore.scanIndex(strValueIndex, IndexScanType.BY_VALUE, TupleRange.allOf(prefix), continuation, scanProperties)
+                            .map(IndexEntry::getPrimaryKey));
+            final List<Function<List<Object>, RecordCursor<Tuple>>> seekFunctions = Arrays.asList(
+                    null,
+                    key -> recordStore.scanIndex(strValueIndex, IndexScanType.BY_VALUE,
+                                    new TupleRange(prefix.addAll(key), prefix, EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_INCLUSIVE), null, scanProperties)
+                            .map(IndexEntry::getPrimaryKey));
+            final List<Long> recNos = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                try (RecordCursor<Tuple> cursor = IntersectionCursor.create(Tuple::getItems, false, cursorFunctions, seekFunctions, continuation, timer)
+                        .limitRowsTo(limit)) {
+                    RecordCursorResult<Tuple> result;
+                    while ((result = cursor.getNext()).hasNext()) {
+                        recNos.add(result.get().getLong(0));
+                    }
+                    continuation = result.getContinuation().toBytes();
+                }
+            } while (continuation != null);
+            assertEquals(Arrays.asList(90L, 92L, 94L, 96L, 98L), recNos);
+            assertThat(timer.getCount(FDBStoreTimer.Counts.QUERY_INTERSECTION_SEEK), greaterThan(0));
+            // Without seeking, the 45 index entries before the first record would all be read.
+            assertThat(timer.getCount(FDBStoreTimer.Counts.LOAD_INDEX_KEY), lessThan(30));
+        }
+    }
+
+    @ParameterizedTest(name = "unionWithMaxConcurrentChildren [maxConcurrentChildren = {0}]")
+    @ValueSource(ints = {1, 2})
+    public void unionWithMaxConcurrentChildren(int maxConcurrentChildren) throws Exception {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final List<Function<byte[], RecordCursor<FDBStoredRecord<Message>>>> cursorFunctions = Arrays.asList(
+                continuation -> scanRecordsBetween(null, 40L, continuation),
+                continuation -> scanRecordsBetween(20L, 60L, continuation),
+                continuation -> scanRecordsBetween(50L, null, continuation));
+        final List<Long> recNos = new ArrayList<>();
+        byte[] continuation = null;
+        do {
+            try (FDBRecordContext context = openContext()) {
+                openSimpleRecordStore(context);
+                try (RecordCursor<Long> cursor = UnionCursor.create((FDBStoredRecord<Message> rec) -> rec.getPrimaryKey().getItems(),
+                        false, cursorFunctions, continuation, timer, maxConcurrentChildren).limitRowsTo(15).map(this::storedRecordRecNo)) {
+                    RecordCursorResult<Long> result;
+                    while ((result = cursor.getNext()).hasNext()) {
+                        recNos.add(result.get());
+                    }
+                    continuation = result.getContinuation().toBytes();
+                }
+            }
+        } while (continuation != null);
+        assertEquals(LongStream.range(0, 100).boxed().collect(Collectors.toList()), recNos);
+        assertThat(timer.getCount(FDBStoreTimer.Counts.UNION_CHILD_DEFERRED), greaterThan(0));
+    }
+
     private RecordCursor<FDBStoredRecord<Message>> scanRecordsBetween(Long start, Long end, byte[] continuation) {
         return recordStore.scanRecords(
                 start == null ? null : Tuple.from(start),
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb.cursors;
 
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorIterator;
@@ -32,14 +33,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -252,6 +256,97 @@ public class UnorderedUnionCursorTest {
         assertEquals(elems.stream().flatMap(List::stream).collect(Collectors.toSet()), new HashSet<>(results));
     }
 
+    @Test
+    public void maxConcurrentChildren() {
+        final List<FirableCursor<Integer>> cursors = Arrays.asList(
+                new FirableCursor<>(RecordCursor.fromList(Arrays.asList(0, 100, 200))),
+                new FirableCursor<>(RecordCursor.fromList(Arrays.asList(401, 201, 1))),
+                new FirableCursor<>(RecordCursor.fromList(Arrays.asList(2, 302, 102)))
+        );
+        // Children given a permit when another one is exhausted are opened on the executor.
+        final List<Integer> opened = Collections.synchronizedList(new ArrayList<>());
+        final List<Function<byte[], RecordCursor<Integer>>> cursorFunctions = new ArrayList<>();
+        for (int i = 0; i < cursors.size(); i++) {
+            final int index = i;
+            cursorFunctions.add(ignore -> {
+                opened.add(index);
+                return cursors.get(index);
+            });
+        }
+        final RecordCursorIterator<Integer> cursor = UnorderedUnionCursor.create(cursorFunctions, null, null, 2).asIterator();
+        assertEquals(Arrays.asList(0, 1), opened);
+
+        // The third child is not opened until one of the others is exhausted.
+        cursors.get(1).fireAll();
+        assertEquals(Arrays.asList(401, 201, 1), Arrays.asList(cursor.next(), cursor.next(), cursor.next()));
+        final CompletableFuture<Boolean> hasNextFuture = cursor.onHasNext();
+        assertFalse(hasNextFuture.isDone());
+        cursors.get(2).fireAll();
+        assertThat(hasNextFuture.join(), is(true));
+        assertEquals(Arrays.asList(0, 1, 2), opened);
+        assertEquals(Arrays.asList(2, 302, 102), Arrays.asList(cursor.next(), cursor.next(), cursor.next()));
+        cursors.get(0).fireAll();
+        assertEquals(Arrays.asList(0, 100, 200), Arrays.asList(cursor.next(), cursor.next(), cursor.next()));
+        assertThat(cursor.hasNext(), is(false));
+        assertThat(cursor.getNoNextReason().isSourceExhausted(), is(true));
+
+        assertThrows(RecordCoreArgumentException.class, () -> UnorderedUnionCursor.create(functionsFromLists(
+                Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5, 6))), null, null, -1));
+    }
+
+    @Test
+    public void closeWhilePermitHandedOver() {
+        // Permits are handed over on this executor only when the test runs its tasks.
+        final Deque<Runnable> tasks = new ArrayDeque<>();
+        final Executor executor = tasks::add;
+        final ChildCursorLimiter limiter = new ChildCursorLimiter(1, true, null);
+        final List<Function<byte[], RecordCursor<Integer>>> limited = limiter.limit(Arrays.asList(
+                continuation -> RecordCursor.fromList(executor, Collections.singletonList(1), continuation),
+                continuation -> RecordCursor.fromList(executor, Collections.singletonList(2), continuation)));
+        final RecordCursor<Integer> first = limited.get(0).apply(null);
+        final RecordCursor<Integer> second = limited.get(1).apply(null);
+        final CompletableFuture<RecordCursorResult<Integer>> secondNext = second.onNext();
+        assertFalse(secondNext.isDone());
+
+        assertEquals(1, (int)first.onNext().join().get());
+        assertThat(first.onNext().join().hasNext(), is(false));
+        // The exhausted child's permit goes to the waiting child, but not from within the first child's read.
+        assertEquals(1, tasks.size());
+        assertFalse(secondNext.isDone());
+
+        // Closing the child before the hand-over runs gives the permit back.
+        second.close();
+        assertThat(secondNext.isCompletedExceptionally(), is(true));
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+        assertThat(limiter.tryAcquire(), is(true));
+        first.close();
+    }
+
+    @ValueSource(ints = {1, 3, 5})
+    @ParameterizedTest(name = "maxConcurrentChildrenContinuation() [limit = {0}]")
+    public void maxConcurrentChildrenContinuation(int limit) {
+        final List<List<Integer>> elems = Arrays.asList(
+                Arrays.asList(0, 3, 5),
+                Arrays.asList(6, 4, 1),
+                Arrays.asList(2, 8, 7),
+                Arrays.asList(9, 10)
+        );
+        byte[] continuation = null;
+        boolean done = false;
+        List<Integer> results = new ArrayList<>();
+        while (!done) {
+            RecordCursor<Integer> cursor = UnorderedUnionCursor.create(functionsFromLists(elems), continuation, null, 2).limitRowsTo(limit);
+            cursor.forEach(results::add).join();
+            RecordCursorResult<Integer> noNextResult = cursor.getNext();
+            continuation = noNextResult.getContinuation().toBytes();
+            done = noNextResult.getNoNextReason().isSourceExhausted();
+        }
+        assertEquals(elems.stream().mapToInt(List::size).sum(), results.size());
+        assertEquals(elems.stream().flatMap(List::stream).collect(Collectors.toSet()), new HashSet<>(results));
+    }
+
     @Test
     public void errorInChild() {
         CompletableFuture<Integer> future = new CompletableFuture<>();
@@ -131,6 +131,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -609,6 +610,54 @@ public class VersionIndexTest {
         }
     }
 
+    @ParameterizedTest(name = "loadWithVersionedRecordCache [formatVersion = {0}, splitLongRecords = {1}]")
+    @MethodSource("formatVersionArguments")
+    public void loadWithVersionedRecordCache(int testFormatVersion, boolean testSplitLongRecords) {
+        formatVersion = testFormatVersion;
+        splitLongRecords = testSplitLongRecords;
+        fdb.setVersionedRecordCacheSize(10);
+        MySimpleRecord record1 = MySimpleRecord.newBuilder().setRecNo(1066L).setNumValue2(42).build();
+        try (FDBRecordContext context = openContext(simpleVersionHook)) {
+            recordStore.saveRecord(record1);
+            context.commit();
+        }
+
+        FDBStoredRecord<Message> loaded;
+        try (FDBRecordContext context = openContext(simpleVersionHook)) {
+            loaded = recordStore.loadRecord(Tuple.from(1066L));
+            assertNotNull(loaded);
+            assertEquals(1, context.getTimer().getCount(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_MISS));
+            context.commit();
+        }
+
+        try (FDBRecordContext context = openContext(simpleVersionHook)) {
+            assertSame(loaded, recordStore.loadRecord(Tuple.from(1066L)));
+            assertEquals(1, context.getTimer().getCount(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_HIT));
+
+            // Saving the record changes its version, so the cached copy is no longer returned
+            MySimpleRecord record2 = record1.toBuilder().setNumValue2(43).build();
+            recordStore.saveRecord(record2);
+            FDBStoredRecord<Message> reloaded = recordStore.loadRecord(Tuple.from(1066L));
+            assertNotNull(reloaded);
+            assertEquals(record2, reloaded.getRecord());
+            assertEquals(1, context.getTimer().getCount(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_STALE));
+            context.commit();
+        }
+
+        try (FDBRecordContext context = openContext(simpleVersionHook)) {
+            loaded = recordStore.loadRecord(Tuple.from(1066L));
+            assertNotNull(loaded);
+            assertEquals(43, MySimpleRecord.newBuilder().mergeFrom(loaded.getRecord()).getNumValue2());
+            assertEquals(1, context.getTimer().getCount(FDBStoreTimer.Counts.VERSIONED_RECORD_CACHE_MISS));
+            assertSame(loaded, recordStore.loadRecord(Tuple.from(1066L)));
+
+            assertTrue(recordStore.deleteRecord(Tuple.from(1066L)));
+            assertNull(recordStore.loadRecord(Tuple.from(1066L)));
+            context.commit();
+        }
+        assertEquals(0, fdb.getVersionedRecordCache().size());
+    }
+
     @ParameterizedTest(name = "saveLoadWithFunctionVersion [" + ARGUMENTS_PLACEHOLDER + "]")
     @MethodSource("formatVersionArgumentsWithRemoteFetch")
     @SuppressWarnings("try")
@@ -29,6 +29,7 @@ import com.apple.foundationdb.record.metadata.IndexTypes;
 import com.apple.foundationdb.record.metadata.RecordTypeBuilder;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexScanComparisons;
 import com.apple.foundationdb.record.provider.foundationdb.IndexScanParameters;
 import com.apple.foundationdb.record.query.RecordQuery;
@@ -54,7 +55,9 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import static com.apple.foundationdb.record.ExecuteProperties.newBuilder;
@@ -181,6 +184,55 @@ public class FDBAndQueryToIntersectionTest extends FDBRecordStoreQueryTestBase {
         }
     }
 
+    /**
+     * Verify that an intersection of a selective index scan with a much less selective one repositions the less
+     * selective scan at the next matching primary key instead of reading all of the entries before it.
+     */
+    @ParameterizedTest
+    @BooleanSource
+    public void intersectionSeeksPastNonMatches(boolean shouldDeferFetch) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            for (int i = 0; i < 100; i++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setStrValueIndexed((i & 1) == 1 ? "odd" : "even")
+                        .setNumValue3Indexed(i >= 90 ? 1 : 0)
+                        .build());
+            }
+            commit(context);
+        }
+        RecordQuery query = RecordQuery.newBuilder()
+                .setRecordType("MySimpleRecord")
+                .setFilter(Query.and(
+                        Query.field("str_value_indexed").equalsValue("even"),
+                        Query.field("num_value_3_indexed").equalsValue(1)))
+                .build();
+
+        setDeferFetchAfterUnionAndIntersection(shouldDeferFetch);
+        RecordQueryPlan plan = planQuery(query);
+        assertThat(plan, descendant(intersection(
+                descendant(indexScan(indexName("MySimpleRecord$str_value_indexed"))),
+                descendant(indexScan(indexName("MySimpleRecord$num_value_3_indexed"))))));
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            timer.reset();
+            final List<Long> recNos = new ArrayList<>();
+            try (RecordCursorIterator<FDBQueriedRecord<Message>> cursor = executeQuery(plan)) {
+                while (cursor.hasNext()) {
+                    recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder()
+                            .mergeFrom(Objects.requireNonNull(cursor.next()).getRecord())
+                            .getRecNo());
+                }
+            }
+            assertEquals(Arrays.asList(90L, 92L, 94L, 96L, 98L), recNos);
+            assertThat(timer.getCount(FDBStoreTimer.Counts.QUERY_INTERSECTION_SEEK), greaterThanOrEqualTo(1));
+            // Without seeking, the 45 "even" entries before the first match would all be read.
+            assertThat(timer.getCount(FDBStoreTimer.Counts.LOAD_INDEX_KEY), lessThanOrEqualTo(30));
+        }
+    }
+
     /**
      * Verify that a complex query with an AND of fields with compatibly ordered indexes generates an intersection plan.
      */